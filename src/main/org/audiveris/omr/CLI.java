@@ -122,6 +122,46 @@ public class CLI
 
     //~ Methods ------------------------------------------------------------------------------------
 
+    //----------------//
+    // checkJobParams //
+    //----------------//
+    /**
+     * Check that the parameters of a daemon job contain no option that applies to the whole
+     * daemon.
+     *
+     * @throws CmdLineException if such option is found
+     */
+    public void checkJobParams ()
+        throws CmdLineException
+    {
+        final List<String> found = new ArrayList<>();
+
+        if (params.helpMode) {
+            found.add("-help");
+        }
+
+        if (params.daemonMode || (params.watchFolder != null) || (params.port != null)) {
+            found.add("-daemon");
+        }
+
+        if (params.options != null) {
+            found.add("-option");
+        }
+
+        if (params.save) {
+            found.add("-save");
+        }
+
+        if (params.swap) {
+            found.add("-swap");
+        }
+
+        if (!found.isEmpty()) {
+            String msg = "Options " + found + " apply to the whole daemon, not to a job";
+            throw new CmdLineException(parser, msg);
+        }
+    }
+
     //-------------//
     // checkParams //
     //-------------//
@@ -137,6 +177,18 @@ public class CLI
 
             params.step = OmrStep.last();
         }
+
+        if (params.daemonMode) {
+            if ((params.watchFolder == null) && (params.port == null)) {
+                String msg = "'-daemon' option needs '-watch' and/or '-port' option";
+                throw new CmdLineException(parser, msg);
+            }
+
+            params.batchMode = true;
+        } else if ((params.watchFolder != null) || (params.port != null)) {
+            String msg = "'-watch' and '-port' options need '-daemon' option";
+            throw new CmdLineException(parser, msg);
+        }
     }
 
     //-------------//
@@ -214,6 +266,32 @@ public class CLI
         return params.playListPath;
     }
 
+    //---------//
+    // getPort //
+    //---------//
+    /**
+     * Report the local port listened to by daemon if present on CLI
+     *
+     * @return the daemon port, or null
+     */
+    public Integer getPort ()
+    {
+        return params.port;
+    }
+
+    //----------------//
+    // getWatchFolder //
+    //----------------//
+    /**
+     * Report the folder watched by daemon if present on CLI
+     *
+     * @return the daemon job folder, or null
+     */
+    public Path getWatchFolder ()
+    {
+        return params.watchFolder;
+    }
+
     //-------------//
     // isBatchMode //
     //-------------//
@@ -227,6 +305,19 @@ public class CLI
         return params.batchMode;
     }
 
+    //--------------//
+    // isDaemonMode //
+    //--------------//
+    /**
+     * Report whether we are running as a daemon (batch mode, processing a flow of jobs).
+     *
+     * @return true for daemon mode
+     */
+    public boolean isDaemonMode ()
+    {
+        return params.daemonMode;
+    }
+
     //------------//
     // isHelpMode //
     //------------//
@@ -346,6 +437,11 @@ public class CLI
         parser.printUsage(writer, null);
         buf.append(writer.toString());
 
+        buf.append("\nDaemon jobs:");
+        buf.append("\n    Same options and input files, one item per line");
+        buf.append("\n    in a .job file of watched folder, or on the local port");
+        buf.append("\n");
+
         buf.append("\nInput file extensions:");
         buf.append("\n    .omr        : book file  (input/output)");
         buf.append("\n    [any other] : image file (input)");
@@ -629,6 +725,18 @@ public class CLI
         @Option(name = "-batch", usage = "Run with no graphic user interface")
         boolean batchMode;
 
+        /** Daemon mode. */
+        @Option(name = "-daemon", usage = "Run in batch, processing a flow of jobs")
+        boolean daemonMode;
+
+        /** Folder watched by daemon for job files. */
+        @Option(name = "-watch", usage = "In daemon, watch folder for .job files", metaVar = "<job-folder>")
+        Path watchFolder;
+
+        /** Local port listened to by daemon for jobs. */
+        @Option(name = "-port", usage = "In daemon, listen to jobs on local port", metaVar = "<port>")
+        Integer port;
+
         /** The set of sheet IDs to load. */
         @Option(name = "-sheets", usage = "Select sheet numbers and ranges (1 4-5)", handler = IntArrayOptionHandler.class)
         private ArrayList<Integer> sheets;
@@ -73,6 +73,9 @@ public class Main
     /** CLI parameters. */
     private static CLI cli;
 
+    /** CLI parameters of the daemon job being processed by current thread, if any. */
+    private static final ThreadLocal<CLI> jobCli = new ThreadLocal<>();
+
     //~ Constructors -------------------------------------------------------------------------------
 
     private Main ()
@@ -100,13 +103,17 @@ public class Main
     // getCli //
     //--------//
     /**
-     * Points to the command line interface parameters
+     * Points to the command line interface parameters.
+     * <p>
+     * Within a daemon job thread, these are the parameters of the job.
      *
      * @return CLI instance
      */
     public static CLI getCli ()
     {
-        return cli;
+        final CLI job = jobCli.get();
+
+        return (job != null) ? job : cli;
     }
 
     //-----------//
@@ -239,7 +246,7 @@ public class Main
             Application.launch(MainGui.class, args);
         } else {
             ///System.setProperty("java.awt.headless", "true"); //TODO: Useful?
-            logger.info("Running in batch mode");
+            logger.info("Running in {} mode", cli.isDaemonMode() ? "daemon" : "batch");
 
             // Perhaps time to check for a new release?
             // Fix for issue #562: Disable this check when running in batch mode.
@@ -251,10 +258,18 @@ public class Main
             // Run the required tasks, if any (and remember if at least one task failed)
             boolean failure = runBatchTasks();
 
+            // Daemon: process the flow of jobs, until stopped
+            if (cli.isDaemonMode()) {
+                new OmrDaemon(cli).run();
+            }
+
             // At this point all tasks have completed (except timeout...)
             // So shutdown gracefully the executors
             boolean timeout = !OmrExecutors.shutdown();
 
+            // End the Tesseract engines still idle
+            TesseractOCR.getInstance().shutdown();
+
             // Save global sample repository if modified
             if (SampleRepository.hasInstance()) {
                 SampleRepository repository = SampleRepository.getGlobalInstance(false);
@@ -373,6 +388,23 @@ public class Main
         return failure;
     }
 
+    //-----------//
+    // setJobCli //
+    //-----------//
+    /**
+     * Set (or reset) the CLI parameters of the daemon job processed by current thread.
+     *
+     * @param job the job CLI, or null
+     */
+    static void setJobCli (CLI job)
+    {
+        if (job != null) {
+            jobCli.set(job);
+        } else {
+            jobCli.remove();
+        }
+    }
+
     //-----------//
     // setLocale //
     //-----------//
@@ -0,0 +1,931 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                        O m r D a e m o n                                       //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import org.audiveris.omr.CLI.CliTask;
+import org.audiveris.omr.classifier.ShapeClassifier;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.image.TemplateFactory;
+import org.audiveris.omr.score.PartwiseBuilder;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.util.FileUtil;
+
+import org.kohsuke.args4j.CmdLineException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.bind.JAXBException;
+
+/**
+ * Class <code>OmrDaemon</code> keeps the OMR engine warm, to process a flow of jobs.
+ * <p>
+ * A plain batch run pays JVM startup, JAXB contexts creation, classifier loading, etc. before
+ * processing its first page.
+ * The daemon pays these costs once, and then processes jobs as they arrive:
+ * <ul>
+ * <li>from a <b>watched folder</b> (-watch option): any file with ".job" extension,
+ * <li>from a <b>local port</b> (-port option), bound to the loopback address.
+ * </ul>
+ * A job is a sequence of CLI items (options and input files), one item per line, as in a
+ * '&#64;' file.
+ * A ".job" file should be written under another name and then renamed, so that it is complete
+ * when picked up.
+ * On the port, items are read until an empty line or the end of input.
+ * <p>
+ * Option -output is honored per job, but options that apply to the whole JVM (-option, -save,
+ * -swap) must be set on the daemon command line.
+ * <p>
+ * At most <code>maxJobs</code> jobs are processed concurrently, the others are queued.
+ * The status and timings of each job are logged, written to a ".status" file for a watched job,
+ * and sent back on the connection for a port job.
+ * <p>
+ * The special items "#status" and "#stop" respectively report the status of recent jobs and stop
+ * the daemon once the pending jobs are completed.
+ *
+ * @author Hervé Bitteur
+ */
+public class OmrDaemon
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(OmrDaemon.class);
+
+    /** Extension of job files. */
+    public static final String JOB_EXTENSION = ".job";
+
+    /** Extension of job status files. */
+    public static final String STATUS_EXTENSION = ".status";
+
+    /** Command to report the status of recent jobs. */
+    public static final String STATUS_COMMAND = "#status";
+
+    /** Command to stop the daemon. */
+    public static final String STOP_COMMAND = "#stop";
+
+    //~ Enumerations -------------------------------------------------------------------------------
+
+    /** Status of a job. */
+    public static enum JobStatus
+    {
+        /** Job waiting for a processing slot. */
+        QUEUED,
+        /** Job being processed. */
+        RUNNING,
+        /** Job processed, with no failure. */
+        SUCCEEDED,
+        /** Job processed, with at least one failed task. */
+        FAILED,
+        /** Job not accepted. */
+        REJECTED;
+    }
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Daemon command line. */
+    private final CLI cli;
+
+    /** Executor for jobs. Package private for tests. */
+    final ThreadPoolExecutor jobExecutor;
+
+    /** Executor for folder watching, port listening and port connections. */
+    private final ThreadPoolExecutor clientExecutor;
+
+    /** Recent jobs, in submission order. */
+    private final Map<Integer, Job> jobs = new LinkedHashMap<>();
+
+    /** Count of submitted jobs. */
+    private final AtomicInteger jobCount = new AtomicInteger();
+
+    /** Released when daemon is asked to stop. */
+    private final CountDownLatch stopRequested = new CountDownLatch(1);
+
+    /** Folder watcher, if any. */
+    private volatile WatchService watchService;
+
+    /** Port listener, if any. */
+    private volatile ServerSocket serverSocket;
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    /**
+     * Creates a new <code>OmrDaemon</code> object.
+     *
+     * @param cli the daemon command line
+     */
+    public OmrDaemon (CLI cli)
+    {
+        this(cli, constants.maxJobs.getValue(), constants.maxConnections.getValue());
+    }
+
+    /**
+     * Creates a new <code>OmrDaemon</code> object, with specific limits.
+     *
+     * @param cli            the daemon command line
+     * @param maxJobs        maximum number of jobs processed concurrently
+     * @param maxConnections maximum number of port connections read concurrently
+     */
+    OmrDaemon (CLI cli,
+               int maxJobs,
+               int maxConnections)
+    {
+        this.cli = cli;
+
+        final int jobThreads = Math.max(1, maxJobs);
+        final AtomicInteger threadNumber = new AtomicInteger(0);
+        jobExecutor = new ThreadPoolExecutor(
+                jobThreads,
+                jobThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                (Runnable r) -> new Thread(r, "job-thread-" + threadNumber.incrementAndGet()));
+
+        // Beside the connections, one thread for folder watching and one for port listening
+        final int maxClients = Math.max(1, maxConnections) + 2;
+        clientExecutor = new ThreadPoolExecutor(
+                0,
+                maxClients,
+                60L,
+                TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                (Runnable r) ->
+        {
+            // A pending connection must not prevent JVM exit
+            final Thread t = new Thread(r, "daemon-client-thread");
+            t.setDaemon(true);
+
+            return t;
+        });
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //-------//
+    // close //
+    //-------//
+    /**
+     * Close a port connection.
+     *
+     * @param socket the connection socket
+     */
+    private void close (Socket socket)
+    {
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            logger.debug("Error closing daemon connection {}", ex.toString());
+        }
+    }
+
+    //---------//
+    // command //
+    //---------//
+    /**
+     * Process a daemon command.
+     *
+     * @param command the command item
+     * @return the command report
+     */
+    private String command (String command)
+    {
+        return switch (command) {
+            case STATUS_COMMAND -> getStatusReport();
+            case STOP_COMMAND -> {
+                stop();
+                yield "Daemon stopping";
+            }
+            default -> "Unknown command " + command;
+        };
+    }
+
+    //-----------------//
+    // getStatusReport //
+    //-----------------//
+    /**
+     * Report the status of recent jobs, one line per job.
+     *
+     * @return the status report
+     */
+    private String getStatusReport ()
+    {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("Daemon jobs submitted:").append(jobCount.get());
+        sb.append(" running:").append(jobExecutor.getActiveCount());
+        sb.append(" queued:").append(jobExecutor.getQueue().size());
+
+        synchronized (jobs) {
+            for (Job job : jobs.values()) {
+                sb.append(System.lineSeparator()).append(job);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    //--------//
+    // listen //
+    //--------//
+    /**
+     * Accept connections on the daemon port, until the daemon is stopped.
+     */
+    private void listen ()
+    {
+        try {
+            while (true) {
+                final Socket socket = serverSocket.accept();
+
+                try {
+                    clientExecutor.execute(() -> serve(socket));
+                } catch (RejectedExecutionException ex) {
+                    logger.warn("Daemon too many connections, closing {}", socket);
+                    socket.close();
+                }
+            }
+        } catch (IOException ex) {
+            if (stopRequested.getCount() > 0) {
+                logger.warn("Daemon port listening failed {}", ex.toString(), ex);
+            }
+        }
+    }
+
+    //----------//
+    // openPort //
+    //----------//
+    /**
+     * Open the daemon port on loopback address, and start listening to connections.
+     *
+     * @param port the desired port, 0 for any free port
+     * @return the actual port
+     * @throws IOException if port cannot be opened
+     */
+    int openPort (int port)
+        throws IOException
+    {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        clientExecutor.execute(this::listen);
+
+        return serverSocket.getLocalPort();
+    }
+
+    //---------//
+    // preload //
+    //---------//
+    /**
+     * Warm up the costly parts of the engine, before the first job.
+     * <p>
+     * This also avoids concurrent jobs racing on lazy initializations.
+     */
+    private void preload ()
+    {
+        final long start = System.currentTimeMillis();
+
+        try {
+            Book.getJaxbContext();
+            Sheet.getJaxbContext();
+        } catch (JAXBException ex) {
+            logger.warn("Error preloading JAXB contexts {}", ex.toString(), ex);
+        }
+
+        PartwiseBuilder.preload();
+        ShapeClassifier.preload();
+        TemplateFactory.getInstance();
+
+        logger.info("Daemon preloaded in {} ms", System.currentTimeMillis() - start);
+    }
+
+    //----------//
+    // register //
+    //----------//
+    /**
+     * Register a new job, forgetting the oldest finished jobs beyond history size.
+     *
+     * @param job the new job
+     */
+    private void register (Job job)
+    {
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+
+            int excess = jobs.size() - constants.jobHistory.getValue();
+
+            for (Iterator<Job> it = jobs.values().iterator(); it.hasNext() && (excess > 0);) {
+                if (it.next().isFinished()) {
+                    it.remove();
+                    excess--;
+                }
+            }
+        }
+    }
+
+    //--------//
+    // reject //
+    //--------//
+    private void reject (Job job,
+                         String message)
+    {
+        job.finish(JobStatus.REJECTED, message);
+        report(job);
+    }
+
+    //--------//
+    // report //
+    //--------//
+    /**
+     * Report the current status of a job, in log and in job status file if any.
+     *
+     * @param job the job to report
+     */
+    private void report (Job job)
+    {
+        logger.info("{}", job);
+
+        if (job.statusPath != null) {
+            writeStatus(job.statusPath, job.describe());
+        }
+    }
+
+    //-----//
+    // run //
+    //-----//
+    /**
+     * Run the daemon, until it is stopped.
+     */
+    public void run ()
+    {
+        preload();
+
+        final Path folder = cli.getWatchFolder();
+
+        if (folder != null) {
+            try {
+                Files.createDirectories(folder);
+                watchService = folder.getFileSystem().newWatchService();
+                folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+                clientExecutor.execute(() -> watch(folder));
+                logger.info("Daemon watching folder {}", folder.toAbsolutePath());
+            } catch (IOException ex) {
+                logger.warn("Daemon cannot watch folder {} {}", folder, ex.toString(), ex);
+                watchService = null;
+            }
+        }
+
+        final Integer port = cli.getPort();
+
+        if (port != null) {
+            try {
+                logger.info("Daemon listening on port {}", openPort(port));
+            } catch (IOException ex) {
+                logger.warn("Daemon cannot listen on port {} {}", port, ex.toString(), ex);
+                serverSocket = null;
+            }
+        }
+
+        if ((watchService == null) && (serverSocket == null)) {
+            logger.warn("Daemon has no job source, exiting");
+            stop();
+        }
+
+        try {
+            stopRequested.await();
+            jobExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            logger.warn("Daemon interrupted");
+            stop();
+            jobExecutor.shutdownNow();
+        }
+
+        clientExecutor.shutdownNow();
+        logger.info("Daemon stopped after {} job(s)", jobCount.get());
+    }
+
+    //--------//
+    // runJob //
+    //--------//
+    /**
+     * Process all tasks of a job, on behalf of the job CLI.
+     *
+     * @param job the job to process
+     */
+    private void runJob (Job job)
+    {
+        job.start();
+        report(job);
+
+        final List<String> failures = new ArrayList<>();
+        JobStatus status = JobStatus.FAILED; // Unless completed
+        Main.setJobCli(job.cli);
+
+        try {
+            for (CliTask task : job.tasks) {
+                try {
+                    task.call();
+                } catch (Exception ex) {
+                    logger.warn("Job#{} exception on {}, {}", job.id, task.getRadix(), ex
+                            .toString(), ex);
+                    failures.add(task.getRadix() + ": " + ex);
+                }
+            }
+
+            status = failures.isEmpty() ? JobStatus.SUCCEEDED : JobStatus.FAILED;
+        } finally {
+            Main.setJobCli(null);
+            job.finish(status, String.join("; ", failures));
+            report(job);
+        }
+    }
+
+    //-------//
+    // serve //
+    //-------//
+    /**
+     * Serve one connection on daemon port: read one job or command, and reply.
+     * <p>
+     * The connection thread is released as soon as the job is submitted, the final reply is
+     * sent when the job finishes.
+     * Hence, pending jobs do not use connection threads, and commands like "#status" or "#stop"
+     * remain available while the daemon is busy.
+     *
+     * @param socket the connection socket
+     */
+    private void serve (Socket socket)
+    {
+        try {
+            // A silent client must not hold a connection thread forever
+            socket.setSoTimeout(1000 * constants.readTimeout.getValue());
+
+            final BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            final PrintWriter out = new PrintWriter(
+                    new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8),
+                    true);
+            final List<String> items = new ArrayList<>();
+            String line;
+
+            while (((line = in.readLine()) != null) && !line.trim().isEmpty()) {
+                items.add(line);
+            }
+
+            if (!items.isEmpty() && items.get(0).trim().startsWith("#")) {
+                out.println(command(items.get(0).trim()));
+                close(socket);
+
+                return;
+            }
+
+            final Job job = submit(items, null);
+            out.println(job);
+
+            job.whenFinished( () ->
+            {
+                if (job.status != JobStatus.REJECTED) {
+                    out.println(job);
+                }
+
+                close(socket);
+            });
+        } catch (SocketTimeoutException ex) {
+            logger.warn("Daemon connection timed out on {}", socket);
+            close(socket);
+        } catch (IOException ex) {
+            logger.warn("Daemon connection error {}", ex.toString(), ex);
+            close(socket);
+        }
+    }
+
+    //------//
+    // stop //
+    //------//
+    /**
+     * Stop the daemon: no more jobs are accepted, pending jobs are completed.
+     */
+    public void stop ()
+    {
+        if (stopRequested.getCount() == 0) {
+            return;
+        }
+
+        logger.info("Daemon stopping, {} job(s) pending", jobExecutor.getActiveCount()
+                + jobExecutor.getQueue().size());
+        stopRequested.countDown();
+        jobExecutor.shutdown();
+
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException ex) {
+            logger.warn("Error closing daemon job sources {}", ex.toString(), ex);
+        }
+    }
+
+    //--------//
+    // submit //
+    //--------//
+    /**
+     * Submit a job, made of CLI items.
+     *
+     * @param items      the job CLI items
+     * @param statusPath path to job status file, or null
+     * @return the job created, queued or rejected
+     */
+    private Job submit (List<String> items,
+                        Path statusPath)
+    {
+        final Job job = new Job(jobCount.incrementAndGet(), items, statusPath);
+        register(job);
+
+        if (stopRequested.getCount() == 0) {
+            reject(job, "Daemon is stopping");
+
+            return job;
+        }
+
+        try {
+            final CLI jobCli = new CLI(WellKnowns.TOOL_NAME);
+            jobCli.parseParameters(items.toArray(new String[items.size()]));
+            jobCli.checkJobParams();
+            job.cli = jobCli;
+            job.tasks = jobCli.getCliTasks();
+        } catch (CmdLineException ex) {
+            reject(job, ex.getMessage());
+
+            return job;
+        }
+
+        if (job.tasks.isEmpty()) {
+            reject(job, "Nothing to process");
+
+            return job;
+        }
+
+        report(job);
+
+        try {
+            jobExecutor.execute(() -> runJob(job));
+        } catch (RejectedExecutionException ex) {
+            reject(job, "Daemon is stopping");
+        }
+
+        return job;
+    }
+
+    //-------//
+    // watch //
+    //-------//
+    /**
+     * Pick up job files in watched folder, until the daemon is stopped.
+     *
+     * @param folder the watched folder
+     */
+    private void watch (Path folder)
+    {
+        // Job files already present
+        watchFiles(folder);
+
+        try {
+            while (true) {
+                final WatchKey key = watchService.take();
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        watchFiles(folder);
+                    } else {
+                        watchFile(folder.resolve((Path) event.context()));
+                    }
+                }
+
+                if (!key.reset()) {
+                    logger.warn("Daemon folder {} no longer watchable", folder);
+                    break;
+                }
+            }
+        } catch (ClosedWatchServiceException ex) {
+            logger.debug("Daemon folder watching closed");
+        } catch (InterruptedException ex) {
+            logger.debug("Daemon folder watching interrupted");
+        }
+    }
+
+    //-----------//
+    // watchFile //
+    //-----------//
+    /**
+     * Pick up a file of watched folder, if it is a job file.
+     * <p>
+     * The job file is consumed, its status is written in a sibling ".status" file.
+     *
+     * @param path the file path
+     */
+    private void watchFile (Path path)
+    {
+        final String name = path.getFileName().toString();
+
+        if (!name.endsWith(JOB_EXTENSION)) {
+            return;
+        }
+
+        final List<String> items;
+
+        try {
+            items = Files.readAllLines(path, StandardCharsets.UTF_8);
+            Files.delete(path);
+        } catch (NoSuchFileException ex) {
+            return; // Already picked up
+        } catch (IOException ex) {
+            logger.warn("Daemon cannot read job file {} {}", path, ex.toString(), ex);
+
+            return;
+        }
+
+        final Path statusPath = path.resolveSibling(
+                FileUtil.getNameSansExtension(path) + STATUS_EXTENSION);
+
+        if (!items.isEmpty() && items.get(0).trim().startsWith("#")) {
+            writeStatus(statusPath, command(items.get(0).trim()));
+        } else {
+            submit(items, statusPath);
+        }
+    }
+
+    //------------//
+    // watchFiles //
+    //------------//
+    /**
+     * Pick up all job files currently in watched folder.
+     *
+     * @param folder the watched folder
+     */
+    private void watchFiles (Path folder)
+    {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "*" + JOB_EXTENSION)) {
+            for (Path path : stream) {
+                watchFile(path);
+            }
+        } catch (IOException ex) {
+            logger.warn("Daemon cannot browse folder {} {}", folder, ex.toString(), ex);
+        }
+    }
+
+    //-------------//
+    // writeStatus //
+    //-------------//
+    /**
+     * Write a status file, via a temporary file so that it is never read half-written.
+     *
+     * @param statusPath path to status file
+     * @param content    status content
+     */
+    private void writeStatus (Path statusPath,
+                              String content)
+    {
+        try {
+            final Path tmp = statusPath.resolveSibling(statusPath.getFileName() + ".tmp");
+            Files.write(tmp, (content + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, statusPath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            logger.warn("Daemon cannot write status {} {}", statusPath, ex.toString(), ex);
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Integer maxJobs = new Constant.Integer(
+                "jobs",
+                2,
+                "Maximum number of jobs processed concurrently by daemon");
+
+        private final Constant.Integer jobHistory = new Constant.Integer(
+                "jobs",
+                100,
+                "Number of jobs kept by daemon for status report");
+
+        private final Constant.Integer maxConnections = new Constant.Integer(
+                "connections",
+                8,
+                "Maximum number of port connections read concurrently by daemon");
+
+        private final Constant.Integer readTimeout = new Constant.Integer(
+                "seconds",
+                30,
+                "Maximum time for daemon to wait for job items on a port connection");
+    }
+
+    //-----//
+    // Job //
+    //-----//
+    /**
+     * A job submitted to the daemon.
+     */
+    private static class Job
+    {
+
+        /** Job number. */
+        final int id;
+
+        /** Job CLI items. */
+        final List<String> items;
+
+        /** Path to job status file, if any. */
+        final Path statusPath;
+
+        /** Job CLI, once parsed. */
+        CLI cli;
+
+        /** Job tasks, once parsed. */
+        List<CliTask> tasks;
+
+        /** Current status. */
+        volatile JobStatus status = JobStatus.QUEUED;
+
+        /** Explanation for failure or rejection. */
+        volatile String message;
+
+        /** Time of submission. */
+        final long submitted = System.currentTimeMillis();
+
+        /** Time of processing start, or 0. */
+        volatile long started;
+
+        /** Time of processing end, or 0. */
+        volatile long finished;
+
+        /** Released when job is finished. */
+        final CountDownLatch done = new CountDownLatch(1);
+
+        /** Actions to run when job is finished. */
+        private final List<Runnable> finishActions = new ArrayList<>();
+
+        Job (int id,
+             List<String> items,
+             Path statusPath)
+        {
+            this.id = id;
+            this.items = items;
+            this.statusPath = statusPath;
+        }
+
+        /** Multi-line description, meant for status file. */
+        String describe ()
+        {
+            final String nl = System.lineSeparator();
+            final StringBuilder sb = new StringBuilder();
+            sb.append("job: ").append(id).append(nl);
+            sb.append("status: ").append(status).append(nl);
+            sb.append("items: ").append(items).append(nl);
+            sb.append("queued-ms: ").append(getQueuedTime()).append(nl);
+            sb.append("run-ms: ").append(getRunTime());
+
+            if ((message != null) && !message.isEmpty()) {
+                sb.append(nl).append("message: ").append(message);
+            }
+
+            return sb.toString();
+        }
+
+        void finish (JobStatus status,
+                     String message)
+        {
+            finished = System.currentTimeMillis();
+            this.message = message;
+            this.status = status;
+
+            final List<Runnable> actions;
+
+            synchronized (finishActions) {
+                done.countDown();
+                actions = new ArrayList<>(finishActions);
+                finishActions.clear();
+            }
+
+            actions.forEach(Runnable::run);
+        }
+
+        /** Time spent waiting for a processing slot, in milliseconds. */
+        long getQueuedTime ()
+        {
+            final long end = (started != 0) ? started
+                    : ((finished != 0) ? finished : System.currentTimeMillis());
+
+            return end - submitted;
+        }
+
+        /** Time spent in processing, in milliseconds. */
+        long getRunTime ()
+        {
+            if (started == 0) {
+                return 0;
+            }
+
+            return ((finished != 0) ? finished : System.currentTimeMillis()) - started;
+        }
+
+        boolean isFinished ()
+        {
+            return done.getCount() == 0;
+        }
+
+        void start ()
+        {
+            started = System.currentTimeMillis();
+            status = JobStatus.RUNNING;
+        }
+
+        /** Run the provided action when job is finished, immediately if already finished. */
+        void whenFinished (Runnable action)
+        {
+            synchronized (finishActions) {
+                if (!isFinished()) {
+                    finishActions.add(action);
+
+                    return;
+                }
+            }
+
+            action.run();
+        }
+
+        @Override
+        public String toString ()
+        {
+            final StringBuilder sb = new StringBuilder("Job#");
+            sb.append(id).append(' ').append(status);
+            sb.append(" queued:").append(getQueuedTime()).append("ms");
+            sb.append(" run:").append(getRunTime()).append("ms");
+            sb.append(' ').append(items);
+
+            if ((message != null) && !message.isEmpty()) {
+                sb.append(' ').append(message);
+            }
+
+            return sb.toString();
+        }
+    }
+}
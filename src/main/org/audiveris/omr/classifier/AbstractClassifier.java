@@ -162,39 +162,58 @@ public abstract class AbstractClassifier<M extends Object>
                                    EnumSet<Classifier.Condition> conditions,
                                    int interline)
     {
-        List<Evaluation> bests = new ArrayList<>();
-        Evaluation[] evals = getSortedEvaluations(glyph, interline);
+        return select(
+                glyph,
+                system,
+                getSortedEvaluations(glyph, interline),
+                count,
+                minGrade,
+                conditions);
+    }
 
-        EvalsLoop:
-        for (Evaluation eval : evals) {
-            // Bounding test?
-            if ((bests.size() >= count) || (eval.grade < minGrade)) {
-                break;
-            }
+    //----------//
+    // evaluate //
+    //----------//
+    @Override
+    public List<Evaluation[]> evaluate (List<Glyph> glyphs,
+                                        SystemInfo system,
+                                        int count,
+                                        double minGrade,
+                                        EnumSet<Classifier.Condition> conditions)
+    {
+        final int interline = system.getSheet().getInterline();
 
-            // Successful checks?
-            if ((conditions != null) && conditions.contains(Condition.CHECKED)) {
-                // This may change the eval shape in only one case:
-                // HW_REST_set may be changed for HALF_REST or WHOLE_REST based on pitch
-                glyphChecker.annotate(system, eval, glyph);
+        // Run the classifier at once on all glyphs big enough
+        final List<Glyph> bigs = new ArrayList<>(glyphs.size());
+        final boolean[] isBig = new boolean[glyphs.size()];
 
-                if (eval.failure != null) {
-                    continue;
-                }
+        for (int ig = 0; ig < isBig.length; ig++) {
+            final Glyph glyph = glyphs.get(ig);
+
+            if (isBig[ig] = isBigEnough(glyph, interline)) {
+                bigs.add(glyph);
             }
+        }
 
-            // Everything is OK, add the shape if not already in the list
-            // (this can happen when checks have modified the eval original shape)
-            for (Evaluation e : bests) {
-                if (e.shape == eval.shape) {
-                    continue EvalsLoop;
-                }
+        final Evaluation[][] naturals = getNaturalEvaluations(bigs, interline);
+        final List<Evaluation[]> results = new ArrayList<>(glyphs.size());
+        int ib = 0;
+
+        for (int ig = 0; ig < isBig.length; ig++) {
+            final Glyph glyph = glyphs.get(ig);
+            final Evaluation[] evals;
+
+            if (isBig[ig]) {
+                evals = naturals[ib++];
+                Arrays.sort(evals, Evaluation.byReverseGrade);
+            } else {
+                evals = noiseEvaluations;
             }
 
-            bests.add(eval);
+            results.add(select(glyph, system, evals, count, minGrade, conditions));
         }
 
-        return bests.toArray(new Evaluation[bests.size()]);
+        return results;
     }
 
     //---------------//
@@ -206,6 +225,27 @@ public abstract class AbstractClassifier<M extends Object>
         return descriptor;
     }
 
+    //-----------------------//
+    // getNaturalEvaluations //
+    //-----------------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This default implementation evaluates glyphs one after the other.
+     */
+    @Override
+    public Evaluation[][] getNaturalEvaluations (List<Glyph> glyphs,
+                                                 int interline)
+    {
+        final Evaluation[][] evals = new Evaluation[glyphs.size()][];
+
+        for (int ig = 0; ig < evals.length; ig++) {
+            evals[ig] = getNaturalEvaluations(glyphs.get(ig), interline);
+        }
+
+        return evals;
+    }
+
     //---------------//
     // getRawDataSet //
     //---------------//
@@ -462,6 +502,61 @@ public abstract class AbstractClassifier<M extends Object>
         throw new IllegalStateException("Norms were not found");
     }
 
+    //--------//
+    // select //
+    //--------//
+    /**
+     * Select the acceptable evaluations among the sorted evaluations of a glyph.
+     *
+     * @param glyph      the evaluated glyph
+     * @param system     the containing system, if any
+     * @param evals      the glyph evaluations, sorted from best to worst
+     * @param count      the desired maximum sequence length
+     * @param minGrade   the minimum evaluation grade to be acceptable
+     * @param conditions optional conditions, perhaps null or empty
+     * @return the acceptable evaluations, perhaps empty but not null
+     */
+    private Evaluation[] select (Glyph glyph,
+                                 SystemInfo system,
+                                 Evaluation[] evals,
+                                 int count,
+                                 double minGrade,
+                                 EnumSet<Classifier.Condition> conditions)
+    {
+        List<Evaluation> bests = new ArrayList<>();
+
+        EvalsLoop:
+        for (Evaluation eval : evals) {
+            // Bounding test?
+            if ((bests.size() >= count) || (eval.grade < minGrade)) {
+                break;
+            }
+
+            // Successful checks?
+            if ((conditions != null) && conditions.contains(Condition.CHECKED)) {
+                // This may change the eval shape in only one case:
+                // HW_REST_set may be changed for HALF_REST or WHOLE_REST based on pitch
+                glyphChecker.annotate(system, eval, glyph);
+
+                if (eval.failure != null) {
+                    continue;
+                }
+            }
+
+            // Everything is OK, add the shape if not already in the list
+            // (this can happen when checks have modified the eval original shape)
+            for (Evaluation e : bests) {
+                if (e.shape == eval.shape) {
+                    continue EvalsLoop;
+                }
+            }
+
+            bests.add(eval);
+        }
+
+        return bests.toArray(new Evaluation[bests.size()]);
+    }
+
     //-------//
     // store //
     //-------//
@@ -164,22 +164,56 @@ public class BasicClassifier
     public Evaluation[] getNaturalEvaluations (Glyph glyph,
                                                int interline)
     {
-        double[] ins = descriptor.getFeatures(glyph, interline);
-        final INDArray features = Nd4j.create(ins);
-        normalize(features);
+        return getNaturalEvaluations(Collections.singletonList(glyph), interline)[0];
+    }
+
+    //-----------------------//
+    // getNaturalEvaluations //
+    //-----------------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Features of all glyphs are normalized into one flat buffer, on which the network is run
+     * in a single batched pass.
+     */
+    @Override
+    public Evaluation[][] getNaturalEvaluations (List<Glyph> glyphs,
+                                                 int interline)
+    {
+        final int count = glyphs.size();
+        final int length = descriptor.length();
+        final double[] means = new double[length];
+        final double[] stds = new double[length];
+
+        for (int j = 0; j < length; j++) {
+            means[j] = norms.means.getDouble(j);
+            stds[j] = norms.stds.getDouble(j);
+        }
 
-        Shape[] values = Shape.values();
-        Evaluation[] evals = new Evaluation[SHAPE_COUNT];
+        // Normalized features, one row per glyph
+        final double[] ins = new double[count * length];
 
-        for (int i = 0; i < ins.length; i++) {
-            ins[i] = features.getDouble(i);
+        for (int ig = 0; ig < count; ig++) {
+            final double[] features = descriptor.getFeatures(glyphs.get(ig), interline);
+            final int base = ig * length;
+
+            for (int j = 0; j < length; j++) {
+                ins[base + j] = (features[j] - means[j]) / stds[j];
+            }
         }
 
-        double[] outs = new double[SHAPE_COUNT];
-        model.run(ins, null, outs);
+        final double[] outs = model.runBatch(ins, count, null);
 
-        for (int s = 0; s < SHAPE_COUNT; s++) {
-            evals[s] = new Evaluation(values[s], outs[s]);
+        // One row of evaluations per glyph
+        final Shape[] values = Shape.values();
+        final Evaluation[][] evals = new Evaluation[count][SHAPE_COUNT];
+
+        for (int ig = 0; ig < count; ig++) {
+            final int base = ig * SHAPE_COUNT;
+
+            for (int s = 0; s < SHAPE_COUNT; s++) {
+                evals[ig][s] = new Evaluation(values[s], outs[base + s]);
+            }
         }
 
         return evals;
@@ -449,6 +483,7 @@ public class BasicClassifier
         }
 
         // Train
+        model.setBatchSize(constants.batchSize.getValue());
         model.train(inputs, desiredOutputs, listener, listener.getIterationPeriod());
 
         // Store
@@ -489,6 +524,11 @@ public class BasicClassifier
 
         private final Constant.Ratio learningRate = new Constant.Ratio(0.1, "Learning Rate");
 
+        private final Constant.Integer batchSize = new Constant.Integer(
+                "Patterns",
+                1,
+                "Number of patterns per training mini-batch (1 for per-pattern training)");
+
         private final Constant.Integer maxEpochs = new Constant.Integer(
                 "Epochs",
                 500,
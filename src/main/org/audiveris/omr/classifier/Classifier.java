@@ -30,6 +30,7 @@ import org.audiveris.omr.sheet.SystemInfo;
 //
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.List;
 
 /**
  * Interface <code>Classifier</code> defines the features of a glyph shape classifier.
@@ -91,6 +92,26 @@ public interface Classifier
                            double minGrade,
                            EnumSet<Condition> conditions);
 
+    /**
+     * Report, for each of the provided glyphs, the sorted sequence of best evaluation(s)
+     * found by the classifier.
+     * <p>
+     * This is equivalent to calling {@link #evaluate(Glyph, SystemInfo, int, double, EnumSet)}
+     * on each glyph, but the classifier is run on all glyphs at once.
+     *
+     * @param glyphs     the glyphs to evaluate
+     * @param system     the system containing the glyphs to evaluate
+     * @param count      the desired maximum sequence length, min 1 and max SHAPE_COUNT
+     * @param minGrade   the minimum evaluation grade to be acceptable
+     * @param conditions optional conditions, perhaps null or empty
+     * @return the sequences of evaluations, one per glyph, in glyphs order
+     */
+    List<Evaluation[]> evaluate (List<Glyph> glyphs,
+                                 SystemInfo system,
+                                 int count,
+                                 double minGrade,
+                                 EnumSet<Condition> conditions);
+
     /**
      * Report the underlying glyph descriptor
      *
@@ -123,6 +144,17 @@ public interface Classifier
     Evaluation[] getNaturalEvaluations (Glyph glyph,
                                         int interline);
 
+    /**
+     * Run the classifier on a batch of glyphs, and return for each glyph the natural
+     * sequence of all interpretations (ordered by Shape ordinal) with no additional check.
+     *
+     * @param glyphs    the glyphs to be examined
+     * @param interline the relevant scaling interline
+     * @return all shape-ordered evaluations, one array per glyph, in glyphs order
+     */
+    Evaluation[][] getNaturalEvaluations (List<Glyph> glyphs,
+                                          int interline);
+
     /**
      * Use a threshold on glyph weight, to tell if the provided glyph is just {@link
      * Shape#NOISE} or a real glyph.
@@ -26,6 +26,7 @@ import org.audiveris.omr.math.LineUtil;
 import org.audiveris.omr.math.PointsCollector;
 import org.audiveris.omr.moments.ARTMoments;
 import org.audiveris.omr.moments.GeometricMoments;
+import org.audiveris.omr.moments.RawMoments;
 import org.audiveris.omr.run.Orientation;
 import static org.audiveris.omr.run.Orientation.HORIZONTAL;
 import org.audiveris.omr.run.Run;
@@ -44,6 +45,8 @@ import java.awt.Rectangle;
 import java.awt.Shape;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.Objects;
 
@@ -117,6 +120,12 @@ public class Glyph
     /** Computed geometric Moments. */
     protected GeometricMoments geoMoments;
 
+    /** Raw moments, if already known. */
+    protected RawMoments rawMoments;
+
+    /** Disjoint parts this glyph was built from, if any, to derive raw moments from. */
+    private Collection<Glyph> momentParts;
+
     /** Mass center coordinates. */
     protected Point centroid;
 
@@ -411,7 +420,15 @@ public class Glyph
     public GeometricMoments getGeometricMoments (int interline)
     {
         if (geoMoments == null) {
-            geoMoments = runTable.computeGeometricMoments(left, top, interline);
+            if ((rawMoments == null) && (momentParts != null)) {
+                rawMoments = sumPartsMoments();
+            }
+
+            if (rawMoments != null) {
+                geoMoments = new GeometricMoments(rawMoments, interline);
+            } else {
+                geoMoments = runTable.computeGeometricMoments(left, top, interline);
+            }
         }
 
         return geoMoments;
@@ -489,6 +506,20 @@ public class Glyph
         return collector;
     }
 
+    /**
+     * Report the glyph raw moments, which are additive over disjoint glyphs.
+     *
+     * @return the glyph raw moments
+     */
+    public RawMoments getRawMoments ()
+    {
+        if (rawMoments == null) {
+            rawMoments = runTable.computeRawMoments(left, top);
+        }
+
+        return rawMoments;
+    }
+
     /**
      * Report the underlying table of runs
      *
@@ -739,6 +770,37 @@ public class Glyph
         this.index = index;
     }
 
+    /**
+     * Record the parts this glyph was built from, so that its raw moments can be derived from
+     * the (cached) raw moments of its parts, when needed.
+     *
+     * @param parts the glyph parts
+     */
+    void setMomentParts (Collection<Glyph> parts)
+    {
+        this.momentParts = new ArrayList<>(parts);
+    }
+
+    /**
+     * Sum the raw moments of the recorded parts.
+     * <p>
+     * Moments can be summed only if the parts are disjoint, which is checked on total weight.
+     *
+     * @return the summed raw moments, or null if parts overlap
+     */
+    private RawMoments sumPartsMoments ()
+    {
+        RawMoments sum = null;
+
+        for (Glyph part : momentParts) {
+            sum = (sum == null) ? part.getRawMoments() : sum.plus(part.getRawMoments());
+        }
+
+        momentParts = null;
+
+        return ((sum != null) && (sum.getWeight() == getWeight())) ? sum : null;
+    }
+
     @Override
     public String toString ()
     {
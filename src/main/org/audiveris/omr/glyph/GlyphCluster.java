@@ -153,8 +153,16 @@ public class GlyphCluster
 
         if (!adapter.isTooLight(weight)) {
             // Build compound and get acceptable evaluations for the compound
-            Glyph compound = (parts.size() > 1) ? GlyphFactory.buildGlyph(parts)
-                    : parts.iterator().next();
+            final Glyph compound;
+
+            if (parts.size() > 1) {
+                // Pixels are needed by classifier, geometric moments can be derived from parts
+                compound = GlyphFactory.buildGlyph(parts);
+                compound.setMomentParts(parts);
+            } else {
+                compound = parts.iterator().next();
+            }
+
             compound.addGroup(group);
 
             // Create all acceptable inters, if any, for the compound
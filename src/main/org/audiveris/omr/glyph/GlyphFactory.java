@@ -181,7 +181,10 @@ public class GlyphFactory
                 : (iSeqMax - iSeqMin + 1);
 
         // Allocate table with proper dimension
-        RunTable table = new RunTable(runTable.getOrientation(), width, height);
+        final RunTable.Builder builder = new RunTable.Builder(
+                runTable.getOrientation(),
+                width,
+                height);
 
         // Populate table with RLE sequences
         for (Sequence seq : buf) {
@@ -189,9 +192,11 @@ public class GlyphFactory
                 run.setStart(run.getStart() - startMin);
             }
 
-            table.setSequence(seq.iSeq - iSeqMin, seq.runs);
+            builder.setSequence(seq.iSeq - iSeqMin, seq.runs);
         }
 
+        final RunTable table = builder.build();
+
         // Store created glyph
         final Glyph glyph = new Glyph(offset.x + dx, offset.y + dy, table);
         glyph.addGroup(group);
@@ -35,6 +35,7 @@ import org.audiveris.omr.util.BasicIndex;
 import org.audiveris.omr.util.ClassUtil;
 import org.audiveris.omr.util.Entities;
 import org.audiveris.omr.util.EntityIndex;
+import org.audiveris.omr.util.SpatialIndex;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -112,7 +113,7 @@ public class GlyphIndex
     @Override
     public List<Glyph> getContainedEntities (Rectangle rectangle)
     {
-        return Entities.containedEntities(iterator(), rectangle);
+        return glyphsOf(weakIndex.getContainedEntities(rectangle));
     }
 
     //-----------------------//
@@ -121,7 +122,7 @@ public class GlyphIndex
     @Override
     public List<Glyph> getContainingEntities (Point point)
     {
-        return Entities.containingEntities(iterator(), point);
+        return glyphsOf(weakIndex.getContainingEntities(point));
     }
 
     //-------------//
@@ -180,7 +181,7 @@ public class GlyphIndex
     @Override
     public List<Glyph> getIntersectedEntities (Rectangle rectangle)
     {
-        return Entities.intersectedEntities(iterator(), rectangle);
+        return glyphsOf(weakIndex.getIntersectedEntities(rectangle));
     }
 
     @Override
@@ -237,6 +238,34 @@ public class GlyphIndex
         }
     }
 
+    //----------//
+    // glyphsOf //
+    //----------//
+    /**
+     * Report the glyphs still referenced by the provided weak references.
+     *
+     * @param weaks the weak references
+     * @return the live glyphs
+     */
+    private List<Glyph> glyphsOf (List<WeakGlyph> weaks)
+    {
+        if (weaks.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<Glyph> glyphs = new ArrayList<>(weaks.size());
+
+        for (WeakGlyph weak : weaks) {
+            final Glyph glyph = weak.get();
+
+            if (glyph != null) {
+                glyphs.add(glyph);
+            }
+        }
+
+        return glyphs;
+    }
+
     //----------------//
     // initTransients //
     //----------------//
@@ -562,6 +591,12 @@ public class GlyphIndex
     private static class WeakGlyphIndex
             extends BasicIndex<WeakGlyph>
     {
+        @Override
+        protected SpatialIndex<WeakGlyph> createSpatialIndex ()
+        {
+            // Glyph bounds never change, results are kept in ID order
+            return new SpatialIndex<>(null, Entities.byId);
+        }
 
         @Override
         public void insert (WeakGlyph weak)
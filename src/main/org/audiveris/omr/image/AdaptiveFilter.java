@@ -280,8 +280,11 @@ public abstract class AdaptiveFilter
         /** Height of the tile = height of the image. */
         protected final int height;
 
+        /** Abscissa of first populated column, integrals being computed from this column. */
+        protected final int xOrigin;
+
         /** Abscissa corresponding to the right side of the tile. */
-        protected int xRight = -1;
+        protected int xRight;
 
         /** Circular buffer for integrals. */
         protected final long[][] sums;
@@ -296,16 +299,37 @@ public abstract class AdaptiveFilter
         Tile (int tileWidth,
               int height,
               boolean squared)
+        {
+            this(tileWidth, height, squared, 0);
+        }
+
+        /**
+         * Create a tile instance, whose integrals start at provided abscissa.
+         * <p>
+         * Columns located before xOrigin are ignored, hence the tile can serve only locations
+         * whose window does not extend to the left of xOrigin.
+         *
+         * @param tileWidth tile width
+         * @param height    tile height = image height
+         * @param squared   true for squared values, false for plain values
+         * @param xOrigin   abscissa of first column to populate
+         */
+        Tile (int tileWidth,
+              int height,
+              boolean squared,
+              int xOrigin)
         {
             this.TILE_WIDTH = tileWidth;
             this.height = height;
             this.squared = squared;
+            this.xOrigin = xOrigin;
+            this.xRight = xOrigin - 1;
 
             // Allocate buffer of integrals
             sums = new long[TILE_WIDTH][height];
 
             // Initialize the "previous" column
-            Arrays.fill(sums[TILE_WIDTH - 1], 0);
+            Arrays.fill(sums[(xOrigin + TILE_WIDTH - 1) % TILE_WIDTH], 0);
         }
 
         /**
@@ -332,13 +356,13 @@ public abstract class AdaptiveFilter
             shiftTile(x2);
 
             // Upper left
-            long a = ((x1 >= 0) && (y1 >= 0)) ? sums[x1 % TILE_WIDTH][y1] : 0;
+            long a = ((x1 >= xOrigin) && (y1 >= 0)) ? sums[x1 % TILE_WIDTH][y1] : 0;
 
             // Above
             long b = (y1 >= 0) ? sums[x2 % TILE_WIDTH][y1] : 0;
 
             // Left
-            long c = (x1 >= 0) ? sums[x1 % TILE_WIDTH][y2] : 0;
+            long c = (x1 >= xOrigin) ? sums[x1 % TILE_WIDTH][y2] : 0;
 
             // Lower right
             long d = sums[x2 % TILE_WIDTH][y2];
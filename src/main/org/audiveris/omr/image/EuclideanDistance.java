@@ -0,0 +1,400 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                E u c l i d e a n D i s t a n c e                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ij.process.ByteProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Class <code>EuclideanDistance</code> computes the exact Euclidean distance transform,
+ * as a drop-in replacement for a {@link ChamferDistance} implementation.
+ * <p>
+ * The transform is separable (Meijster, Roerdink and Hesselink algorithm):
+ * <ol>
+ * <li>Each column is scanned to get the vertical distance to the nearest reference pixel in
+ * this column.</li>
+ * <li>Each row is then scanned to compute the lower envelope of the parabolas defined by these
+ * vertical distances.</li>
+ * </ol>
+ * Columns are independent in the first phase, as rows are in the second phase, hence both phases
+ * are processed in parallel stripes.
+ * <p>
+ * Resulting distances are multiplied by the normalizer and rounded, so that the output table
+ * can be used exactly like the one of a chamfer distance with the same normalizer.
+ *
+ * @author Hervé Bitteur
+ */
+public class EuclideanDistance
+        implements ChamferDistance
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(EuclideanDistance.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Distance normalizer. */
+    private final int normalizer;
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    /**
+     * Creates a new <code>EuclideanDistance</code> object, with default normalizer.
+     */
+    public EuclideanDistance ()
+    {
+        this(DEFAULT_NORMALIZER);
+    }
+
+    /**
+     * Creates a new <code>EuclideanDistance</code> object, with provided normalizer.
+     *
+     * @param normalizer the value of a unit distance in output table
+     */
+    public EuclideanDistance (int normalizer)
+    {
+        this.normalizer = normalizer;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //---------//
+    // compute //
+    //---------//
+    @Override
+    public DistanceTable compute (boolean[][] input)
+    {
+        final int width = input.length;
+        final int height = input[0].length;
+        final byte[] pixels = new byte[width * height];
+
+        for (int x = 0; x < width; x++) {
+            final boolean[] col = input[x];
+
+            for (int y = 0; y < height; y++) {
+                if (col[y]) {
+                    pixels[(y * width) + x] = 1;
+                }
+            }
+        }
+
+        return process(pixels, width, height, false);
+    }
+
+    //---------------//
+    // computeToBack //
+    //---------------//
+    @Override
+    public DistanceTable computeToBack (ByteProcessor input)
+    {
+        return process((byte[]) input.getPixels(), input.getWidth(), input.getHeight(), false);
+    }
+
+    //---------------//
+    // computeToFore //
+    //---------------//
+    @Override
+    public DistanceTable computeToFore (ByteProcessor input)
+    {
+        return process((byte[]) input.getPixels(), input.getWidth(), input.getHeight(), true);
+    }
+
+    //-------------//
+    // processCols //
+    //-------------//
+    /**
+     * First phase on a range of columns: vertical distance to nearest reference pixel.
+     *
+     * @param pixels   input pixels
+     * @param width    image width
+     * @param height   image height
+     * @param toFore   true if reference pixels are the zero pixels, false for the non-zero ones
+     * @param infinity value used for no reference pixel
+     * @param g        (output) vertical distances, row by row
+     * @param x1       first column
+     * @param x2       last column
+     */
+    private void processCols (byte[] pixels,
+                              int width,
+                              int height,
+                              boolean toFore,
+                              int infinity,
+                              int[] g,
+                              int x1,
+                              int x2)
+    {
+        // Downward, columns being browsed row by row for better memory locality
+        for (int x = x1; x <= x2; x++) {
+            g[x] = ((pixels[x] == 0) == toFore) ? 0 : infinity;
+        }
+
+        for (int y = 1; y < height; y++) {
+            final int base = y * width;
+
+            for (int x = x1, i = base + x1; x <= x2; x++, i++) {
+                if ((pixels[i] == 0) == toFore) {
+                    g[i] = 0;
+                } else {
+                    g[i] = Math.min(infinity, g[i - width] + 1);
+                }
+            }
+        }
+
+        // Upward
+        for (int y = height - 2; y >= 0; y--) {
+            final int base = y * width;
+
+            for (int x = x1, i = base + x1; x <= x2; x++, i++) {
+                final int below = g[i + width] + 1;
+
+                if (below < g[i]) {
+                    g[i] = below;
+                }
+            }
+        }
+    }
+
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Compute the distance table of the provided pixels.
+     *
+     * @param pixels input pixels
+     * @param width  image width
+     * @param height image height
+     * @param toFore true if reference pixels are the zero pixels, false for the non-zero ones
+     * @return the table of distances
+     */
+    private DistanceTable process (byte[] pixels,
+                                   int width,
+                                   int height,
+                                   boolean toFore)
+    {
+        final DistanceTable output = new DistanceTable.Short(width, height, normalizer);
+        final int infinity = width + height;
+        final int[] g = new int[width * height];
+
+        runStripes(
+                width,
+                (x1, x2) -> processCols(pixels, width, height, toFore, infinity, g, x1, x2));
+        runStripes(height, (y1, y2) -> processRows(width, infinity, g, output, y1, y2));
+
+        return output;
+    }
+
+    //-------------//
+    // processRows //
+    //-------------//
+    /**
+     * Second phase on a range of rows: lower envelope of parabolas.
+     *
+     * @param width    image width
+     * @param infinity value used for no reference pixel
+     * @param g        vertical distances, row by row
+     * @param output   (output) table of distances
+     * @param y1       first row
+     * @param y2       last row
+     */
+    private void processRows (int width,
+                              int infinity,
+                              int[] g,
+                              DistanceTable output,
+                              int y1,
+                              int y2)
+    {
+        final long unknown = (long) infinity * infinity;
+        final int[] f = new int[width]; // Squared vertical distances for current row
+        final int[] s = new int[width]; // Abscissa of parabola apex, per envelope segment
+        final int[] t = new int[width]; // Abscissa of segment start, per envelope segment
+
+        for (int y = y1; y <= y2; y++) {
+            final int base = y * width;
+
+            for (int x = 0; x < width; x++) {
+                final int gx = g[base + x];
+                f[x] = gx * gx;
+            }
+
+            // Build lower envelope
+            int q = 0;
+            s[0] = 0;
+            t[0] = 0;
+
+            for (int u = 1; u < width; u++) {
+                while ((q >= 0) && (sq(t[q] - s[q]) + f[s[q]] > sq(t[q] - u) + f[u])) {
+                    q--;
+                }
+
+                if (q < 0) {
+                    q = 0;
+                    s[0] = u;
+                } else {
+                    final int w = 1 + sep(s[q], u, f);
+
+                    if (w < width) {
+                        q++;
+                        s[q] = u;
+                        t[q] = w;
+                    }
+                }
+            }
+
+            // Read lower envelope
+            for (int u = width - 1; u >= 0; u--) {
+                final long d2 = sq(u - s[q]) + f[s[q]];
+
+                if (d2 >= unknown) {
+                    output.setValue(base + u, VALUE_UNKNOWN);
+                } else {
+                    output.setValue(base + u, (int) Math.round(normalizer * Math.sqrt(d2)));
+                }
+
+                if (u == t[q]) {
+                    q--;
+                }
+            }
+        }
+    }
+
+    //------------//
+    // runStripes //
+    //------------//
+    /**
+     * Process the provided range of indices, by parallel stripes when possible.
+     *
+     * @param count   number of indices (columns or rows)
+     * @param handler processing of a stripe
+     */
+    private void runStripes (int count,
+                             StripeHandler handler)
+    {
+        final int stripeCount = OmrExecutors.defaultParallelism.getValue() ? Math.min(
+                OmrExecutors.getNumberOfCpus(),
+                count / constants.minStripeSize.getValue()) : 1;
+
+        if (stripeCount <= 1) {
+            handler.process(0, count - 1);
+
+            return;
+        }
+
+        final int stripeSize = (count + stripeCount - 1) / stripeCount;
+        final List<Callable<Void>> tasks = new ArrayList<>(stripeCount);
+
+        for (int iMin = 0; iMin < count; iMin += stripeSize) {
+            final int i1 = iMin;
+            final int i2 = Math.min(count, iMin + stripeSize) - 1;
+            tasks.add( () ->
+            {
+                handler.process(i1, i2);
+
+                return null;
+            });
+        }
+
+        try {
+            // Launch the tasks and wait for their completion
+            for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            logger.warn("Distance transform got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (Exception ex) {
+            logger.warn("Exception raised in distance transform", ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    //~ Static Methods -----------------------------------------------------------------------------
+
+    //-----//
+    // sep //
+    //-----//
+    /**
+     * Report the abscissa beyond which parabola at u gets lower than parabola at i.
+     *
+     * @param i left parabola abscissa
+     * @param u right parabola abscissa
+     * @param f squared vertical distances
+     * @return the separating abscissa (parabola i wins up to this abscissa included)
+     */
+    private static int sep (int i,
+                            int u,
+                            int[] f)
+    {
+        return (int) Math.floorDiv(
+                (((long) u * u) - ((long) i * i)) + f[u] - f[i],
+                2L * (u - i));
+    }
+
+    //----//
+    // sq //
+    //----//
+    private static long sq (int v)
+    {
+        return (long) v * v;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Integer minStripeSize = new Constant.Integer(
+                "Pixels",
+                64,
+                "Minimum width or height of a stripe processed in parallel");
+    }
+
+    //---------------//
+    // StripeHandler //
+    //---------------//
+    /**
+     * Processing of a stripe of columns or rows.
+     */
+    private static interface StripeHandler
+    {
+
+        void process (int first,
+                      int last);
+    }
+}
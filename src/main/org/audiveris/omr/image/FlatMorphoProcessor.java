@@ -0,0 +1,381 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              F l a t M o r p h o P r o c e s s o r                             //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ij.process.ByteProcessor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Class <code>FlatMorphoProcessor</code> performs gray-level dilation, erosion and closing
+ * with a flat structuring element, giving the same results as {@link MorphoProcessor}.
+ * <p>
+ * The structuring element is decomposed into horizontal segments, one or several per row.
+ * For each segment, the sliding maximum (or minimum) along an image row is computed by the
+ * van Herk / Gil-Werman algorithm, at a constant cost per pixel whatever the segment length.
+ * The cost per pixel thus grows with the element height rather than with its area.
+ * <p>
+ * Pixels outside the image are neutral: they are ignored by the dilation as well as by the
+ * erosion.
+ * <p>
+ * Rows are processed in parallel stripes.
+ *
+ * @author Hervé Bitteur
+ */
+public class FlatMorphoProcessor
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(FlatMorphoProcessor.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Element segments: dy, dxMin, dxMax. */
+    private final int[][] segments;
+
+    /** Maximum segment length. */
+    private final int maxLength;
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    /**
+     * Creates a new <code>FlatMorphoProcessor</code> object.
+     *
+     * @param se the structuring element, whose non-zero mask values are all considered as
+     *           part of a flat element
+     */
+    public FlatMorphoProcessor (StructureElement se)
+    {
+        // Collect abscissa offsets per ordinate offset
+        final TreeMap<Integer, TreeSet<Integer>> rows = new TreeMap<>();
+
+        for (int[] v : se.getVect()) {
+            rows.computeIfAbsent(v[0], k -> new TreeSet<>()).add(v[1]);
+        }
+
+        // Split each row into contiguous segments
+        final List<int[]> segs = new ArrayList<>();
+        int maxLg = 1;
+
+        for (Integer dy : rows.keySet()) {
+            Integer start = null;
+            Integer prev = null;
+
+            for (Integer dx : rows.get(dy)) {
+                if ((prev != null) && (dx != (prev + 1))) {
+                    segs.add(new int[]{dy, start, prev});
+                    maxLg = Math.max(maxLg, prev - start + 1);
+                    start = null;
+                }
+
+                if (start == null) {
+                    start = dx;
+                }
+
+                prev = dx;
+            }
+
+            segs.add(new int[]{dy, start, prev});
+            maxLg = Math.max(maxLg, prev - start + 1);
+        }
+
+        segments = segs.toArray(new int[segs.size()][]);
+        maxLength = maxLg;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //-------//
+    // close //
+    //-------//
+    /**
+     * Performs gray-level dilation followed by gray-level erosion.
+     *
+     * @param ip the buffer to process in situ
+     */
+    public void close (ByteProcessor ip)
+    {
+        final byte[] pixels = (byte[]) ip.getPixels();
+        final byte[] dilated = new byte[pixels.length];
+        process(pixels, dilated, ip.getWidth(), ip.getHeight(), true);
+        process(dilated, pixels, ip.getWidth(), ip.getHeight(), false);
+    }
+
+    //--------//
+    // dilate //
+    //--------//
+    /**
+     * Performs gray-level dilation (maximum).
+     *
+     * @param ip the buffer to process in situ
+     */
+    public void dilate (ByteProcessor ip)
+    {
+        final byte[] pixels = (byte[]) ip.getPixels();
+        final byte[] source = pixels.clone();
+        process(source, pixels, ip.getWidth(), ip.getHeight(), true);
+    }
+
+    //-------//
+    // erode //
+    //-------//
+    /**
+     * Performs gray-level erosion (minimum).
+     *
+     * @param ip the buffer to process in situ
+     */
+    public void erode (ByteProcessor ip)
+    {
+        final byte[] pixels = (byte[]) ip.getPixels();
+        final byte[] source = pixels.clone();
+        process(source, pixels, ip.getWidth(), ip.getHeight(), false);
+    }
+
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Run one dilation or erosion pass, by parallel stripes of rows.
+     *
+     * @param src    source pixels
+     * @param dst    destination pixels
+     * @param width  image width
+     * @param height image height
+     * @param dilate true for dilation, false for erosion
+     */
+    private void process (byte[] src,
+                          byte[] dst,
+                          int width,
+                          int height,
+                          boolean dilate)
+    {
+        final int stripeCount = OmrExecutors.defaultParallelism.getValue() ? Math.min(
+                OmrExecutors.getNumberOfCpus(),
+                height / constants.minStripeHeight.getValue()) : 1;
+
+        if (stripeCount <= 1) {
+            processRows(src, dst, width, height, 0, height - 1, dilate);
+
+            return;
+        }
+
+        final int stripeHeight = (height + stripeCount - 1) / stripeCount;
+        final List<Callable<Void>> tasks = new ArrayList<>(stripeCount);
+
+        for (int yMin = 0; yMin < height; yMin += stripeHeight) {
+            final int y1 = yMin;
+            final int y2 = Math.min(height, yMin + stripeHeight) - 1;
+            tasks.add( () ->
+            {
+                processRows(src, dst, width, height, y1, y2, dilate);
+
+                return null;
+            });
+        }
+
+        try {
+            // Launch the tasks and wait for their completion
+            for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            logger.warn("Morphology processing got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (Exception ex) {
+            logger.warn("Exception raised in morphology processing", ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    //-------------//
+    // processRows //
+    //-------------//
+    /**
+     * Process the provided range of destination rows.
+     *
+     * @param src    source pixels
+     * @param dst    destination pixels
+     * @param width  image width
+     * @param height image height
+     * @param y1     first row
+     * @param y2     last row
+     * @param dilate true for dilation, false for erosion
+     */
+    private void processRows (byte[] src,
+                              byte[] dst,
+                              int width,
+                              int height,
+                              int y1,
+                              int y2,
+                              boolean dilate)
+    {
+        final int neutral = dilate ? 0 : 255;
+        final int size = width + maxLength - 1;
+        final int[] buf = new int[size];
+        final int[] prefix = new int[size];
+        final int[] suffix = new int[size];
+        final int[] acc = new int[width];
+
+        for (int y = y1; y <= y2; y++) {
+            Arrays.fill(acc, neutral);
+
+            for (int[] seg : segments) {
+                final int yy = y + seg[0];
+
+                if ((yy >= 0) && (yy < height)) {
+                    slide(src, yy * width, width, seg[1], seg[2], dilate, buf, prefix, suffix, acc);
+                }
+            }
+
+            final int offset = y * width;
+
+            for (int x = 0; x < width; x++) {
+                dst[offset + x] = (byte) acc[x];
+            }
+        }
+    }
+
+    //~ Static Methods -----------------------------------------------------------------------------
+
+    //-------//
+    // slide //
+    //-------//
+    /**
+     * Combine into acc the sliding maximum (or minimum) of one source row over the
+     * [dxMin..dxMax] window, using van Herk / Gil-Werman algorithm.
+     *
+     * @param src    source pixels
+     * @param offset offset of row in source pixels
+     * @param width  image width
+     * @param dxMin  window start, relative to pixel
+     * @param dxMax  window stop, relative to pixel
+     * @param dilate true for maximum, false for minimum
+     * @param buf    buffer for padded row
+     * @param prefix buffer for block prefix values
+     * @param suffix buffer for block suffix values
+     * @param acc    (input/output) the values cumulated for each pixel of the row
+     */
+    private static void slide (byte[] src,
+                               int offset,
+                               int width,
+                               int dxMin,
+                               int dxMax,
+                               boolean dilate,
+                               int[] buf,
+                               int[] prefix,
+                               int[] suffix,
+                               int[] acc)
+    {
+        final int neutral = dilate ? 0 : 255;
+        final int length = dxMax - dxMin + 1;
+        final int n = width + length - 1;
+
+        // Padded row: buf[j] is value at abscissa j + dxMin
+        for (int j = 0; j < n; j++) {
+            final int x = j + dxMin;
+            buf[j] = ((x >= 0) && (x < width)) ? (src[offset + x] & 0xff) : neutral;
+        }
+
+        if (length == 1) {
+            if (dilate) {
+                for (int x = 0; x < width; x++) {
+                    acc[x] = Math.max(acc[x], buf[x]);
+                }
+            } else {
+                for (int x = 0; x < width; x++) {
+                    acc[x] = Math.min(acc[x], buf[x]);
+                }
+            }
+
+            return;
+        }
+
+        // Prefix and suffix values within blocks of length
+        for (int start = 0; start < n; start += length) {
+            final int stop = Math.min(n, start + length) - 1;
+            prefix[start] = buf[start];
+            suffix[stop] = buf[stop];
+
+            if (dilate) {
+                for (int j = start + 1; j <= stop; j++) {
+                    prefix[j] = Math.max(prefix[j - 1], buf[j]);
+                }
+
+                for (int j = stop - 1; j >= start; j--) {
+                    suffix[j] = Math.max(suffix[j + 1], buf[j]);
+                }
+            } else {
+                for (int j = start + 1; j <= stop; j++) {
+                    prefix[j] = Math.min(prefix[j - 1], buf[j]);
+                }
+
+                for (int j = stop - 1; j >= start; j--) {
+                    suffix[j] = Math.min(suffix[j + 1], buf[j]);
+                }
+            }
+        }
+
+        // Window [x .. x + length - 1] in buf spans at most two blocks
+        final int last = length - 1;
+
+        if (dilate) {
+            for (int x = 0; x < width; x++) {
+                acc[x] = Math.max(acc[x], Math.max(suffix[x], prefix[x + last]));
+            }
+        } else {
+            for (int x = 0; x < width; x++) {
+                acc[x] = Math.min(acc[x], Math.min(suffix[x], prefix[x + last]));
+            }
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Integer minStripeHeight = new Constant.Integer(
+                "Pixels",
+                64,
+                "Minimum height of a stripe processed in parallel");
+    }
+}
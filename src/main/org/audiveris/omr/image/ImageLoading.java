@@ -48,7 +48,11 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
@@ -223,6 +227,30 @@ public abstract class ImageLoading
         return loader;
     }
 
+    //-----------------//
+    // getPooledLoader //
+    //-----------------//
+    /**
+     * Build a thread-safe loader dedicated to the provided image file, meant to be kept
+     * open across the loading of several images.
+     * <p>
+     * Underlying loaders (each with its own parsed document) are opened on demand, up to a
+     * maximum count, so that several images can be loaded concurrently.
+     *
+     * @param imgPath the provided image path
+     * @return the loader instance or null if failed
+     */
+    public static Loader getPooledLoader (Path imgPath)
+    {
+        final Loader first = getLoader(imgPath);
+
+        if (first == null) {
+            return null;
+        }
+
+        return new PooledLoader(imgPath, first, Math.max(1, constants.maxLoaders.getValue()));
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
 
     //----------------//
@@ -270,6 +298,11 @@ public abstract class ImageLoading
                 "DPI",
                 300,
                 "DPI resolution for PDF images");
+
+        private final Constant.Integer maxLoaders = new Constant.Integer(
+                "loaders",
+                2,
+                "Maximum number of concurrent loaders on the same input file");
     }
 
     //---------------//
@@ -407,6 +440,139 @@ public abstract class ImageLoading
         }
     }
 
+    //--------------//
+    // PooledLoader //
+    //--------------//
+    /**
+     * A thread-safe loader that keeps a few underlying loaders open on the same input file.
+     */
+    private static class PooledLoader
+            extends AbstractLoader
+    {
+        /** Input file. */
+        private final Path imgPath;
+
+        /** Maximum count of underlying loaders. */
+        private final int maxLoaders;
+
+        /** Underlying loaders currently available. */
+        private final Deque<Loader> idle = new ArrayDeque<>();
+
+        /** Count of underlying loaders opened and not disposed. */
+        private int opened;
+
+        /** Set when this loader has been disposed. */
+        private boolean disposed;
+
+        PooledLoader (Path imgPath,
+                      Loader first,
+                      int maxLoaders)
+        {
+            super(first.getImageCount());
+            this.imgPath = imgPath;
+            this.maxLoaders = maxLoaders;
+
+            idle.push(first);
+            opened = 1;
+        }
+
+        /**
+         * Borrow an underlying loader, opening a new one if allowed, otherwise waiting
+         * for one to be given back.
+         */
+        private Loader borrow ()
+            throws IOException
+        {
+            synchronized (this) {
+                while (idle.isEmpty() && (opened >= maxLoaders) && !disposed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while waiting for a loader", ex);
+                    }
+                }
+
+                if (disposed) {
+                    throw new IOException("Loader disposed for " + imgPath);
+                }
+
+                if (!idle.isEmpty()) {
+                    return idle.pop();
+                }
+
+                opened++;
+            }
+
+            // Open a new loader outside of lock
+            final Loader loader = getLoader(imgPath);
+
+            if (loader == null) {
+                synchronized (this) {
+                    opened--;
+                    notifyAll();
+                }
+
+                throw new IOException("Cannot open a new loader on " + imgPath);
+            }
+
+            return loader;
+        }
+
+        @Override
+        public void dispose ()
+        {
+            final List<Loader> loaders;
+
+            synchronized (this) {
+                disposed = true;
+                loaders = new ArrayList<>(idle);
+                opened -= idle.size();
+                idle.clear();
+                notifyAll();
+            }
+
+            // Loaders currently borrowed will be disposed when given back
+            for (Loader loader : loaders) {
+                loader.dispose();
+            }
+        }
+
+        @Override
+        public BufferedImage getImage (int id)
+            throws IOException
+        {
+            checkId(id);
+
+            final Loader loader = borrow();
+
+            try {
+                return loader.getImage(id);
+            } finally {
+                giveBack(loader);
+            }
+        }
+
+        /**
+         * Give back a borrowed loader, disposing of it if this loader has been disposed.
+         */
+        private void giveBack (Loader loader)
+        {
+            synchronized (this) {
+                if (!disposed) {
+                    idle.push(loader);
+                    notifyAll();
+
+                    return;
+                }
+
+                opened--;
+            }
+
+            loader.dispose();
+        }
+    }
+
     //~ Inner Interfaces ---------------------------------------------------------------------------
 
     //--------//
@@ -52,6 +52,23 @@ public interface PixelFilter
     Context getContext (int x,
                         int y);
 
+    /**
+     * Report a filter meant to be used by a single thread, on the vertical stripe of
+     * source columns [xMin..xMax], browsed column after column from left to right.
+     * <p>
+     * Several stripes of the same source can thus be filtered in parallel.
+     * A thread-safe filter can simply return itself, this is the default implementation.
+     *
+     * @param xMin abscissa of first stripe column
+     * @param xMax abscissa of last stripe column
+     * @return the filter to use on this stripe
+     */
+    default PixelFilter getStripeFilter (int xMin,
+                                         int xMax)
+    {
+        return this;
+    }
+
     /**
      * Report whether the pixel at location (x,y) is a foreground pixel
      * or not.
@@ -0,0 +1,269 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                          S l i d i n g M e d i a n G r a y F i l t e r                         //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ij.process.ByteProcessor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Class <code>SlidingMedianGrayFilter</code> runs the same median filter as
+ * {@link MedianGrayFilter}, but with a sliding histogram (T.S. Huang algorithm).
+ * <p>
+ * Along a row, the window histogram is updated by removing the leaving column and adding the
+ * entering column, and the median value is tracked incrementally from its previous value,
+ * rather than rebuilding the whole histogram for every pixel.
+ * <p>
+ * Rows are processed in parallel stripes.
+ * Pixels close to image borders, where the window radius gets reduced, are processed as in
+ * MedianGrayFilter, so that the output is identical.
+ *
+ * @author Hervé Bitteur
+ */
+public class SlidingMedianGrayFilter
+        extends AbstractGrayFilter
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(SlidingMedianGrayFilter.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Desired radius for the filter. */
+    private final int radius;
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    /**
+     * Creates a new SlidingMedianGrayFilter object.
+     *
+     * @param radius desired radius for the filter (1 for 3x3 filter, 2 for 5x5, etc)
+     */
+    public SlidingMedianGrayFilter (int radius)
+    {
+        this.radius = radius;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //-------------//
+    // bruteMedian //
+    //-------------//
+    /**
+     * Compute the median value at a pixel, using the reduced radius of MedianGrayFilter.
+     *
+     * @param in        input pixels
+     * @param width     image width
+     * @param height    image height
+     * @param x         pixel abscissa
+     * @param y         pixel ordinate
+     * @param histogram histogram buffer
+     * @return the median value
+     */
+    private int bruteMedian (byte[] in,
+                             int width,
+                             int height,
+                             int x,
+                             int y,
+                             int[] histogram)
+    {
+        final int rad = Math.min(
+                Math.min(radius, Math.min(x, y)),
+                Math.min(width - 1 - x, height - 1 - y));
+        Arrays.fill(histogram, 0);
+
+        for (int j = y - rad; j <= (y + rad); j++) {
+            final int offset = j * width;
+
+            for (int i = x - rad; i <= (x + rad); i++) {
+                histogram[in[offset + i] & 0xff]++;
+            }
+        }
+
+        final int side = (2 * rad) + 1;
+        final int medianCount = ((side * side) + 1) / 2;
+        int median = 256;
+        int ge = 0;
+
+        while (ge < medianCount) {
+            ge += histogram[--median];
+        }
+
+        return median;
+    }
+
+    //--------//
+    // filter //
+    //--------//
+    @Override
+    public void filter (final ByteProcessor input,
+                        final ByteProcessor output)
+    {
+        final int width = input.getWidth();
+        final int height = input.getHeight();
+        final byte[] in = (byte[]) input.getPixels();
+        final byte[] out = (byte[]) output.getPixels();
+
+        final int stripeCount = OmrExecutors.defaultParallelism.getValue()
+                ? Math.min(height, OmrExecutors.getNumberOfCpus()) : 1;
+
+        if (stripeCount <= 1) {
+            filterRows(in, out, width, height, 0, height - 1);
+
+            return;
+        }
+
+        final int stripeHeight = (height + stripeCount - 1) / stripeCount;
+        final List<Callable<Void>> tasks = new ArrayList<>(stripeCount);
+
+        for (int yMin = 0; yMin < height; yMin += stripeHeight) {
+            final int y1 = yMin;
+            final int y2 = Math.min(height, yMin + stripeHeight) - 1;
+            tasks.add( () ->
+            {
+                filterRows(in, out, width, height, y1, y2);
+
+                return null;
+            });
+        }
+
+        try {
+            // Launch the tasks and wait for their completion
+            for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            logger.warn("Median filtering got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (Exception ex) {
+            logger.warn("Exception raised in median filtering", ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    //------------//
+    // filterRows //
+    //------------//
+    /**
+     * Filter the provided range of rows.
+     *
+     * @param in     input pixels
+     * @param out    output pixels
+     * @param width  image width
+     * @param height image height
+     * @param y1     first row
+     * @param y2     last row
+     */
+    private void filterRows (byte[] in,
+                             byte[] out,
+                             int width,
+                             int height,
+                             int y1,
+                             int y2)
+    {
+        final int[] histogram = new int[256];
+
+        for (int y = y1; y <= y2; y++) {
+            // Radius in this row, for pixels far enough from left and right borders
+            final int rad = Math.min(radius, Math.min(y, height - 1 - y));
+            final int xMin = rad;
+            final int xMax = width - 1 - rad;
+            final int rowOffset = y * width;
+
+            // Left and right borders, with reduced radius
+            for (int x = 0; x < width; x++) {
+                if ((x < xMin) || (x > xMax)) {
+                    out[rowOffset + x] = (byte) bruteMedian(in, width, height, x, y, histogram);
+                }
+            }
+
+            if (xMin > xMax) {
+                continue;
+            }
+
+            // Sliding window along the row
+            final int side = (2 * rad) + 1;
+            final int medianCount = ((side * side) + 1) / 2;
+            final int top = (y - rad) * width;
+            final int bottom = (y + rad) * width;
+            Arrays.fill(histogram, 0);
+
+            for (int x = xMin - rad; x <= (xMin + rad); x++) {
+                for (int p = top + x; p <= (bottom + x); p += width) {
+                    histogram[in[p] & 0xff]++;
+                }
+            }
+
+            // Median value and count of window values greater than or equal to median
+            int median = 256;
+            int ge = 0;
+
+            while (ge < medianCount) {
+                ge += histogram[--median];
+            }
+
+            out[rowOffset + xMin] = (byte) median;
+
+            for (int x = xMin + 1; x <= xMax; x++) {
+                final int xOut = x - rad - 1;
+                final int xIn = x + rad;
+
+                for (int j = top; j <= bottom; j += width) {
+                    final int vOut = in[j + xOut] & 0xff;
+                    histogram[vOut]--;
+
+                    if (vOut >= median) {
+                        ge--;
+                    }
+
+                    final int vIn = in[j + xIn] & 0xff;
+                    histogram[vIn]++;
+
+                    if (vIn >= median) {
+                        ge++;
+                    }
+                }
+
+                // Move median down or up as needed
+                while (ge < medianCount) {
+                    ge += histogram[--median];
+                }
+
+                while ((ge - histogram[median]) >= medianCount) {
+                    ge -= histogram[median++];
+                }
+
+                out[rowOffset + x] = (byte) median;
+            }
+        }
+    }
+}
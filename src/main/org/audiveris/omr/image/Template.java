@@ -111,6 +111,9 @@ public class Template
     /** Collection of key points lazily computed for this template. */
     private List<PixelDistance> keyPoints;
 
+    /** Key points compiled for evaluation, lazily computed. */
+    private volatile Kernel kernel;
+
     //~ Constructors -------------------------------------------------------------------------------
 
     /**
@@ -143,6 +146,20 @@ public class Template
 
     //~ Methods ------------------------------------------------------------------------------------
 
+    //---------//
+    // compile //
+    //---------//
+    /**
+     * Compile the template key points into flat arrays, ready for evaluation.
+     * <p>
+     * This is done once, either at catalog creation or at first evaluation.
+     * Weights are read from constants at compile time.
+     */
+    public void compile ()
+    {
+        getKernel();
+    }
+
     //------//
     // dump //
     //------//
@@ -203,40 +220,41 @@ public class Template
                             Anchor anchor,
                             DistanceTable distances)
     {
-        final Point ul = upperLeft(x, y, anchor);
+        final Kernel k = getKernel();
+        final int ulx = x - k.offsetX(anchor);
+        final int uly = y - k.offsetY(anchor);
 
         // Loop through template key positions and read related distance.
         // Compute the mean value on all distances read
         final int imgWidth = distances.getWidth();
         final int imgHeight = distances.getHeight();
-        final double foreWeight = constants.foreWeight.getValue();
-        final double backWeight = constants.backWeight.getValue();
-        final double holeWeight = constants.holeWeight.getValue();
+        final boolean inside = k.isInside(ulx, uly, imgWidth, imgHeight);
+        final int[] xs = k.xs;
+        final int[] ys = k.ys;
+        final double[] ws = k.weights;
+        final boolean[] fores = k.fores;
         double weights = 0; // Sum of weights
         double total = 0; // Sum of weighted distances
 
-        for (PixelDistance pix : getKeyPoints()) {
-            int nx = ul.x + pix.x;
-            int ny = ul.y + pix.y;
+        for (int i = 0, iBreak = xs.length; i < iBreak; i++) {
+            final int nx = ulx + xs[i];
+            final int ny = uly + ys[i];
 
             // Ignore tested point if located out of image
-            if ((nx >= 0) && (nx < imgWidth) && (ny >= 0) && (ny < imgHeight)) {
-                int actualDist = distances.getValue(nx, ny);
+            if (!inside && ((nx < 0) || (nx >= imgWidth) || (ny < 0) || (ny >= imgHeight))) {
+                continue;
+            }
 
-                // Ignore neutralized locations in distance table
-                if (actualDist != ChamferDistance.VALUE_UNKNOWN) {
-                    // pix.d < 0 for expected hole, expected negative distance to nearest foreground
-                    // pix.d == 0 for expected foreground, 0 distance
-                    // pix.d > 0 for expected background, expected distance to nearest foreground
-                    double weight = (pix.d == 0) ? foreWeight
-                            : ((pix.d > 0) ? backWeight : holeWeight);
-                    double expected = (pix.d == 0) ? 0 : 1;
-                    double actual = (actualDist == 0) ? 0 : 1;
-                    double dist = Math.abs(actual - expected);
-
-                    total += (weight * dist);
-                    weights += weight;
+            final int actualDist = distances.getValue(nx, ny);
+
+            // Ignore neutralized locations in distance table
+            if (actualDist != ChamferDistance.VALUE_UNKNOWN) {
+                // Distance is 1 when actual pixel color differs from expected one, 0 otherwise
+                if ((actualDist == 0) != fores[i]) {
+                    total += ws[i];
                 }
+
+                weights += ws[i];
             }
         }
 
@@ -265,32 +283,32 @@ public class Template
                                 Anchor anchor,
                                 DistanceTable distances)
     {
-        final Point ul = upperLeft(x, y, anchor);
+        final Kernel k = getKernel();
+        final int ulx = x - k.offsetX(anchor);
+        final int uly = y - k.offsetY(anchor);
 
-        // Loop through template key positions and read related distance.
-        // Compute the mean value on all distances read
+        // Loop through template hole positions and read related distance.
         final int imgWidth = distances.getWidth();
         final int imgHeight = distances.getHeight();
+        final int[] xs = k.holeXs;
+        final int[] ys = k.holeYs;
         int expectedHoles = 0; // Expected number of white pixels in hole
         int actualHoles = 0; // Actual number of white pixels in hole
 
-        for (PixelDistance pix : getKeyPoints()) {
-            int nx = ul.x + pix.x;
-            int ny = ul.y + pix.y;
+        for (int i = 0, iBreak = xs.length; i < iBreak; i++) {
+            final int nx = ulx + xs[i];
+            final int ny = uly + ys[i];
 
             // Ignore tested point if located out of image
             if ((nx >= 0) && (nx < imgWidth) && (ny >= 0) && (ny < imgHeight)) {
-                int actualDist = distances.getValue(nx, ny);
+                final int actualDist = distances.getValue(nx, ny);
 
                 // Ignore neutralized locations in distance table
                 if (actualDist != ChamferDistance.VALUE_UNKNOWN) {
-                    // pix.d < 0 for expected hole, expected negative distance to nearest foreground
-                    if (pix.d < 0) {
-                        expectedHoles++;
+                    expectedHoles++;
 
-                        if (actualDist != 0) {
-                            actualHoles++;
-                        }
+                    if (actualDist != 0) {
+                        actualHoles++;
                     }
                 }
             }
@@ -303,6 +321,78 @@ public class Template
         }
     }
 
+    //-------------//
+    // evaluateRow //
+    //-------------//
+    /**
+     * Evaluate this template at all pivot locations of a horizontal row in provided
+     * distances table.
+     * <p>
+     * Each result is identical to the one {@link #evaluate} would give at the same location,
+     * but the distance table is read key point by key point along the row, which is much more
+     * cache-friendly than location by location.
+     *
+     * @param x1        abscissa of first pivot location
+     * @param x2        abscissa of last pivot location
+     * @param y         pivots ordinate
+     * @param anchor    pivot offset if any, WRT template upper left
+     * @param distances the distance table to use
+     * @param results   (output) array of at least (x2 - x1 + 1) distances, one per pivot
+     */
+    public void evaluateRow (int x1,
+                             int x2,
+                             int y,
+                             Anchor anchor,
+                             DistanceTable distances,
+                             double[] results)
+    {
+        final Kernel k = getKernel();
+        final int ulx1 = x1 - k.offsetX(anchor);
+        final int uly = y - k.offsetY(anchor);
+        final int count = x2 - x1 + 1;
+
+        final int imgWidth = distances.getWidth();
+        final int imgHeight = distances.getHeight();
+        final int[] xs = k.xs;
+        final int[] ys = k.ys;
+        final double[] ws = k.weights;
+        final boolean[] fores = k.fores;
+        final double[] weights = new double[count]; // Sum of weights, per pivot
+        final double[] totals = new double[count]; // Sum of weighted distances, per pivot
+
+        for (int i = 0, iBreak = xs.length; i < iBreak; i++) {
+            final int ny = uly + ys[i];
+
+            // Ignore tested point if located out of image
+            if ((ny < 0) || (ny >= imgHeight)) {
+                continue;
+            }
+
+            final double weight = ws[i];
+            final boolean fore = fores[i];
+            final int nx1 = ulx1 + xs[i];
+            final int jMin = Math.max(0, -nx1);
+            final int jMax = Math.min(count - 1, imgWidth - 1 - nx1);
+
+            for (int j = jMin; j <= jMax; j++) {
+                final int actualDist = distances.getValue(nx1 + j, ny);
+
+                // Ignore neutralized locations in distance table
+                if (actualDist != ChamferDistance.VALUE_UNKNOWN) {
+                    if ((actualDist == 0) != fore) {
+                        totals[j] += weight;
+                    }
+
+                    weights[j] += weight;
+                }
+            }
+        }
+
+        for (int j = 0; j < count; j++) {
+            results[j] = (weights[j] == 0) ? Double.MAX_VALUE : (totals[j] / weights[j]);
+        }
+    }
+
     //-----------//
     // getBounds //
     //-----------//
@@ -451,6 +541,20 @@ public class Template
         return height;
     }
 
+    //-----------//
+    // getKernel //
+    //-----------//
+    private Kernel getKernel ()
+    {
+        Kernel k = kernel;
+
+        if (k == null) {
+            kernel = k = new Kernel(getKeyPoints());
+        }
+
+        return k;
+    }
+
     //--------------//
     // getKeyPoints //
     //--------------//
@@ -587,6 +691,7 @@ public class Template
                                  double dy)
     {
         offsets.put(anchor, new Point2D.Double(dx, dy));
+        kernel = null;
     }
 
     //----------//
@@ -614,31 +719,6 @@ public class Template
         return sb.append("}").toString();
     }
 
-    //-----------//
-    // upperLeft //
-    //-----------//
-    /**
-     * Report template upper-left location, knowing anchor location.
-     *
-     * @param x      pivot abscissa in image
-     * @param y      pivot ordinate in image
-     * @param anchor chosen anchor
-     * @return template upper-left corner in image
-     */
-    private Point upperLeft (int x,
-                             int y,
-                             Anchor anchor)
-    {
-        // Offset to apply to location?
-        if (anchor != null) {
-            final Point offset = getOffset(anchor);
-
-            return new Point(x - offset.x, y - offset.y);
-        }
-
-        return new Point(x, y);
-    }
-
     //~ Static Methods -----------------------------------------------------------------------------
 
     //----------//
@@ -704,6 +784,130 @@ public class Template
 
     //~ Inner Classes ------------------------------------------------------------------------------
 
+    //--------//
+    // Kernel //
+    //--------//
+    /**
+     * Template key points compiled into flat arrays, together with the rounded anchor
+     * offsets, to avoid any object access or weight lookup during evaluation.
+     */
+    private class Kernel
+    {
+
+        /** Key point abscissae, relative to template upper left. */
+        final int[] xs;
+
+        /** Key point ordinates, relative to template upper left. */
+        final int[] ys;
+
+        /** Key point weights. */
+        final double[] weights;
+
+        /** Key point expected colors: true for foreground, false for background. */
+        final boolean[] fores;
+
+        /** Hole key point abscissae. */
+        final int[] holeXs;
+
+        /** Hole key point ordinates. */
+        final int[] holeYs;
+
+        /** Key points bounds. */
+        final int xMin, xMax, yMin, yMax;
+
+        /** Rounded anchor offsets, indexed by anchor ordinal. (null when not defined) */
+        final Point[] anchorOffsets = new Point[Anchor.values().length];
+
+        Kernel (List<PixelDistance> keyPoints)
+        {
+            final double foreWeight = constants.foreWeight.getValue();
+            final double backWeight = constants.backWeight.getValue();
+            final double holeWeight = constants.holeWeight.getValue();
+            final int n = keyPoints.size();
+            xs = new int[n];
+            ys = new int[n];
+            weights = new double[n];
+            fores = new boolean[n];
+
+            int holes = 0;
+            int x1 = Integer.MAX_VALUE;
+            int x2 = Integer.MIN_VALUE;
+            int y1 = Integer.MAX_VALUE;
+            int y2 = Integer.MIN_VALUE;
+
+            for (int i = 0; i < n; i++) {
+                final PixelDistance pix = keyPoints.get(i);
+                xs[i] = pix.x;
+                ys[i] = pix.y;
+
+                // pix.d < 0 for expected hole, expected negative distance to nearest foreground
+                // pix.d == 0 for expected foreground, 0 distance
+                // pix.d > 0 for expected background, expected distance to nearest foreground
+                weights[i] = (pix.d == 0) ? foreWeight : ((pix.d > 0) ? backWeight : holeWeight);
+                fores[i] = pix.d == 0;
+
+                if (pix.d < 0) {
+                    holes++;
+                }
+
+                x1 = Math.min(x1, pix.x);
+                x2 = Math.max(x2, pix.x);
+                y1 = Math.min(y1, pix.y);
+                y2 = Math.max(y2, pix.y);
+            }
+
+            xMin = x1;
+            xMax = x2;
+            yMin = y1;
+            yMax = y2;
+
+            holeXs = new int[holes];
+            holeYs = new int[holes];
+
+            for (int i = 0, h = 0; i < n; i++) {
+                final PixelDistance pix = keyPoints.get(i);
+
+                if (pix.d < 0) {
+                    holeXs[h] = pix.x;
+                    holeYs[h++] = pix.y;
+                }
+            }
+
+            for (Anchor anchor : offsets.keySet()) {
+                anchorOffsets[anchor.ordinal()] = getOffset(anchor);
+            }
+        }
+
+        /**
+         * Tell whether all key points lie within image, for the provided upper left.
+         */
+        boolean isInside (int ulx,
+                          int uly,
+                          int imgWidth,
+                          int imgHeight)
+        {
+            return ((ulx + xMin) >= 0) && ((ulx + xMax) < imgWidth) && ((uly + yMin) >= 0)
+                    && ((uly + yMax) < imgHeight);
+        }
+
+        int offsetX (Anchor anchor)
+        {
+            return (anchor != null) ? offset(anchor).x : 0;
+        }
+
+        int offsetY (Anchor anchor)
+        {
+            return (anchor != null) ? offset(anchor).y : 0;
+        }
+
+        private Point offset (Anchor anchor)
+        {
+            final Point offset = anchorOffsets[anchor.ordinal()];
+
+            return (offset != null) ? offset : getOffset(anchor);
+        }
+    }
+
     //-----------//
     // Constants //
     //-----------//
@@ -983,8 +983,16 @@ public class TemplateFactory
                     family,
                     pointSize);
 
+            final boolean compile = constants.prePopulateKeyPoints.isSet();
+
             for (Shape shape : ShapeSet.Heads) {
-                templates.put(shape, buildTemplate(shape, family, pointSize));
+                final Template template = buildTemplate(shape, family, pointSize);
+
+                if (compile) {
+                    template.compile(); // Otherwise, compiled at first evaluation
+                }
+
+                templates.put(shape, template);
             }
         }
 
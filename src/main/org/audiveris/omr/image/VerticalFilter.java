@@ -90,16 +90,52 @@ public class VerticalFilter
     public VerticalFilter (ByteProcessor source,
                            double meanCoeff,
                            double stdDevCoeff)
+    {
+        this(source, meanCoeff, stdDevCoeff, 0);
+    }
+
+    /**
+     * Create an adaptive wrapper on a raw pixel source, with tiles starting at xOrigin.
+     *
+     * @param source      the underlying source of raw pixels
+     * @param meanCoeff   the coefficient for mean value
+     * @param stdDevCoeff the coefficient for standard deviation value
+     * @param xOrigin     abscissa of first tile column
+     */
+    private VerticalFilter (ByteProcessor source,
+                            double meanCoeff,
+                            double stdDevCoeff,
+                            int xOrigin)
     {
         super(source, meanCoeff, stdDevCoeff);
 
         // Prepare tiles
-        tile = new MyTile( /* squared => */
+        tile = new MyTile(xOrigin, /* squared => */
                 false);
-        sqrTile = new MyTile( /* squared => */
+        sqrTile = new MyTile(xOrigin, /* squared => */
                 true);
     }
 
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //-----------------//
+    // getStripeFilter //
+    //-----------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Since an instance can be used by only one thread, we provide a separate instance, whose
+     * tiles start just before the window of first stripe column (the halo).
+     */
+    @Override
+    public PixelFilter getStripeFilter (int xMin,
+                                        int xMax)
+    {
+        final int xOrigin = Math.max(0, xMin - HALF_WINDOW_SIZE - 1);
+
+        return new VerticalFilter(source, MEAN_COEFF, STD_DEV_COEFF, xOrigin);
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
 
     //--------//
@@ -112,9 +148,10 @@ public class VerticalFilter
             extends Tile
     {
 
-        MyTile (boolean squared)
+        MyTile (int xOrigin,
+                boolean squared)
         {
-            super(2 + (2 * HALF_WINDOW_SIZE), source.getHeight(), squared);
+            super(2 + (2 * HALF_WINDOW_SIZE), source.getHeight(), squared, xOrigin);
         }
 
         @Override
@@ -0,0 +1,267 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 A s s i g n m e n t S o l v e r                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.math;
+
+import java.util.Arrays;
+
+/**
+ * Class <code>AssignmentSolver</code> solves the same injection problem as
+ * {@link InjectionSolver}, but in polynomial time.
+ * <p>
+ * It maps each element of domain to a distinct element of range, so that the global mapping
+ * distance is minimum.
+ * Range may be larger than domain (rectangular case), but not smaller.
+ * <p>
+ * This implementation is based on the Hungarian method with potentials (Kuhn-Munkres, as refined
+ * by Jonker and Volgenant), which runs in O(n<sup>2</sup>.m) for n domain elements and m range
+ * elements.
+ * The individual distances are read only once, into a cached cost matrix.
+ * <p>
+ * Among several optimal mappings, the lexicographically smallest one is chosen, as the
+ * brute-force <code>InjectionSolver</code> does.
+ * This tie-breaking is obtained by folding the mapping rank into the costs, which is possible
+ * as long as the folded costs fit in a long (this covers all sizes the brute-force approach could
+ * handle).
+ * Beyond that, (one of) the optimal mappings is returned.
+ *
+ * @author Hervé Bitteur
+ */
+public class AssignmentSolver
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Size of domain. */
+    private final int domainSize;
+
+    /** Size of range. */
+    private final int rangeSize;
+
+    /** Distance function between a domain item and a range item. */
+    private final InjectionSolver.Distance distance;
+
+    /** Cached distances, indexed by domain then range. */
+    private int[][] costs;
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance of AssignmentSolver.
+     *
+     * @param domainSize size of the domain collection
+     * @param rangeSize  size of the range collection, not smaller than domain size
+     * @param distance   the distance
+     */
+    public AssignmentSolver (int domainSize,
+                             int rangeSize,
+                             InjectionSolver.Distance distance)
+    {
+        if (domainSize > rangeSize) {
+            throw new IllegalArgumentException(
+                    "Domain size " + domainSize + " larger than range size " + rangeSize);
+        }
+
+        this.domainSize = domainSize;
+        this.rangeSize = rangeSize;
+        this.distance = distance;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //---------//
+    // getCost //
+    //---------//
+    /**
+     * Report the global distance of the provided mapping.
+     *
+     * @param config an array parallel to domain, giving the mapped range element
+     * @return the sum of individual distances
+     */
+    public int getCost (int[] config)
+    {
+        final int[][] c = getCosts();
+        int cost = 0;
+
+        for (int id = 0; id < domainSize; id++) {
+            cost += c[id][config[id]];
+        }
+
+        return cost;
+    }
+
+    //----------//
+    // getCosts //
+    //----------//
+    /**
+     * Report the cost matrix, reading the distances on first call.
+     *
+     * @return the cost matrix, indexed by domain then range
+     */
+    private int[][] getCosts ()
+    {
+        if (costs == null) {
+            costs = new int[domainSize][rangeSize];
+
+            for (int id = 0; id < domainSize; id++) {
+                for (int ir = 0; ir < rangeSize; ir++) {
+                    costs[id][ir] = distance.getDistance(id, ir, null);
+                }
+            }
+        }
+
+        return costs;
+    }
+
+    //--------------//
+    // getTieScales //
+    //--------------//
+    /**
+     * Compute the scales to fold mapping rank into costs.
+     * <p>
+     * The rank of a mapping is its number written in base rangeSize, with one digit per domain
+     * element, the first element being the most significant one.
+     * Hence, folded cost = cost * rankScale + rangeIndex * digitScale[id] is ordered first by
+     * cost and then by rank.
+     *
+     * @param digitScales (output) the weight of each domain digit
+     * @return the rank scale, or 0 if folded costs would not fit in a long
+     */
+    private long getTieScales (long[] digitScales)
+    {
+        try {
+            long scale = 1;
+
+            for (int id = domainSize - 1; id >= 0; id--) {
+                digitScales[id] = scale;
+                scale = Math.multiplyExact(scale, rangeSize);
+            }
+
+            // Check the largest magnitude reachable by sums of folded costs and by potentials
+            long maxCost = 1;
+
+            for (int[] row : getCosts()) {
+                for (int c : row) {
+                    maxCost = Math.max(maxCost, Math.abs((long) c));
+                }
+            }
+
+            final long maxFolded = Math.addExact(Math.multiplyExact(maxCost, scale), scale);
+            Math.multiplyExact(maxFolded, 4L * (domainSize + 1));
+
+            return scale;
+        } catch (ArithmeticException ex) {
+            Arrays.fill(digitScales, 0);
+
+            return 0;
+        }
+    }
+
+    //-------//
+    // solve //
+    //-------//
+    /**
+     * Report the lexicographically smallest of the mappings for which the global distance is
+     * minimum.
+     *
+     * @return an array parallel to the domain collection, which for each (domain) element gives the
+     *         mapped range element
+     */
+    public int[] solve ()
+    {
+        final int n = domainSize;
+        final int m = rangeSize;
+        final int[][] c = getCosts();
+        final long[] digitScales = new long[n];
+        final long rankScale = getTieScales(digitScales);
+        final long costScale = (rankScale != 0) ? rankScale : 1;
+
+        // 1-based indices below, row 0 and column 0 being used as sentinels
+        final long[] u = new long[n + 1]; // Row potentials
+        final long[] v = new long[m + 1]; // Column potentials
+        final int[] rowOf = new int[m + 1]; // Row assigned to each column, 0 if none
+        final int[] way = new int[m + 1]; // Previous column on shortest augmenting path
+        final long[] minv = new long[m + 1]; // Slack of each column
+        final boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            // Grow a shortest augmenting path from row i
+            rowOf[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Long.MAX_VALUE);
+            Arrays.fill(used, false);
+
+            do {
+                used[j0] = true;
+
+                final int i0 = rowOf[j0];
+                final int[] row = c[i0 - 1];
+                final long digit = digitScales[i0 - 1];
+                long delta = Long.MAX_VALUE;
+                int j1 = 0;
+
+                for (int j = 1; j <= m; j++) {
+                    if (!used[j]) {
+                        final long folded = (row[j - 1] * costScale) + ((j - 1) * digit);
+                        final long cur = folded - u[i0] - v[j];
+
+                        if (cur < minv[j]) {
+                            minv[j] = cur;
+                            way[j] = j0;
+                        }
+
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[rowOf[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+
+                j0 = j1;
+            } while (rowOf[j0] != 0);
+
+            // Augment along the path
+            do {
+                final int j1 = way[j0];
+                rowOf[j0] = rowOf[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        final int[] config = new int[n];
+
+        for (int j = 1; j <= m; j++) {
+            if (rowOf[j] != 0) {
+                config[rowOf[j] - 1] = j - 1;
+            }
+        }
+
+        return config;
+    }
+}
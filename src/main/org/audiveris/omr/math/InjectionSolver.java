@@ -30,6 +30,8 @@ import java.util.Arrays;
  * It finds a mapping that minimizes the global mapping distance, given the individual distance for
  * each domain/range elements pair. This implementation is based on a brute-force approach and thus
  * should be used with small sizes only.
+ * <p>
+ * See {@link AssignmentSolver} for a polynomial-time solver of the same problem.
  *
  * @author Hervé Bitteur
  */
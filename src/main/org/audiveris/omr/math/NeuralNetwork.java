@@ -23,6 +23,7 @@ package org.audiveris.omr.math;
 
 import org.audiveris.omr.classifier.TrainingMonitor;
 import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.OmrExecutors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,7 +31,12 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -112,9 +118,15 @@ public class NeuralNetwork
     /** Default number of epochs when training. */
     private transient volatile int epochs = 10;
 
+    /** Number of patterns per training mini-batch (1 for per-pattern training). */
+    private transient volatile int batchSize = 1;
+
     /** To trigger training stop. */
     private transient volatile boolean stopping = false;
 
+    /** Flat copy of weights, lazily built for batched runs. */
+    private transient volatile FlatWeights flatWeights;
+
     //~ Constructors -------------------------------------------------------------------------------
 
     /** Private no-arg constructor meant for the JAXB compiler only. */
@@ -323,6 +335,64 @@ public class NeuralNetwork
         }
     }
 
+    //--------------//
+    // forwardBatch //
+    //--------------//
+    /**
+     * Re-entrant method, processing a batch of input rows at once.
+     * <p>
+     * Inner loops browse contiguous memory, with no reduction, to allow JIT vectorization.
+     *
+     * @param ins     input cells, one row of inSize cells per item
+     * @param inSize  number of input cells per item
+     * @param weights applied weights, transposed: one row of outSize weights per input cell
+     * @param biases  applied biases, one per output cell
+     * @param outs    output cells, one row of outSize cells per item
+     * @param outSize number of output cells per item
+     * @param count   number of items in batch
+     */
+    private void forwardBatch (double[] ins,
+                               int inSize,
+                               double[] weights,
+                               double[] biases,
+                               double[] outs,
+                               int outSize,
+                               int count)
+    {
+        for (int r = 0; r < count; r++) {
+            final int inBase = r * inSize;
+            final int outBase = r * outSize;
+            System.arraycopy(biases, 0, outs, outBase, outSize);
+
+            for (int i = 0; i < inSize; i++) {
+                final double in = ins[inBase + i];
+                final int wBase = i * outSize;
+
+                for (int o = 0; o < outSize; o++) {
+                    outs[outBase + o] += weights[wBase + o] * in;
+                }
+            }
+
+            for (int o = outBase + outSize - 1; o >= outBase; o--) {
+                outs[o] = sigmoid(outs[o]);
+            }
+        }
+    }
+
+    //----------------//
+    // getFlatWeights //
+    //----------------//
+    private FlatWeights getFlatWeights ()
+    {
+        FlatWeights fw = flatWeights;
+
+        if (fw == null) {
+            flatWeights = fw = new FlatWeights(hiddenWeights, outputWeights);
+        }
+
+        return fw;
+    }
+
     //---------------//
     // getHiddenSize //
     //---------------//
@@ -444,6 +514,7 @@ public class NeuralNetwork
         logger.debug("Network memory restore");
         this.hiddenWeights = cloneMatrix(backup.hiddenWeights);
         this.outputWeights = cloneMatrix(backup.outputWeights);
+        flatWeights = null;
     }
 
     //-----//
@@ -498,6 +569,80 @@ public class NeuralNetwork
         return outputs;
     }
 
+    //----------//
+    // runBatch //
+    //----------//
+    /**
+     * Run the neural network on a batch of input rows, and return the computed output rows.
+     * <p>
+     * This is equivalent to calling {@link #run} on each row, but weights are browsed in a
+     * flat form, shared by all rows.
+     *
+     * @param inputs  the provided input values, row-major: count rows of inputSize values
+     * @param count   the number of rows
+     * @param outputs preallocated array for the computed output values (count rows of
+     *                outputSize values), or null if not already allocated
+     * @return the computed output values
+     */
+    public double[] runBatch (double[] inputs,
+                              int count,
+                              double[] outputs)
+    {
+        Objects.requireNonNull(inputs, "runBatch method. inputs array is null");
+
+        if (inputs.length != (count * inputSize)) {
+            throw new IllegalArgumentException(
+                    "runBatch method. input size " + inputs.length + " not consistent with "
+                            + count + " rows of " + inputSize);
+        }
+
+        if (outputs == null) {
+            outputs = new double[count * outputSize];
+        } else if (outputs.length != (count * outputSize)) {
+            throw new IllegalArgumentException(
+                    "runBatch method. output size " + outputs.length + " not consistent with "
+                            + count + " rows of " + outputSize);
+        }
+
+        final FlatWeights fw = getFlatWeights();
+        final double[] hiddens = new double[count * hiddenSize];
+        forwardBatch(
+                inputs,
+                inputSize,
+                fw.hiddenWeights,
+                fw.hiddenBiases,
+                hiddens,
+                hiddenSize,
+                count);
+        forwardBatch(
+                hiddens,
+                hiddenSize,
+                fw.outputWeights,
+                fw.outputBiases,
+                outputs,
+                outputSize,
+                count);
+
+        return outputs;
+    }
+
+    //--------------//
+    // setBatchSize //
+    //--------------//
+    /**
+     * Set the number of patterns per training mini-batch.
+     * <p>
+     * A value of 1 means plain per-pattern training.
+     * A larger value means that the gradients of all patterns in a mini-batch are computed in
+     * parallel on the current weights, and then summed up to update the weights at once.
+     *
+     * @param batchSize number of patterns per mini-batch
+     */
+    public void setBatchSize (int batchSize)
+    {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
     //-----------//
     // setEpochs //
     //-----------//
@@ -586,7 +731,15 @@ public class NeuralNetwork
     {
         stopping=false;
 
-        Objects.requireNonNull(inputs,"inputs array is null");Objects.requireNonNull(desiredOutputs,"desiredOutputs array is null");logger.info("Network is being trained on {} epochs...",epochs);
+        Objects.requireNonNull(inputs,"inputs array is null");Objects.requireNonNull(desiredOutputs,"desiredOutputs array is null");
+
+        if (batchSize > 1) {
+            trainBatches(inputs, desiredOutputs, listener, iterPeriod);
+
+            return;
+        }
+
+        logger.info("Network is being trained on {} epochs...",epochs);
 
         final int patterns=inputs.length;final long startTime=System.currentTimeMillis();
 
@@ -644,9 +797,206 @@ public class NeuralNetwork
 
         break;}}
 
+        flatWeights = null; // Weights have been modified
+
         final long dur=System.currentTimeMillis()-startTime;logger.info(String.format("Duration %,d seconds, %d iterations on %d patterns",dur/1_000,epochs,patterns));stopping=false;
     }
 
+    //--------------//
+    // trainBatches //
+    //--------------//
+    /**
+     * Train the neural network on a collection of input patterns, by mini-batches.
+     * <p>
+     * Each mini-batch is split into shards, processed in parallel, each shard cumulating the
+     * gradients of its patterns into its own buffers. Shard gradients are then averaged over
+     * the batch patterns, and applied to weights, together with momentum from the previous
+     * update.
+     *
+     * @param inputs         the provided patterns of values for input cells
+     * @param desiredOutputs the corresponding desired values for output cells
+     * @param listener       listener to be kept informed
+     * @param iterPeriod     period for iteration notification
+     */
+    private void trainBatches (double[][] inputs,
+                               double[][] desiredOutputs,
+                               TrainingMonitor listener,
+                               int iterPeriod)
+    {
+        final int batch = Math.min(batchSize, Math.max(1, inputs.length));
+        final int shardCount = OmrExecutors.defaultParallelism.getValue()
+                ? Math.min(batch, OmrExecutors.getNumberOfCpus()) : 1;
+        trainBatches(inputs, desiredOutputs, listener, iterPeriod, shardCount);
+    }
+
+    //--------------//
+    // trainBatches //
+    //--------------//
+    /**
+     * Train the neural network by mini-batches, on the provided number of shards.
+     *
+     * @param inputs         the provided patterns of values for input cells
+     * @param desiredOutputs the corresponding desired values for output cells
+     * @param listener       listener to be kept informed
+     * @param iterPeriod     period for iteration notification
+     * @param shardCount     number of shards per mini-batch
+     */
+    void trainBatches (double[][] inputs,
+                       double[][] desiredOutputs,
+                       TrainingMonitor listener,
+                       int iterPeriod,
+                       int shardCount)
+    {
+        final int patterns = inputs.length;
+        final int batch = Math.min(batchSize, Math.max(1, patterns));
+        logger.info(
+                "Network is being trained on {} epochs, by batches of {} patterns on {} shards...",
+                epochs,
+                batch,
+                shardCount);
+
+        final long startTime = System.currentTimeMillis();
+        final double[][] hiddenDeltas = createMatrix(hiddenSize, inputSize + 1, 0);
+        final double[][] outputDeltas = createMatrix(outputSize, hiddenSize + 1, 0);
+        final List<BatchShard> shards = new ArrayList<>(shardCount);
+
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new BatchShard(inputs, desiredOutputs));
+        }
+
+        int iter = 0;
+
+        EpochLoop:
+        for (int ie = 1; ie <= epochs; ie++) {
+            iter++; // For this old engine, iter = epoch
+
+            if (listener != null) {
+                listener.epochStarted(ie);
+            }
+
+            for (int start = 0; start < patterns; start += batch) {
+                final int stop = Math.min(patterns, start + batch); // Exclusive
+                final int shardSize = (stop - start + shardCount - 1) / shardCount;
+                final List<Callable<Void>> tasks = new ArrayList<>(shardCount);
+
+                for (int is = 0; is < shardCount; is++) {
+                    final BatchShard shard = shards.get(is);
+                    final int from = start + (is * shardSize);
+                    final int to = Math.min(stop, from + shardSize);
+                    shard.reset();
+
+                    if (from < to) {
+                        tasks.add( () ->
+                        {
+                            shard.cumulate(from, to);
+
+                            return null;
+                        });
+                    }
+                }
+
+                try {
+                    if (tasks.size() == 1) {
+                        tasks.get(0).call();
+                    } else {
+                        for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(
+                                tasks)) {
+                            future.get();
+                        }
+                    }
+                } catch (InterruptedException ex) {
+                    logger.info("Training interrupted.");
+                    Thread.currentThread().interrupt();
+
+                    break EpochLoop;
+                } catch (Exception ex) {
+                    logger.warn("Exception raised in batch training", ex);
+                    throw new RuntimeException(ex);
+                }
+
+                // Average shard gradients over batch patterns, and update weights
+                updateWeights(outputWeights, outputDeltas, shards, stop - start, true);
+                updateWeights(hiddenWeights, hiddenDeltas, shards, stop - start, false);
+            }
+
+            if ((listener != null) && ((iter % iterPeriod) == 0)) {
+                final double[] hiddens = new double[hiddenSize];
+                final double[] gottenOutputs = new double[outputSize];
+                double mse = 0d; // Mean Squared Error
+
+                for (int ip = 0; ip < patterns; ip++) {
+                    final double[] patternDesiredOutputs = desiredOutputs[ip];
+                    run(inputs[ip], hiddens, gottenOutputs);
+
+                    for (int o = outputSize - 1; o >= 0; o--) {
+                        double dif = patternDesiredOutputs[o] - gottenOutputs[o];
+                        mse += (dif * dif);
+                    }
+                }
+
+                mse /= patterns;
+                listener.iterationPeriodDone(iter, mse);
+            }
+
+            // Stop required?
+            if (stopping) {
+                logger.info("Stopping.");
+
+                break;
+            }
+        }
+
+        flatWeights = null; // Weights have been modified
+
+        final long dur = System.currentTimeMillis() - startTime;
+        logger.info(
+                String.format(
+                        "Duration %,d seconds, %d iterations on %d patterns",
+                        dur / 1_000,
+                        epochs,
+                        patterns));
+        stopping = false;
+    }
+
+    //---------------//
+    // updateWeights //
+    //---------------//
+    /**
+     * Update a weights matrix with the gradients averaged over all batch patterns.
+     * <p>
+     * Averaging keeps the step size independent of the batch size: a batch of N identical
+     * patterns gives the same update as this single pattern.
+     *
+     * @param weights the weights matrix to update
+     * @param deltas  the previous updates, for momentum
+     * @param shards  the shards with their cumulated gradients
+     * @param count   the number of patterns in batch
+     * @param output  true for output weights, false for hidden weights
+     */
+    private void updateWeights (double[][] weights,
+                                double[][] deltas,
+                                List<BatchShard> shards,
+                                int count,
+                                boolean output)
+    {
+        for (int row = weights.length - 1; row >= 0; row--) {
+            final double[] ws = weights[row];
+            final double[] ds = deltas[row];
+
+            for (int col = ws.length - 1; col >= 0; col--) {
+                double grad = 0;
+
+                for (BatchShard shard : shards) {
+                    grad += (output ? shard.outputGrads : shard.hiddenGrads)[row][col];
+                }
+
+                final double dw = ((learningRate * grad) / count) + (momentum * ds[col]);
+                ws[col] += dw;
+                ds[col] = dw;
+            }
+        }
+    }
+
     //~ Static Methods -----------------------------------------------------------------------------
 
     //-------------//
@@ -765,6 +1115,165 @@ public class NeuralNetwork
         }
     }
 
+    //------------//
+    // BatchShard //
+    //------------//
+    /**
+     * Gradients cumulated over one shard of a mini-batch, with the work buffers needed.
+     */
+    private class BatchShard
+    {
+
+        private final double[][] inputs;
+
+        private final double[][] desiredOutputs;
+
+        /** Cumulated gradients for hidden weights (bias in first column). */
+        final double[][] hiddenGrads = createMatrix(hiddenSize, inputSize + 1, 0);
+
+        /** Cumulated gradients for output weights (bias in first column). */
+        final double[][] outputGrads = createMatrix(outputSize, hiddenSize + 1, 0);
+
+        private final double[] hiddens = new double[hiddenSize];
+
+        private final double[] gottenOutputs = new double[outputSize];
+
+        private final double[] hiddenErrors = new double[hiddenSize];
+
+        private final double[] outputErrors = new double[outputSize];
+
+        BatchShard (double[][] inputs,
+                    double[][] desiredOutputs)
+        {
+            this.inputs = inputs;
+            this.desiredOutputs = desiredOutputs;
+        }
+
+        /**
+         * Cumulate the gradients of the provided range of patterns, using current weights.
+         *
+         * @param from index of first pattern
+         * @param to   index after last pattern
+         */
+        void cumulate (int from,
+                       int to)
+        {
+            for (int ip = from; ip < to; ip++) {
+                final double[] ins = inputs[ip];
+                run(ins, hiddens, gottenOutputs);
+
+                // Compute the output layer error terms
+                for (int io = outputSize - 1; io >= 0; io--) {
+                    final double out = gottenOutputs[io];
+                    outputErrors[io] = (desiredOutputs[ip][io] - out) * sigmoidDif(out);
+                }
+
+                // Compute the hidden layer error terms
+                for (int ih = hiddenSize - 1; ih >= 0; ih--) {
+                    double sum = 0;
+
+                    for (int o = outputSize - 1; o >= 0; o--) {
+                        sum += (outputErrors[o] * outputWeights[o][ih + 1]);
+                    }
+
+                    hiddenErrors[ih] = sum * sigmoidDif(hiddens[ih]);
+                }
+
+                // Cumulate output gradients
+                for (int io = outputSize - 1; io >= 0; io--) {
+                    final double[] grads = outputGrads[io];
+                    final double err = outputErrors[io];
+
+                    for (int ih = hiddenSize - 1; ih >= 0; ih--) {
+                        grads[ih + 1] += err * hiddens[ih];
+                    }
+
+                    grads[0] += err; // Bias
+                }
+
+                // Cumulate hidden gradients
+                for (int ih = hiddenSize - 1; ih >= 0; ih--) {
+                    final double[] grads = hiddenGrads[ih];
+                    final double err = hiddenErrors[ih];
+
+                    for (int i = inputSize - 1; i >= 0; i--) {
+                        grads[i + 1] += err * ins[i];
+                    }
+
+                    grads[0] += err; // Bias
+                }
+            }
+        }
+
+        /**
+         * Clear the cumulated gradients.
+         */
+        void reset ()
+        {
+            for (double[] row : hiddenGrads) {
+                Arrays.fill(row, 0);
+            }
+
+            for (double[] row : outputGrads) {
+                Arrays.fill(row, 0);
+            }
+        }
+    }
+
+    //-------------//
+    // FlatWeights //
+    //-------------//
+    /**
+     * Flat copy of network weights, each matrix being transposed in row-major order
+     * (one row per input cell) with biases kept aside.
+     */
+    private static class FlatWeights
+    {
+
+        final double[] hiddenWeights;
+
+        final double[] hiddenBiases;
+
+        final double[] outputWeights;
+
+        final double[] outputBiases;
+
+        FlatWeights (double[][] hiddenWeights,
+                     double[][] outputWeights)
+        {
+            this.hiddenBiases = new double[hiddenWeights.length];
+            this.hiddenWeights = flatten(hiddenWeights, hiddenBiases);
+            this.outputBiases = new double[outputWeights.length];
+            this.outputWeights = flatten(outputWeights, outputBiases);
+        }
+
+        /**
+         * Transpose the provided weights matrix (bias in first column).
+         *
+         * @param matrix the weights matrix, one row per output cell
+         * @param biases (output) the biases, one per output cell
+         * @return the transposed weights, one row per input cell
+         */
+        private static double[] flatten (double[][] matrix,
+                                         double[] biases)
+        {
+            final int outSize = matrix.length;
+            final int inSize = matrix[0].length - 1;
+            final double[] flat = new double[inSize * outSize];
+
+            for (int o = 0; o < outSize; o++) {
+                final double[] ws = matrix[o];
+                biases[o] = ws[0];
+
+                for (int i = 0; i < inSize; i++) {
+                    flat[(i * outSize) + o] = ws[i + 1];
+                }
+            }
+
+            return flat;
+        }
+    }
+
     //-------------//
     // StringArray //
     //-------------//
@@ -25,6 +25,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
 
 /**
  * Class <code>GeometricMoments</code> encapsulates the set of all geometric moments that
@@ -139,7 +141,6 @@ public class GeometricMoments
         int yMax = Integer.MIN_VALUE;
 
         // Normalized GeometricMoments
-        double n00 = dim / (double) (unit * unit);
         double n01 = 0d;
         double n02 = 0d;
         double n03 = 0d;
@@ -150,11 +151,6 @@ public class GeometricMoments
         double n21 = 0d;
         double n30 = 0d;
 
-        // Total weight
-        double w = dim; // For p+q == 0
-        double w2 = w * w; // For p+q == 2
-        double w3 = Math.sqrt(w * w * w * w * w); // For p+q == 3
-
         // Mean x & y, width & height
         for (int i = dim - 1; i >= 0; i--) {
             int x = xx[i];
@@ -196,62 +192,46 @@ public class GeometricMoments
             n03 += (y * y * y);
         }
 
-        // Normalize
-        //
-        // p + q = 2
-        n11 /= w2;
-        n20 /= w2;
-        n02 /= w2;
-        //
-        // p + q = 3
-        n12 /= w3;
-        n21 /= w3;
-        n30 /= w3;
-        n03 /= w3;
-
-        // Unit-based weight, width and height
-        k[0] = n00; // Unit-based Weight
-        k[1] = (double) (xMax - xMin + 1) / unit; // Unit-based Width
-        k[2] = (double) (yMax - yMin + 1) / unit; // Unit-based Height
-
-        // Non-orthogonal central moments
-        // (invariant to translation & scaling)
-        k[3] = n20; // X absolute eccentricity
-        k[4] = n11; // XY covariance
-        k[5] = n02; // Y absolute eccentricity
-        k[6] = n30; // X signed eccentricity
-        k[7] = n21; // V vs. ^
-        k[8] = n12; // > vs. <
-        k[9] = n03; // Y signed eccentricity
-
-        // Mass center
-        k[10] = n10; // xBar
-        k[11] = n01; // yBar
+        setValues(
+                dim,
+                unit,
+                xMax - xMin + 1,
+                yMax - yMin + 1,
+                n10,
+                n01,
+                new double[]
+                { n20, n11, n02, n30, n21, n12, n03 });
+    }
 
-        if (useHuCoefficients) {
-            // Orthogonals moments (Hu set)
-            // (Invariant to translation / scaling / rotation)
-            int i = 12;
-            k[i++] = n20 + n02;
-            //
-            k[i++] = ((n20 - n02) * (n20 - n02)) + (4 * n11 * n11);
-            //
-            k[i++] = ((n30 - (3 * n12)) * (n30 - (3 * n12))) + ((n03 - (3 * n21)) * (n03 - (3
-                    * n21)));
-            //
-            k[i++] = ((n30 + n12) * (n30 + n12)) + ((n03 + n21) * (n03 + n21));
-            //
-            k[i++] = ((n30 - (3 * n12)) * (n30 + n12) * (((n30 + n12) * (n30 + n12)) - (3 * (n21
-                    + n03) * (n21 + n03)))) + ((n03 - (3 * n21)) * (n03 + n21) * (((n03 + n21)
-                            * (n03 + n21)) - (3 * (n12 + n30) * (n12 + n30))));
-            //
-            k[i++] = ((n20 - n02) * (((n30 + n12) * (n30 + n12)) - ((n03 + n21) * (n03 + n21))))
-                    + (4 * n11 * (n30 + n12) * (n03 + n21));
-            //
-            k[i++] = (((3 * n21) - n03) * (n30 + n12) * (((n30 + n12) * (n30 + n12)) - (3 * (n21
-                    + n03) * (n21 + n03)))) - (((3 * n12) - n30) * (n03 + n21) * (((n03 + n21)
-                            * (n03 + n21)) - (3 * (n12 + n30) * (n12 + n30))));
+    /**
+     * Compute the moments out of the raw moments of a set of points, all values being
+     * normalized by the provided unit value.
+     * <p>
+     * Since raw moments are additive, this allows to get the moments of a compound without
+     * browsing its points.
+     *
+     * @param raw  the raw moments
+     * @param unit the length (number of pixels) of normalizing unit
+     */
+    public GeometricMoments (RawMoments raw,
+                             int unit)
+    {
+        // Safety check
+        if (unit == 0) {
+            throw new IllegalArgumentException("Zero-valued unit");
         }
+
+        final double[] c = raw.getCentralMoments();
+        final Rectangle bounds = raw.getBounds();
+        final Point2D mean = raw.getMean();
+        setValues(
+                raw.getWeight(),
+                unit,
+                bounds.width,
+                bounds.height,
+                mean.getX(),
+                mean.getY(),
+                c);
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -360,6 +340,89 @@ public class GeometricMoments
         return k[1];
     }
 
+    //-----------//
+    // setValues //
+    //-----------//
+    /**
+     * Normalize and record the moment values.
+     *
+     * @param w      total weight
+     * @param unit   the length (number of pixels) of normalizing unit
+     * @param width  width in pixels
+     * @param height height in pixels
+     * @param n10    abscissa of mass center
+     * @param n01    ordinate of mass center
+     * @param c      central moments n20, n11, n02, n30, n21, n12, n03 (not yet normalized)
+     */
+    private void setValues (double w,
+                            int unit,
+                            int width,
+                            int height,
+                            double n10,
+                            double n01,
+                            double[] c)
+    {
+        final double w2 = w * w; // For p+q == 2
+        final double w3 = Math.sqrt(w * w * w * w * w); // For p+q == 3
+
+        // Normalize
+        //
+        // p + q = 2
+        final double n20 = c[0] / w2;
+        final double n11 = c[1] / w2;
+        final double n02 = c[2] / w2;
+        //
+        // p + q = 3
+        final double n30 = c[3] / w3;
+        final double n21 = c[4] / w3;
+        final double n12 = c[5] / w3;
+        final double n03 = c[6] / w3;
+
+        // Unit-based weight, width and height
+        k[0] = w / (unit * unit); // Unit-based Weight
+        k[1] = (double) width / unit; // Unit-based Width
+        k[2] = (double) height / unit; // Unit-based Height
+
+        // Non-orthogonal central moments
+        // (invariant to translation & scaling)
+        k[3] = n20; // X absolute eccentricity
+        k[4] = n11; // XY covariance
+        k[5] = n02; // Y absolute eccentricity
+        k[6] = n30; // X signed eccentricity
+        k[7] = n21; // V vs. ^
+        k[8] = n12; // > vs. <
+        k[9] = n03; // Y signed eccentricity
+
+        // Mass center
+        k[10] = n10; // xBar
+        k[11] = n01; // yBar
+
+        if (useHuCoefficients) {
+            // Orthogonals moments (Hu set)
+            // (Invariant to translation / scaling / rotation)
+            int i = 12;
+            k[i++] = n20 + n02;
+            //
+            k[i++] = ((n20 - n02) * (n20 - n02)) + (4 * n11 * n11);
+            //
+            k[i++] = ((n30 - (3 * n12)) * (n30 - (3 * n12))) + ((n03 - (3 * n21)) * (n03 - (3
+                    * n21)));
+            //
+            k[i++] = ((n30 + n12) * (n30 + n12)) + ((n03 + n21) * (n03 + n21));
+            //
+            k[i++] = ((n30 - (3 * n12)) * (n30 + n12) * (((n30 + n12) * (n30 + n12)) - (3 * (n21
+                    + n03) * (n21 + n03)))) + ((n03 - (3 * n21)) * (n03 + n21) * (((n03 + n21)
+                            * (n03 + n21)) - (3 * (n12 + n30) * (n12 + n30))));
+            //
+            k[i++] = ((n20 - n02) * (((n30 + n12) * (n30 + n12)) - ((n03 + n21) * (n03 + n21))))
+                    + (4 * n11 * (n30 + n12) * (n03 + n21));
+            //
+            k[i++] = (((3 * n21) - n03) * (n30 + n12) * (((n30 + n12) * (n30 + n12)) - (3 * (n21
+                    + n03) * (n21 + n03)))) - (((3 * n12) - n30) * (n03 + n21) * (((n03 + n21)
+                            * (n03 + n21)) - (3 * (n12 + n30) * (n12 + n30))));
+        }
+    }
+
     //----------//
     // toString //
     //----------//
@@ -0,0 +1,236 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                       R a w M o m e n t s                                      //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.moments;
+
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+
+/**
+ * Class <code>RawMoments</code> gathers the raw moments (sums of x<sup>p</sup>.y<sup>q</sup>
+ * for p + q &lt;= 3) of a set of points, together with their weight and bounds.
+ * <p>
+ * Raw moments are additive over disjoint sets of points, so that the moments of a compound can
+ * be derived from the moments of its parts, without browsing the compound points.
+ * <p>
+ * Sums are kept as exact integers, computed on coordinates relative to an origin point close
+ * to the points, to remain small.
+ *
+ * @author Hervé Bitteur
+ */
+public class RawMoments
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Abscissa of origin. */
+    private final int ox;
+
+    /** Ordinate of origin. */
+    private final int oy;
+
+    /** Number of points. */
+    private long w;
+
+    private long s10;
+
+    private long s01;
+
+    private long s20;
+
+    private long s11;
+
+    private long s02;
+
+    private long s30;
+
+    private long s21;
+
+    private long s12;
+
+    private long s03;
+
+    /** Absolute bounds of points. */
+    private int xMin = Integer.MAX_VALUE;
+
+    private int xMax = Integer.MIN_VALUE;
+
+    private int yMin = Integer.MAX_VALUE;
+
+    private int yMax = Integer.MIN_VALUE;
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    /**
+     * Creates an empty <code>RawMoments</code> object.
+     *
+     * @param ox abscissa of origin point
+     * @param oy ordinate of origin point
+     */
+    public RawMoments (int ox,
+                       int oy)
+    {
+        this.ox = ox;
+        this.oy = oy;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //-----------//
+    // getBounds //
+    //-----------//
+    /**
+     * Report the absolute bounds of the points.
+     *
+     * @return the bounds, null if no point
+     */
+    public Rectangle getBounds ()
+    {
+        if (w == 0) {
+            return null;
+        }
+
+        return new Rectangle(xMin, yMin, xMax - xMin + 1, yMax - yMin + 1);
+    }
+
+    //-------------------//
+    // getCentralMoments //
+    //-------------------//
+    /**
+     * Report the (non-normalized) central moments.
+     *
+     * @return the central moments n20, n11, n02, n30, n21, n12, n03
+     */
+    public double[] getCentralMoments ()
+    {
+        // Mean values, relative to origin
+        final double mx = s10 / (double) w;
+        final double my = s01 / (double) w;
+
+        return new double[]
+        {
+                s20 - (mx * s10), // n20
+                s11 - (mx * s01), // n11
+                s02 - (my * s01), // n02
+                (s30 - (3 * mx * s20)) + (2 * mx * mx * s10), // n30
+                ((s21 - (2 * mx * s11)) - (my * s20)) + (2 * mx * mx * s01), // n21
+                ((s12 - (2 * my * s11)) - (mx * s02)) + (2 * my * my * s10), // n12
+                (s03 - (3 * my * s02)) + (2 * my * my * s01) // n03
+        };
+    }
+
+    //---------//
+    // getMean //
+    //---------//
+    /**
+     * Report the absolute mass center of the points.
+     *
+     * @return the mass center
+     */
+    public Point2D getMean ()
+    {
+        return new Point2D.Double(
+                ((ox * w) + s10) / (double) w,
+                ((oy * w) + s01) / (double) w);
+    }
+
+    //-----------//
+    // getWeight //
+    //-----------//
+    /**
+     * Report the number of points.
+     *
+     * @return the weight
+     */
+    public long getWeight ()
+    {
+        return w;
+    }
+
+    //---------//
+    // include //
+    //---------//
+    /**
+     * Include one point.
+     *
+     * @param x absolute point abscissa
+     * @param y absolute point ordinate
+     */
+    public void include (int x,
+                         int y)
+    {
+        final long rx = x - ox;
+        final long ry = y - oy;
+        w++;
+        s10 += rx;
+        s01 += ry;
+        s20 += rx * rx;
+        s11 += rx * ry;
+        s02 += ry * ry;
+        s30 += rx * rx * rx;
+        s21 += rx * rx * ry;
+        s12 += rx * ry * ry;
+        s03 += ry * ry * ry;
+
+        xMin = Math.min(xMin, x);
+        xMax = Math.max(xMax, x);
+        yMin = Math.min(yMin, y);
+        yMax = Math.max(yMax, y);
+    }
+
+    //------//
+    // plus //
+    //------//
+    /**
+     * Report the moments of the union of these points and the provided (disjoint) ones.
+     *
+     * @param that the moments of other points
+     * @return the moments of all points, with the same origin as this instance
+     */
+    public RawMoments plus (RawMoments that)
+    {
+        // Shift of that origin, with respect to this origin
+        final long a = that.ox - ox;
+        final long b = that.oy - oy;
+
+        final RawMoments sum = new RawMoments(ox, oy);
+        sum.w = w + that.w;
+        sum.s10 = s10 + that.s10 + (a * that.w);
+        sum.s01 = s01 + that.s01 + (b * that.w);
+        sum.s20 = s20 + that.s20 + (2 * a * that.s10) + (a * a * that.w);
+        sum.s02 = s02 + that.s02 + (2 * b * that.s01) + (b * b * that.w);
+        sum.s11 = s11 + that.s11 + (b * that.s10) + (a * that.s01) + (a * b * that.w);
+        sum.s30 = s30 + that.s30 + (3 * a * that.s20) + (3 * a * a * that.s10)
+                + (a * a * a * that.w);
+        sum.s03 = s03 + that.s03 + (3 * b * that.s02) + (3 * b * b * that.s01)
+                + (b * b * b * that.w);
+        sum.s21 = s21 + that.s21 + (b * that.s20) + (2 * a * that.s11) + (2 * a * b * that.s10)
+                + (a * a * that.s01) + (a * a * b * that.w);
+        sum.s12 = s12 + that.s12 + (a * that.s02) + (2 * b * that.s11) + (2 * a * b * that.s01)
+                + (b * b * that.s10) + (a * b * b * that.w);
+
+        sum.xMin = Math.min(xMin, that.xMin);
+        sum.xMax = Math.max(xMax, that.xMax);
+        sum.yMin = Math.min(yMin, that.yMin);
+        sum.yMax = Math.max(yMax, that.yMax);
+
+        return sum;
+    }
+}
@@ -28,6 +28,7 @@ import org.audiveris.omr.moments.ARTMoments;
 import org.audiveris.omr.moments.BasicARTExtractor;
 import org.audiveris.omr.moments.BasicARTMoments;
 import org.audiveris.omr.moments.GeometricMoments;
+import org.audiveris.omr.moments.RawMoments;
 import static org.audiveris.omr.run.Orientation.HORIZONTAL;
 import org.audiveris.omr.util.ByteUtil;
 import org.audiveris.omr.util.Jaxb;
@@ -93,6 +94,10 @@ import javax.xml.stream.XMLStreamException;
  * <li>[FBFBF] (perhaps 0BFBF)
  * <li>etc...
  * </ul>
+ * A table built in bulk (see {@link Builder}) keeps all its sequences packed one after the other
+ * in a single flat array of cells, indexed by an array of offsets.
+ * This packed form is read as is, and gets expanded into individual sequences only when the
+ * table is modified or marshalled.
  *
  * @author Hervé Bitteur
  */
@@ -141,7 +146,7 @@ public class RunTable
      * </ul>
      */
     @XmlElement(name = "runs")
-    private final RunSequence[] sequences;
+    private RunSequence[] sequences;
 
     // Transient data
     //---------------
@@ -152,6 +157,15 @@ public class RunTable
     /** Cached total weight. */
     private Integer weight;
 
+    /** Packed RLE cells of all sequences, if any. Null when sequences are expanded. */
+    private int[] packedCells;
+
+    /**
+     * Start of each sequence in packedCells, plus a final entry for the end of last sequence.
+     * Null when sequences are expanded.
+     */
+    private int[] packedOffsets;
+
     //~ Constructors -------------------------------------------------------------------------------
 
     /**
@@ -185,6 +199,31 @@ public class RunTable
         sequences = new RunSequence[seqNb];
     }
 
+    /**
+     * Creates a new RunTable object, on packed sequences.
+     *
+     * @param orientation   orientation of each run
+     * @param width         table width
+     * @param height        table height
+     * @param packedCells   the RLE cells of all sequences, one after the other
+     * @param packedOffsets the start of each sequence in packedCells, plus final end
+     * @param weight        the total weight, if already known
+     */
+    private RunTable (Orientation orientation,
+                      int width,
+                      int height,
+                      int[] packedCells,
+                      int[] packedOffsets,
+                      Integer weight)
+    {
+        this.orientation = orientation;
+        this.width = width;
+        this.height = height;
+        this.packedCells = packedCells;
+        this.packedOffsets = packedOffsets;
+        this.weight = weight;
+    }
+
     //~ Methods ------------------------------------------------------------------------------------
 
     //--------//
@@ -212,6 +251,7 @@ public class RunTable
         }
 
         weight = null; // Invalidate cached data
+        unpack();
 
         // Look for background where foreground run is to take place
         // ...F(B)F... -> ...F(B1FB2)F...
@@ -369,6 +409,8 @@ public class RunTable
     @SuppressWarnings("unused")
     private void beforeMarshal (Marshaller m)
     {
+        unpack();
+
         for (int i = 0, iBreak = sequences.length; i < iBreak; i++) {
             RunSequence seq = sequences[i];
 
@@ -484,6 +526,39 @@ public class RunTable
                 interline);
     }
 
+    //-------------------//
+    // computeRawMoments //
+    //-------------------//
+    /**
+     * Compute the raw moments for this runTable.
+     *
+     * @param left abscissa of topLeft corner
+     * @param top  ordinate of topLeft corner
+     * @return the raw moments, using (left,top) as origin
+     */
+    public RawMoments computeRawMoments (int left,
+                                         int top)
+    {
+        final RawMoments raw = new RawMoments(left, top);
+
+        for (int p = 0, iBreak = getSize(); p < iBreak; p++) {
+            for (Iterator<Run> it = iterator(p); it.hasNext();) {
+                final Run run = it.next();
+                final int start = run.getStart();
+
+                for (int ic = run.getLength() - 1; ic >= 0; ic--) {
+                    if (orientation == HORIZONTAL) {
+                        raw.include(left + start + ic, top + p);
+                    } else {
+                        raw.include(left + p, top + start + ic);
+                    }
+                }
+            }
+        }
+
+        return raw;
+    }
+
     //----------//
     // contains //
     //----------//
@@ -508,6 +583,16 @@ public class RunTable
      */
     public RunTable copy ()
     {
+        if (sequences == null) {
+            return new RunTable(
+                    orientation,
+                    width,
+                    height,
+                    packedCells.clone(),
+                    packedOffsets.clone(),
+                    weight);
+        }
+
         RunTable clone = new RunTable(orientation, width, height);
 
         for (int i = 0; i < sequences.length; i++) {
@@ -644,9 +729,9 @@ public class RunTable
     {
         System.out.println(toString());
 
-        for (int i = 0; i < sequences.length; i++) {
-            final RunSequence seq = sequences[i];
-            System.out.printf("%4d:%s%n", i, (seq != null) ? seq.toString() : "null");
+        for (int i = 0, iBreak = getSize(); i < iBreak; i++) {
+            final int[] rle = getRle(i);
+            System.out.printf("%4d:%s%n", i, (rle != null) ? Arrays.toString(rle) : "null");
         }
     }
 
@@ -682,7 +767,17 @@ public class RunTable
             return false;
         }
 
-        return Arrays.deepEquals(this.sequences, other.sequences);
+        if ((this.sequences != null) && (other.sequences != null)) {
+            return Arrays.deepEquals(this.sequences, other.sequences);
+        }
+
+        for (int i = 0, iBreak = getSize(); i < iBreak; i++) {
+            if (!Arrays.equals(getRle(i), other.getRle(i))) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     //-----------//
@@ -943,6 +1038,33 @@ public class RunTable
         return orientation;
     }
 
+    //--------//
+    // getRle //
+    //--------//
+    /**
+     * (package private) Report the raw RLE cells of sequence at a given index.
+     *
+     * @param index the desired index
+     * @return the RLE cells (a copy for a packed table), or null for an empty sequence
+     */
+    final int[] getRle (int index)
+    {
+        if (sequences == null) {
+            final int start = packedOffsets[index];
+            final int stop = packedOffsets[index + 1];
+
+            return (stop > start) ? Arrays.copyOfRange(packedCells, start, stop) : null;
+        }
+
+        final RunSequence seq = sequences[index];
+
+        if ((seq == null) || (seq.rle == null) || (seq.rle.length == 0)) {
+            return null;
+        }
+
+        return seq.rle;
+    }
+
     //----------//
     // getRunAt //
     //----------//
@@ -958,7 +1080,7 @@ public class RunTable
     {
         final int iSeq = (orientation == HORIZONTAL) ? y : x;
 
-        if ((iSeq < 0) || (iSeq >= sequences.length)) {
+        if ((iSeq < 0) || (iSeq >= getSize())) {
             return null;
         }
 
@@ -1003,6 +1125,8 @@ public class RunTable
      */
     final RunSequence getSequence (int index)
     {
+        unpack();
+
         return sequences[index];
     }
 
@@ -1017,7 +1141,9 @@ public class RunTable
      */
     public final int getSize ()
     {
-        return sequences.length;
+        final RunSequence[] seqs = sequences;
+
+        return (seqs != null) ? seqs.length : (packedOffsets.length - 1);
     }
 
     //------------------//
@@ -1032,6 +1158,19 @@ public class RunTable
     {
         int total = 0;
 
+        if (sequences == null) {
+            for (int i = 0, iBreak = getSize(); i < iBreak; i++) {
+                final int start = packedOffsets[i];
+                final int stop = packedOffsets[i + 1];
+
+                if (stop > start) {
+                    total += ((stop - start + 1) / 2) - ((packedCells[start] == 0) ? 1 : 0);
+                }
+            }
+
+            return total;
+        }
+
         for (RunSequence seq : sequences) {
             if (seq != null) {
                 total += seq.size();
@@ -1219,6 +1358,10 @@ public class RunTable
      */
     public boolean isSequenceEmpty (int index)
     {
+        if (sequences == null) {
+            return packedOffsets[index + 1] == packedOffsets[index];
+        }
+
         return sequences[index] == null;
     }
 
@@ -1456,6 +1599,23 @@ public class RunTable
         }
     }
 
+    //--------//
+    // setRle //
+    //--------//
+    /**
+     * (package private) Set the raw RLE cells of sequence at a given index.
+     *
+     * @param index position in sequences list
+     * @param rle   the RLE cells, or null for an empty sequence
+     */
+    final void setRle (int index,
+                       int[] rle)
+    {
+        unpack();
+        sequences[index] = ((rle == null) || (rle.length == 0)) ? null : new RunSequence(rle);
+        weight = null;
+    }
+
     //---------------//
     // setRunService //
     //---------------//
@@ -1481,7 +1641,9 @@ public class RunTable
     public void setSequence (int index,
                              List<? extends Run> list)
     {
+        unpack();
         sequences[index] = encode(list);
+        weight = null;
     }
 
     //-------------//
@@ -1496,7 +1658,9 @@ public class RunTable
     final void setSequence (int index,
                             RunSequence seq)
     {
+        unpack();
         sequences[index] = seq;
+        weight = null;
     }
 
     //----------//
@@ -1577,11 +1741,10 @@ public class RunTable
         int i = -1; // Sequence index in newTable
 
         for (int iSeq = iSeqMin; iSeq <= iSeqMax; iSeq++) {
-            RunSequence seq = getSequence(iSeq);
+            final int[] seqRle = getRle(iSeq);
             i++;
 
-            if ((seq != null) && (seq.rle != null)) {
-                final int[] seqRle = seq.rle;
+            if (seqRle != null) {
                 final int[] rle;
 
                 if (coordMin == 0) {
@@ -1613,6 +1776,35 @@ public class RunTable
         return newTable;
     }
 
+    //--------//
+    // unpack //
+    //--------//
+    /**
+     * Expand packed cells, if any, into individual sequences, before any modification.
+     */
+    private void unpack ()
+    {
+        if (sequences != null) {
+            return;
+        }
+
+        final int size = packedOffsets.length - 1;
+        final RunSequence[] seqs = new RunSequence[size];
+
+        for (int i = 0; i < size; i++) {
+            final int start = packedOffsets[i];
+            final int stop = packedOffsets[i + 1];
+
+            if (stop > start) {
+                seqs[i] = new RunSequence(Arrays.copyOfRange(packedCells, start, stop));
+            }
+        }
+
+        sequences = seqs;
+        packedCells = null;
+        packedOffsets = null;
+    }
+
     //-------//
     // write //
     //-------//
@@ -1656,6 +1848,22 @@ public class RunTable
      * @return the sequence ready to be inserted into table
      */
     static RunSequence encode (List<? extends Run> list)
+    {
+        final int[] rle = encodeRle(list);
+
+        return (rle != null) ? new RunSequence(rle) : null;
+    }
+
+    //-----------//
+    // encodeRle //
+    //-----------//
+    /**
+     * (Package-private) method to encode a list of runs into RLE cells.
+     *
+     * @param list the list of runs to encode
+     * @return the RLE cells, or null for an empty list
+     */
+    static int[] encodeRle (List<? extends Run> list)
     {
         if ((list == null) || list.isEmpty()) {
             return null;
@@ -1693,7 +1901,7 @@ public class RunTable
             injectBackground = true;
         }
 
-        return new RunSequence(rle);
+        return rle;
     }
 
     //----------------//
@@ -1751,10 +1959,22 @@ public class RunTable
         /** The index of sequence being iterated upon. */
         private final int index;
 
+        /** The array which hosts the cells of sequence, perhaps a packed array. */
+        private int[] rle;
+
+        /** Position of sequence first cell in rle array. */
+        private int base;
+
+        /** Position past sequence last cell in rle array. */
+        private int end;
+
+        /** True if iterating over packed cells. */
+        private boolean packed;
+
         /**
-         * Current position in sequence array.
-         * Always on an even position, pointing to the length of Foreground to be returned by
-         * next()
+         * Current position in rle array.
+         * Always on an even position (WRT base), pointing to the length of Foreground to be
+         * returned by next()
          */
         private int cursor = 0;
 
@@ -1770,22 +1990,16 @@ public class RunTable
         Itr (int index)
         {
             this.index = index;
+            bind();
+            cursor = base;
 
             // Check the case of an initial background run
-            final RunSequence seq = sequences[index];
-
-            if (seq != null) {
-                final int[] rle = seq.rle;
-
-                if ((rle != null) && (rle.length > 0)) {
-                    if (rle[cursor] == 0) {
-                        if (rle.length > 1) {
-                            loc = rle[1];
-                        }
-
-                        cursor += 2;
-                    }
+            if ((end > base) && (rle[cursor] == 0)) {
+                if ((end - base) > 1) {
+                    loc = rle[base + 1];
                 }
+
+                cursor += 2;
             }
         }
 
@@ -1797,19 +2011,7 @@ public class RunTable
         @Override
         public final boolean hasNext ()
         {
-            final RunSequence seq = sequences[index];
-
-            if (seq == null) {
-                return false;
-            }
-
-            final int[] rle = seq.rle;
-
-            if (rle == null) {
-                return false;
-            }
-
-            return cursor < rle.length;
+            return cursor < end;
         }
 
         /**
@@ -1825,8 +2027,6 @@ public class RunTable
                 throw new NoSuchElementException();
             }
 
-            final int[] rle = sequences[index].rle;
-
             // ...v.. cursor before next()
             // ...FBF
             // .....^ cursor after next()
@@ -1839,7 +2039,7 @@ public class RunTable
 
             loc += foreLg;
 
-            if (cursor < rle.length) {
+            if (cursor < end) {
                 int backLg = rle[cursor];
                 loc += backLg;
             }
@@ -1852,7 +2052,13 @@ public class RunTable
         @Override
         public void remove ()
         {
-            final int[] rle = sequences[index].rle;
+            if (packed) {
+                // Switch to individual sequences before any modification
+                unpack();
+                cursor -= base;
+                bind();
+            }
+
             int c = cursor - 2;
 
             if (c == 0) {
@@ -1885,11 +2091,138 @@ public class RunTable
 
                 cursor = c;
             }
+
+            bind();
+        }
+
+        /**
+         * Point to the current cells of the sequence, either packed or individual.
+         */
+        private void bind ()
+        {
+            final RunSequence[] seqs = sequences;
+
+            if (seqs == null) {
+                packed = true;
+                rle = packedCells;
+                base = packedOffsets[index];
+                end = packedOffsets[index + 1];
+            } else {
+                final RunSequence seq = seqs[index];
+                packed = false;
+                rle = (seq != null) ? seq.rle : null;
+                base = 0;
+                end = (rle != null) ? rle.length : 0;
+            }
         }
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
 
+    //---------//
+    // Builder //
+    //---------//
+    /**
+     * Class <code>Builder</code> gathers the sequences of a table to be populated in bulk,
+     * and packs them into one flat array of cells when the table is built.
+     * <p>
+     * Sequences can be provided in any order, and concurrently as long as indices differ.
+     */
+    public static class Builder
+    {
+
+        private final Orientation orientation;
+
+        private final int width;
+
+        private final int height;
+
+        /** RLE cells of each sequence, null for an empty sequence. */
+        private final int[][] cells;
+
+        /**
+         * Creates a new <code>Builder</code> object.
+         *
+         * @param orientation orientation of each run
+         * @param width       table width
+         * @param height      table height
+         */
+        public Builder (Orientation orientation,
+                        int width,
+                        int height)
+        {
+            this.orientation = orientation;
+            this.width = width;
+            this.height = height;
+
+            cells = new int[orientation.isVertical() ? width : height][];
+        }
+
+        /**
+         * Build the table, with all its sequences packed.
+         *
+         * @return the populated table
+         */
+        public RunTable build ()
+        {
+            final int size = cells.length;
+            final int[] offsets = new int[size + 1];
+            int total = 0;
+
+            for (int i = 0; i < size; i++) {
+                offsets[i] = total;
+
+                if (cells[i] != null) {
+                    total += cells[i].length;
+                }
+            }
+
+            offsets[size] = total;
+
+            final int[] packed = new int[total];
+            int weight = 0;
+
+            for (int i = 0; i < size; i++) {
+                final int[] rle = cells[i];
+
+                if (rle != null) {
+                    System.arraycopy(rle, 0, packed, offsets[i], rle.length);
+
+                    // Foreground lengths are at even positions
+                    for (int c = 0; c < rle.length; c += 2) {
+                        weight += rle[c];
+                    }
+                }
+            }
+
+            return new RunTable(orientation, width, height, packed, offsets, weight);
+        }
+
+        /**
+         * (package private) Set the raw RLE cells of sequence at a given index.
+         *
+         * @param index position in sequences list
+         * @param rle   the RLE cells, or null for an empty sequence
+         */
+        void setRle (int index,
+                     int[] rle)
+        {
+            cells[index] = ((rle == null) || (rle.length == 0)) ? null : rle;
+        }
+
+        /**
+         * Set the runs of sequence at a given index.
+         *
+         * @param index position in sequences list
+         * @param list  the list of runs, perhaps empty
+         */
+        public void setSequence (int index,
+                                 List<? extends Run> list)
+        {
+            cells[index] = encodeRle(list);
+        }
+    }
+
     //-------------//
     // RunSequence //
     //-------------//
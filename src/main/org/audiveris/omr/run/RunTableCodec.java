@@ -0,0 +1,381 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    R u n T a b l e C o d e c                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class <code>RunTableCodec</code> handles the compact binary form of a {@link RunTable}.
+ * <p>
+ * The binary layout, all integers being encoded as unsigned LEB128 variable-length integers
+ * ("varints") unless stated otherwise, is:
+ * <ol>
+ * <li>magic: 4 bytes <code>ORLE</code>,
+ * <li>version: 1 byte,
+ * <li>orientation: 1 byte (0 for HORIZONTAL, 1 for VERTICAL),
+ * <li>width, height,
+ * <li>then, for each sequence of the table: the count of RLE cells (0 for an empty sequence)
+ * followed by the RLE cells themselves.
+ * </ol>
+ * Since run lengths are mostly small, most cells take a single byte, to be compared with several
+ * bytes of decimal text plus separator in the XML form.
+ * <p>
+ * Decoding works on a {@link ByteBuffer}, which can be a memory-mapped file.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class RunTableCodec
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** File extension for binary run tables: {@value}. */
+    public static final String EXTENSION = ".runs";
+
+    /** Magic bytes at beginning of binary form. */
+    private static final byte[] MAGIC = new byte[]{'O', 'R', 'L', 'E'};
+
+    /** Current version of binary form. */
+    public static final int VERSION = 1;
+
+    /** Size of write buffer. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    /** Not meant to be instantiated. */
+    private RunTableCodec ()
+    {
+    }
+
+    //~ Static Methods -----------------------------------------------------------------------------
+
+    //----------//
+    // isBinary //
+    //----------//
+    /**
+     * Check whether the provided bytes begin with the binary form magic.
+     *
+     * @param header the first bytes of some data
+     * @return true if binary form is detected
+     */
+    public static boolean isBinary (byte[] header)
+    {
+        if ((header == null) || (header.length < MAGIC.length)) {
+            return false;
+        }
+
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    //------//
+    // read //
+    //------//
+    /**
+     * Decode a run table from the provided buffer, starting at its current position.
+     *
+     * @param buffer the buffer to read from
+     * @return the decoded run table
+     * @throws IOException if data is not a valid binary run table
+     */
+    public static RunTable read (ByteBuffer buffer)
+        throws IOException
+    {
+        try {
+            for (byte b : MAGIC) {
+                if (buffer.get() != b) {
+                    throw new IOException("Not a binary run table");
+                }
+            }
+
+            final int version = buffer.get() & 0xFF;
+
+            if (version > VERSION) {
+                throw new IOException("Unsupported binary run table version " + version);
+            }
+
+            final Orientation orientation = switch (buffer.get()) {
+            case 0 -> Orientation.HORIZONTAL;
+            case 1 -> Orientation.VERTICAL;
+            default -> throw new IOException("Illegal run table orientation");
+            };
+
+            final int width = readVarInt(buffer, Integer.MAX_VALUE, "width");
+            final int height = readVarInt(buffer, Integer.MAX_VALUE, "height");
+            final int size = orientation.isVertical() ? width : height;
+            final int length = orientation.isVertical() ? height : width;
+
+            // Each sequence takes at least one byte
+            if (size > buffer.remaining()) {
+                throw new IOException("Truncated binary run table");
+            }
+
+            final RunTable.Builder builder = new RunTable.Builder(orientation, width, height);
+
+            for (int i = 0; i < size; i++) {
+                // At most one value per pixel, plus a leading empty background run
+                final int count = readVarInt(buffer, length + 1L, "run count");
+
+                if (count > 0) {
+                    if (count > buffer.remaining()) {
+                        throw new IOException("Truncated binary run table");
+                    }
+
+                    final int[] rle = new int[count];
+                    long total = 0;
+
+                    for (int j = 0; j < count; j++) {
+                        rle[j] = readVarInt(buffer, length, "run length");
+                        total += rle[j];
+                    }
+
+                    if (total > length) {
+                        throw new IOException("Runs exceed binary run table dimension");
+                    }
+
+                    builder.setRle(i, rle);
+                }
+            }
+
+            return builder.build();
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Truncated binary run table", ex);
+        }
+    }
+
+    //------//
+    // read //
+    //------//
+    /**
+     * Decode a run table from the provided input stream.
+     *
+     * @param is the input stream to read from
+     * @return the decoded run table
+     * @throws IOException if anything goes wrong
+     */
+    public static RunTable read (InputStream is)
+        throws IOException
+    {
+        return read(ByteBuffer.wrap(is.readAllBytes()));
+    }
+
+    //------//
+    // read //
+    //------//
+    /**
+     * Decode a run table from the provided file.
+     * <p>
+     * If the file belongs to the default file system, it is memory-mapped rather than read.
+     *
+     * @param path path to the file
+     * @return the decoded run table
+     * @throws IOException if anything goes wrong
+     */
+    public static RunTable read (Path path)
+        throws IOException
+    {
+        if (path.getFileSystem() == FileSystems.getDefault()) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                final MappedByteBuffer mapped = channel.map(
+                        FileChannel.MapMode.READ_ONLY,
+                        0,
+                        channel.size());
+
+                return read(mapped);
+            }
+        }
+
+        try (InputStream is = Files.newInputStream(path, StandardOpenOption.READ)) {
+            return read(is);
+        }
+    }
+
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Encode the provided run table to the provided output stream.
+     *
+     * @param table the table to encode
+     * @param os    the output stream to write to (not closed by this method)
+     * @throws IOException if anything goes wrong
+     */
+    public static void write (RunTable table,
+                              OutputStream os)
+        throws IOException
+    {
+        final Writer writer = new Writer(os);
+
+        for (byte b : MAGIC) {
+            writer.writeByte(b);
+        }
+
+        writer.writeByte(VERSION);
+        writer.writeByte(table.getOrientation().isVertical() ? 1 : 0);
+        writer.writeVarInt(table.getWidth());
+        writer.writeVarInt(table.getHeight());
+
+        for (int i = 0, size = table.getSize(); i < size; i++) {
+            final int[] rle = table.getRle(i);
+
+            if (rle == null) {
+                writer.writeVarInt(0);
+            } else {
+                writer.writeVarInt(rle.length);
+
+                for (int val : rle) {
+                    writer.writeVarInt(val);
+                }
+            }
+        }
+
+        writer.flush();
+    }
+
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Encode the provided run table to the provided file.
+     *
+     * @param table the table to encode
+     * @param path  the file to write
+     * @throws IOException if anything goes wrong
+     */
+    public static void write (RunTable table,
+                              Path path)
+        throws IOException
+    {
+        try (OutputStream os = Files.newOutputStream(path)) {
+            write(table, os);
+        }
+    }
+
+    //------------//
+    // readVarInt //
+    //------------//
+    /**
+     * Read a non-negative varint, checked against the provided maximum value.
+     *
+     * @param buffer the buffer to read from
+     * @param max    maximum legal value
+     * @param what   name of the value, for error message
+     * @return the value read
+     * @throws IOException if value is malformed or out of range
+     */
+    private static int readVarInt (ByteBuffer buffer,
+                                   long max,
+                                   String what)
+        throws IOException
+    {
+        int value = 0;
+
+        for (int shift = 0; shift < 35; shift += 7) {
+            final int b = buffer.get();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                if ((value < 0) || (value > max)) {
+                    throw new IOException(
+                            "Illegal " + what + " " + value + " in binary run table");
+                }
+
+                return value;
+            }
+        }
+
+        throw new IOException("Malformed varint in binary run table");
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+
+    //--------//
+    // Writer //
+    //--------//
+    /**
+     * Buffered writer of bytes and varints.
+     */
+    private static class Writer
+    {
+
+        private final OutputStream os;
+
+        private final byte[] buf = new byte[BUFFER_SIZE];
+
+        private int pos;
+
+        Writer (OutputStream os)
+        {
+            this.os = os;
+        }
+
+        void flush ()
+            throws IOException
+        {
+            os.write(buf, 0, pos);
+            pos = 0;
+            os.flush();
+        }
+
+        void writeByte (int b)
+            throws IOException
+        {
+            if (pos == buf.length) {
+                os.write(buf, 0, pos);
+                pos = 0;
+            }
+
+            buf[pos++] = (byte) b;
+        }
+
+        void writeVarInt (int value)
+            throws IOException
+        {
+            if (pos > (buf.length - 5)) {
+                os.write(buf, 0, pos);
+                pos = 0;
+            }
+
+            while ((value & ~0x7F) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+
+            buf[pos++] = (byte) value;
+        }
+    }
+}
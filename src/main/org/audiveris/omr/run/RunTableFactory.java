@@ -21,6 +21,10 @@
 // </editor-fold>
 package org.audiveris.omr.run;
 
+import org.audiveris.omr.image.PixelFilter;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,7 +34,11 @@ import net.jcip.annotations.ThreadSafe;
 
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * Class <code>RunTableFactory</code> retrieves the runs structure out of a given pixel
@@ -109,14 +117,138 @@ public class RunTableFactory
     public RunTable createTable (ByteProcessor source,
                                  Rectangle roi)
     {
-        RunTable table = new RunTable(orientation, roi.width, roi.height);
+        final RunTable.Builder builder = new RunTable.Builder(orientation, roi.width, roi.height);
         RunsRetriever retriever = new RunsRetriever(
                 orientation,
-                orientation.isVertical() ? new VerticalAdapter(source, table, roi.getLocation())
-                        : new HorizontalAdapter(source, table, roi.getLocation()));
+                orientation.isVertical() ? new VerticalAdapter(source, builder, roi.getLocation())
+                        : new HorizontalAdapter(source, builder, roi.getLocation()));
         retriever.retrieveRuns(roi);
 
-        return table;
+        return builder.build();
+    }
+
+    // ------------//
+    // createTable //
+    // ------------//
+    /**
+     * Report the RunTable created with the runs retrieved directly from the provided
+     * pixel filter, without any intermediate filtered image.
+     * <p>
+     * For a vertical table, the source is split into vertical stripes, each stripe being filtered
+     * and converted into run sequences by a separate task.
+     * A horizontal table is simply built on top of the filtered image.
+     *
+     * @param pixelFilter the filter to read foreground pixels from
+     * @return a populated RunTable
+     */
+    public RunTable createTable (PixelFilter pixelFilter)
+    {
+        if (!orientation.isVertical()) {
+            return createTable(pixelFilter.filteredImage());
+        }
+
+        final int width = pixelFilter.getWidth();
+        final int height = pixelFilter.getHeight();
+        final RunTable.Builder builder = new RunTable.Builder(orientation, width, height);
+
+        final int stripeCount = OmrExecutors.defaultParallelism.getValue()
+                ? Math.min(width, OmrExecutors.getNumberOfCpus()) : 1;
+
+        if (stripeCount <= 1) {
+            processStripe(pixelFilter.getStripeFilter(0, width - 1), 0, width - 1, builder);
+
+            return builder.build();
+        }
+
+        final int stripeWidth = (width + stripeCount - 1) / stripeCount;
+        final List<Callable<Void>> tasks = new ArrayList<>(stripeCount);
+
+        for (int xMin = 0; xMin < width; xMin += stripeWidth) {
+            final int x1 = xMin;
+            final int x2 = Math.min(width, xMin + stripeWidth) - 1;
+            tasks.add( () ->
+            {
+                processStripe(pixelFilter.getStripeFilter(x1, x2), x1, x2, builder);
+
+                return null;
+            });
+        }
+
+        try {
+            // Launch the tasks and wait for their completion
+            for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            logger.warn("Stripe binarization got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (Exception ex) {
+            logger.warn("Exception raised in stripe binarization", ex);
+            throw new RuntimeException(ex);
+        }
+
+        return builder.build();
+    }
+
+    //---------------//
+    // processStripe //
+    //---------------//
+    /**
+     * Retrieve the vertical runs of each column in the provided stripe.
+     * <p>
+     * RLE cells are directly derived from pixels, without any intermediate Run instance.
+     *
+     * @param stripeFilter the filter dedicated to this stripe
+     * @param xMin         first stripe column
+     * @param xMax         last stripe column
+     * @param builder      the table builder to populate
+     */
+    private void processStripe (PixelFilter stripeFilter,
+                                int xMin,
+                                int xMax,
+                                RunTable.Builder builder)
+    {
+        final int height = stripeFilter.getHeight();
+        final int[] cells = new int[height + 2]; // Worst case: 0B + FBFB...F
+
+        for (int x = xMin; x <= xMax; x++) {
+            int count = 0; // Number of cells
+            int stop = 0; // End of last foreground run
+            int start = -1; // Start of current foreground run, if any
+
+            for (int y = 0; y <= height; y++) {
+                final boolean fore = (y < height) && stripeFilter.isFore(x, y);
+
+                if (fore) {
+                    if (start == -1) {
+                        start = y;
+                    }
+                } else if (start != -1) {
+                    final int length = y - start;
+
+                    if ((filter == null) || filter.check(x, start, length)) {
+                        if (count == 0) {
+                            if (start > 0) {
+                                // Initial background
+                                cells[count++] = 0;
+                                cells[count++] = start;
+                            }
+                        } else {
+                            cells[count++] = start - stop;
+                        }
+
+                        cells[count++] = length;
+                        stop = y;
+                    }
+
+                    start = -1;
+                }
+            }
+
+            if (count > 0) {
+                builder.setRle(x, Arrays.copyOf(cells, count));
+            }
+        }
     }
 
     //~ Inner Interfaces ---------------------------------------------------------------------------
@@ -154,10 +286,10 @@ public class RunTableFactory
     {
 
         HorizontalAdapter (ByteProcessor source,
-                           RunTable table,
+                           RunTable.Builder builder,
                            Point tableOffset)
         {
-            super(source, table, tableOffset);
+            super(source, builder, tableOffset);
         }
 
         @Override
@@ -172,7 +304,7 @@ public class RunTableFactory
         public void endPosition (int pos,
                                  List<Run> runs)
         {
-            table.setSequence(pos - tableOffset.y, RunTable.encode(runs));
+            builder.setSequence(pos - tableOffset.y, runs);
         }
 
         @Override
@@ -226,18 +358,18 @@ public class RunTableFactory
         /** The source to read runs of pixels from. */
         protected final ByteProcessor source;
 
-        /** The created RunTable. */
-        protected RunTable table;
+        /** The builder of created RunTable. */
+        protected RunTable.Builder builder;
 
         /** Table offset, if any, WRT source. */
         protected Point tableOffset;
 
         MyAdapter (ByteProcessor source,
-                   RunTable table,
+                   RunTable.Builder builder,
                    Point tableOffset)
         {
             this.source = source;
-            this.table = table;
+            this.builder = builder;
             this.tableOffset = tableOffset;
         }
 
@@ -303,10 +435,10 @@ public class RunTableFactory
     {
 
         VerticalAdapter (ByteProcessor source,
-                         RunTable table,
+                         RunTable.Builder builder,
                          Point tableOffset)
         {
-            super(source, table, tableOffset);
+            super(source, builder, tableOffset);
         }
 
         @Override
@@ -321,7 +453,7 @@ public class RunTableFactory
         public void endPosition (int pos,
                                  List<Run> runs)
         {
-            table.setSequence(pos - tableOffset.x, RunTable.encode(runs));
+            builder.setSequence(pos - tableOffset.x, runs);
         }
 
         @Override
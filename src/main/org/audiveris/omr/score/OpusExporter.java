@@ -117,9 +117,14 @@ public class OpusExporter
             opus.getOpusOrOpusLinkOrScore().add(oScore);
 
             // Marshal the score partwise
-            ScorePartwise scorePartwise = PartwiseBuilder.build(score);
             mof.addEntry(new RootFile(entryName, RootFile.MUSICXML_MEDIA_TYPE));
-            Marshalling.marshal(scorePartwise, zos, signed, 2);
+
+            if (ScoreExporter.useStreaming()) {
+                PartwiseStreamer.export(score, zos, signed);
+            } else {
+                ScorePartwise scorePartwise = PartwiseBuilder.build(score);
+                Marshalling.marshal(scorePartwise, zos, signed, 2);
+            }
         }
 
         // Store opus as root
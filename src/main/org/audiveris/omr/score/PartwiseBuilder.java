@@ -314,22 +314,31 @@ public class PartwiseBuilder
     /** Factory for ProxyMusic entities. */
     private final ObjectFactory factory = new ObjectFactory();
 
+    /** Streamer of completed measures, if any. */
+    private final PartwiseStreamer streamer;
+
+    /** Last clef per staff in measures already handed to streamer, per part. */
+    private final Map<ScorePartwise.Part, List<Clef>> streamedClefs = new HashMap<>();
+
     //~ Constructors -------------------------------------------------------------------------------
 
     /**
      * Create a new PartwiseBuilder object, on a related score instance.
      *
-     * @param score the underlying score
+     * @param score    the underlying score
+     * @param streamer the streamer of completed measures, or null
      * @throws InterruptedException if the thread has been interrupted
      * @throws ExecutionException   if a checked exception was thrown
      */
-    private PartwiseBuilder (Score score)
+    private PartwiseBuilder (Score score,
+                             PartwiseStreamer streamer)
             throws InterruptedException, ExecutionException
     {
         // Make sure the JAXB context is ready
         loading.get();
 
         this.score = score;
+        this.streamer = streamer;
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -644,6 +653,41 @@ public class PartwiseBuilder
         return pmPart;
     }
 
+    //---------------//
+    // flushMeasures //
+    //---------------//
+    /**
+     * Hand the completed measures of current part to the streamer, and forget them.
+     * <p>
+     * The last clef of each staff is remembered, since it is still needed by {@link #isNewClef}.
+     */
+    private void flushMeasures ()
+    {
+        final List<ScorePartwise.Part.Measure> measures = current.pmPart.getMeasure();
+
+        if (measures.isEmpty()) {
+            return;
+        }
+
+        final List<Clef> clefs = streamedClefs.computeIfAbsent(
+                current.pmPart,
+                p -> new ArrayList<>());
+
+        for (ScorePartwise.Part.Measure pmMeasure : measures) {
+            for (Object obj : pmMeasure.getNoteOrBackupOrForward()) {
+                if (obj instanceof Attributes attributes) {
+                    for (Clef clef : attributes.getClef()) {
+                        clefs.removeIf(c -> Objects.equals(c.getNumber(), clef.getNumber()));
+                        clefs.add(clef);
+                    }
+                }
+            }
+        }
+
+        streamer.append(current.pmPart, measures);
+        measures.clear();
+    }
+
     //------------------//
     // getArticulations //
     //------------------//
@@ -1095,6 +1139,17 @@ public class PartwiseBuilder
             }
         }
 
+        // Look in measures already streamed
+        final List<Clef> clefs = streamedClefs.get(current.pmPart);
+
+        if (clefs != null) {
+            for (Clef clef : clefs) {
+                if (Objects.equals(clef.getNumber(), newClef.getNumber())) {
+                    return !areEqual(clef, newClef);
+                }
+            }
+        }
+
         return true; // Since no previous clef was found for the same staff
     }
 
@@ -1803,6 +1858,10 @@ public class PartwiseBuilder
         for (SystemInfo system : current.page.getSystems()) {
             processSystem(system);
         }
+
+        if (streamer != null) {
+            flushMeasures();
+        }
     }
 
     //---------------//
@@ -3412,10 +3471,31 @@ public class PartwiseBuilder
      */
     public static ScorePartwise build (Score score)
         throws InterruptedException, ExecutionException
+    {
+        return build(score, null);
+    }
+
+    //-------//
+    // build //
+    //-------//
+    /**
+     * Visit the whole score tree and build the corresponding ScorePartwise, handing
+     * the measures to the provided streamer as soon as they are completed.
+     *
+     * @param score    the score to export (cannot be null)
+     * @param streamer the streamer of completed measures, or null to keep all measures in the
+     *                 returned ScorePartwise
+     * @return the populated ScorePartwise, whose parts contain no measure if a streamer is used
+     * @throws InterruptedException if the thread has been interrupted
+     * @throws ExecutionException   if a checked exception was thrown
+     */
+    static ScorePartwise build (Score score,
+                                PartwiseStreamer streamer)
+        throws InterruptedException, ExecutionException
     {
         Objects.requireNonNull(score, "Trying to export a null score");
 
-        final PartwiseBuilder builder = new PartwiseBuilder(score);
+        final PartwiseBuilder builder = new PartwiseBuilder(score, streamer);
 
         builder.processScore();
 
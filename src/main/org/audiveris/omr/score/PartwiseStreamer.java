@@ -0,0 +1,521 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 P a r t w i s e S t r e a m e r                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.score;
+
+import org.audiveris.omr.util.CustomXMLStreamWriter;
+import org.audiveris.proxymusic.ScorePartwise;
+import org.audiveris.proxymusic.util.Marshalling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Class <code>PartwiseStreamer</code> exports a score to MusicXML with bounded memory,
+ * whatever the score length.
+ * <p>
+ * {@link PartwiseBuilder} still browses the score page after page, but once a page has been
+ * processed for a part, the measures built for this part are handed to this streamer, which
+ * marshals them into a temporary spool file dedicated to the part, before the builder forgets
+ * them.
+ * <p>
+ * When all pages have been processed, the remaining ScorePartwise skeleton (header and empty
+ * parts) is marshalled by ProxyMusic {@link Marshalling}, which thus provides document type,
+ * version and signature.
+ * This small skeleton is then copied to the final output, and the content of each part spool is
+ * copied into the related part element, measure by measure, through the same indenting
+ * {@link CustomXMLStreamWriter}.
+ *
+ * @author Hervé Bitteur
+ */
+public class PartwiseStreamer
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(PartwiseStreamer.class);
+
+    /** Name of measure element. */
+    private static final QName MEASURE = new QName("measure");
+
+    /** Name of spool root element. */
+    private static final String SPOOL = "spool";
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** JAXB context for MusicXML partwise. */
+    private final JAXBContext context;
+
+    /** Spool per part, in order of first measures. */
+    private final Map<ScorePartwise.Part, Spool> spools = new LinkedHashMap<>();
+
+    /** First exception raised while spooling, if any. */
+    private Exception failure;
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    /**
+     * Creates a new <code>PartwiseStreamer</code> object.
+     *
+     * @throws JAXBException if JAXB context could not be obtained
+     */
+    PartwiseStreamer ()
+        throws JAXBException
+    {
+        context = Marshalling.getContext(ScorePartwise.class);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //--------//
+    // append //
+    //--------//
+    /**
+     * Append the provided measures at the end of the spool of the provided part.
+     * <p>
+     * Any error is recorded, to be reported when the document is written.
+     *
+     * @param pmPart   the part at hand
+     * @param measures the completed measures to spool
+     */
+    void append (ScorePartwise.Part pmPart,
+                 List<ScorePartwise.Part.Measure> measures)
+    {
+        if (failure != null) {
+            return;
+        }
+
+        try {
+            Spool spool = spools.get(pmPart);
+
+            if (spool == null) {
+                spools.put(pmPart, spool = new Spool());
+            }
+
+            for (ScorePartwise.Part.Measure measure : measures) {
+                spool.marshaller.marshal(
+                        new JAXBElement<>(MEASURE, ScorePartwise.Part.Measure.class, measure),
+                        spool.writer);
+            }
+        } catch (Exception ex) {
+            logger.warn("Error spooling measures of part {}", pmPart.getId(), ex);
+            failure = ex;
+        }
+    }
+
+    //-------//
+    // close //
+    //-------//
+    /**
+     * Release all spool resources.
+     */
+    void close ()
+    {
+        for (Spool spool : spools.values()) {
+            spool.delete();
+        }
+
+        spools.clear();
+    }
+
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Write the whole MusicXML document.
+     *
+     * @param scorePartwise the score skeleton, whose parts contain no measure
+     * @param os            the output stream, not closed by this method
+     * @param signed        should we inject ProxyMusic signature?
+     * @throws Exception if something goes wrong
+     */
+    void write (ScorePartwise scorePartwise,
+                OutputStream os,
+                boolean signed)
+        throws Exception
+    {
+        if (failure != null) {
+            throw failure;
+        }
+
+        for (Spool spool : spools.values()) {
+            spool.finish();
+        }
+
+        // Let ProxyMusic marshal the skeleton, with its doctype, version and signature
+        final ByteArrayOutputStream skeleton = new ByteArrayOutputStream();
+        Marshalling.marshal(scorePartwise, skeleton, signed, 2);
+
+        final PartWriter writer = new PartWriter(
+                XMLOutputFactory.newInstance().createXMLStreamWriter(os, "UTF-8"),
+                scorePartwise.getPart());
+        writer.writeStartDocument("UTF-8", "1.0");
+
+        final String doctype = getDoctype(skeleton.toString(StandardCharsets.UTF_8));
+
+        if (doctype != null) {
+            writer.writeDTD(doctype);
+        }
+
+        writer.copy(new ByteArrayInputStream(skeleton.toByteArray()), true);
+        writer.writeEndDocument();
+        writer.flush();
+    }
+
+    //~ Static Methods -----------------------------------------------------------------------------
+
+    //------------//
+    // getDoctype //
+    //------------//
+    /**
+     * Extract the document type declaration from the provided XML document.
+     *
+     * @param xml the XML document
+     * @return the document type declaration, or null if none
+     */
+    private static String getDoctype (String xml)
+    {
+        final int start = xml.indexOf("<!DOCTYPE");
+
+        if (start == -1) {
+            return null;
+        }
+
+        final int stop = xml.indexOf('>', start);
+
+        return (stop == -1) ? null : xml.substring(start, stop + 1);
+    }
+
+    //--------//
+    // export //
+    //--------//
+    /**
+     * Export the provided score to an output stream, measure by measure.
+     *
+     * @param score  the score to export
+     * @param os     the output stream, not closed by this method
+     * @param signed should we inject ProxyMusic signature?
+     * @throws Exception if something goes wrong
+     */
+    public static void export (Score score,
+                               OutputStream os,
+                               boolean signed)
+        throws Exception
+    {
+        final PartwiseStreamer streamer = new PartwiseStreamer();
+
+        try {
+            final ScorePartwise scorePartwise = PartwiseBuilder.build(score, streamer);
+            streamer.write(scorePartwise, os, signed);
+        } finally {
+            streamer.close();
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+
+    //------------//
+    // PartWriter //
+    //------------//
+    /**
+     * Indenting writer which, at the end of each part element, inserts the spooled
+     * measures of the part.
+     */
+    private class PartWriter
+            extends CustomXMLStreamWriter
+    {
+
+        /** Parts, in document order. */
+        private final List<ScorePartwise.Part> parts;
+
+        /** Names of currently open elements. */
+        private final Deque<String> names = new ArrayDeque<>();
+
+        /** Index of next part element. */
+        private int partIndex;
+
+        PartWriter (XMLStreamWriter writer,
+                    List<ScorePartwise.Part> parts)
+        {
+            super(writer);
+            this.parts = parts;
+        }
+
+        //------//
+        // copy //
+        //------//
+        /**
+         * Copy the elements of the provided XML document.
+         * <p>
+         * A whole document is copied without its indentation, since this writer indents by itself.
+         *
+         * @param is       the input XML document
+         * @param withRoot true to copy the whole document, false to copy just the children of
+         *                 its root element
+         * @throws XMLStreamException if reading or writing fails
+         */
+        void copy (InputStream is,
+                   boolean withRoot)
+            throws XMLStreamException
+        {
+            final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+            inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+            inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+
+            final XMLStreamReader reader = inputFactory.createXMLStreamReader(is, "UTF-8");
+            final int minDepth = withRoot ? 0 : 1;
+            int depth = 0;
+
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> {
+                    if (depth++ >= minDepth) {
+                        copyStart(reader);
+                    }
+                }
+
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> {
+                    if ((depth > minDepth) && !isIndentation(reader)) {
+                        writeCharacters(reader.getText());
+                    }
+                }
+
+                case XMLStreamConstants.COMMENT -> {
+                    if (depth > minDepth) {
+                        writeComment(reader.getText());
+                    }
+                }
+
+                case XMLStreamConstants.END_ELEMENT -> {
+                    if (--depth >= minDepth) {
+                        writeEndElement();
+                    }
+                }
+
+                default -> {
+                }
+                }
+            }
+
+            reader.close();
+        }
+
+        //---------//
+        // copyAll //
+        //---------//
+        /**
+         * Copy all measures of a part spool.
+         *
+         * @param spool the part spool
+         * @throws XMLStreamException if reading or writing fails
+         */
+        private void copyAll (Spool spool)
+            throws XMLStreamException
+        {
+            try (InputStream is = new BufferedInputStream(Files.newInputStream(spool.path))) {
+                copy(is, false);
+            } catch (IOException ex) {
+                throw new XMLStreamException(ex);
+            }
+        }
+
+        //-----------//
+        // copyStart //
+        //-----------//
+        private void copyStart (XMLStreamReader reader)
+            throws XMLStreamException
+        {
+            final String ns = reader.getNamespaceURI();
+
+            if ((ns == null) || ns.isEmpty()) {
+                writeStartElement(reader.getLocalName());
+            } else {
+                writeStartElement(reader.getPrefix(), reader.getLocalName(), ns);
+            }
+
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                writeNamespace(reader.getNamespacePrefix(i), reader.getNamespaceURI(i));
+            }
+
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                final String attNs = reader.getAttributeNamespace(i);
+
+                if ((attNs == null) || attNs.isEmpty()) {
+                    writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                } else {
+                    writeAttribute(
+                            reader.getAttributePrefix(i),
+                            attNs,
+                            reader.getAttributeLocalName(i),
+                            reader.getAttributeValue(i));
+                }
+            }
+        }
+
+        //---------------//
+        // isIndentation //
+        //---------------//
+        /**
+         * Tell whether the current text is just indentation, made of white spaces and
+         * line breaks.
+         *
+         * @param reader the XML reader
+         * @return true for indentation
+         */
+        private boolean isIndentation (XMLStreamReader reader)
+        {
+            return reader.isWhiteSpace() && (reader.getText().indexOf('\n') != -1);
+        }
+
+        @Override
+        public void writeEndElement ()
+            throws XMLStreamException
+        {
+            final String name = names.pop();
+
+            if ((names.size() == 1) && "part".equals(name) && (partIndex < parts.size())) {
+                final Spool spool = spools.get(parts.get(partIndex++));
+
+                if (spool != null) {
+                    copyAll(spool);
+                }
+            }
+
+            super.writeEndElement();
+        }
+
+        @Override
+        public void writeStartElement (String localName)
+            throws XMLStreamException
+        {
+            names.push(localName);
+            super.writeStartElement(localName);
+        }
+
+        @Override
+        public void writeStartElement (String namespaceURI,
+                                       String localName)
+            throws XMLStreamException
+        {
+            names.push(localName);
+            super.writeStartElement(namespaceURI, localName);
+        }
+
+        @Override
+        public void writeStartElement (String prefix,
+                                       String localName,
+                                       String namespaceURI)
+            throws XMLStreamException
+        {
+            names.push(localName);
+            super.writeStartElement(prefix, localName, namespaceURI);
+        }
+    }
+
+    //-------//
+    // Spool //
+    //-------//
+    /**
+     * Temporary storage of the measures of one part.
+     */
+    private class Spool
+    {
+
+        final Path path;
+
+        final OutputStream os;
+
+        final XMLStreamWriter writer;
+
+        final Marshaller marshaller;
+
+        boolean finished;
+
+        Spool ()
+            throws Exception
+        {
+            path = Files.createTempFile("audiveris-part-", ".xml");
+            os = new BufferedOutputStream(Files.newOutputStream(path));
+            writer = XMLOutputFactory.newInstance().createXMLStreamWriter(os, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement(SPOOL);
+
+            marshaller = context.createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        }
+
+        // Delete the spool file
+        void delete ()
+        {
+            try {
+                finish();
+            } catch (Exception ex) {
+                logger.debug("Error closing spool {}", path, ex);
+            }
+
+            try {
+                Files.deleteIfExists(path);
+            } catch (Exception ex) {
+                logger.warn("Could not delete spool {}", path, ex);
+            }
+        }
+
+        // Terminate writing in spool file
+        void finish ()
+            throws Exception
+        {
+            if (!finished) {
+                finished = true;
+                writer.writeEndElement();
+                writer.writeEndDocument();
+                writer.close();
+                os.close();
+            }
+        }
+    }
+}
@@ -22,6 +22,8 @@
 package org.audiveris.omr.score;
 
 import org.audiveris.omr.OMR;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.proxymusic.ScorePartwise;
 import org.audiveris.proxymusic.mxl.Mxl;
 import org.audiveris.proxymusic.mxl.RootFile;
@@ -40,6 +42,9 @@ import java.util.Objects;
 /**
  * Class <code>ScoreExporter</code> exports the provided score to a MusicXML file, stream or
  * DOM.
+ * <p>
+ * Unless disabled, export to a stream or file is performed measure by measure, using a
+ * {@link PartwiseStreamer}, to keep memory bounded whatever the score length.
  *
  * @author Hervé Bitteur
  */
@@ -47,6 +52,8 @@ public class ScoreExporter
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(ScoreExporter.class);
 
     //~ Instance fields ----------------------------------------------------------------------------
@@ -118,8 +125,10 @@ public class ScoreExporter
     {
         Objects.requireNonNull(os, "Trying to export a score to a null output stream");
 
-        // Build the ScorePartwise proxy
-        ScorePartwise scorePartwise = PartwiseBuilder.build(score);
+        final boolean streaming = useStreaming();
+
+        // Build the ScorePartwise proxy, unless streaming
+        ScorePartwise scorePartwise = streaming ? null : PartwiseBuilder.build(score);
 
         // Marshal the proxy
         if (compressed) {
@@ -132,11 +141,21 @@ public class ScoreExporter
 
             mof.addEntry(
                     new RootFile(scoreName + OMR.SCORE_EXTENSION, RootFile.MUSICXML_MEDIA_TYPE));
-            Marshalling.marshal(scorePartwise, zos, signed, 2);
+
+            if (streaming) {
+                PartwiseStreamer.export(score, zos, signed);
+            } else {
+                Marshalling.marshal(scorePartwise, zos, signed, 2);
+            }
+
             mof.close();
         } else {
             try (os) {
-                Marshalling.marshal(scorePartwise, os, signed, 2);
+                if (streaming) {
+                    PartwiseStreamer.export(score, os, signed);
+                } else {
+                    Marshalling.marshal(scorePartwise, os, signed, 2);
+                }
             }
         }
     }
@@ -164,4 +183,33 @@ public class ScoreExporter
             logger.info("Score {} exported to {}", scoreName, path);
         }
     }
+
+    //~ Static Methods -----------------------------------------------------------------------------
+
+    //--------------//
+    // useStreaming //
+    //--------------//
+    /**
+     * Tell whether exports to stream are performed measure by measure.
+     *
+     * @return true for streaming export
+     */
+    static boolean useStreaming ()
+    {
+        return constants.useStreaming.isSet();
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Boolean useStreaming = new Constant.Boolean(
+                true,
+                "Should we export scores measure by measure, with bounded memory?");
+    }
 }
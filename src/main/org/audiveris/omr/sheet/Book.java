@@ -63,6 +63,7 @@ import org.audiveris.omr.util.Jaxb.OmrSchemaOutputResolver;
 import org.audiveris.omr.util.Memory;
 import org.audiveris.omr.util.NaturalSpec;
 import org.audiveris.omr.util.OmrExecutors;
+import org.audiveris.omr.util.SharedZipFileSystem;
 import org.audiveris.omr.util.StopWatch;
 import org.audiveris.omr.util.Version;
 import org.audiveris.omr.util.ZipFileSystem;
@@ -85,6 +86,8 @@ import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -94,7 +97,7 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
@@ -326,6 +329,21 @@ public class Book
     /** Active parameter dialog, if any. */
     private JDialog parameterDialog;
 
+    /** Long-lived file system shared by readers of book file, if any. */
+    private SharedZipFileSystem sharedFileSystem;
+
+    /** Sheet scheduler currently pipelining stubs, if any. */
+    private volatile SheetScheduler scheduler;
+
+    /** Loader kept open on book input file, if any. */
+    private ImageLoading.Loader imageLoader;
+
+    /** Sheet images being prefetched, per sheet number. */
+    private final Map<Integer, Future<BufferedImage>> prefetchedImages = new HashMap<>();
+
+    /** Numbers of sheets whose image has already been requested, not to be prefetched. */
+    private final Set<Integer> requestedImages = new HashSet<>();
+
     //~ Constructors -------------------------------------------------------------------------------
 
     /**
@@ -533,15 +551,32 @@ public class Book
             score.close();
         }
 
+        // Release shared book file system if any
+        closeSharedFileSystem();
+
+        // Release image loader if any
+        disposeImageLoader();
+
         // Remove from OMR instances
         OMR.engine.removeBook(this, sheetNumber);
 
-        // Time for some cleanup...
-        Memory.gc();
+        // Stop tracking sheets residency
+        SheetResidency.getInstance().forget(stubs);
 
         logger.debug("Book closed.");
     }
 
+    //-----------------------//
+    // closeSharedFileSystem //
+    //-----------------------//
+    private synchronized void closeSharedFileSystem ()
+    {
+        if (sharedFileSystem != null) {
+            sharedFileSystem.close();
+            sharedFileSystem = null;
+        }
+    }
+
     //--------------//
     // createScores //
     //--------------//
@@ -606,6 +641,52 @@ public class Book
         }
     }
 
+    //------------------------//
+    // discardPrefetchedImage //
+    //------------------------//
+    /**
+     * Discard the image prefetched for the provided sheet, if any, because this sheet is
+     * no longer to be loaded (sheet done, failed or skipped).
+     *
+     * @param id sheet number
+     */
+    void discardPrefetchedImage (int id)
+    {
+        synchronized (prefetchedImages) {
+            requestedImages.add(id);
+
+            final Future<BufferedImage> future = prefetchedImages.remove(id);
+
+            if (future != null) {
+                future.cancel(false);
+                logger.debug("Discarded prefetched image {}", id);
+            }
+        }
+    }
+
+    //--------------------//
+    // disposeImageLoader //
+    //--------------------//
+    /**
+     * Cancel pending image prefetches and release the image loader, if any.
+     */
+    private synchronized void disposeImageLoader ()
+    {
+        synchronized (prefetchedImages) {
+            for (Future<BufferedImage> future : prefetchedImages.values()) {
+                future.cancel(false);
+            }
+
+            prefetchedImages.clear();
+            requestedImages.clear();
+        }
+
+        if (imageLoader != null) {
+            imageLoader.dispose();
+            imageLoader = null;
+        }
+    }
+
     //--------//
     // export //
     //--------//
@@ -802,6 +883,26 @@ public class Book
         return null; // No valid stub found!
     }
 
+    //----------------//
+    // getImageLoader //
+    //----------------//
+    /**
+     * Report the loader on book input file, opening it if not yet done.
+     * <p>
+     * The loader is kept open until the book is closed, so that the input file is not parsed
+     * again for every sheet.
+     *
+     * @return the (thread-safe) loader, or null if failed
+     */
+    private synchronized ImageLoading.Loader getImageLoader ()
+    {
+        if ((imageLoader == null) && !closing) {
+            imageLoader = ImageLoading.getPooledLoader(path);
+        }
+
+        return imageLoader;
+    }
+
     //--------------//
     // getInputPath //
     //--------------//
@@ -1063,6 +1164,21 @@ public class Book
         return SampleRepository.getGlobalInstance();
     }
 
+    //--------------//
+    // getScheduler //
+    //--------------//
+    /**
+     * Report the scheduler currently pipelining the stubs of this book, if any.
+     * <p>
+     * This gives access to queue depth and per-step throughput while processing.
+     *
+     * @return the active scheduler, or null
+     */
+    public SheetScheduler getScheduler ()
+    {
+        return scheduler;
+    }
+
     //----------//
     // getScore //
     //----------//
@@ -1196,6 +1312,39 @@ public class Book
         return getStubs(NaturalSpec.decode(sheetsSelection, true));
     }
 
+    //---------------------//
+    // getSharedFileSystem //
+    //---------------------//
+    /**
+     * Report the long-lived file system shared by readers of the book file.
+     * <p>
+     * It is not closed after each read, and concurrent readers do not need the book lock.
+     * Any reading of the book file must go through it, since a raw opening of the same zip file
+     * would fail as long as the shared file system is open.
+     * Any writer to book file must bracket its writing with
+     * {@link SharedZipFileSystem#beginWriting()} and {@link SharedZipFileSystem#endWriting()}.
+     *
+     * @return the shared file system, or null if book has no file yet
+     */
+    public synchronized SharedZipFileSystem getSharedFileSystem ()
+    {
+        if (bookPath == null) {
+            return null;
+        }
+
+        if ((sharedFileSystem != null) && !sharedFileSystem.getZipPath().equals(bookPath)) {
+            // Book path has changed
+            sharedFileSystem.close();
+            sharedFileSystem = null;
+        }
+
+        if (sharedFileSystem == null) {
+            sharedFileSystem = new SharedZipFileSystem(bookPath);
+        }
+
+        return sharedFileSystem;
+    }
+
     //--------------------//
     // getSheetsSelection //
     //--------------------//
@@ -1383,22 +1532,33 @@ public class Book
                 return found;
             }
 
-            final Path root = ZipFileSystem.open(theBookPath);
-            for (SheetStub stub : stubs) {
-                final Path sheetFolder = root.resolve(INTERNALS_RADIX + stub.getNumber());
+            // Go through the shared file system when browsing our own book file,
+            // since it may be kept open by other readers
+            final SharedZipFileSystem shared = theBookPath.equals(bookPath) ? getSharedFileSystem()
+                    : null;
+            final Path root = (shared != null) ? shared.acquire() : ZipFileSystem.open(theBookPath);
+
+            try {
+                for (SheetStub stub : stubs) {
+                    final Path sheetFolder = root.resolve(INTERNALS_RADIX + stub.getNumber());
 
-                for (Picture.TableKey key : Picture.TableKey.values()) {
-                    final Path tablePath = sheetFolder.resolve(key + ".xml");
-                    logger.debug("Checking existence of {}", tablePath);
+                    for (Picture.TableKey key : Picture.TableKey.values()) {
+                        final Path tablePath = sheetFolder.resolve(key + ".xml");
+                        logger.debug("Checking existence of {}", tablePath);
 
-                    if (Files.exists(tablePath)) {
-                        found.add(stub);
-                        break;
+                        if (Files.exists(tablePath)) {
+                            found.add(stub);
+                            break;
+                        }
                     }
                 }
+            } finally {
+                if (shared != null) {
+                    shared.release();
+                } else {
+                    root.getFileSystem().close();
+                }
             }
-
-            root.getFileSystem().close();
         } catch (Exception ex) {
             logger.warn("Error browsing project file of {} {}", this, ex.toString(), ex);
         } finally {
@@ -1826,7 +1986,7 @@ public class Book
      * @param id specified sheet id
      * @return the loaded sheet image
      */
-    public synchronized BufferedImage loadSheetImage (int id)
+    public BufferedImage loadSheetImage (int id)
     {
         try {
             if (!Files.exists(path)) {
@@ -1835,16 +1995,21 @@ public class Book
                 return null;
             }
 
-            final ImageLoading.Loader loader = ImageLoading.getLoader(path);
+            BufferedImage img = takePrefetchedImage(id);
 
-            if (loader == null) {
-                return null;
+            if (img == null) {
+                final ImageLoading.Loader loader = getImageLoader();
+
+                if (loader == null) {
+                    return null;
+                }
+
+                img = loader.getImage(id);
             }
 
-            BufferedImage img = loader.getImage(id);
             logger.info("Loaded image {} {}x{} from {}", id, img.getWidth(), img.getHeight(), path);
 
-            loader.dispose();
+            prefetchImages(id);
 
             return img;
         } catch (IOException ex) {
@@ -1859,10 +2024,11 @@ public class Book
     //--------------//
     /**
      * Open the book file (supposed to already exist at location provided by
-     * '<code>bookPath</code>' member) for reading or writing.
+     * '<code>bookPath</code>' member) for reading.
      * <p>
-     * When IO operations are finished, the book file must be closed via
-     * {@link #closeFileSystem(java.nio.file.FileSystem)}
+     * The book file is accessed through the {@link #getSharedFileSystem() shared file system},
+     * hence when IO operations are finished, it must be released via
+     * {@link SharedZipFileSystem#release()} rather than closed.
      *
      * @return the root path of the (zipped) book file system
      * @throws java.io.IOException if anything goes wrong
@@ -1870,7 +2036,7 @@ public class Book
     public Path openBookFile ()
         throws IOException
     {
-        return ZipFileSystem.open(bookPath);
+        return getSharedFileSystem().acquire();
     }
 
     //-----------------//
@@ -1878,6 +2044,8 @@ public class Book
     //-----------------//
     /**
      * Open (in the book zipped file) the folder for provided sheet number
+     * <p>
+     * As for {@link #openBookFile()}, the shared file system must then be released.
      *
      * @param number sheet number (1-based) within the book
      * @return the path to sheet folder
@@ -1891,6 +2059,73 @@ public class Book
         return root.resolve(INTERNALS_RADIX + number);
     }
 
+    //----------------//
+    // prefetchImages //
+    //----------------//
+    /**
+     * Launch the background loading of the images of the next sheets to be loaded.
+     * <p>
+     * When sheets are pipelined by a scheduler, only the admitted sheets are prefetched, since
+     * their reservation in the scheduler heap budget covers their image.
+     *
+     * @param id the number of the sheet just loaded
+     */
+    private void prefetchImages (int id)
+    {
+        final int count = constants.prefetchedImages.getValue();
+
+        if ((count <= 0) || closing) {
+            return;
+        }
+
+        final ImageLoading.Loader loader = getImageLoader();
+
+        if (loader == null) {
+            return;
+        }
+
+        final SheetScheduler theScheduler = scheduler;
+        final List<SheetStub> candidates = getValidSelectedStubs();
+        int prefetched = 0;
+
+        // Evict the unclaimed images of sheets no longer to be loaded (skipped or loaded otherwise)
+        synchronized (prefetchedImages) {
+            for (Iterator<Integer> it = prefetchedImages.keySet().iterator(); it.hasNext();) {
+                final int number = it.next();
+                final SheetStub stub = getStub(number);
+
+                if (!candidates.contains(stub) || stub.isDone(OmrStep.LOAD)) {
+                    prefetchedImages.get(number).cancel(false);
+                    it.remove();
+                }
+            }
+        }
+
+        for (SheetStub stub : candidates) {
+            final int number = stub.getNumber();
+
+            if ((number <= id) || stub.isDone(OmrStep.LOAD)) {
+                continue;
+            }
+
+            if ((theScheduler != null) && !theScheduler.isAdmitted(stub)) {
+                continue; // Not (or no longer) covered by heap budget
+            }
+
+            synchronized (prefetchedImages) {
+                if (!requestedImages.contains(number)) {
+                    prefetchedImages.computeIfAbsent(
+                            number,
+                            n -> OmrExecutors.getLowExecutor().submit( () -> loader.getImage(n)));
+                }
+            }
+
+            if (++prefetched >= count) {
+                break;
+            }
+        }
+    }
+
     //-------//
     // print //
     //-------//
@@ -1972,47 +2207,17 @@ public class Book
 
                 if (isMultiSheet() && constants.processAllStubsInParallel.isSet()
                         && (OmrExecutors.defaultParallelism.getValue() == true)) {
-                    // Process all stubs in parallel
-                    List<Callable<Boolean>> tasks = new ArrayList<>();
-
-                    for (final SheetStub stub : theStubs) {
-                        tasks.add( () ->
-                        {
-                            LogUtil.start(stub);
-
-                            try {
-                                boolean ok = stub.reachStep(target, force);
-
-                                if (ok && (OMR.gui == null)) {
-                                    stub.swapSheet(); // Save sheet & global book info to disk
-                                }
-
-                                return ok;
-                            } finally {
-                                LogUtil.stopStub();
-                            }
-                        });
-                    }
+                    // Pipeline stubs through steps, under heap budget
+                    final SheetScheduler theScheduler = new SheetScheduler(target, force, swap);
+                    scheduler = theScheduler;
 
                     try {
-                        List<Future<Boolean>> futures = OmrExecutors.getCachedLowExecutor()
-                                .invokeAll(tasks);
-
-                        for (Future<Boolean> future : futures) {
-                            try {
-                                if (!future.get()) {
-                                    someFailure = true;
-                                }
-                            } catch (InterruptedException | ExecutionException ex) {
-                                logger.warn("Future exception", ex);
-                                someFailure = true;
-                            }
-                        }
-
-                        return !someFailure;
+                        someFailure = !theScheduler.process(theStubs);
                     } catch (InterruptedException ex) {
-                        logger.warn("Error in parallel reachBookStep", ex);
+                        logger.warn("Error in pipelined reachBookStep", ex);
                         someFailure = true;
+                    } finally {
+                        scheduler = null;
                     }
                 } else {
                     // Process one stub after the other
@@ -2394,8 +2599,6 @@ public class Book
     public void store (Path bookPath,
                        boolean withBackup)
     {
-        Memory.gc(); // Launch garbage collection, to save on weak glyph references ...
-
         boolean diskWritten = false; // Has disk actually been written?
 
         // Backup existing book file?
@@ -2408,9 +2611,18 @@ public class Book
         }
 
         Path root = null; // Root of the zip file system
+        SharedZipFileSystem shared = null; // Shared file system of current book file, if any
 
         try {
             getLock().lock();
+
+            // Make sure no reader is using the current book file meanwhile
+            shared = getSharedFileSystem();
+
+            if (shared != null) {
+                shared.beginWriting();
+            }
+
             checkRadixChange(bookPath);
             logger.debug("Storing book...");
 
@@ -2485,6 +2697,10 @@ public class Book
                 }
             }
 
+            if (shared != null) {
+                shared.endWriting();
+            }
+
             getLock().unlock();
         }
     }
@@ -2549,6 +2765,42 @@ public class Book
         }
     }
 
+    //---------------------//
+    // takePrefetchedImage //
+    //---------------------//
+    /**
+     * Retrieve the image prefetched for the provided sheet, if any.
+     * <p>
+     * The sheet is then marked as requested, so that it no longer gets prefetched.
+     *
+     * @param id sheet number
+     * @return the prefetched image, or null
+     */
+    private BufferedImage takePrefetchedImage (int id)
+    {
+        final Future<BufferedImage> future;
+
+        synchronized (prefetchedImages) {
+            requestedImages.add(id);
+            future = prefetchedImages.remove(id);
+        }
+
+        if (future == null) {
+            return null;
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingCancellationException(ex);
+        } catch (CancellationException | ExecutionException ex) {
+            logger.info("Prefetch of image {} failed, loading it again", id);
+
+            return null;
+        }
+    }
+
     //----------//
     // toString //
     //----------//
@@ -2978,7 +3230,7 @@ public class Book
 
         private final Constant.Boolean processAllStubsInParallel = new Constant.Boolean(
                 false,
-                "Should we process all stubs of a book in parallel? (beware of many stubs)");
+                "Should we pipeline stubs of a book in parallel? (within heap budget)");
 
         private final Constant.Boolean checkBookVersion = new Constant.Boolean(
                 true,
@@ -2991,5 +3243,10 @@ public class Book
         private final Constant.Boolean batchUpgradeBooks = new Constant.Boolean(
                 false,
                 "In batch, should we automatically upgrade all book sheets?");
+
+        private final Constant.Integer prefetchedImages = new Constant.Integer(
+                "images",
+                1,
+                "Number of next sheet images to load in background (0 for none)");
     }
 }
@@ -21,6 +21,9 @@
 // </editor-fold>
 package org.audiveris.omr.sheet;
 
+import static org.audiveris.omr.sheet.Sheet.INTERNALS_RADIX;
+import org.audiveris.omr.util.SharedZipFileSystem;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,7 +72,7 @@ public abstract class DataHolder<T>
     //---------------
 
     /** Direct access to data, if any. */
-    protected T data;
+    protected volatile T data;
 
     /** To avoid useless marshalling to disk. */
     protected boolean modified = false;
@@ -80,6 +83,9 @@ public abstract class DataHolder<T>
     /** To discard data. (Removed from disk at store time) */
     protected boolean discarded = false;
 
+    /** True when current data is known to be available on disk. */
+    protected volatile boolean persisted = false;
+
     //~ Constructors -------------------------------------------------------------------------------
 
     /**
@@ -121,8 +127,12 @@ public abstract class DataHolder<T>
     //---------//
     /**
      * Return the handled data.
+     * <p>
+     * If not yet in memory, data is read from the book file, using the book shared file system.
+     * Hence, several holders (of the same sheet or of different sheets) can load their data
+     * concurrently.
      *
-     * @param stub the related sheet stub instance (to use book lock)
+     * @param stub the related sheet stub instance (to access book file)
      * @return the data, ready to use
      */
     public T getData (SheetStub stub)
@@ -132,40 +142,45 @@ public abstract class DataHolder<T>
                 return null;
             }
 
-            final Book book = stub.getBook();
-
-            try {
-                book.getLock().lock();
-
+            synchronized (this) {
                 if (data == null) {
-                    if (book.getBookPath() != null) {
-                        // Open book file system
-                        Path path = book.openSheetFolder(stub.getNumber()).resolve(pathString);
-                        logger.debug("path: {}", path);
-
-                        if (Files.exists(path)) {
-                            try (InputStream is = Files.newInputStream(
-                                    path,
-                                    StandardOpenOption.READ)) {
-                                data = load(is);
-                                logger.debug("Loaded {}", path);
+                    final Book book = stub.getBook();
+                    final SharedZipFileSystem shared = book.getSharedFileSystem();
+
+                    if (shared != null) {
+                        try {
+                            final Path root = shared.acquire();
+
+                            try {
+                                final Path path = root.resolve(
+                                        INTERNALS_RADIX + stub.getNumber()).resolve(pathString);
+                                logger.debug("path: {}", path);
+
+                                if (Files.exists(path)) {
+                                    try (InputStream is = Files.newInputStream(
+                                            path,
+                                            StandardOpenOption.READ)) {
+                                        data = load(is);
+                                        persisted = true;
+                                        logger.debug("Loaded {}", path);
+                                    }
+                                } else {
+                                    logger.debug("No {}", path);
+                                    hasNoData = true;
+                                }
+
+                                setModified(false);
+                            } finally {
+                                shared.release();
                             }
-                        } else {
-                            logger.debug("No {}", path);
-                            hasNoData = true;
+                        } catch (Exception ex) {
+                            logger.warn("Error reading data from " + pathString, ex);
                         }
-
-                        path.getFileSystem().close(); // Close book file system
-                        setModified(false);
                     } else {
                         logger.debug("No bookpath for{}", book);
                         hasNoData = true;
                     }
                 }
-            } catch (Exception ex) {
-                logger.warn("Error reading data from " + pathString, ex);
-            } finally {
-                book.getLock().unlock();
             }
         }
 
@@ -237,6 +252,25 @@ public abstract class DataHolder<T>
     protected abstract T load (InputStream is)
         throws Exception;
 
+    //-------------//
+    // releaseData //
+    //-------------//
+    /**
+     * Release the data from memory, provided it can later be reloaded from disk.
+     *
+     * @return true if data was actually released
+     */
+    public synchronized boolean releaseData ()
+    {
+        if ((data == null) || modified || discarded || !persisted) {
+            return false;
+        }
+
+        data = null;
+
+        return true;
+    }
+
     //------------//
     // removeData //
     //------------//
@@ -273,6 +307,7 @@ public abstract class DataHolder<T>
                          boolean modified)
     {
         this.data = data;
+        persisted = false;
         setModified(modified);
 
         if (data != null) {
@@ -345,6 +380,7 @@ public abstract class DataHolder<T>
                     store(os);
                     os.flush();
                     setModified(false);
+                    persisted = true;
                     logger.info("Stored {}", path);
                 }
             }
@@ -24,6 +24,7 @@ package org.audiveris.omr.sheet;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.image.AbstractGrayFilter;
 import org.audiveris.omr.image.FilterDescriptor;
 import org.audiveris.omr.image.GaussianGrayFilter;
 import org.audiveris.omr.image.ImageFormatException;
@@ -31,6 +32,7 @@ import org.audiveris.omr.image.ImageUtil;
 import org.audiveris.omr.image.MedianGrayFilter;
 import org.audiveris.omr.image.PixelFilter;
 import org.audiveris.omr.image.PixelSource;
+import org.audiveris.omr.image.SlidingMedianGrayFilter;
 import static org.audiveris.omr.run.Orientation.VERTICAL;
 import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.run.RunTableFactory;
@@ -57,7 +59,6 @@ import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.awt.image.SampleModel;
 import java.io.IOException;
-import java.lang.ref.WeakReference;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.EnumMap;
@@ -106,6 +107,12 @@ public class Picture
 
     private static final Logger logger = LoggerFactory.getLogger(Picture.class);
 
+    /** Estimated heap bytes per run in a run table. */
+    private static final int BYTES_PER_RUN = 4;
+
+    /** Estimated heap bytes per sequence in a run table. */
+    private static final int BYTES_PER_SEQUENCE = 16;
+
     //~ Instance fields ----------------------------------------------------------------------------
 
     // Persistent data
@@ -120,13 +127,12 @@ public class Picture
     private final int height;
 
     /**
-     * <b>Deprecated</b> Old map of all handled run tables.
+     * Map of all persisted run tables, in compact binary form.
      * <p>
-     * Replaced by standard images.
+     * Old books may still refer to run tables in XML form, these get converted on load.
      */
-    @Deprecated
     @XmlElementWrapper(name = "tables")
-    private EnumMap<TableKey, RunTableHolder> oldTables = new EnumMap<>(TableKey.class);
+    private final EnumMap<TableKey, RunTableHolder> tableHolders = new EnumMap<>(TableKey.class);
 
     /** Map of all handled images. */
     @XmlElementWrapper(name = "images")
@@ -135,12 +141,19 @@ public class Picture
     // Transient data
     //---------------
 
-    /** Map of all handled run tables. */
-    private final ConcurrentSkipListMap<TableKey, WeakReference<RunTable>> tables =
-            new ConcurrentSkipListMap<>();
+    /**
+     * Map of all handled run tables.
+     * <p>
+     * Entries are kept until explicitly released, see {@link #releaseCaches()}.
+     */
+    private final ConcurrentSkipListMap<TableKey, RunTable> tables = new ConcurrentSkipListMap<>();
 
-    /** Map of all handled sources. */
-    private final ConcurrentSkipListMap<SourceKey, WeakReference<ByteProcessor>> sources =
+    /**
+     * Map of all handled sources.
+     * <p>
+     * Entries are kept until explicitly disposed of or released, see {@link #releaseCaches()}.
+     */
+    private final ConcurrentSkipListMap<SourceKey, ByteProcessor> sources =
             new ConcurrentSkipListMap<>();
 
     /** Related sheet. */
@@ -203,7 +216,7 @@ public class Picture
         width = binaryTable.getWidth();
         height = binaryTable.getHeight();
 
-        setTable(TableKey.BINARY, binaryTable, true); // This sets also binary image
+        setTable(TableKey.BINARY, binaryTable, true);
 
         logger.debug("Picture with BinaryTable {}", binaryTable);
     }
@@ -356,7 +369,7 @@ public class Picture
     public void checkSources ()
     {
         for (SourceKey key : SourceKey.values()) {
-            logger.info(String.format("%15s ref:%s", key, getStrongRef(key)));
+            logger.info(String.format("%15s ref:%s", key, sources.get(key)));
         }
     }
 
@@ -364,19 +377,19 @@ public class Picture
     // convertOldTables //
     //------------------//
     /**
-     * Migrate from tables as .xml files to images as .png files.
+     * Migrate from tables as .xml files to tables in binary form.
      */
     private void convertOldTables ()
     {
-        if (oldTables != null) {
-            for (Entry<TableKey, RunTableHolder> entry : oldTables.entrySet()) {
-                final RunTableHolder holder = entry.getValue();
+        for (Entry<TableKey, RunTableHolder> entry : new EnumMap<>(tableHolders).entrySet()) {
+            final RunTableHolder holder = entry.getValue();
+
+            if (holder.isLegacy()) {
                 final RunTable table = holder.getData(sheet.getStub());
-                setTable(entry.getKey(), table, true); // Sets related image as well
+                tableHolders.remove(entry.getKey());
+                setTable(entry.getKey(), table, true);
                 sheet.getStub().setUpgraded(true);
             }
-
-            oldTables = null;
         }
     }
 
@@ -384,7 +397,7 @@ public class Picture
     // discardImage //
     //--------------//
     /**
-     * Flag image to be discarded from disk when sheet is stored.
+     * Flag image (and its related table if any) to be discarded from disk when sheet is stored.
      *
      * @param key image key
      */
@@ -395,6 +408,16 @@ public class Picture
         if (holder != null) {
             holder.discard();
         }
+
+        final TableKey tKey = key.toTableKey();
+
+        if (tKey != null) {
+            final RunTableHolder tableHolder = tableHolders.get(tKey);
+
+            if (tableHolder != null) {
+                tableHolder.discard();
+            }
+        }
     }
 
     //---------------//
@@ -507,6 +530,54 @@ public class Picture
         }
     }
 
+    //-------------------//
+    // getCacheFootprint //
+    //-------------------//
+    /**
+     * Report an estimate of the heap bytes currently used by the picture images, tables
+     * and sources held in memory.
+     *
+     * @return the estimated count of bytes
+     */
+    public long getCacheFootprint ()
+    {
+        long bytes = 0;
+
+        for (ByteProcessor src : sources.values()) {
+            bytes += (long) src.getWidth() * src.getHeight();
+        }
+
+        for (TableKey key : TableKey.values()) {
+            RunTable table = tables.get(key);
+
+            if (table == null) {
+                final RunTableHolder holder = tableHolders.get(key);
+
+                if ((holder != null) && holder.hasDataReady()) {
+                    table = holder.getData(sheet.getStub());
+                }
+            }
+
+            if (table != null) {
+                bytes += ((long) BYTES_PER_RUN * table.getTotalRunCount())
+                                 + ((long) BYTES_PER_SEQUENCE * table.getSize());
+            }
+        }
+
+        for (ImageHolder holder : images.values()) {
+            if (holder.hasDataReady()) {
+                final BufferedImage img = holder.getData(sheet.getStub());
+
+                if (img != null) {
+                    bytes += (long) img.getWidth() * img.getHeight()
+                                     * img.getRaster().getNumDataElements();
+                }
+            }
+        }
+
+        return bytes;
+    }
+
     //--------------//
     // getGrayImage //
     //--------------//
@@ -554,6 +625,8 @@ public class Picture
     //----------//
     /**
      * Report the desired image.
+     * <p>
+     * An image persisted as a run table is rebuilt from this table.
      *
      * @param key key of desired image
      * @return the image found, if any, null otherwise
@@ -563,6 +636,16 @@ public class Picture
         ImageHolder holder = images.get(key);
 
         if (holder == null) {
+            final TableKey tKey = key.toTableKey();
+
+            if ((tKey != null) && (tableHolders.get(tKey) != null)) {
+                final RunTable table = getTable(tKey);
+
+                if (table != null) {
+                    return table.getBufferedImage();
+                }
+            }
+
             return null;
         }
 
@@ -620,14 +703,14 @@ public class Picture
     //-----------//
     /**
      * Report the desired source.
-     * If the source is not yet cached, build the source and store it in cache via weak reference.
+     * If the source is not yet cached, build the source and store it in cache.
      *
      * @param key the key of desired source
      * @return the source ready to use
      */
     public ByteProcessor getSource (SourceKey key)
     {
-        ByteProcessor src = getStrongRef(key);
+        ByteProcessor src = sources.get(key);
 
         if (src == null) {
             switch (key) {
@@ -635,11 +718,11 @@ public class Picture
 
             case BINARY ->
             {
-                // Built from binary image, if available
-                BufferedImage image = getImage(ImageKey.BINARY);
+                // Built from binary table (or image), if available
+                final RunTable table = getTable(TableKey.BINARY);
 
-                if (image != null) {
-                    src = new ByteProcessor(image);
+                if (table != null) {
+                    src = table.getBuffer();
                 } else {
                     // Otherwise, built via binarization of initial gray source if any
                     final ByteProcessor gray = getSource(SourceKey.GRAY);
@@ -647,9 +730,11 @@ public class Picture
                     if (gray != null) {
                         src = binarized(gray);
 
-                        // Register binary image for possible future use
-                        image = src.getBufferedImage();
-                        setImage(ImageKey.BINARY, image, true);
+                        // Register binary table for possible future use
+                        setTable(
+                                TableKey.BINARY,
+                                new RunTableFactory(VERTICAL).createTable(src),
+                                true);
                         sheet.getStub().setModified(true);
                     } else {
                         logger.warn("Cannot provide BINARY source");
@@ -673,7 +758,7 @@ public class Picture
 
             if (src != null) {
                 // Store in cache
-                sources.put(key, new WeakReference<>(src));
+                sources.put(key, src);
                 logger.debug("{} source built as {}", key, src);
             }
         }
@@ -681,50 +766,6 @@ public class Picture
         return src;
     }
 
-    //--------------//
-    // getStrongRef //
-    //--------------//
-    /**
-     * Report the actual (strong) reference, if any, of a weak source reference.
-     *
-     * @param key the source key
-     * @return the strong reference, if any
-     */
-    private ByteProcessor getStrongRef (SourceKey key)
-    {
-        // Check if key is referenced
-        WeakReference<ByteProcessor> ref = sources.get(key);
-
-        if (ref != null) {
-            // Actual reference may be null or not (depending on garbage collection)
-            return ref.get();
-        }
-
-        return null;
-    }
-
-    //--------------//
-    // getStrongRef //
-    //--------------//
-    /**
-     * Report the actual (strong) reference, if any, of a weak table reference.
-     *
-     * @param key the table key
-     * @return the strong reference, if any
-     */
-    private RunTable getStrongRef (TableKey key)
-    {
-        // Check if key is referenced
-        WeakReference<RunTable> ref = tables.get(key);
-
-        if (ref != null) {
-            // Actual reference may be null or not (depending on garbage collection)
-            return ref.get();
-        }
-
-        return null;
-    }
-
     //----------//
     // getTable //
     //----------//
@@ -736,24 +777,29 @@ public class Picture
      */
     public RunTable getTable (TableKey key)
     {
-        RunTable tbl = getStrongRef(key);
+        RunTable tbl = tables.get(key);
 
         if (tbl == null) {
-            switch (key) {
-            case BINARY:
-                tbl = tableOf(ImageKey.BINARY);
+            final RunTableHolder holder = tableHolders.get(key);
 
-                break;
+            if ((holder != null) && !holder.hasNoData()) {
+                // Read from binary form
+                tbl = holder.getData(sheet.getStub());
+            }
 
-            case HEAD_SPOTS:
-                tbl = tableOf(ImageKey.HEAD_SPOTS);
+            if (tbl == null) {
+                // Built from image (as stored by older versions)
+                tbl = tableOf(key.toImageKey());
 
-                break;
+                if (tbl != null) {
+                    // Register table in binary form, image to be removed at next store
+                    setTable(key, tbl, true);
+                }
             }
 
             if (tbl != null) {
                 // Store in cache
-                tables.put(key, new WeakReference<>(tbl));
+                tables.put(key, tbl);
                 logger.debug("{} table built as {}", key, tbl);
             }
         }
@@ -781,11 +827,17 @@ public class Picture
      * Report whether the desired image is known
      *
      * @param key key of desired image
-     * @return true if we have an ImageHolder, false otherwise
+     * @return true if we have an ImageHolder (or a related RunTableHolder), false otherwise
      */
     public boolean hasImage (ImageKey key)
     {
-        return images.get(key) != null;
+        if (images.get(key) != null) {
+            return true;
+        }
+
+        final TableKey tKey = key.toTableKey();
+
+        return (tKey != null) && (tableHolders.get(tKey) != null);
     }
 
     //---------------//
@@ -808,6 +860,26 @@ public class Picture
         return holder.hasDataReady();
     }
 
+    //---------------//
+    // hasTableReady //
+    //---------------//
+    /**
+     * Report whether the desired table is available in memory.
+     *
+     * @param key key of desired table
+     * @return true if table can be provided without any disk access
+     */
+    public boolean hasTableReady (TableKey key)
+    {
+        if (tables.containsKey(key)) {
+            return true;
+        }
+
+        final RunTableHolder holder = tableHolders.get(key);
+
+        return (holder != null) && holder.hasDataReady();
+    }
+
     //----------------//
     // hasNoGrayImage //
     //----------------//
@@ -836,7 +908,7 @@ public class Picture
     {
         this.sheet = sheet;
 
-        // Convert oldTables to images
+        // Convert old XML tables to binary form
         convertOldTables();
     }
 
@@ -859,7 +931,8 @@ public class Picture
             final int radius = constants.medianRadius.getValue();
             logger.debug("Image filtered with median kernel radius: {}", radius);
 
-            MedianGrayFilter medianFilter = new MedianGrayFilter(radius);
+            final AbstractGrayFilter medianFilter = constants.useSlidingMedian.isSet()
+                    ? new SlidingMedianGrayFilter(radius) : new MedianGrayFilter(radius);
 
             return medianFilter.filter(src);
         } finally {
@@ -920,6 +993,38 @@ public class Picture
         }
     }
 
+    //---------------//
+    // releaseCaches //
+    //---------------//
+    /**
+     * Release from memory the data that can be rebuilt on demand.
+     * <p>
+     * All sources are dropped, since they can always be derived again.
+     * Images and tables are dropped only if their data is safely available on disk.
+     *
+     * @return the estimated count of bytes released
+     */
+    public long releaseCaches ()
+    {
+        final long before = getCacheFootprint();
+        sources.clear();
+
+        for (Entry<TableKey, RunTableHolder> entry : tableHolders.entrySet()) {
+            if (entry.getValue().releaseData()) {
+                tables.remove(entry.getKey());
+            }
+        }
+
+        for (ImageHolder holder : images.values()) {
+            holder.releaseData();
+        }
+
+        final long released = before - getCacheFootprint();
+        logger.debug("{} released {} bytes", this, released);
+
+        return released;
+    }
+
     //-------------//
     // removeImage //
     //-------------//
@@ -969,7 +1074,9 @@ public class Picture
     // setTable //
     //----------//
     /**
-     * Register a table (and its related image).
+     * Register a table, to be persisted in binary form.
+     * <p>
+     * Any related image, as persisted by older versions, is no longer handled.
      *
      * @param key      table key
      * @param table    table to register
@@ -980,8 +1087,13 @@ public class Picture
                                 boolean modified)
     {
         if (table != null) {
-            tables.put(key, new WeakReference<>(table));
-            setImage(key.toImageKey(), table.getBufferedImage(), modified);
+            tables.put(key, table);
+
+            final RunTableHolder holder = new RunTableHolder(key);
+            holder.setData(table, modified);
+            tableHolders.put(key, holder);
+
+            images.remove(key.toImageKey());
         }
     }
 
@@ -989,11 +1101,11 @@ public class Picture
     // store //
     //-------//
     /**
-     * Store the picture images.
+     * Store the picture images and tables.
      * <p>
      * If we have the gray image while related switch is off, we remove this image.
      * <p>
-     * Tables are no longer stored on disk, but their related images are.
+     * Tables are stored in binary form, replacing any former XML table or PNG image.
      *
      * @param sheetFolder    target sheet folder
      * @param oldSheetFolder optional source sheet folder (or null)
@@ -1001,6 +1113,20 @@ public class Picture
     public void store (Path sheetFolder,
                        Path oldSheetFolder)
     {
+        // Each handled table
+        for (Entry<TableKey, RunTableHolder> entry : tableHolders.entrySet()) {
+            final TableKey tKey = entry.getKey();
+            final RunTableHolder holder = entry.getValue();
+
+            if (holder.isDiscarded()) {
+                holder.removeData(sheetFolder);
+            } else if (holder.storeData(sheetFolder, oldSheetFolder)) {
+                // Delete former forms of this table, if any
+                wash(sheetFolder.resolve(tKey + ".xml"));
+                wash(sheetFolder.resolve(tKey.toImageKey() + "." + ImageHolder.IMAGE_FORMAT));
+            }
+        }
+
         // Each handled image
         for (Iterator<Entry<ImageKey, ImageHolder>> it = images.entrySet().iterator(); it
                 .hasNext();) {
@@ -1018,15 +1144,7 @@ public class Picture
                     final TableKey tKey = iKey.toTableKey();
 
                     if (tKey != null) {
-                        final Path tablePath = sheetFolder.resolve(tKey + ".xml");
-
-                        try {
-                            if (Files.deleteIfExists(tablePath)) {
-                                logger.info("Washed {}", tablePath);
-                            }
-                        } catch (IOException ex) {
-                            logger.warn("Error deleting {} {}", tablePath, ex);
-                        }
+                        wash(sheetFolder.resolve(tKey + ".xml"));
                     }
                 }
             }
@@ -1066,6 +1184,25 @@ public class Picture
         return getName();
     }
 
+    //------//
+    // wash //
+    //------//
+    /**
+     * Delete an obsolete file, if any.
+     *
+     * @param path path to obsolete file
+     */
+    private void wash (Path path)
+    {
+        try {
+            if (Files.deleteIfExists(path)) {
+                logger.info("Washed {}", path);
+            }
+        } catch (IOException ex) {
+            logger.warn("Error deleting {} {}", path, ex);
+        }
+    }
+
     //~ Static Methods -----------------------------------------------------------------------------
 
     //-------------------//
@@ -1146,6 +1283,10 @@ public class Picture
                 "pixels",
                 1,
                 "Radius of Median filtering kernel (1 for 3x3, 2 for 5x5)");
+
+        private final Constant.Boolean useSlidingMedian = new Constant.Boolean(
+                true,
+                "Should we use the sliding-histogram median filter?");
     }
 
     //~ Enumerations -------------------------------------------------------------------------------
@@ -28,6 +28,7 @@ import org.audiveris.omr.util.FileUtil;
 import org.audiveris.omr.util.Jaxb;
 import org.audiveris.omr.util.NaturalSpec;
 import static org.audiveris.omr.util.NaturalSpec.getCounts;
+import org.audiveris.omr.util.SharedZipFileSystem;
 import org.audiveris.omr.util.Version;
 import org.audiveris.omr.util.ZipFileSystem;
 
@@ -124,8 +125,9 @@ public class PlayList
                 // Two possibilities:
                 // - Image (non-saved) book: we marshal from memory to target zip
                 // - Standard  (saved) book: we copy directly from srcRoot zip system
-                final Path srcRoot = (srcBook.getBookPath() == null) ? null
-                        : ZipFileSystem.open(srcBook.getBookPath());
+                // The source book file is read through its shared file system, since it may be
+                // already open, and is acquired only for the copy of each sheet
+                final SharedZipFileSystem srcShared = srcBook.getSharedFileSystem();
 
                 for (int srcId : ids) {
                     final SheetStub srcStub = srcBook.getStub(srcId);
@@ -135,7 +137,7 @@ public class PlayList
                     final SheetStub tgtStub = new SheetStub(tgtBook, ++tgtId, srcStub);
                     tgtBook.addStub(tgtStub);
 
-                    if (srcRoot == null) {
+                    if (srcShared == null) {
                         // Marshal
                         final Sheet srcSheet = srcStub.getSheet();
                         final Path tgtSheetPath = tgtRoot.resolve(INTERNALS_RADIX + tgtId);
@@ -143,33 +145,39 @@ public class PlayList
                         srcSheet.store(tgtSheetPath, null);
                     } else {
                         // Copy all sheet items that exist (images, sheet)
-                        final Path srcSheetPath = srcRoot.resolve(INTERNALS_RADIX + srcId);
-
-                        if (Files.exists(srcSheetPath)) {
-                            final Path tgtSheetPath = tgtRoot.resolve(INTERNALS_RADIX + tgtId);
-                            logger.info(
-                                    "Copying tree from {}{} to {}{}",
-                                    srcBook.getBookPath(),
-                                    srcSheetPath,
-                                    tgtPath,
-                                    tgtSheetPath);
-                            FileUtil.copyTree(srcSheetPath, tgtSheetPath);
-
-                            // File sheet#srcId.xml, if any, must be renamed as sheet#tgtId.xml
-                            final Path tgtSheetXmlPath = tgtSheetPath.resolve(
-                                    srcSheetPath.getFileName() + ".xml");
-                            if (Files.exists(tgtSheetXmlPath)) {
-                                final Path newPath = tgtSheetPath.resolve(
-                                        tgtSheetPath.getFileName() + ".xml");
-                                Files.move(tgtSheetXmlPath, newPath);
+                        final Path srcRoot = srcShared.acquire();
+
+                        try {
+                            final Path srcSheetPath = srcRoot.resolve(INTERNALS_RADIX + srcId);
+
+                            if (Files.exists(srcSheetPath)) {
+                                final Path tgtSheetPath = tgtRoot.resolve(INTERNALS_RADIX + tgtId);
+                                logger.info(
+                                        "Copying tree from {}{} to {}{}",
+                                        srcBook.getBookPath(),
+                                        srcSheetPath,
+                                        tgtPath,
+                                        tgtSheetPath);
+                                FileUtil.copyTree(srcSheetPath, tgtSheetPath);
+
+                                // File sheet#srcId.xml, if any, must be renamed as sheet#tgtId.xml
+                                final Path tgtSheetXmlPath = tgtSheetPath.resolve(
+                                        srcSheetPath.getFileName() + ".xml");
+                                if (Files.exists(tgtSheetXmlPath)) {
+                                    final Path newPath = tgtSheetPath.resolve(
+                                            tgtSheetPath.getFileName() + ".xml");
+                                    Files.move(tgtSheetXmlPath, newPath);
+                                }
+                            } else {
+                                logger.warn("No {} in {}", srcSheetPath, srcBook.getBookPath());
                             }
-                        } else {
-                            logger.warn("No {} in {}", srcSheetPath, srcBook.getBookPath());
+                        } finally {
+                            srcShared.release();
                         }
                     }
                 }
 
-                if (srcRoot == null) {
+                if (srcShared == null) {
                     // Check if the (image) source book can be discarded
                     boolean srcBookModified = false;
                     for (SheetStub stub : srcBook.getStubs()) {
@@ -178,8 +186,6 @@ public class PlayList
                     if (!srcBookModified) {
                         srcBook.setModified(false);
                     }
-                } else {
-                    srcRoot.getFileSystem().close();
                 }
             }
 
@@ -22,12 +22,14 @@
 package org.audiveris.omr.sheet;
 
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableCodec;
 import org.audiveris.omr.sheet.Picture.TableKey;
 import org.audiveris.omr.util.Jaxb;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 
@@ -39,6 +41,9 @@ import javax.xml.bind.annotation.XmlAccessorType;
 /**
  * Class <code>RunTableHolder</code> holds the reference to a run table, at least the path
  * to its marshalled data on disk, and (on demand) the unmarshalled run table itself.
+ * <p>
+ * A run table is stored in the compact binary form defined by {@link RunTableCodec}.
+ * Older books may still refer to run tables stored as XML, these are detected and loaded as well.
  *
  * @author Hervé Bitteur
  */
@@ -67,7 +72,7 @@ public class RunTableHolder
      */
     public RunTableHolder (TableKey key)
     {
-        super(key + ".xml");
+        super(key + RunTableCodec.EXTENSION);
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -88,6 +93,19 @@ public class RunTableHolder
         return jaxbContext;
     }
 
+    //----------//
+    // isLegacy //
+    //----------//
+    /**
+     * Tell whether this holder refers to a run table stored in the old XML form.
+     *
+     * @return true for XML form
+     */
+    public boolean isLegacy ()
+    {
+        return (pathString != null) && pathString.endsWith(".xml");
+    }
+
     //------//
     // load //
     //------//
@@ -95,7 +113,18 @@ public class RunTableHolder
     protected RunTable load (InputStream is)
         throws Exception
     {
-        return (RunTable) Jaxb.unmarshal(is, getJaxbContext());
+        final BufferedInputStream bis = new BufferedInputStream(is);
+        bis.mark(4);
+
+        final byte[] header = bis.readNBytes(4);
+        bis.reset();
+
+        if (RunTableCodec.isBinary(header)) {
+            return RunTableCodec.read(bis);
+        }
+
+        // Old XML form
+        return (RunTable) Jaxb.unmarshal(bis, getJaxbContext());
     }
 
     //-------//
@@ -105,6 +134,6 @@ public class RunTableHolder
     protected void store (OutputStream os)
         throws Exception
     {
-        Jaxb.marshal(data, os, getJaxbContext());
+        RunTableCodec.write(data, os);
     }
 }
@@ -0,0 +1,599 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   S h e e t R e s i d e n c y                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import org.audiveris.omr.OMR;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.sheet.ui.StubsController;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Class <code>SheetResidency</code> keeps the in-memory sheets of all books under a heap budget.
+ * <p>
+ * Each loaded sheet is tracked with its last access time and an estimated footprint, made of a
+ * structural part (proportional to the sheet pixels) and of the images, tables and sources
+ * currently cached by its {@link Picture}.
+ * <p>
+ * When the total estimate exceeds the budget, the least recently used sheets are relieved:
+ * <ol>
+ * <li>first their picture caches are released (sources are rebuilt on demand, images and tables
+ * are reloaded from the book file),
+ * <li>then, in batch mode only, the sheets themselves are swapped out (stored to disk if modified,
+ * and disposed of).
+ * </ol>
+ * A sheet pinned via {@link #pin(SheetStub)}, being processed or displayed as the current sheet,
+ * is never relieved.
+ * <p>
+ * No garbage collection is ever forced, memory is simply made unreachable.
+ * Counters of sheet hits, misses and evictions are maintained for monitoring.
+ *
+ * @author Hervé Bitteur
+ */
+public class SheetResidency
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(SheetResidency.class);
+
+    private static final long MB = 1024 * 1024;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Resident sheets, tracked by their stub. */
+    private final Map<SheetStub, Residence> residences = new ConcurrentHashMap<>();
+
+    /** To avoid concurrent enforcements. */
+    private final AtomicBoolean enforcing = new AtomicBoolean();
+
+    /** Stub of the latest accessed sheet, perhaps null. */
+    private volatile SheetStub latestStub;
+
+    /** Switches to an already loaded sheet. */
+    private final LongAdder hits = new LongAdder();
+
+    /** Accesses needing a sheet load. */
+    private final LongAdder misses = new LongAdder();
+
+    /** Picture caches released. */
+    private final LongAdder cacheEvictions = new LongAdder();
+
+    /** Sheets swapped out. */
+    private final LongAdder sheetEvictions = new LongAdder();
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    private SheetResidency ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //---------//
+    // enforce //
+    //---------//
+    /**
+     * Make sure resident sheets fit in heap budget, evicting least recently used material
+     * as needed.
+     * <p>
+     * This method never blocks: if another enforcement is running, or if a sheet cannot be
+     * immediately locked, the corresponding eviction is simply skipped.
+     *
+     * @param requester the stub on behalf of which enforcement is made, it is never evicted
+     */
+    public void enforce (SheetStub requester)
+    {
+        if (!isEnabled() || !enforcing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            final long budget = getBudget();
+            final List<Residence> lru = getLruResidences();
+            long total = 0;
+
+            for (Residence residence : lru) {
+                total += residence.footprint;
+            }
+
+            if (total <= budget) {
+                return;
+            }
+
+            logger.debug("Residency over budget: {}/{} MB", total / MB, budget / MB);
+
+            final SheetStub current = (OMR.gui != null) ? StubsController.getCurrentStub() : null;
+
+            // Phase #1: release picture caches, least recently used first
+            for (Residence residence : lru) {
+                if (total <= budget) {
+                    return;
+                }
+
+                if ((residence.stub != requester) && (residence.stub != current)
+                            && (residence.pins.get() == 0)) {
+                    total -= releaseCaches(residence);
+                }
+            }
+
+            // Phase #2: swap out unpinned sheets, least recently used first
+            // Only in batch: in interactive mode, a swap would store the book and close the sheet
+            // tab without any user action
+            if (OMR.gui != null) {
+                return;
+            }
+
+            for (Residence residence : lru) {
+                if (total <= budget) {
+                    return;
+                }
+
+                final SheetStub stub = residence.stub;
+
+                if ((stub != requester) && (stub != current) && (residence.pins.get() == 0)) {
+                    if (swap(residence)) {
+                        total -= residence.footprint;
+                    }
+                }
+            }
+        } finally {
+            enforcing.set(false);
+        }
+    }
+
+    //--------//
+    // forget //
+    //--------//
+    /**
+     * Stop tracking the provided stubs, typically because their book is being closed.
+     *
+     * @param stubs the stubs to forget
+     */
+    public void forget (Collection<SheetStub> stubs)
+    {
+        for (SheetStub stub : stubs) {
+            residences.remove(stub);
+
+            if (latestStub == stub) {
+                latestStub = null;
+            }
+        }
+    }
+
+    //-------------------//
+    // getCacheEvictions //
+    //-------------------//
+    /**
+     * Report the number of picture caches released so far.
+     *
+     * @return count of cache evictions
+     */
+    public long getCacheEvictions ()
+    {
+        return cacheEvictions.sum();
+    }
+
+    //-----------//
+    // getBudget //
+    //-----------//
+    /**
+     * Report the heap budget allocated to resident sheets.
+     *
+     * @return budget in bytes
+     */
+    public long getBudget ()
+    {
+        return (long) (Runtime.getRuntime().maxMemory() * constants.heapRatio.getValue());
+    }
+
+    //---------//
+    // getHits //
+    //---------//
+    /**
+     * Report the number of switches to an already resident sheet.
+     *
+     * @return count of hits
+     */
+    public long getHits ()
+    {
+        return hits.sum();
+    }
+
+    //------------------//
+    // getLruResidences //
+    //------------------//
+    /**
+     * Report the current residences, with refreshed footprints, least recently used first.
+     * Residences of sheets no longer in memory are purged.
+     *
+     * @return the sorted residences
+     */
+    private List<Residence> getLruResidences ()
+    {
+        final List<Residence> list = new ArrayList<>(residences.size());
+
+        for (Residence residence : residences.values()) {
+            final Sheet sheet = residence.stub.getLoadedSheet();
+
+            if (sheet == null) {
+                if (residence.pins.get() == 0) {
+                    residences.remove(residence.stub, residence);
+                }
+            } else {
+                residence.footprint = estimateFootprint(sheet);
+                list.add(residence);
+            }
+        }
+
+        list.sort(Comparator.comparingLong(r -> r.lastAccess));
+
+        return list;
+    }
+
+    //-----------//
+    // getMisses //
+    //-----------//
+    /**
+     * Report the number of accesses that required a sheet load.
+     *
+     * @return count of misses
+     */
+    public long getMisses ()
+    {
+        return misses.sum();
+    }
+
+    //-------------------//
+    // getSheetEvictions //
+    //-------------------//
+    /**
+     * Report the number of sheets swapped out so far.
+     *
+     * @return count of sheet evictions
+     */
+    public long getSheetEvictions ()
+    {
+        return sheetEvictions.sum();
+    }
+
+    //---------------//
+    // getStatistics //
+    //---------------//
+    /**
+     * Report a summary of residency activity.
+     *
+     * @return a one-line summary
+     */
+    public String getStatistics ()
+    {
+        long total = 0;
+
+        for (Residence residence : getLruResidences()) {
+            total += residence.footprint;
+        }
+
+        return String.format(
+                "resident:%d %d/%d MB hits:%d misses:%d cacheEvictions:%d sheetEvictions:%d",
+                residences.size(),
+                total / MB,
+                getBudget() / MB,
+                getHits(),
+                getMisses(),
+                getCacheEvictions(),
+                getSheetEvictions());
+    }
+
+    //-----//
+    // pin //
+    //-----//
+    /**
+     * Prevent the sheet of provided stub from being swapped out, until a matching
+     * {@link #unpin(SheetStub)} call.
+     * Pins are counted, so pin/unpin calls can be nested.
+     *
+     * @param stub the stub to pin
+     */
+    public void pin (SheetStub stub)
+    {
+        getResidence(stub).pins.incrementAndGet();
+    }
+
+    //-----------//
+    // recordHit //
+    //-----------//
+    /**
+     * Record an access to the already loaded sheet of provided stub.
+     * <p>
+     * This is called by every {@link SheetStub#getSheet()}, hence it does nothing as long as the
+     * same sheet is accessed: LRU order can change only when another sheet is accessed.
+     * No residence is created here, so a stub no longer tracked (for example of a closed book)
+     * does not get back into the budget.
+     *
+     * @param stub the accessed stub
+     */
+    void recordHit (SheetStub stub)
+    {
+        if (latestStub == stub) {
+            return;
+        }
+
+        latestStub = stub;
+
+        final Residence residence = residences.get(stub);
+
+        if (residence != null) {
+            hits.increment();
+            residence.lastAccess = System.nanoTime();
+        }
+    }
+
+    //------------//
+    // recordLoad //
+    //------------//
+    /**
+     * Record that the sheet of provided stub has just been loaded, and make room for it
+     * if needed.
+     *
+     * @param stub the loaded stub
+     */
+    void recordLoad (SheetStub stub)
+    {
+        misses.increment();
+        latestStub = stub;
+        getResidence(stub).lastAccess = System.nanoTime();
+        enforce(stub);
+    }
+
+    //--------------//
+    // recordUnload //
+    //--------------//
+    /**
+     * Record that the sheet of provided stub has been disposed of.
+     *
+     * @param stub the unloaded stub
+     */
+    void recordUnload (SheetStub stub)
+    {
+        final Residence residence = residences.get(stub);
+
+        if ((residence != null) && (residence.pins.get() == 0)) {
+            residences.remove(stub, residence);
+        }
+    }
+
+    //-------//
+    // unpin //
+    //-------//
+    /**
+     * Cancel a previous {@link #pin(SheetStub)} call.
+     *
+     * @param stub the stub to unpin
+     */
+    public void unpin (SheetStub stub)
+    {
+        final Residence residence = residences.get(stub);
+
+        if ((residence != null) && (residence.pins.decrementAndGet() < 0)) {
+            logger.warn("Unbalanced unpin on {}", stub);
+            residence.pins.set(0);
+        }
+    }
+
+    //--------------//
+    // getResidence //
+    //--------------//
+    private Residence getResidence (SheetStub stub)
+    {
+        return residences.computeIfAbsent(stub, Residence::new);
+    }
+
+    //---------------//
+    // releaseCaches //
+    //---------------//
+    private long releaseCaches (Residence residence)
+    {
+        final Sheet sheet = residence.stub.getLoadedSheet();
+
+        if ((sheet == null) || !sheet.hasPicture()) {
+            return 0;
+        }
+
+        final long released = sheet.getPicture().releaseCaches();
+
+        if (released > 0) {
+            cacheEvictions.increment();
+            residence.footprint -= released;
+            logger.debug("{} picture caches released: {} MB", residence.stub, released / MB);
+        }
+
+        return released;
+    }
+
+    //------//
+    // swap //
+    //------//
+    private boolean swap (Residence residence)
+    {
+        final SheetStub stub = residence.stub;
+        final Book book = stub.getBook();
+
+        if (book.isClosing()) {
+            return false;
+        }
+
+        // Stub lock: to not swap a sheet being processed
+        // Book lock: to not wait for a book store in progress
+        final Lock stubLock = stub.getLock();
+
+        if (!stubLock.tryLock()) {
+            return false;
+        }
+
+        try {
+            final Lock bookLock = book.getLock();
+
+            if (!bookLock.tryLock()) {
+                return false;
+            }
+
+            try {
+                logger.info("{} swapped out to fit in heap budget", stub);
+                stub.swapSheet();
+            } finally {
+                bookLock.unlock();
+            }
+        } finally {
+            stubLock.unlock();
+        }
+
+        final boolean swapped = !stub.hasSheet();
+
+        if (swapped) {
+            sheetEvictions.increment();
+        }
+
+        return swapped;
+    }
+
+    //~ Static Methods -----------------------------------------------------------------------------
+
+    //-------------------//
+    // estimateFootprint //
+    //-------------------//
+    /**
+     * Estimate the heap footprint of a loaded sheet.
+     *
+     * @param sheet the loaded sheet
+     * @return the estimated count of bytes
+     */
+    private static long estimateFootprint (Sheet sheet)
+    {
+        if (!sheet.hasPicture()) {
+            return 0;
+        }
+
+        final Picture picture = sheet.getPicture();
+        final long pixels = (long) picture.getWidth() * picture.getHeight();
+
+        return (long) (pixels * constants.structureBytesPerPixel.getValue())
+                       + picture.getCacheFootprint();
+    }
+
+    //-------------//
+    // getInstance //
+    //-------------//
+    /**
+     * Report the single instance of SheetResidency in the application.
+     *
+     * @return the instance
+     */
+    public static SheetResidency getInstance ()
+    {
+        return LazySingleton.INSTANCE;
+    }
+
+    //-----------//
+    // isEnabled //
+    //-----------//
+    /**
+     * Report whether residency enforcement is enabled.
+     *
+     * @return true if enabled
+     */
+    public static boolean isEnabled ()
+    {
+        return constants.useResidency.isSet();
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Boolean useResidency = new Constant.Boolean(
+                true,
+                "Should we evict least recently used sheet material to fit in heap budget?");
+
+        private final Constant.Ratio heapRatio = new Constant.Ratio(
+                0.7,
+                "Ratio of maximum heap usable by resident sheets");
+
+        private final Constant.Ratio structureBytesPerPixel = new Constant.Ratio(
+                4.0,
+                "Estimated heap bytes per sheet pixel, for sheet structure beside picture caches");
+    }
+
+    //---------------//
+    // LazySingleton //
+    //---------------//
+    private static class LazySingleton
+    {
+
+        static final SheetResidency INSTANCE = new SheetResidency();
+    }
+
+    //-----------//
+    // Residence //
+    //-----------//
+    /**
+     * Residency data for one sheet.
+     */
+    private static class Residence
+    {
+
+        /** The related stub. */
+        final SheetStub stub;
+
+        /** Count of active pins. */
+        final AtomicInteger pins = new AtomicInteger();
+
+        /** Time of last access. */
+        volatile long lastAccess = System.nanoTime();
+
+        /** Last estimated footprint, in bytes. */
+        volatile long footprint;
+
+        Residence (SheetStub stub)
+        {
+            this.stub = stub;
+        }
+    }
+}
@@ -0,0 +1,700 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   S h e e t S c h e d u l e r                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import org.audiveris.omr.OMR;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.log.LogUtil;
+import org.audiveris.omr.step.OmrStep;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class <code>SheetScheduler</code> pipelines the sheets of a book through the sequence of
+ * {@link OmrStep}'s, under a heap budget.
+ * <p>
+ * Rather than launching all sheets at once, the scheduler admits a new sheet only when its
+ * estimated footprint fits in the remaining heap budget (at least one sheet is always admitted).
+ * Each admitted sheet then progresses step by step, every step being submitted to one of two
+ * lanes:
+ * <ul>
+ * <li>the <b>I/O lane</b> for steps dominated by input/output (LOAD) and for final sheet swapping,
+ * <li>the <b>CPU lane</b> for all other steps (GRID, HEADS, SYMBOLS, ...).
+ * </ul>
+ * Hence, while one sheet is being loaded or swapped, other sheets can be processed by CPU-heavy
+ * steps.
+ * <p>
+ * The footprint of a sheet is first estimated by a constant, and refined from actual image
+ * dimensions as soon as the sheet has been loaded.
+ * When a sheet is done and swapped, its reservation is released and the next waiting sheet gets
+ * admitted.
+ * <p>
+ * Queue depth and per-step throughput are available while and after processing.
+ *
+ * @author Hervé Bitteur
+ */
+public class SheetScheduler
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(SheetScheduler.class);
+
+    /** Bytes per megabyte. */
+    private static final long MB = 1024L * 1024L;
+
+    //~ Enumerations -------------------------------------------------------------------------------
+
+    /** Kind of executor a step is run upon. */
+    public static enum Lane
+    {
+        /** Steps mostly waiting for input/output. */
+        IO,
+        /** Steps mostly using processor. */
+        CPU;
+    }
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Targeted step. */
+    private final OmrStep target;
+
+    /** True for re-processing of already processed steps. */
+    private final boolean force;
+
+    /** True for swapping each sheet when done. */
+    private final boolean swap;
+
+    /** Heap budget for resident sheets. */
+    private final HeapBudget budget;
+
+    /** Executor for I/O lane. */
+    private final ThreadPoolExecutor ioExecutor;
+
+    /** Executor for CPU lane. */
+    private final ThreadPoolExecutor cpuExecutor;
+
+    /** Per-step statistics. */
+    private final Map<OmrStep, StepStats> stepStats = new EnumMap<>(OmrStep.class);
+
+    /** Count of sheets not yet admitted. */
+    private final AtomicInteger waitingSheets = new AtomicInteger();
+
+    /** Count of sheets currently admitted. */
+    private final AtomicInteger residentSheets = new AtomicInteger();
+
+    /** Set if at least one sheet failed. */
+    private final AtomicBoolean someFailure = new AtomicBoolean();
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    /**
+     * Creates a new <code>SheetScheduler</code> object.
+     *
+     * @param target the targeted step
+     * @param force  if true and step already reached, sheet is reset and processed until step
+     * @param swap   if true, swap out each processed sheet
+     */
+    public SheetScheduler (OmrStep target,
+                           boolean force,
+                           boolean swap)
+    {
+        this.target = target;
+        this.force = force;
+        this.swap = swap;
+
+        budget = new HeapBudget(
+                (long) (Runtime.getRuntime().maxMemory() * constants.heapRatio.getValue()));
+
+        final int cpus = constants.cpuSheets.getValue() > 0 ? constants.cpuSheets.getValue()
+                : OmrExecutors.getNumberOfCpus();
+        ioExecutor = createExecutor("sheetIo", Math.max(1, constants.ioSheets.getValue()));
+        cpuExecutor = createExecutor("sheetCpu", cpus);
+
+        for (OmrStep step : OmrStep.values()) {
+            stepStats.put(step, new StepStats());
+        }
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //-----------------//
+    // getBudgetStatus //
+    //-----------------//
+    /**
+     * Report the currently reserved heap versus heap budget.
+     *
+     * @return a string like "reserved/budget MB"
+     */
+    public String getBudgetStatus ()
+    {
+        return budget.toString();
+    }
+
+    //-------------//
+    // getExecutor //
+    //-------------//
+    private ThreadPoolExecutor getExecutor (Lane lane)
+    {
+        return (lane == Lane.IO) ? ioExecutor : cpuExecutor;
+    }
+
+    //---------------//
+    // getQueueDepth //
+    //---------------//
+    /**
+     * Report the number of pending step tasks in provided lane.
+     *
+     * @param lane the lane of interest
+     * @return the count of step tasks waiting for a thread
+     */
+    public int getQueueDepth (Lane lane)
+    {
+        return getExecutor(lane).getQueue().size();
+    }
+
+    //-------------------//
+    // getResidentSheets //
+    //-------------------//
+    /**
+     * Report the number of sheets currently admitted in the pipeline.
+     *
+     * @return count of admitted sheets not yet swapped
+     */
+    public int getResidentSheets ()
+    {
+        return residentSheets.get();
+    }
+
+    //--------------//
+    // getStepStats //
+    //--------------//
+    /**
+     * Report the statistics for provided step.
+     *
+     * @param step the step of interest
+     * @return the step statistics
+     */
+    public StepStats getStepStats (OmrStep step)
+    {
+        return stepStats.get(step);
+    }
+
+    //------------------//
+    // getWaitingSheets //
+    //------------------//
+    /**
+     * Report the number of sheets not yet admitted in the pipeline.
+     *
+     * @return count of waiting sheets
+     */
+    public int getWaitingSheets ()
+    {
+        return waitingSheets.get();
+    }
+
+    //------------//
+    // isAdmitted //
+    //------------//
+    /**
+     * Report whether the provided stub is currently admitted, that is its heap footprint is
+     * reserved in the budget.
+     * <p>
+     * This reservation also covers the sheet image, whether loaded by the LOAD step or prefetched.
+     *
+     * @param stub the stub to check
+     * @return true if admitted and not yet released
+     */
+    public boolean isAdmitted (SheetStub stub)
+    {
+        return budget.isReserved(stub);
+    }
+
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Pipeline the provided stubs through the needed steps, until target step is reached.
+     * <p>
+     * This method blocks until all stubs have been processed.
+     *
+     * @param stubs the stubs to process, in admission order
+     * @return true if OK on all stubs
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean process (List<SheetStub> stubs)
+        throws InterruptedException
+    {
+        final CountDownLatch latch = new CountDownLatch(stubs.size());
+        waitingSheets.set(stubs.size());
+
+        try {
+            for (SheetStub stub : stubs) {
+                budget.acquire(stub, constants.defaultSheetFootprint.getValue() * MB);
+                waitingSheets.decrementAndGet();
+                residentSheets.incrementAndGet();
+                SheetResidency.getInstance().pin(stub);
+                logger.debug("{} admitted, budget: {}", stub, budget);
+
+                new SheetJob(stub, latch).start();
+            }
+
+            latch.await();
+        } finally {
+            ioExecutor.shutdown();
+            cpuExecutor.shutdown();
+
+            if (constants.printStatistics.isSet()) {
+                printStatistics();
+            }
+        }
+
+        return !someFailure.get();
+    }
+
+    //-----------------//
+    // printStatistics //
+    //-----------------//
+    /**
+     * Print out per-step statistics.
+     */
+    public void printStatistics ()
+    {
+        final StringBuilder sb = new StringBuilder("Sheet pipeline statistics:");
+
+        for (Map.Entry<OmrStep, StepStats> entry : stepStats.entrySet()) {
+            final StepStats stats = entry.getValue();
+
+            if (stats.getCount() > 0) {
+                sb.append(String.format("%n %-10s %s", entry.getKey(), stats));
+            }
+        }
+
+        sb.append(String.format("%n %-10s %s", "RESIDENCY", SheetResidency.getInstance()
+                .getStatistics()));
+        logger.info("{}", sb);
+    }
+
+    //~ Static Methods -----------------------------------------------------------------------------
+
+    //----------------//
+    // createExecutor //
+    //----------------//
+    private static ThreadPoolExecutor createExecutor (String name,
+                                                      int threads)
+    {
+        final AtomicInteger threadNumber = new AtomicInteger(0);
+
+        return new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                (Runnable r) ->
+        {
+            final Thread t = new Thread(r, name + "-thread-" + threadNumber.incrementAndGet());
+            t.setPriority(Thread.MIN_PRIORITY);
+
+            return t;
+        });
+    }
+
+    //-------------------//
+    // estimateFootprint //
+    //-------------------//
+    /**
+     * Estimate the heap footprint of a loaded sheet, based on its dimensions.
+     *
+     * @param stub the stub of a loaded sheet
+     * @return the estimated count of bytes, or null if not known
+     */
+    private static Long estimateFootprint (SheetStub stub)
+    {
+        if (!stub.hasSheet()) {
+            return null;
+        }
+
+        final Sheet sheet = stub.getSheet();
+        final long pixels = (long) sheet.getWidth() * sheet.getHeight();
+
+        if (pixels <= 0) {
+            return null;
+        }
+
+        return (long) (pixels * constants.bytesPerPixel.getValue());
+    }
+
+    //--------//
+    // laneOf //
+    //--------//
+    /**
+     * Report the lane to be used for provided step.
+     *
+     * @param step the step to run
+     * @return IO or CPU lane
+     */
+    public static Lane laneOf (OmrStep step)
+    {
+        return (step == OmrStep.LOAD) ? Lane.IO : Lane.CPU;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+
+    //-----------//
+    // StepStats //
+    //-----------//
+    /**
+     * Cumulated statistics for one step.
+     */
+    public static class StepStats
+    {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private final AtomicLong nanos = new AtomicLong();
+
+        /**
+         * Report the number of sheets that went through this step.
+         *
+         * @return count of step executions
+         */
+        public int getCount ()
+        {
+            return count.get();
+        }
+
+        /**
+         * Report the cumulated duration of this step.
+         *
+         * @return total duration in milliseconds
+         */
+        public long getMillis ()
+        {
+            return TimeUnit.NANOSECONDS.toMillis(nanos.get());
+        }
+
+        /**
+         * Report the throughput of this step.
+         *
+         * @return number of sheets processed per minute of step thread time
+         */
+        public double getThroughput ()
+        {
+            final long ms = getMillis();
+
+            return (ms == 0) ? 0 : (count.get() * 60_000.0) / ms;
+        }
+
+        private void record (long duration)
+        {
+            count.incrementAndGet();
+            nanos.addAndGet(duration);
+        }
+
+        @Override
+        public String toString ()
+        {
+            return String.format(
+                    "count:%d total:%dms mean:%dms throughput:%.1f/min",
+                    getCount(),
+                    getMillis(),
+                    getMillis() / Math.max(1, getCount()),
+                    getThroughput());
+        }
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Ratio heapRatio = new Constant.Ratio(
+                0.6,
+                "Ratio of maximum heap usable by resident sheets");
+
+        private final Constant.Integer defaultSheetFootprint = new Constant.Integer(
+                "MB",
+                150,
+                "Estimated heap footprint of a sheet not yet loaded");
+
+        private final Constant.Ratio bytesPerPixel = new Constant.Ratio(
+                12.0,
+                "Estimated count of heap bytes per sheet pixel");
+
+        private final Constant.Integer ioSheets = new Constant.Integer(
+                "sheets",
+                2,
+                "Maximum number of sheets concurrently in I/O lane");
+
+        private final Constant.Integer cpuSheets = new Constant.Integer(
+                "sheets",
+                0,
+                "Maximum number of sheets concurrently in CPU lane (0 for CPU count)");
+
+        private final Constant.Boolean printStatistics = new Constant.Boolean(
+                false,
+                "Should we print out per-step statistics of sheet pipeline?");
+    }
+
+    //------------//
+    // HeapBudget //
+    //------------//
+    /**
+     * Accounting of heap reservations by resident sheets.
+     */
+    private static class HeapBudget
+    {
+
+        /** Maximum bytes. */
+        private final long max;
+
+        /** Reservation per resident stub. */
+        private final Map<SheetStub, Long> reservations = new LinkedHashMap<>();
+
+        /** Total reserved bytes. */
+        private long reserved;
+
+        HeapBudget (long max)
+        {
+            this.max = max;
+        }
+
+        /**
+         * Wait until provided amount fits in budget, then reserve it.
+         * If no sheet is resident, reservation is always granted.
+         */
+        synchronized void acquire (SheetStub stub,
+                                   long bytes)
+            throws InterruptedException
+        {
+            while (!reservations.isEmpty() && ((reserved + bytes) > max)) {
+                wait();
+            }
+
+            reservations.put(stub, bytes);
+            reserved += bytes;
+        }
+
+        /** Tell whether provided stub holds a reservation. */
+        synchronized boolean isReserved (SheetStub stub)
+        {
+            return reservations.containsKey(stub);
+        }
+
+        /** Release the reservation of provided stub. */
+        synchronized void release (SheetStub stub)
+        {
+            final Long bytes = reservations.remove(stub);
+
+            if (bytes != null) {
+                reserved -= bytes;
+                notifyAll();
+            }
+        }
+
+        /** Update the reservation of provided stub with a more accurate estimate. */
+        synchronized void update (SheetStub stub,
+                                  long bytes)
+        {
+            final Long old = reservations.put(stub, bytes);
+
+            if (old != null) {
+                reserved += bytes - old;
+
+                if (bytes < old) {
+                    notifyAll();
+                }
+            }
+        }
+
+        @Override
+        public synchronized String toString ()
+        {
+            return (reserved / MB) + "/" + (max / MB) + " MB";
+        }
+    }
+
+    //----------//
+    // SheetJob //
+    //----------//
+    /**
+     * Progression of one sheet through the needed steps, one lane task per step.
+     */
+    private class SheetJob
+            implements Runnable
+    {
+
+        private final SheetStub stub;
+
+        private final CountDownLatch latch;
+
+        /** Remaining steps, computed once stub has been reset if needed. */
+        private Iterator<OmrStep> steps;
+
+        /** Step to run next. */
+        private OmrStep current;
+
+        /** Set if a step failed on this sheet. */
+        private volatile boolean failed;
+
+        SheetJob (SheetStub stub,
+                  CountDownLatch latch)
+        {
+            this.stub = stub;
+            this.latch = latch;
+        }
+
+        @Override
+        public void run ()
+        {
+            LogUtil.start(stub);
+
+            try {
+                if (steps == null) {
+                    init();
+                } else {
+                    final long start = System.nanoTime();
+                    final boolean ok = stub.reachStep(current, false);
+                    stepStats.get(current).record(System.nanoTime() - start);
+
+                    if (!ok) {
+                        failed = true;
+                        someFailure.set(true);
+                        steps = Collections.emptyIterator(); // Stop processing this sheet
+                    }
+
+                    if (ok && (current == OmrStep.LOAD)) {
+                        final Long footprint = estimateFootprint(stub);
+
+                        if (footprint != null) {
+                            budget.update(stub, footprint);
+                        }
+                    }
+                }
+
+                scheduleNext();
+            } catch (Throwable ex) {
+                // Exception (such as timeout) raised on stub
+                // Let processing continue for the other stubs
+                logger.warn("Error processing {} {}", stub, ex.toString(), ex);
+                failed = true;
+                someFailure.set(true);
+                finish();
+            } finally {
+                LogUtil.stopStub();
+            }
+        }
+
+        /** Launch the job, starting on I/O lane. */
+        void start ()
+        {
+            ioExecutor.execute(this);
+        }
+
+        /** Reset stub if needed and compute steps to perform. */
+        private void init ()
+        {
+            if (force) {
+                stub.getLock().lock();
+
+                try {
+                    stub.resetForStep(target);
+                } finally {
+                    stub.getLock().unlock();
+                }
+            }
+
+            final List<OmrStep> needed = new ArrayList<>();
+
+            for (OmrStep step : EnumSet.range(OmrStep.first(), target)) {
+                if (!stub.isDone(step)) {
+                    needed.add(step);
+                }
+            }
+
+            steps = needed.iterator();
+        }
+
+        /**
+         * Swap the sheet if so desired and successfully processed, release its reservation
+         * and signal completion.
+         */
+        private void finish ()
+        {
+            try {
+                if (!failed && (swap || (OMR.gui == null))) {
+                    stub.swapSheet(); // Save sheet & global book info to disk
+                }
+            } finally {
+                stub.getBook().discardPrefetchedImage(stub.getNumber()); // If left unclaimed
+                SheetResidency.getInstance().unpin(stub);
+                budget.release(stub);
+                residentSheets.decrementAndGet();
+                latch.countDown();
+            }
+        }
+
+        /** Submit next step on proper lane, or finish on I/O lane. */
+        private void scheduleNext ()
+        {
+            if (steps.hasNext()) {
+                current = steps.next();
+                getExecutor(laneOf(current)).execute(this);
+            } else {
+                current = null;
+                ioExecutor.execute( () ->
+                {
+                    LogUtil.start(stub);
+
+                    try {
+                        finish();
+                    } finally {
+                        LogUtil.stopStub();
+                    }
+                });
+            }
+        }
+    }
+}
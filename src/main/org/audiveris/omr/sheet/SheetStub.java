@@ -49,11 +49,12 @@ import org.audiveris.omr.step.ui.StepMonitoring;
 import org.audiveris.omr.ui.Colors;
 import org.audiveris.omr.ui.symbol.MusicFamily;
 import org.audiveris.omr.ui.symbol.TextFamily;
+import org.audiveris.omr.ui.view.TileCache;
 import org.audiveris.omr.util.FileUtil;
 import org.audiveris.omr.util.Jaxb;
-import org.audiveris.omr.util.Memory;
 import org.audiveris.omr.util.Navigable;
 import org.audiveris.omr.util.OmrExecutors;
+import org.audiveris.omr.util.SharedZipFileSystem;
 import org.audiveris.omr.util.StopWatch;
 import org.audiveris.omr.util.Version;
 import org.audiveris.omr.util.ZipFileSystem;
@@ -800,6 +801,19 @@ public class SheetStub
         return latest;
     }
 
+    //----------------//
+    // getLoadedSheet //
+    //----------------//
+    /**
+     * Report the sheet if already in memory, without loading it nor recording any access.
+     *
+     * @return the loaded sheet or null
+     */
+    Sheet getLoadedSheet ()
+    {
+        return sheet;
+    }
+
     //---------//
     // getLock //
     //---------//
@@ -981,13 +995,20 @@ public class SheetStub
      */
     public Sheet getSheet ()
     {
-        if (sheet != null) {
-            return sheet;
+        final SheetResidency residency = SheetResidency.getInstance();
+        final Sheet theSheet = sheet;
+
+        if (theSheet != null) {
+            residency.recordHit(this);
+
+            return theSheet;
         }
 
         synchronized (this) {
             // We have to recheck sheet, which may have just been allocated
             if (sheet != null) {
+                residency.recordHit(this);
+
                 return sheet;
             }
 
@@ -995,7 +1016,10 @@ public class SheetStub
             if (!isDone(OmrStep.LOAD)) {
                 // LOAD not yet performed: load from book image file
                 try {
-                    return sheet = new Sheet(this, null, false);
+                    sheet = new Sheet(this, null, false);
+                    residency.recordLoad(this);
+
+                    return sheet;
                 } catch (StepException ignored) {
                     logger.info("Could not load sheet for stub {}", this);
                     return null;
@@ -1013,10 +1037,17 @@ public class SheetStub
                 final Path sheetFile;
                 watch.start("unmarshal");
 
-                // Open the book file system
+                // Use the shared book file system
+                final SharedZipFileSystem shared = book.getSharedFileSystem();
+
+                if (shared == null) {
+                    throw new IOException("No book file for " + book);
+                }
+
+                final Path root = shared.acquire();
+
                 try {
-                    book.getLock().lock();
-                    sheetFile = book.openSheetFolder(number).resolve(
+                    sheetFile = root.resolve(INTERNALS_RADIX + number).resolve(
                             Sheet.getSheetFileName(number));
 
                     try (InputStream is = Files.newInputStream(
@@ -1024,10 +1055,8 @@ public class SheetStub
                             StandardOpenOption.READ)) {
                         sheet = Sheet.unmarshal(is);
                     }
-
-                    sheetFile.getFileSystem().close();
                 } finally {
-                    book.getLock().unlock();
+                    shared.release();
                 }
 
                 // Complete sheet reload
@@ -1042,6 +1071,7 @@ public class SheetStub
                 }
 
                 logger.info("Loaded {}", sheetFile);
+                residency.recordLoad(this);
             } catch (IOException | JAXBException ex) {
                 logger.warn("Error in loading sheet structure " + ex, ex);
                 logger.info("Trying to restart from binary");
@@ -1141,6 +1171,7 @@ public class SheetStub
     {
         // Avoid loading sheet just to reset to binary:
         // If sheet is available, use its picture.getTable()
+        // Otherwise, load binary table from disk
         // Otherwise, load binary image from disk and convert to RunTable
         RunTable binaryTable = null;
 
@@ -1149,6 +1180,11 @@ public class SheetStub
             binaryTable = getSheet().getPicture().getTable(TableKey.BINARY);
         }
 
+        if (binaryTable == null) {
+            logger.debug("Sheet#{} loading BINARY table from disk", number);
+            binaryTable = new RunTableHolder(TableKey.BINARY).getData(this);
+        }
+
         if (binaryTable == null) {
             logger.debug("Sheet#{} loading BINARY image from disk", number);
             final BufferedImage binaryImg = new ImageHolder(ImageKey.BINARY).getData(this);
@@ -1324,18 +1360,14 @@ public class SheetStub
         final StopWatch watch = new StopWatch("reachStep " + target);
         EnumSet<OmrStep> neededSteps = null;
         boolean ok = false;
+        final SheetResidency residency = SheetResidency.getInstance();
         getLock().lock(); // Wait for completion of early processing if any
         logger.debug("reachStep got lock on {}", this);
+        residency.pin(this);
 
         try {
-            final OmrStep latestStep = getLatestStep();
-
-            if (force && (target.compareTo(latestStep) <= 0)) {
-                if (target.compareTo(OmrStep.BINARY) > 0) {
-                    resetToBinary();
-                } else {
-                    resetToGray();
-                }
+            if (force) {
+                resetForStep(target);
             }
 
             neededSteps = getNeededSteps(target);
@@ -1356,6 +1388,7 @@ public class SheetStub
                 StepMonitoring.notifyMsg(step.toString());
                 logger.debug("reachStep {} towards {}", step, target);
                 doOneStep(step);
+                residency.enforce(this);
             }
 
             ok = true;
@@ -1382,6 +1415,7 @@ public class SheetStub
                 watch.print();
             }
 
+            residency.unpin(this);
             logger.debug("reachStep releasing lock on {}", this);
             getLock().unlock();
         }
@@ -1426,6 +1460,28 @@ public class SheetStub
         }
     }
 
+    //--------------//
+    // resetForStep //
+    //--------------//
+    /**
+     * Prepare a forced processing towards the provided target step, by resetting this
+     * stub to binary or gray if target step has already been reached.
+     *
+     * @param target the targeted step
+     */
+    void resetForStep (OmrStep target)
+    {
+        final OmrStep latestStep = getLatestStep();
+
+        if ((latestStep != null) && (target.compareTo(latestStep) <= 0)) {
+            if (target.compareTo(OmrStep.BINARY) > 0) {
+                resetToBinary();
+            } else {
+                resetToGray();
+            }
+        }
+    }
+
     //---------------//
     // resetToBinary //
     //---------------//
@@ -1571,6 +1627,13 @@ public class SheetStub
             final Lock bookLock = book.getLock();
             bookLock.lock();
 
+            // Make sure no reader is using the book file meanwhile
+            final SharedZipFileSystem shared = book.getSharedFileSystem();
+
+            if (shared != null) {
+                shared.beginWriting();
+            }
+
             try {
                 Path bookPath = BookManager.getDefaultSavePath(book);
                 Path root = ZipFileSystem.open(bookPath);
@@ -1580,6 +1643,10 @@ public class SheetStub
                 sheet.store(sheetFolder, null);
                 root.getFileSystem().close();
             } finally {
+                if (shared != null) {
+                    shared.endWriting();
+                }
+
                 bookLock.unlock();
             }
         }
@@ -1603,8 +1670,9 @@ public class SheetStub
 
             if (sheet != null) {
                 logger.info("Disposed sheet{}", sheet.getStub().getNum());
+                TileCache.invalidate(sheet); // Release tiles of all sheet views
                 sheet = null;
-                Memory.gc(); // Trigger a garbage collection...
+                SheetResidency.getInstance().recordUnload(this);
             }
 
             if (OMR.gui != null) {
@@ -27,7 +27,7 @@ import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.GlyphFactory;
 import org.audiveris.omr.glyph.GlyphGroup;
 import org.audiveris.omr.glyph.Glyphs;
-import org.audiveris.omr.image.MorphoProcessor;
+import org.audiveris.omr.image.FlatMorphoProcessor;
 import org.audiveris.omr.image.StructureElement;
 import org.audiveris.omr.math.Population;
 import org.audiveris.omr.run.RunTable;
@@ -120,7 +120,7 @@ public class BlackHeadSizer
      * @param spot raw beam-oriented spot
      * @return head-oriented glyph
      */
-    private Glyph closeBlackHead (MorphoProcessor mp,
+    private Glyph closeBlackHead (FlatMorphoProcessor mp,
                                   Glyph spot)
     {
         ByteProcessor buffer = spot.getBuffer();
@@ -215,7 +215,7 @@ public class BlackHeadSizer
 
         final int[] seOffset = {0, 0};
         final StructureElement se = new StructureElement(0, 1, radius, seOffset);
-        final MorphoProcessor mp = new MorphoProcessor(se);
+        final FlatMorphoProcessor mp = new FlatMorphoProcessor(se);
 
         // Filter the spots based on typical weight, width and height.
         // Then derive main width and main height.
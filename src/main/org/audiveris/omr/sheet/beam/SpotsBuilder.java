@@ -28,8 +28,8 @@ import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.GlyphFactory;
 import org.audiveris.omr.glyph.GlyphGroup;
 import org.audiveris.omr.glyph.GlyphIndex;
+import org.audiveris.omr.image.FlatMorphoProcessor;
 import org.audiveris.omr.image.ImageUtil;
-import org.audiveris.omr.image.MorphoProcessor;
 import org.audiveris.omr.image.StructureElement;
 import org.audiveris.omr.lag.Lag;
 import org.audiveris.omr.run.Orientation;
@@ -266,7 +266,7 @@ public class SpotsBuilder
         final int[] seOffset =
         { 0, 0 };
         final StructureElement se = new StructureElement(0, 1, radius, seOffset);
-        new MorphoProcessor(se).close(buffer);
+        new FlatMorphoProcessor(se).close(buffer);
     }
 
     //--------------------//
@@ -524,9 +524,9 @@ public class SlurLinker
                     // Not too stupid: select the mirror with less beams
                     final SIGraph sig = system.getSig();
                     Inter stem = link.getChord().getStem();
-                    int nb = sig.getRelations(stem, BeamStemRelation.class).size();
+                    int nb = sig.countRelations(stem, BeamStemRelation.class);
                     Inter mStem = mirrorLink.getChord().getStem();
-                    int mNb = sig.getRelations(mStem, BeamStemRelation.class).size();
+                    int mNb = sig.countRelations(mStem, BeamStemRelation.class);
                     linkOk = nb <= mNb;
                 }
 
@@ -28,6 +28,7 @@ import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.GlyphGroup;
 import org.audiveris.omr.image.ChamferDistance;
 import org.audiveris.omr.image.DistanceTable;
+import org.audiveris.omr.image.EuclideanDistance;
 import org.audiveris.omr.run.Orientation;
 import org.audiveris.omr.sheet.Picture;
 import org.audiveris.omr.sheet.Sheet;
@@ -110,7 +111,9 @@ public class DistancesBuilder
 
         // Table of distances to relevant foreground.
         final ByteProcessor buffer = new ByteProcessor(image);
-        final DistanceTable table = new ChamferDistance.Short().computeToFore(buffer);
+        final ChamferDistance distance = constants.useEuclideanDistance.isSet()
+                ? new EuclideanDistance() : new ChamferDistance.Short();
+        final DistanceTable table = distance.computeToFore(buffer);
 
         // "Erase" staff lines, ledgers, stems with neutralized value in table
         paintLines(new TablePainter(table));
@@ -207,6 +210,10 @@ public class DistancesBuilder
         private final Constant.Boolean displayTemplates = new Constant.Boolean(
                 false,
                 "Should we display the templates tab?");
+
+        private final Constant.Boolean useEuclideanDistance = new Constant.Boolean(
+                true,
+                "Should we use the parallel exact Euclidean distance rather than chamfer?");
     }
 
     //--------------//
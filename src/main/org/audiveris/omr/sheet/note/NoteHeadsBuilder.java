@@ -1723,45 +1723,13 @@ public class NoteHeadsBuilder
                                     Anchor anchor)
         {
             final Template template = catalog.getTemplate(shape);
-            final Rectangle slimBox = template.getSlimBoundsAt(x, y, anchor);
-
-            // Skip if frozen barline/connector is too close
-            if (barInvolved(slimBox)) {
-                if (useSeeds) {
-                    seedsPerf.bars++;
-                } else {
-                    rangePerf.bars++;
-                }
-
-                return null;
-            }
-
-            // Skip if location already used by really good object (beam, etc)
-            if (overlap(slimBox, competitors)) {
-                if (useSeeds) {
-                    seedsPerf.overlaps++;
-                } else {
-                    rangePerf.overlaps++;
-                }
 
+            if (!isFree(template, x, y, anchor)) {
                 return null;
             }
 
             // Then try (all variants for) the shape and keep the best dist
-            double dist = template.evaluate(x, y, anchor, distances);
-
-            // Trick to boost cross heads
-            if (shape == Shape.NOTEHEAD_CROSS) {
-                dist *= (1 - constants.crossBoost.getValue());
-            }
-
-            if (useSeeds) {
-                seedsPerf.evals++;
-            } else {
-                rangePerf.evals++;
-            }
-
-            return new PixelDistance(x, y, dist);
+            return evaluated(shape, x, y, template.evaluate(x, y, anchor, distances));
         }
 
         //-----------------//
@@ -1790,6 +1758,82 @@ public class NoteHeadsBuilder
             }
         }
 
+        //-----------//
+        // evaluated //
+        //-----------//
+        /**
+         * Report the distance measured for shape template at provided location.
+         *
+         * @param shape evaluated shape
+         * @param x     pivot abscissa
+         * @param y     pivot ordinate
+         * @param dist  raw distance measured by the template
+         * @return the resulting pixel distance
+         */
+        private PixelDistance evaluated (Shape shape,
+                                         int x,
+                                         int y,
+                                         double dist)
+        {
+            // Trick to boost cross heads
+            if (shape == Shape.NOTEHEAD_CROSS) {
+                dist *= (1 - constants.crossBoost.getValue());
+            }
+
+            if (useSeeds) {
+                seedsPerf.evals++;
+            } else {
+                rangePerf.evals++;
+            }
+
+            return new PixelDistance(x, y, dist);
+        }
+
+        //--------//
+        // isFree //
+        //--------//
+        /**
+         * Check whether the provided template location is not excluded by a frozen barline
+         * or connector nearby, nor by a really good object already there.
+         *
+         * @param template the template to apply
+         * @param x        pivot abscissa
+         * @param y        pivot ordinate
+         * @param anchor   find of pivot WRT template
+         * @return true if location is worth evaluating
+         */
+        private boolean isFree (Template template,
+                                int x,
+                                int y,
+                                Anchor anchor)
+        {
+            final Rectangle slimBox = template.getSlimBoundsAt(x, y, anchor);
+
+            // Skip if frozen barline/connector is too close
+            if (barInvolved(slimBox)) {
+                if (useSeeds) {
+                    seedsPerf.bars++;
+                } else {
+                    rangePerf.bars++;
+                }
+
+                return false;
+            }
+
+            // Skip if location already used by really good object (beam, etc)
+            if (overlap(slimBox, competitors)) {
+                if (useSeeds) {
+                    seedsPerf.overlaps++;
+                } else {
+                    rangePerf.overlaps++;
+                }
+
+                return false;
+            }
+
+            return true;
+        }
+
         //-------------//
         // getBarAreas //
         //-------------//
@@ -2067,6 +2111,18 @@ public class NoteHeadsBuilder
             final Anchor[] anchors = new Anchor[]
             { LEFT_STEM, RIGHT_STEM };
 
+            // Abscissa range of locations tried around a seed
+            int dxMin = 0;
+            int dxMax = 0;
+
+            for (int xOffset : xOffsets) {
+                dxMin = Math.min(dxMin, xOffset);
+                dxMax = Math.max(dxMax, xOffset);
+            }
+
+            final double[] rowDists = new double[dxMax - dxMin + 1];
+            final boolean[] rowFrees = new boolean[dxMax - dxMin + 1];
+
             for (Glyph seed : seeds) {
                 if (seed.isVip()) {
                     logger.info("VIP lookupSeeds for seed#{}", seed.getId());
@@ -2087,15 +2143,58 @@ public class NoteHeadsBuilder
                     // keep the best match (if acceptable) among all locations tried.
                     ShapeLoop:
                     for (Shape shape : scannerTemplateNotesStem) {
+                        final Template shapeTemplate = catalog.getTemplate(shape);
                         PixelDistance bestLoc = null;
 
                         // Brute force: explore the whole rectangle around (x0, y0)
                         for (int yOffset : yOffsets) {
                             final int y = y0 + yOffset;
+                            boolean rowEvaluated = false;
+                            int xFirst = 0; // Abscissa of first row location evaluated
 
                             for (int xOffset : xOffsets) {
                                 final int x = x0 + xOffset;
-                                PixelDistance loc = eval(shape, x, y, anchor);
+                                final PixelDistance loc;
+
+                                if ((x == x0) && (y == y0)) {
+                                    // Very first location, evaluated on its own
+                                    loc = eval(shape, x, y, anchor);
+                                } else {
+                                    if (!rowEvaluated) {
+                                        // Screen the locations of this row, then evaluate
+                                        // at once the span of the free ones, if any
+                                        xFirst = Integer.MAX_VALUE;
+                                        int xLast = Integer.MIN_VALUE;
+
+                                        for (int dx = dxMin; dx <= dxMax; dx++) {
+                                            final int xr = x0 + dx;
+                                            final boolean free = ((xr != x0) || (y != y0))
+                                                    && isFree(shapeTemplate, xr, y, anchor);
+                                            rowFrees[dx - dxMin] = free;
+
+                                            if (free) {
+                                                xFirst = Math.min(xFirst, xr);
+                                                xLast = Math.max(xLast, xr);
+                                            }
+                                        }
+
+                                        if (xFirst <= xLast) {
+                                            shapeTemplate.evaluateRow(
+                                                    xFirst,
+                                                    xLast,
+                                                    y,
+                                                    anchor,
+                                                    distances,
+                                                    rowDists);
+                                        }
+
+                                        rowEvaluated = true;
+                                    }
+
+                                    loc = rowFrees[xOffset - dxMin]
+                                            ? evaluated(shape, x, y, rowDists[x - xFirst])
+                                            : null;
+                                }
 
                                 if ((loc != null) && (loc.d <= params.maxDistanceLow)) {
                                     if ((bestLoc == null) || (bestLoc.d > loc.d)) {
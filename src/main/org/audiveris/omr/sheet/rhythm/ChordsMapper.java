@@ -21,6 +21,7 @@
 // </editor-fold>
 package org.audiveris.omr.sheet.rhythm;
 
+import org.audiveris.omr.math.AssignmentSolver;
 import org.audiveris.omr.math.InjectionSolver;
 import org.audiveris.omr.sig.inter.AbstractChordInter;
 
@@ -88,7 +89,7 @@ public class ChordsMapper
     public Mapping process ()
     {
         final Mapping output = new Mapping();
-        final InjectionSolver solver = new InjectionSolver(
+        final AssignmentSolver solver = new AssignmentSolver(
                 news.size(),
                 olds.size() + news.size(),
                 new MyDistance());
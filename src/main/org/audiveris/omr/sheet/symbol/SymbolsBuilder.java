@@ -97,6 +97,9 @@ public class SymbolsBuilder
     /** Areas where fine glyphs may be needed. */
     private final List<Rectangle> fineBoxes = new ArrayList<>();
 
+    /** Candidate glyphs, collected for a batched evaluation. */
+    private final List<Glyph> candidates = new ArrayList<>();
+
     /** Scale-dependent global constants. */
     private final Parameters params;
 
@@ -140,13 +143,16 @@ public class SymbolsBuilder
      * <li>FOREACH subset process(subset):
      * <ol>
      * <li>build compound glyph // Build one compound glyph per subset
-     * <li>evaluateGlyph(compound) // Run shape classifier on compound
-     * <li>FOREACH acceptable evaluation:
-     * <ol>
-     * <li>interFactory.create(eval, glyph) // Create inter(s) related to evaluation
+     * <li>collectGlyph(compound) // Record compound as a candidate
      * </ol>
      * </ol>
      * </ol>
+     * <li>evaluateCandidates(): // Run shape classifier on all candidates at once
+     * <ol>
+     * <li>FOREACH candidate, FOREACH acceptable evaluation:
+     * <ol>
+     * <li>interFactory.create(eval, glyph) // Create inter(s) related to evaluation
+     * </ol>
      * </ol>
      * </ol>
      *
@@ -175,44 +181,58 @@ public class SymbolsBuilder
         watch.start("processClusters");
         processClusters(systemGraph);
 
+        // Evaluate all candidates
+        watch.start("evaluateCandidates");
+        evaluateCandidates();
+
         if (constants.printWatch.isSet()) {
             watch.print();
         }
     }
 
-    //---------------//
-    // evaluateGlyph //
-    //---------------//
+    //--------------//
+    // collectGlyph //
+    //--------------//
     /**
-     * Evaluate a provided glyph and create all acceptable inter instances.
+     * Record a provided glyph as a candidate for evaluation.
      *
      * @param glyph the glyph to evaluate
      */
-    private void evaluateGlyph (Glyph glyph)
+    private void collectGlyph (Glyph glyph)
     {
         if (glyph.getId() == 0) {
             glyph = sheet.getGlyphIndex().registerOriginal(glyph);
         }
 
-        logger.debug("evaluateGlyph on {}", glyph);
+        logger.debug("collectGlyph on {}", glyph);
 
         if (glyph.isVip()) {
-            logger.info("VIP evaluateGlyph on {}", glyph);
+            logger.info("VIP collectGlyph on {}", glyph);
         }
 
-        final Point2D center = glyph.getCenter2D();
-        final Staff closestStaff = system.getClosestStaff(center); // Just an indication!
+        if (system.getClosestStaff(glyph.getCenter2D()) != null) {
+            candidates.add(glyph);
+        }
+    }
 
-        if (closestStaff == null) {
-            return;
+    //--------------//
+    // createInters //
+    //--------------//
+    /**
+     * Create all acceptable inter instances for a provided glyph.
+     *
+     * @param glyph the evaluated glyph
+     * @param evals the acceptable evaluations for this glyph
+     */
+    private void createInters (Glyph glyph,
+                               Evaluation[] evals)
+    {
+        if (glyph.isVip()) {
+            logger.info("VIP createInters on {}", glyph);
         }
 
-        final Evaluation[] evals = classifier.evaluate(
-                glyph,
-                system,
-                constants.maxEvaluationCount.getValue(),
-                Grades.symbolMinGrade,
-                EnumSet.of(Classifier.Condition.CHECKED));
+        final Point2D center = glyph.getCenter2D();
+        final Staff closestStaff = system.getClosestStaff(center); // Just an indication!
 
         // Create one interpretation for each acceptable evaluation
         final SIGraph sig = system.getSig();
@@ -236,6 +256,29 @@ public class SymbolsBuilder
         }
     }
 
+    //--------------------//
+    // evaluateCandidates //
+    //--------------------//
+    /**
+     * Evaluate all collected candidates in one batch, and create all acceptable inter
+     * instances.
+     */
+    private void evaluateCandidates ()
+    {
+        final List<Evaluation[]> evalsList = classifier.evaluate(
+                candidates,
+                system,
+                constants.maxEvaluationCount.getValue(),
+                Grades.symbolMinGrade,
+                EnumSet.of(Classifier.Condition.CHECKED));
+
+        for (int i = 0; i < candidates.size(); i++) {
+            createInters(candidates.get(i), evalsList.get(i));
+        }
+
+        candidates.clear();
+    }
+
     //------------------//
     // getSymbolsGlyphs //
     //------------------//
@@ -352,7 +395,7 @@ public class SymbolsBuilder
                 final Glyph glyph = set.iterator().next();
 
                 if (classifier.isBigEnough(glyph, interline)) {
-                    evaluateGlyph(glyph);
+                    collectGlyph(glyph);
                 }
             }
         }
@@ -482,7 +525,7 @@ public class SymbolsBuilder
         public void evaluateGlyph (Glyph glyph,
                                    Set<Glyph> parts)
         {
-            SymbolsBuilder.this.evaluateGlyph(glyph);
+            collectGlyph(glyph);
         }
 
         @Override
@@ -36,6 +36,7 @@ import org.audiveris.omr.ui.selection.MouseMovement;
 import org.audiveris.omr.ui.selection.SelectionService;
 import org.audiveris.omr.ui.view.RubberPanel;
 import org.audiveris.omr.ui.view.ScrollView;
+import org.audiveris.omr.ui.view.TileCache;
 import org.audiveris.omr.util.WeakPropertyChangeListener;
 
 import org.slf4j.Logger;
@@ -131,6 +132,9 @@ public class PictureView
             extends RubberPanel
     {
 
+        /** Cache of rendered picture tiles. */
+        private final TileCache tileCache = new TileCache(sheet);
+
         //-----------------//
         // contextSelected //
         //-----------------//
@@ -207,14 +211,15 @@ public class PictureView
                     BufferedImage gray = picture.getGrayImage();
                     ok = gray != null;
                 } else {
-                    BufferedImage binary = picture.getImage(Picture.ImageKey.BINARY);
-                    ok = binary != null;
+                    ok = picture.hasTableReady(Picture.TableKey.BINARY);
                 }
             }
 
             if (ok) {
-                RunTable table = sheet.getPicture().getTable(Picture.TableKey.BINARY);
-                doRender(g, input, output, voice, table);
+                final RunTable table = sheet.getPicture().getTable(Picture.TableKey.BINARY);
+                final Object stamp = (sheetTab == SheetTab.GRAY_TAB) ? sheet.getPicture()
+                        .getGrayImage() : table;
+                tileCache.render(g, stamp, gt -> doRender(gt, input, output, voice, table));
             } else {
                 // Spawn
                 new SwingWorker<RunTable, Void>()
@@ -72,7 +72,9 @@ import org.audiveris.omr.ui.symbol.MusicFamily;
 import org.audiveris.omr.ui.symbol.MusicFont;
 import org.audiveris.omr.ui.util.UIUtil;
 import org.audiveris.omr.ui.view.ScrollView;
+import org.audiveris.omr.ui.view.TileCache;
 import org.audiveris.omr.util.Navigable;
+import org.audiveris.omr.util.WeakPropertyChangeListener;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -159,6 +161,9 @@ public class SheetEditor
         view = new EditorView(sheet.getGlyphIndex());
         view.setLocationService(sheet.getLocationService());
 
+        // Listen to all view parameters, since any of them may impact the cached tiles
+        viewParams.addPropertyChangeListener(new WeakPropertyChangeListener(this));
+
         List<Board> boards = new ArrayList<>();
         boards.add(new PixelBoard(sheet, constants.selectPixelBoard.isSet()));
 
@@ -465,7 +470,7 @@ public class SheetEditor
     @Override
     public void propertyChange (PropertyChangeEvent evt)
     {
-        view.repaint();
+        refresh();
     }
 
     //---------//
@@ -477,6 +482,7 @@ public class SheetEditor
      */
     public void refresh ()
     {
+        view.tileCache.invalidate();
         view.repaint();
     }
 
@@ -572,6 +578,9 @@ public class SheetEditor
         /** When sequence of keys are typed. */
         private final SheetKeyListener keyListener = new SheetKeyListener();
 
+        /** Cache of rendered static layer tiles. */
+        private final TileCache tileCache = new TileCache(sheet);
+
         private EditorView (GlyphIndex glyphIndex)
         {
             super(
@@ -879,11 +888,67 @@ public class SheetEditor
             }
         }
 
+        //----------//
+        // getStamp //
+        //----------//
+        /**
+         * Report a stamp of the static layer content.
+         * <p>
+         * Any new processing step, new entity or change in view parameters modifies the stamp.
+         * Modifications performed by user tasks are handled by {@link SheetEditor#refresh()},
+         * as well as any change notified by view parameters.
+         *
+         * @return the content stamp
+         */
+        private List<Object> getStamp ()
+        {
+            final List<Object> stamp = new ArrayList<>();
+            stamp.add(sheet.getStub().getLatestStep());
+            stamp.add(sheet.getInterIndex().getLastId());
+
+            for (Lag lag : lags) {
+                stamp.add(lag.getLastId());
+            }
+
+            stamp.add(viewParams.isErrorPainting());
+            stamp.add(viewParams.isInputPainting());
+            stamp.add(viewParams.isOutputPainting());
+            stamp.add(viewParams.getSelectionMode());
+            stamp.add(viewParams.isVoicePainting());
+            stamp.add(viewParams.isTranslucentPainting());
+            stamp.add(viewParams.isStaffLinePainting());
+            stamp.add(viewParams.isAnnotationPainting());
+            stamp.add(viewParams.isSlotPainting());
+            stamp.add(viewParams.isPartNamePainting());
+            stamp.add(viewParams.isChordIdsPainting());
+
+            return stamp;
+        }
+
         //--------//
         // render //
         //--------//
         @Override
         public void render (Graphics2D g)
+        {
+            if (objectEditor != null) {
+                // Inter being edited is modified on the fly
+                tileCache.invalidate();
+                renderStatic(g);
+            } else {
+                tileCache.render(g, getStamp(), this::renderStatic);
+            }
+        }
+
+        //--------------//
+        // renderStatic //
+        //--------------//
+        /**
+         * Render the static layer: error areas, sections, inters and staff lines.
+         *
+         * @param g graphics context
+         */
+        private void renderStatic (Graphics2D g)
         {
             final Color oldColor = g.getColor();
 
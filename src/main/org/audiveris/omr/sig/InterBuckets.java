@@ -0,0 +1,296 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                     I n t e r B u c k e t s                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sig;
+
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.sig.inter.Inter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class <code>InterBuckets</code> indexes the inters of a SIG by concrete class and by shape.
+ * <p>
+ * A query by class gathers the buckets of all the concrete classes compatible with the desired
+ * class, a query by shape gathers the buckets of the desired shapes.
+ * Hence, a query costs in proportion to the result size rather than to the SIG size.
+ * <p>
+ * Results are kept in the order of SIG vertex insertion, just like a scan of the SIG vertices.
+ *
+ * @author Hervé Bitteur
+ */
+class InterBuckets
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Indexing data per inter. */
+    private final Map<Inter, Entry> entries = new HashMap<>();
+
+    /** Inters per concrete class. */
+    private final Map<Class<?>, Set<Inter>> byClass = new HashMap<>();
+
+    /** Inters per shape. (shape may be null) */
+    private final Map<Shape, Set<Inter>> byShape = new HashMap<>();
+
+    /** Concrete classes compatible with each queried class. */
+    private final Map<Class<?>, List<Class<?>>> compatibles = new HashMap<>();
+
+    /** Rank for next inserted inter. */
+    private long nextRank;
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    /**
+     * Creates a new <code>InterBuckets</code> object, populated with the provided inters.
+     *
+     * @param inters the initial inters, in SIG insertion order
+     */
+    InterBuckets (Collection<Inter> inters)
+    {
+        for (Inter inter : inters) {
+            insert(inter);
+        }
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //--------//
+    // gather //
+    //--------//
+    /**
+     * Merge the provided buckets into a list of non-removed inters, in insertion order.
+     *
+     * @param sets the buckets to merge
+     * @return the resulting list, perhaps empty but not null
+     */
+    private List<Inter> gather (List<Set<Inter>> sets)
+    {
+        final List<Inter> found = new ArrayList<>();
+
+        for (Set<Inter> set : sets) {
+            for (Inter inter : set) {
+                if (!inter.isRemoved()) {
+                    found.add(inter);
+                }
+            }
+        }
+
+        if (sets.size() > 1) {
+            found.sort(Comparator.comparingLong(inter -> entries.get(inter).rank));
+        }
+
+        return found;
+    }
+
+    //--------//
+    // insert //
+    //--------//
+    /**
+     * Insert a new inter.
+     *
+     * @param inter the inter to insert
+     */
+    final synchronized void insert (Inter inter)
+    {
+        if (entries.containsKey(inter)) {
+            return;
+        }
+
+        final Class<?> classe = inter.getClass();
+        final Shape shape = inter.getShape();
+        entries.put(inter, new Entry(nextRank++, shape));
+
+        Set<Inter> classSet = byClass.get(classe);
+
+        if (classSet == null) {
+            byClass.put(classe, classSet = new LinkedHashSet<>());
+            compatibles.clear(); // A new concrete class may be compatible with queried ones
+        }
+
+        classSet.add(inter);
+        byShape.computeIfAbsent(shape, s -> new LinkedHashSet<>()).add(inter);
+    }
+
+    //-----------//
+    // ofClasses //
+    //-----------//
+    /**
+     * Report the non-removed inters that are instances of any of the provided classes.
+     *
+     * @param classes the desired classes
+     * @return the inters found, perhaps empty but not null
+     */
+    synchronized List<Inter> ofClasses (Class<?>... classes)
+    {
+        final Set<Class<?>> concretes = new LinkedHashSet<>();
+
+        for (Class<?> classe : classes) {
+            concretes.addAll(compatibles.computeIfAbsent(classe, c ->
+            {
+                final List<Class<?>> list = new ArrayList<>();
+
+                for (Class<?> concrete : byClass.keySet()) {
+                    if (c.isAssignableFrom(concrete)) {
+                        list.add(concrete);
+                    }
+                }
+
+                return list;
+            }));
+        }
+
+        final List<Set<Inter>> sets = new ArrayList<>();
+
+        for (Class<?> concrete : concretes) {
+            final Set<Inter> set = byClass.get(concrete);
+
+            if ((set != null) && !set.isEmpty()) {
+                sets.add(set);
+            }
+        }
+
+        return gather(sets);
+    }
+
+    //----------//
+    // ofShapes //
+    //----------//
+    /**
+     * Report the non-removed inters of any of the provided shapes.
+     *
+     * @param shapes the desired shapes
+     * @return the inters found, perhaps empty but not null
+     */
+    synchronized List<Inter> ofShapes (Collection<Shape> shapes)
+    {
+        final List<Set<Inter>> sets = new ArrayList<>();
+
+        for (Shape shape : new LinkedHashSet<>(shapes)) {
+            final Set<Inter> set = byShape.get(shape);
+
+            if ((set != null) && !set.isEmpty()) {
+                sets.add(set);
+            }
+        }
+
+        return gather(sets);
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    /**
+     * Remove an inter.
+     *
+     * @param inter the inter to remove
+     */
+    synchronized void remove (Inter inter)
+    {
+        final Entry entry = entries.remove(inter);
+
+        if (entry != null) {
+            byClass.get(inter.getClass()).remove(inter);
+            byShape.get(entry.shape).remove(inter);
+        }
+    }
+
+    //------//
+    // size //
+    //------//
+    /**
+     * Report the number of indexed inters.
+     *
+     * @return the count of inters
+     */
+    synchronized int size ()
+    {
+        return entries.size();
+    }
+
+    //-------------//
+    // updateShape //
+    //-------------//
+    /**
+     * Move the provided inter to the bucket of its current shape.
+     *
+     * @param inter the inter whose shape may have changed
+     */
+    synchronized void updateShape (Inter inter)
+    {
+        final Entry entry = entries.get(inter);
+
+        if (entry == null) {
+            return;
+        }
+
+        final Shape shape = inter.getShape();
+
+        if (shape != entry.shape) {
+            final Set<Inter> oldSet = byShape.get(entry.shape);
+            final Set<Inter> newSet = byShape.computeIfAbsent(shape, s -> new LinkedHashSet<>());
+
+            // Keep the insertion order within the new bucket
+            oldSet.remove(inter);
+            newSet.add(inter);
+
+            if (newSet.size() > 1) {
+                final List<Inter> list = new ArrayList<>(newSet);
+                list.sort(Comparator.comparingLong(i -> entries.get(i).rank));
+                newSet.clear();
+                newSet.addAll(list);
+            }
+
+            entry.shape = shape;
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+
+    //-------//
+    // Entry //
+    //-------//
+    /**
+     * Indexing data for one inter.
+     */
+    private static class Entry
+    {
+
+        /** Insertion rank. */
+        final long rank;
+
+        /** Shape at indexing time. */
+        Shape shape;
+
+        Entry (long rank,
+               Shape shape)
+        {
+            this.rank = rank;
+            this.shape = shape;
+        }
+    }
+}
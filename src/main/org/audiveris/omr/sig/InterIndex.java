@@ -27,8 +27,11 @@ import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.sheet.SystemInfo;
 import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.inter.InterEnsemble;
 import org.audiveris.omr.sig.ui.InterService;
 import org.audiveris.omr.util.BasicIndex;
+import org.audiveris.omr.util.Entities;
+import org.audiveris.omr.util.SpatialIndex;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,6 +62,16 @@ public class InterIndex
 
     //~ Methods ------------------------------------------------------------------------------------
 
+    //--------------------//
+    // createSpatialIndex //
+    //--------------------//
+    @Override
+    protected SpatialIndex<Inter> createSpatialIndex ()
+    {
+        // Ensemble bounds depend on their members, results are kept in ID order
+        return new SpatialIndex<>(inter -> inter instanceof InterEnsemble, Entities.byId);
+    }
+
     //---------//
     // getName //
     //---------//
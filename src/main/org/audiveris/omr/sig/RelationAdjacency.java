@@ -0,0 +1,508 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                R e l a t i o n A d j a c e n c y                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sig;
+
+import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.relation.Relation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Class <code>RelationAdjacency</code> indexes the relations of a SIG, per inter, by concrete
+ * relation class and by direction.
+ * <p>
+ * A lookup for a relation class only visits the groups of the compatible concrete classes, instead
+ * of scanning and filtering all the edges of the inter.
+ * <p>
+ * Results are kept in the order of {@link SIGraph#edgesOf(Object)}, that is incoming relations
+ * then outgoing relations, each in insertion order.
+ *
+ * @author Hervé Bitteur
+ */
+class RelationAdjacency
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Comparator<Link> byRank = Comparator.comparingLong(link -> link.rank);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Indexing data per relation. */
+    private final Map<Relation, Link> links = new HashMap<>();
+
+    /** Relation groups per inter. */
+    private final Map<Inter, Node> nodes = new HashMap<>();
+
+    /** Rank for next inserted relation. */
+    private long nextRank;
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    /**
+     * Creates a new <code>RelationAdjacency</code> object, populated with the sig relations.
+     *
+     * @param sig the sig to index
+     */
+    RelationAdjacency (SIGraph sig)
+    {
+        for (Relation rel : sig.edgeSet()) {
+            insert(rel, sig.getEdgeSource(rel), sig.getEdgeTarget(rel));
+        }
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //-------//
+    // count //
+    //-------//
+    /**
+     * Count the relations of provided inter that are instances of any provided class.
+     *
+     * @param inter   the provided inter
+     * @param classes the desired classes
+     * @return the number of relations found
+     */
+    synchronized int count (Inter inter,
+                            Class<?>... classes)
+    {
+        final Node node = nodes.get(inter);
+
+        if (node == null) {
+            return 0;
+        }
+
+        int count = 0;
+
+        for (Group group : node.groups) {
+            if (group.matches(classes)) {
+                count += group.incoming.size() + group.outgoing.size();
+            }
+        }
+
+        return count;
+    }
+
+    //-------//
+    // first //
+    //-------//
+    /**
+     * Report the first inserted relation, if any, from source to target that is an instance of
+     * provided class.
+     *
+     * @param source the relation source
+     * @param target the relation target
+     * @param classe the desired class
+     * @return the relation found or null
+     */
+    synchronized Relation first (Inter source,
+                                 Inter target,
+                                 Class<?> classe)
+    {
+        final Node node = nodes.get(source);
+
+        if (node == null) {
+            return null;
+        }
+
+        Link best = null;
+
+        for (Group group : node.groups) {
+            if (classe.isAssignableFrom(group.classe)) {
+                for (Link link : group.outgoing) {
+                    if (link.target == target) {
+                        if ((best == null) || (link.rank < best.rank)) {
+                            best = link;
+                        }
+
+                        break; // Links are sorted by rank within a group
+                    }
+                }
+            }
+        }
+
+        return (best != null) ? best.relation : null;
+    }
+
+    //---------//
+    // forEach //
+    //---------//
+    /**
+     * Apply the provided action on each relation of provided inter that is an instance of any
+     * provided class.
+     * <p>
+     * The action must not modify the sig.
+     *
+     * @param inter   the provided inter
+     * @param classes the desired classes
+     * @param action  the action to apply
+     */
+    synchronized void forEach (Inter inter,
+                               Class<?>[] classes,
+                               Consumer<? super Relation> action)
+    {
+        final Node node = nodes.get(inter);
+
+        if (node == null) {
+            return;
+        }
+
+        final Group single = node.single(classes);
+
+        if (single != null) {
+            for (Link link : single.incoming) {
+                action.accept(link.relation);
+            }
+
+            for (Link link : single.outgoing) {
+                action.accept(link.relation);
+            }
+        } else if (node.matching(classes) > 1) {
+            for (Link link : merge(node, classes, true)) {
+                action.accept(link.relation);
+            }
+
+            for (Link link : merge(node, classes, false)) {
+                action.accept(link.relation);
+            }
+        }
+    }
+
+    //--------//
+    // gather //
+    //--------//
+    /**
+     * Add to the provided collection the relations of provided inter that are instances of any
+     * provided class.
+     *
+     * @param inter   the provided inter
+     * @param classes the desired classes
+     * @param found   (output) the collection to populate
+     */
+    synchronized void gather (Inter inter,
+                              Class<?>[] classes,
+                              Collection<? super Relation> found)
+    {
+        forEach(inter, classes, found::add);
+    }
+
+    //-----//
+    // has //
+    //-----//
+    /**
+     * Check whether the provided inter has a relation that is an instance of any provided class.
+     *
+     * @param inter   the provided inter
+     * @param classes the desired classes
+     * @return true if found
+     */
+    synchronized boolean has (Inter inter,
+                              Class<?>... classes)
+    {
+        final Node node = nodes.get(inter);
+
+        if (node != null) {
+            for (Group group : node.groups) {
+                if (group.matches(classes) && !group.isEmpty()) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    //--------//
+    // insert //
+    //--------//
+    /**
+     * Insert a new relation.
+     *
+     * @param relation the relation to insert
+     * @param source   the relation source
+     * @param target   the relation target
+     */
+    final synchronized void insert (Relation relation,
+                                    Inter source,
+                                    Inter target)
+    {
+        if (links.containsKey(relation)) {
+            return;
+        }
+
+        final Link link = new Link(relation, nextRank++, source, target);
+        links.put(relation, link);
+
+        final Class<?> classe = relation.getClass();
+        nodes.computeIfAbsent(source, i -> new Node()).getGroup(classe, true).outgoing.add(link);
+        nodes.computeIfAbsent(target, i -> new Node()).getGroup(classe, true).incoming.add(link);
+    }
+
+    //-------//
+    // merge //
+    //-------//
+    /**
+     * Merge the links of all matching groups in one direction, in insertion order.
+     *
+     * @param node     the inter node
+     * @param classes  the desired classes
+     * @param incoming true for incoming links, false for outgoing links
+     * @return the merged links
+     */
+    private List<Link> merge (Node node,
+                              Class<?>[] classes,
+                              boolean incoming)
+    {
+        final List<Link> merged = new ArrayList<>();
+
+        for (Group group : node.groups) {
+            if (group.matches(classes)) {
+                merged.addAll(incoming ? group.incoming : group.outgoing);
+            }
+        }
+
+        merged.sort(byRank);
+
+        return merged;
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    /**
+     * Remove a relation.
+     *
+     * @param relation the relation to remove
+     */
+    synchronized void remove (Relation relation)
+    {
+        final Link link = links.remove(relation);
+
+        if (link == null) {
+            return;
+        }
+
+        final Class<?> classe = relation.getClass();
+        final Node sourceNode = nodes.get(link.source);
+
+        if (sourceNode != null) {
+            final Group group = sourceNode.getGroup(classe, false);
+
+            if (group != null) {
+                group.outgoing.remove(link);
+            }
+        }
+
+        final Node targetNode = nodes.get(link.target);
+
+        if (targetNode != null) {
+            final Group group = targetNode.getGroup(classe, false);
+
+            if (group != null) {
+                group.incoming.remove(link);
+            }
+        }
+    }
+
+    //--------------//
+    // removeVertex //
+    //--------------//
+    /**
+     * Remove an inter, together with the relations it is still involved in.
+     *
+     * @param inter the inter to remove
+     */
+    synchronized void removeVertex (Inter inter)
+    {
+        final Node node = nodes.get(inter);
+
+        if (node == null) {
+            return;
+        }
+
+        for (Group group : node.groups) {
+            for (Link link : new ArrayList<>(group.incoming)) {
+                remove(link.relation);
+            }
+
+            for (Link link : new ArrayList<>(group.outgoing)) {
+                remove(link.relation);
+            }
+        }
+
+        nodes.remove(inter);
+    }
+
+    //------//
+    // size //
+    //------//
+    /**
+     * Report the number of relations indexed.
+     *
+     * @return the number of relations
+     */
+    synchronized int size ()
+    {
+        return links.size();
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+
+    //-------//
+    // Group //
+    //-------//
+    /**
+     * Relations of an inter for a concrete relation class.
+     */
+    private static class Group
+    {
+
+        /** Concrete relation class. */
+        final Class<?> classe;
+
+        /** Relations targeting the inter, in insertion order. */
+        final List<Link> incoming = new ArrayList<>(2);
+
+        /** Relations originating from the inter, in insertion order. */
+        final List<Link> outgoing = new ArrayList<>(2);
+
+        Group (Class<?> classe)
+        {
+            this.classe = classe;
+        }
+
+        boolean isEmpty ()
+        {
+            return incoming.isEmpty() && outgoing.isEmpty();
+        }
+
+        boolean matches (Class<?>[] classes)
+        {
+            for (Class<?> c : classes) {
+                if (c.isAssignableFrom(classe)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    //------//
+    // Link //
+    //------//
+    /**
+     * Indexing data for a relation.
+     */
+    private static class Link
+    {
+
+        final Relation relation;
+
+        /** Insertion rank. */
+        final long rank;
+
+        final Inter source;
+
+        final Inter target;
+
+        Link (Relation relation,
+              long rank,
+              Inter source,
+              Inter target)
+        {
+            this.relation = relation;
+            this.rank = rank;
+            this.source = source;
+            this.target = target;
+        }
+    }
+
+    //------//
+    // Node //
+    //------//
+    /**
+     * Relations of an inter, grouped by concrete relation class.
+     */
+    private static class Node
+    {
+
+        /** Few groups per inter, hence a plain list. */
+        final List<Group> groups = new ArrayList<>(4);
+
+        Group getGroup (Class<?> classe,
+                        boolean create)
+        {
+            for (Group group : groups) {
+                if (group.classe == classe) {
+                    return group;
+                }
+            }
+
+            if (!create) {
+                return null;
+            }
+
+            final Group group = new Group(classe);
+            groups.add(group);
+
+            return group;
+        }
+
+        /** Number of non-empty groups matching the classes. */
+        int matching (Class<?>[] classes)
+        {
+            int count = 0;
+
+            for (Group group : groups) {
+                if (group.matches(classes) && !group.isEmpty()) {
+                    count++;
+                }
+            }
+
+            return count;
+        }
+
+        /** The only non-empty group matching the classes, or null if none or several. */
+        Group single (Class<?>[] classes)
+        {
+            Group found = null;
+
+            for (Group group : groups) {
+                if (group.matches(classes) && !group.isEmpty()) {
+                    if (found != null) {
+                        return null;
+                    }
+
+                    found = group;
+                }
+            }
+
+            return found;
+        }
+    }
+}
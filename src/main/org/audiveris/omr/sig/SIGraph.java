@@ -29,9 +29,8 @@ import org.audiveris.omr.sheet.SystemInfo;
 import org.audiveris.omr.sheet.Versions;
 import org.audiveris.omr.sig.inter.HeadInter;
 import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.inter.InterEnsemble;
 import org.audiveris.omr.sig.inter.Inters;
-import org.audiveris.omr.sig.inter.Inters.ClassPredicate;
-import org.audiveris.omr.sig.inter.Inters.ClassesPredicate;
 import org.audiveris.omr.sig.inter.StemInter;
 import org.audiveris.omr.sig.relation.Exclusion;
 import org.audiveris.omr.sig.relation.Exclusion.ExclusionCause;
@@ -41,9 +40,11 @@ import org.audiveris.omr.sig.relation.Relations.RelationClassPredicate;
 import org.audiveris.omr.sig.relation.Support;
 import org.audiveris.omr.ui.selection.SelectionHint;
 import org.audiveris.omr.util.Navigable;
+import org.audiveris.omr.util.SpatialIndex;
 import org.audiveris.omr.util.Version;
 
 import org.jgrapht.Graphs;
+import org.jgrapht.event.GraphListener;
 import org.jgrapht.graph.DefaultListenableGraph;
 import org.jgrapht.graph.DirectedMultigraph;
 
@@ -65,6 +66,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
@@ -92,6 +95,29 @@ public class SIGraph
     /** Content for differed populating after unmarshalling. */
     private SigValue sigValue;
 
+    /** Spatial index on inters, built at first geometric lookup. */
+    private SpatialIndex<Inter> spatialIndex;
+
+    /** Index of inters by class and by shape, built at first typed lookup. */
+    private InterBuckets buckets;
+
+    /** Index of relations per inter by class and direction, built at first relation lookup. */
+    private RelationAdjacency adjacency;
+
+    /**
+     * Inters whose contextual grade needs to be recomputed.
+     * <p>
+     * This set is fed by {@link SigListener} on vertex and edge events, and by intrinsic grade
+     * modifications, see {@link #invalidateContext(Inter)}.
+     */
+    private final Set<Inter> dirtyInters = ConcurrentHashMap.newKeySet();
+
+    /** True when dirtyInters is being fed by a SigListener. */
+    private volatile boolean contextTracked;
+
+    /** True when all contextual grades must be recomputed. */
+    private volatile boolean allDirty = true;
+
     /**
      * No-arg constructor meant for JAXB.
      */
@@ -134,14 +160,60 @@ public class SIGraph
     /**
      * {@inheritDoc}
      * <p>
-     * Overridden so that we set a break-point on certain cases.
+     * Overridden to keep the relation adjacency up to date.
+     * The adjacency is updated <b>before</b> the graph listeners get notified, since they may
+     * look up relations.
      */
     @Override
     public boolean addEdge (Inter sourceVertex,
                             Inter targetVertex,
                             Relation rel)
     {
-        return super.addEdge(sourceVertex, targetVertex, rel);
+        boolean inserted = false;
+
+        synchronized (this) {
+            if ((adjacency != null) && !containsEdge(rel) && containsVertex(sourceVertex)
+                    && containsVertex(targetVertex)) {
+                adjacency.insert(rel, sourceVertex, targetVertex); // Pending insertion
+                inserted = true;
+            }
+        }
+
+        boolean added = false;
+
+        try {
+            added = super.addEdge(sourceVertex, targetVertex, rel);
+        } finally {
+            if (inserted && !added) {
+                synchronized (this) {
+                    if (adjacency != null) {
+                        adjacency.remove(rel); // Roll back pending insertion
+                    }
+                }
+            }
+        }
+
+        return added;
+    }
+
+    //------------------//
+    // addGraphListener //
+    //------------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden to know when contextual grades can be recomputed incrementally.
+     */
+    @Override
+    public void addGraphListener (GraphListener<Inter, Relation> listener)
+    {
+        super.addGraphListener(listener);
+
+        if (listener instanceof SigListener) {
+            // Modifications made before were not tracked
+            allDirty = true;
+            contextTracked = true;
+        }
     }
 
     //-----------//
@@ -169,6 +241,16 @@ public class SIGraph
         boolean added = super.addVertex(inter);
 
         if (added) {
+            synchronized (this) {
+                if (spatialIndex != null) {
+                    spatialIndex.insert(inter);
+                }
+
+                if (buckets != null) {
+                    buckets.insert(inter);
+                }
+            }
+
             inter.setSig(this);
 
             // Additional actions
@@ -214,6 +296,8 @@ public class SIGraph
      */
     public double computeContextualGrade (Inter inter)
     {
+        dirtyInters.remove(inter);
+
         final List<Support> supports = getSupports(inter);
         final double cg = supports.isEmpty() ? inter.getGrade()
                 : computeContextualGrade(inter, supports);
@@ -299,17 +383,7 @@ public class SIGraph
      */
     public List<Inter> containedInters (Rectangle rect)
     {
-        List<Inter> found = new ArrayList<>();
-
-        for (Inter inter : vertexSet()) {
-            final Rectangle box = inter.getBounds();
-
-            if ((box != null) && rect.contains(box)) {
-                found.add(inter);
-            }
-        }
-
-        return found;
+        return getSpatialIndex().containedEntities(rect);
     }
 
     //------------------//
@@ -326,35 +400,134 @@ public class SIGraph
     {
         List<Inter> found = new ArrayList<>();
 
-        for (Inter inter : vertexSet()) {
-            Rectangle bounds = inter.getBounds();
-
-            if ((bounds != null) && bounds.contains(point)) {
-                // More precise test if we know inter area
-                Area area = inter.getArea();
+        for (Inter inter : getSpatialIndex().containingEntities(point)) {
+            // More precise test if we know inter area
+            Area area = inter.getArea();
 
-                if ((area == null) || area.contains(point)) {
-                    found.add(inter);
-                }
+            if ((area == null) || area.contains(point)) {
+                found.add(inter);
             }
         }
 
         return found;
     }
 
+    //--------------------//
+    // contextEdgeChanged //
+    //--------------------//
+    /**
+     * Flag the inters whose contextual grade is impacted by the addition or removal of
+     * the provided relation.
+     * <p>
+     * A support impacts both its source and target.
+     * An exclusion impacts the partitions, and thus the contextual grade, of any inter supported
+     * by both its source and target.
+     * Other relations have no impact on contextual grades.
+     *
+     * @param rel    the added or removed relation
+     * @param source relation source
+     * @param target relation target
+     */
+    void contextEdgeChanged (Relation rel,
+                             Inter source,
+                             Inter target)
+    {
+        if (rel instanceof Support) {
+            dirtyInters.add(source);
+            dirtyInters.add(target);
+        } else if (rel instanceof Exclusion) {
+            if (containsVertex(source) && containsVertex(target)) {
+                final Set<Inter> common = supportPartnersOf(source);
+                common.retainAll(supportPartnersOf(target));
+                dirtyInters.addAll(common);
+            }
+        }
+    }
+
     //---------------//
     // contextualize //
     //---------------//
     /**
-     * (Re)compute the contextual grade of all inters based on their supporting partners.
+     * (Re)compute the contextual grade of inters based on their supporting partners.
+     * <p>
+     * Only the inters impacted by modifications since last call are processed, unless the sig
+     * modifications are not tracked, in which case all inters are processed.
      */
     public void contextualize ()
     {
-        for (Inter inter : vertexSet()) {
-            computeContextualGrade(inter);
+        if (allDirty || !contextTracked) {
+            allDirty = false;
+            dirtyInters.clear();
+
+            for (Inter inter : vertexSet()) {
+                computeContextualGrade(inter);
+            }
+
+            return;
+        }
+
+        if (dirtyInters.isEmpty()) {
+            return;
+        }
+
+        logger.debug("S#{} contextualize {}/{}", system.getId(), dirtyInters.size(), vertexSet()
+                .size());
+
+        for (Inter inter : new ArrayList<>(dirtyInters)) {
+            if (containsVertex(inter)) {
+                computeContextualGrade(inter);
+            } else {
+                dirtyInters.remove(inter);
+            }
         }
     }
 
+    //--------------------//
+    // contextVertexAdded //
+    //--------------------//
+    /**
+     * Flag a brand new inter for contextual grade computation.
+     *
+     * @param inter the added inter
+     */
+    void contextVertexAdded (Inter inter)
+    {
+        dirtyInters.add(inter);
+    }
+
+    //----------------------//
+    // contextVertexRemoved //
+    //----------------------//
+    /**
+     * Forget about a removed inter.
+     * <p>
+     * Its former partners have already been flagged when its relations were removed.
+     *
+     * @param inter the removed inter
+     */
+    void contextVertexRemoved (Inter inter)
+    {
+        dirtyInters.remove(inter);
+    }
+
+    //----------------//
+    // countRelations //
+    //----------------//
+    /**
+     * Count the relations of desired class the provided inter is involved in.
+     * <p>
+     * This is meant for callers needing just the count, without any set being allocated.
+     *
+     * @param inter  the provided interpretation
+     * @param classe the desired class of relation
+     * @return the number of involving relations
+     */
+    public int countRelations (Inter inter,
+                               Class classe)
+    {
+        return getAdjacency().count(inter, classe);
+    }
+
     //--------------//
     // deleteInters //
     //--------------//
@@ -426,6 +599,12 @@ public class SIGraph
         for (Inter inter : oldSig.vertexSet()) {
             super.removeVertex(inter); // This removes related relations
         }
+
+        synchronized (this) {
+            spatialIndex = null; // To be rebuilt
+            buckets = null; // To be rebuilt
+            adjacency = null; // To be rebuilt
+        }
     }
 
     //------------//
@@ -449,6 +628,26 @@ public class SIGraph
         return exclusions;
     }
 
+    //-----------------//
+    // forEachRelation //
+    //-----------------//
+    /**
+     * Apply the provided action on each relation of desired class the provided inter is
+     * involved in, in the same order as {@link #getRelations(Inter, Class)}.
+     * <p>
+     * No set is allocated, hence the action must not modify this sig.
+     *
+     * @param inter  the provided interpretation
+     * @param classe the desired class of relation
+     * @param action the action to apply on each relation
+     */
+    public void forEachRelation (Inter inter,
+                                 Class classe,
+                                 Consumer<? super Relation> action)
+    {
+        getAdjacency().forEach(inter, new Class<?>[]{classe}, action);
+    }
+
     /**
      * Across provided relation classes, build the closure of inter seeds.
      *
@@ -525,14 +724,14 @@ public class SIGraph
     public Exclusion getExclusion (Inter i1,
                                    Inter i2)
     {
-        Set<Relation> exclusions = getExclusions(i1);
-        exclusions.retainAll(getExclusions(i2));
+        // Incoming relations of i1 come first
+        Relation exc = getRelation(i2, i1, Exclusion.class);
 
-        if (exclusions.isEmpty()) {
-            return null;
-        } else {
-            return (Exclusion) exclusions.iterator().next();
+        if (exc == null) {
+            exc = getRelation(i1, i2, Exclusion.class);
         }
+
+        return (Exclusion) exc;
     }
 
     //---------------//
@@ -692,17 +891,7 @@ public class SIGraph
                                  Inter target,
                                  Class classe)
     {
-        final Set<Relation> edges = getAllEdges(source, target);
-
-        if (edges != null) {
-            for (Relation rel : edges) {
-                if (classe.isInstance(rel)) {
-                    return rel;
-                }
-            }
-        }
-
-        return null;
+        return getAdjacency().first(source, target, classe);
     }
 
     //--------------//
@@ -719,14 +908,7 @@ public class SIGraph
                                        Class... classes)
     {
         Set<Relation> relations = new LinkedHashSet<>();
-
-        for (Relation rel : edgesOf(inter)) {
-            for (Class classe : classes) {
-                if (classe.isInstance(rel)) {
-                    relations.add(rel);
-                }
-            }
-        }
+        getAdjacency().gather(inter, classes, relations);
 
         return relations;
     }
@@ -745,14 +927,69 @@ public class SIGraph
                                        Class classe)
     {
         Set<Relation> relations = new LinkedHashSet<>();
+        getAdjacency().gather(inter, new Class<?>[]{classe}, relations);
 
-        for (Relation rel : edgesOf(inter)) {
-            if (classe.isInstance(rel)) {
-                relations.add(rel);
+        return relations;
+    }
+
+    //--------------//
+    // getAdjacency //
+    //--------------//
+    /**
+     * Report the index of sig relations per inter, (re)building it if needed.
+     *
+     * @return the adjacency, in line with the sig edges
+     */
+    private synchronized RelationAdjacency getAdjacency ()
+    {
+        // Edges may have been bulk populated
+        if ((adjacency == null) || (adjacency.size() != edgeSet().size())) {
+            adjacency = new RelationAdjacency(this);
+        }
+
+        return adjacency;
+    }
+
+    //------------//
+    // getBuckets //
+    //------------//
+    /**
+     * Report the index of sig inters by class and shape, (re)building it if needed.
+     *
+     * @return the buckets, in line with the sig vertices
+     */
+    private synchronized InterBuckets getBuckets ()
+    {
+        // Vertices may have been bulk populated
+        if ((buckets == null) || (buckets.size() != vertexSet().size())) {
+            buckets = new InterBuckets(vertexSet());
+        }
+
+        return buckets;
+    }
+
+    //-----------------//
+    // getSpatialIndex //
+    //-----------------//
+    /**
+     * Report the spatial index on sig inters, (re)building it if needed.
+     * <p>
+     * Ensembles, whose bounds depend on their members, are checked by every lookup.
+     *
+     * @return the spatial index, in line with the sig vertices
+     */
+    private synchronized SpatialIndex<Inter> getSpatialIndex ()
+    {
+        // Vertices may have been bulk populated
+        if ((spatialIndex == null) || (spatialIndex.size() != vertexSet().size())) {
+            spatialIndex = new SpatialIndex<>(inter -> inter instanceof InterEnsemble, null);
+
+            for (Inter inter : vertexSet()) {
+                spatialIndex.insert(inter);
             }
         }
 
-        return relations;
+        return spatialIndex;
     }
 
     //-------------//
@@ -767,12 +1004,7 @@ public class SIGraph
     public List<Support> getSupports (Inter inter)
     {
         List<Support> supports = new ArrayList<>();
-
-        for (Relation rel : edgesOf(inter)) {
-            if (rel instanceof Support) {
-                supports.add((Support) rel);
-            }
-        }
+        forEachRelation(inter, Support.class, rel -> supports.add((Support) rel));
 
         return supports;
     }
@@ -802,15 +1034,7 @@ public class SIGraph
     public boolean hasRelation (Inter inter,
                                 Class... relationClasses)
     {
-        for (Relation rel : edgesOf(inter)) {
-            for (Class classe : relationClasses) {
-                if (classe.isInstance(rel)) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
+        return getAdjacency().has(inter, relationClasses);
     }
 
     //------------//
@@ -986,7 +1210,7 @@ public class SIGraph
      */
     public List<Inter> inters (final Class classe)
     {
-        return inters(new ClassPredicate(classe));
+        return getBuckets().ofClasses(classe);
     }
 
     //--------//
@@ -1000,7 +1224,7 @@ public class SIGraph
      */
     public List<Inter> inters (final Class[] classes)
     {
-        return inters(new ClassesPredicate(classes));
+        return getBuckets().ofClasses(classes);
     }
 
     //--------//
@@ -1014,7 +1238,7 @@ public class SIGraph
      */
     public List<Inter> inters (final Collection<Shape> shapes)
     {
-        return inters(new ShapesPredicate(shapes));
+        return getBuckets().ofShapes(shapes);
     }
 
     //--------//
@@ -1042,7 +1266,7 @@ public class SIGraph
      */
     public List<Inter> inters (final Shape shape)
     {
-        return inters(new ShapePredicate(shape));
+        return getBuckets().ofShapes(Collections.singleton(shape));
     }
 
     //--------//
@@ -1072,6 +1296,10 @@ public class SIGraph
     public List<Inter> inters (final Staff staff,
                                final Class classe)
     {
+        if (classe != null) {
+            return Inters.inters(inters(classe), staff);
+        }
+
         return inters(new StaffClassPredicate(staff, classe));
     }
 
@@ -1086,21 +1314,29 @@ public class SIGraph
      */
     public List<Inter> intersectedInters (Rectangle box)
     {
-        List<Inter> found = new ArrayList<>();
+        List<Inter> found = getSpatialIndex().intersectedEntities(box);
+        found.removeIf(inter -> inter.isRemoved());
 
-        for (Inter inter : vertexSet()) {
-            if (inter.isRemoved()) {
-                continue;
-            }
-
-            Rectangle interBounds = inter.getBounds();
+        return found;
+    }
 
-            if ((interBounds != null) && box.intersects(interBounds)) {
-                found.add(inter);
-            }
+    //-------------------//
+    // invalidateContext //
+    //-------------------//
+    /**
+     * Flag the provided inter, as well as the inters it supports, as needing a new
+     * contextual grade computation.
+     * <p>
+     * To be called when the intrinsic grade of inter has been modified.
+     *
+     * @param inter the modified inter
+     */
+    public void invalidateContext (Inter inter)
+    {
+        if (containsVertex(inter)) {
+            dirtyInters.add(inter);
+            dirtyInters.addAll(supportPartnersOf(inter));
         }
-
-        return found;
     }
 
     //----------------//
@@ -1133,15 +1369,8 @@ public class SIGraph
                               Inter two)
     {
         if (containsVertex(one) && containsVertex(two)) {
-            final Set<Relation> rels = new LinkedHashSet<>();
-            rels.addAll(getAllEdges(one, two));
-            rels.addAll(getAllEdges(two, one));
-
-            for (Relation rel : rels) {
-                if (rel instanceof Support) {
-                    return false;
-                }
-            }
+            return (getRelation(one, two, Support.class) == null)
+                           && (getRelation(two, one, Support.class) == null);
         }
 
         return true;
@@ -1160,6 +1389,12 @@ public class SIGraph
         for (Inter inter : inters) {
             super.addVertex(inter);
         }
+
+        synchronized (this) {
+            spatialIndex = null; // To be rebuilt
+            buckets = null; // To be rebuilt
+            adjacency = null; // To be rebuilt
+        }
     }
 
     //---------//
@@ -1321,6 +1556,65 @@ public class SIGraph
         return Relations.relations(edgeSet(), predicate);
     }
 
+    //------------//
+    // removeEdge //
+    //------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden to keep the relation adjacency up to date, via {@link #removeEdge(Relation)}.
+     */
+    @Override
+    public Relation removeEdge (Inter sourceVertex,
+                                Inter targetVertex)
+    {
+        final Relation rel = getEdge(sourceVertex, targetVertex);
+
+        if ((rel == null) || !removeEdge(rel)) {
+            return null;
+        }
+
+        return rel;
+    }
+
+    //------------//
+    // removeEdge //
+    //------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden to keep the relation adjacency up to date.
+     * The adjacency is updated <b>before</b> the graph listeners get notified, since they may
+     * look up relations.
+     * Bulk removals (removeAllEdges, removeVertex) end here as well.
+     */
+    @Override
+    public boolean removeEdge (Relation rel)
+    {
+        boolean pending = false;
+
+        synchronized (this) {
+            if ((adjacency != null) && containsEdge(rel)) {
+                adjacency.remove(rel); // Pending removal
+                pending = true;
+            }
+        }
+
+        boolean removed = false;
+
+        try {
+            removed = super.removeEdge(rel);
+        } finally {
+            if (pending && !removed) {
+                synchronized (this) {
+                    adjacency = null; // To be rebuilt, since the relation is still there
+                }
+            }
+        }
+
+        return removed;
+    }
+
     //--------------//
     // removeVertex //
     //--------------//
@@ -1335,11 +1629,29 @@ public class SIGraph
         // Remove from inter index. TODO: is this a good idea?
         system.getSheet().getInterIndex().remove(inter);
 
+        synchronized (this) {
+            if (spatialIndex != null) {
+                spatialIndex.remove(inter);
+            }
+
+            if (buckets != null) {
+                buckets.remove(inter);
+            }
+        }
+
         if (inter.isVip()) {
             logger.info("VIP removeVertex {}", inter);
         }
 
-        return super.removeVertex(inter);
+        final boolean removed = super.removeVertex(inter);
+
+        synchronized (this) {
+            if (adjacency != null) {
+                adjacency.removeVertex(inter);
+            }
+        }
+
+        return removed;
     }
 
     //--------------//
@@ -1377,6 +1689,28 @@ public class SIGraph
         return stems;
     }
 
+    //-------------------//
+    // supportPartnersOf //
+    //-------------------//
+    /**
+     * Report the inters linked to the provided inter by a support relation.
+     *
+     * @param inter the provided inter
+     * @return the set of supporting partners, perhaps empty
+     */
+    private Set<Inter> supportPartnersOf (Inter inter)
+    {
+        final Set<Inter> partners = new LinkedHashSet<>();
+
+        for (Relation rel : edgesOf(inter)) {
+            if (rel instanceof Support) {
+                partners.add(getOppositeInter(inter, rel));
+            }
+        }
+
+        return partners;
+    }
+
     //------------------//
     // supportsSeenFrom //
     //------------------//
@@ -1418,6 +1752,46 @@ public class SIGraph
         return sb.toString();
     }
 
+    //--------------//
+    // updateBounds //
+    //--------------//
+    /**
+     * Notify that the bounds of the provided inter may have changed, so that the spatial
+     * indices get updated.
+     *
+     * @param inter the modified inter
+     */
+    public void updateBounds (Inter inter)
+    {
+        synchronized (this) {
+            if (spatialIndex != null) {
+                spatialIndex.update(inter);
+            }
+        }
+
+        if (system != null) {
+            system.getSheet().getInterIndex().updateBounds(inter);
+        }
+    }
+
+    //-------------//
+    // updateShape //
+    //-------------//
+    /**
+     * Notify that the shape of the provided inter may have changed, so that the shape
+     * index gets updated.
+     *
+     * @param inter the modified inter
+     */
+    public void updateShape (Inter inter)
+    {
+        synchronized (this) {
+            if (buckets != null) {
+                buckets.updateShape(inter);
+            }
+        }
+    }
+
     //---------------//
     // upgradeInters //
     //---------------//
@@ -1441,6 +1815,10 @@ public class SIGraph
 
         if (upgraded) {
             system.getSheet().getStub().setUpgraded(true);
+
+            synchronized (this) {
+                buckets = null; // Some shapes may have changed
+            }
         }
     }
 
@@ -1508,48 +1886,6 @@ public class SIGraph
         }
     }
 
-    //----------------//
-    // ShapePredicate //
-    //----------------//
-    private static class ShapePredicate
-            implements Predicate<Inter>
-    {
-
-        private final Shape shape;
-
-        ShapePredicate (Shape shape)
-        {
-            this.shape = shape;
-        }
-
-        @Override
-        public boolean test (Inter inter)
-        {
-            return !inter.isRemoved() && (inter.getShape() == shape);
-        }
-    }
-
-    //-----------------//
-    // ShapesPredicate //
-    //-----------------//
-    private static class ShapesPredicate
-            implements Predicate<Inter>
-    {
-
-        private final Collection<Shape> shapes;
-
-        ShapesPredicate (Collection<Shape> shapes)
-        {
-            this.shapes = shapes;
-        }
-
-        @Override
-        public boolean test (Inter inter)
-        {
-            return !inter.isRemoved() && shapes.contains(inter.getShape());
-        }
-    }
-
     //---------------------//
     // StaffClassPredicate //
     //---------------------//
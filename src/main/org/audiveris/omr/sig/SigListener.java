@@ -33,6 +33,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Class <code>SigListener</code> listens for SIG modifications.
+ * <p>
+ * Beside notifying the relations, it keeps the SIG informed of the inters whose contextual grade
+ * gets impacted.
  *
  * @author Hervé Bitteur
  */
@@ -76,6 +79,8 @@ public class SigListener
         if (source.getSig() == sig) {
             e.getEdge().added(e);
         }
+
+        sig.contextEdgeChanged(e.getEdge(), source, e.getEdgeTarget());
     }
 
     @Override
@@ -92,6 +97,8 @@ public class SigListener
         if (source.getSig() == sig) {
             e.getEdge().removed(e);
         }
+
+        sig.contextEdgeChanged(e.getEdge(), source, e.getEdgeTarget());
     }
 
     @Override
@@ -110,6 +117,8 @@ public class SigListener
         //                    e.getSource(),
         //                    e.getType());
         //        }
+        //
+        sig.contextVertexAdded(e.getVertex());
     }
 
     @Override
@@ -128,5 +137,7 @@ public class SigListener
         //                    e.getSource(),
         //                    e.getType());
         //        }
+        //
+        sig.contextVertexRemoved(e.getVertex());
     }
 }
@@ -166,6 +166,7 @@ public class AbstractHorizontalInter
         // Define precise bounds based on this path
         // NOTA: these bounds may go slightly beyond the sheet image limits...
         bounds = getArea().getBounds();
+        boundsChanged();
     }
 
     //----------//
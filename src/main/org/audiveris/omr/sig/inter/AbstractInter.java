@@ -318,6 +318,19 @@ public abstract class AbstractInter
         }
     }
 
+    //---------------//
+    // boundsChanged //
+    //---------------//
+    /**
+     * Notify the hosting sig, if any, that inter bounds may have changed.
+     */
+    protected void boundsChanged ()
+    {
+        if (sig != null) {
+            sig.updateBounds(this);
+        }
+    }
+
     //---------------//
     // checkAbnormal //
     //---------------//
@@ -372,6 +385,7 @@ public abstract class AbstractInter
     public void decrease (double ratio)
     {
         grade *= (1 - ratio);
+        gradeChanged();
     }
 
     //------------//
@@ -936,6 +950,19 @@ public abstract class AbstractInter
         return null;
     }
 
+    //--------------//
+    // gradeChanged //
+    //--------------//
+    /**
+     * Notify the hosting sig, if any, that intrinsic grade has been modified.
+     */
+    private void gradeChanged ()
+    {
+        if (sig != null) {
+            sig.invalidateContext(this);
+        }
+    }
+
     //----------//
     // hasStaff //
     //----------//
@@ -961,6 +988,7 @@ public abstract class AbstractInter
     public void increase (double ratio)
     {
         grade = increaseGrade(grade, ratio);
+        gradeChanged();
     }
 
     //-----------//
@@ -1341,6 +1369,11 @@ public abstract class AbstractInter
     {
         if (this.shape != shape) {
             this.shape = shape;
+
+            if (sig != null) {
+                sig.updateShape(this);
+            }
+
             return true;
         }
 
@@ -1456,6 +1489,7 @@ public abstract class AbstractInter
     public void setBounds (Rectangle bounds)
     {
         this.bounds = (bounds != null) ? new Rectangle(bounds) : null;
+        boundsChanged();
     }
 
     //--------------------//
@@ -1474,6 +1508,7 @@ public abstract class AbstractInter
     public void setGlyph (Glyph glyph)
     {
         this.glyph = glyph;
+        boundsChanged(); // Bounds may derive from glyph
     }
 
     //----------//
@@ -1483,6 +1518,7 @@ public abstract class AbstractInter
     public void setGrade (Double grade)
     {
         this.grade = grade;
+        gradeChanged();
     }
 
     //-------//
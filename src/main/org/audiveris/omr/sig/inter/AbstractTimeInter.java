@@ -299,6 +299,10 @@ public abstract class AbstractTimeInter
 
         this.shape = shape;
         this.timeRational = timeRational;
+
+        if (sig != null) {
+            sig.updateShape(this);
+        }
     }
 
     //--------//
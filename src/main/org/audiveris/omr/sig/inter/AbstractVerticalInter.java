@@ -190,6 +190,7 @@ public abstract class AbstractVerticalInter
 
         // Define precise bounds based on this path
         bounds = getArea().getBounds();
+        boundsChanged();
     }
 
     //-----------//
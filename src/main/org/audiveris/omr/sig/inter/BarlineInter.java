@@ -384,6 +384,10 @@ public class BarlineInter
     public void setShape (Shape shape)
     {
         this.shape = shape;
+
+        if (sig != null) {
+            sig.updateShape(this);
+        }
     }
 
     //-------------//
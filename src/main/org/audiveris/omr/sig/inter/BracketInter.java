@@ -162,6 +162,7 @@ public class BracketInter
         }
 
         bounds = area.getBounds();
+        boundsChanged();
     }
 
     //------------//
@@ -248,6 +249,7 @@ public class BracketInter
         // because AbstractVerticalInter.setBounds() assigns bounds width to item width variable.
         // And bracket width variable is only the trunk width, much less than the serifs width.
         this.bounds = (bounds != null) ? new Rectangle(bounds) : null;
+        boundsChanged();
     }
 
     //~ Enumerations -------------------------------------------------------------------------------
@@ -287,6 +287,7 @@ public class EndingInter
     @Override
     public Rectangle getBounds ()
     {
+        // Always computed from line and legs, whose modifications are notified via setBounds(null)
         Rectangle box = line.getBounds();
 
         if (leftLeg != null) {
@@ -1103,6 +1103,7 @@ public class HeadInter
 
         // Use glyph bounds as inter bounds
         bounds = glyph.getBounds();
+        boundsChanged();
 
         return glyph;
     }
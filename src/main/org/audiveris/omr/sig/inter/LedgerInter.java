@@ -233,6 +233,7 @@ public class LedgerInter
 
         // Define precise bounds based on this path
         bounds = getArea().getBounds();
+        boundsChanged();
     }
 
     //----------//
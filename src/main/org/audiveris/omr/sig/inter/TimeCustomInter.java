@@ -186,6 +186,7 @@ public class TimeCustomInter
     {
         timeRational = null;
         bounds = getSymbolBounds(staff.getSpecificInterline());
+        boundsChanged();
     }
 
     //-----------//
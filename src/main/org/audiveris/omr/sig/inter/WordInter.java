@@ -248,6 +248,7 @@ public class WordInter
             return new Rectangle(bounds);
         }
 
+        // Bounds were reset via setBounds(null), which has notified the sig indices
         TextFont textFont = new TextFont(fontInfo);
         TextLayout layout = textFont.layout(value);
         Rectangle2D rect = layout.getBounds();
@@ -94,14 +94,11 @@ public class BinaryStep
         logger.debug("{}", "Binarization");
 
         PixelFilter filter = desc.getFilter(initial);
-        watch.start("Binarize source");
-
-        ByteProcessor binary = filter.filteredImage();
-
-        watch.start("Create binary RunTable");
+        watch.start("Binarize source into binary RunTable");
 
+        // Binarization and run extraction in one pass, stripe by stripe
         RunTableFactory vertFactory = new RunTableFactory(Orientation.VERTICAL);
-        RunTable wholeVertTable = vertFactory.createTable(binary);
+        RunTable wholeVertTable = vertFactory.createTable(filter);
         picture.setTable(Picture.TableKey.BINARY, wholeVertTable, true);
 
         // Dispose of GRAY source
@@ -45,7 +45,9 @@ import org.audiveris.omr.sig.SIGraph;
 import org.audiveris.omr.sig.inter.HeadInter;
 import org.audiveris.omr.sig.inter.Inter;
 import org.audiveris.omr.sig.inter.LedgerInter;
+import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.ui.BoardsPane;
+import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.StopWatch;
 
 import org.slf4j.Logger;
@@ -58,8 +60,12 @@ import java.awt.Rectangle;
 import java.awt.Stroke;
 import java.awt.geom.Area;
 import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import ij.process.ByteProcessor;
 
@@ -70,6 +76,10 @@ import ij.process.ByteProcessor;
  * Tesseract is used in MULTI_BLOCK layout mode, meaning that the sheet may contain several blocks
  * of text.
  * <p>
+ * The sheet image can be split into horizontal regions, cut along blank rows found within staves
+ * core areas, so that no text line can be split. These regions are OCR'ed concurrently and their
+ * lines merged back in sheet coordinates, in a deterministic order.
+ * <p>
  * The raw OCR output will later be processed at system level by dedicated TextBuilder instances.
  *
  * @author Hervé Bitteur
@@ -90,6 +100,9 @@ public class SheetScanner
     /** Buffer used by OCR. */
     private ByteProcessor buffer;
 
+    /** Staves core areas, blanked in buffer. */
+    private List<Area> cores;
+
     //~ Constructors -------------------------------------------------------------------------------
 
     /**
@@ -128,6 +141,7 @@ public class SheetScanner
 
         TextsCleaner cleaner = new TextsCleaner(buffer, img.createGraphics(), sheet);
         cleaner.eraseInters();
+        cores = cleaner.cores;
 
         // Display for visual check?
         if (constants.displayTexts.isSet() && (OMR.gui != null)) {
@@ -152,6 +166,185 @@ public class SheetScanner
         return img;
     }
 
+    //------------//
+    // getRegions //
+    //------------//
+    /**
+     * Split the sheet image into horizontal regions that can be OCR'ed independently.
+     * <p>
+     * A cut is made at the blank row closest to the center of each staff core area.
+     * Regions with no black pixel are not kept.
+     *
+     * @param image the clean sheet image
+     * @return the sequence of regions, from top to bottom
+     */
+    private List<Rectangle> getRegions (BufferedImage image)
+    {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final Raster raster = image.getRaster();
+
+        // Count black pixels per row
+        final int[] blacks = new int[height];
+
+        for (int y = 0; y < height; y++) {
+            int count = 0;
+
+            for (int x = 0; x < width; x++) {
+                if (raster.getSample(x, y, 0) <= 127) {
+                    count++;
+                }
+            }
+
+            blacks[y] = count;
+        }
+
+        // Look for a blank row within each staff core
+        final List<Integer> cuts = new ArrayList<>();
+
+        for (Area core : cores) {
+            final Rectangle box = core.getBounds();
+            final int yMin = Math.max(0, box.y);
+            final int yMax = Math.min(height - 1, (box.y + box.height) - 1);
+            final int yMid = (yMin + yMax) / 2;
+
+            for (int dy = 0; (yMid - dy >= yMin) || (yMid + dy <= yMax); dy++) {
+                if ((yMid - dy >= yMin) && (blacks[yMid - dy] == 0)) {
+                    cuts.add(yMid - dy);
+
+                    break;
+                }
+
+                if ((yMid + dy <= yMax) && (blacks[yMid + dy] == 0)) {
+                    cuts.add(yMid + dy);
+
+                    break;
+                }
+            }
+        }
+
+        cuts.add(height);
+        Collections.sort(cuts);
+
+        // Build regions between consecutive cuts
+        final List<Rectangle> regions = new ArrayList<>();
+        int yStart = 0;
+
+        for (int cut : cuts) {
+            if (cut > yStart) {
+                for (int y = yStart; y < cut; y++) {
+                    if (blacks[y] > 0) {
+                        regions.add(new Rectangle(0, yStart, width, cut - yStart));
+
+                        break;
+                    }
+                }
+
+                yStart = cut;
+            }
+        }
+
+        return regions;
+    }
+
+    //------------//
+    // scanRegion //
+    //------------//
+    /**
+     * Run OCR on one region of the sheet image.
+     *
+     * @param image     the clean sheet image
+     * @param region    the region to process
+     * @param languages the OCR language specification
+     * @param index     region index, used for label
+     * @return the OCR'ed lines, in sheet coordinates
+     */
+    private List<TextLine> scanRegion (BufferedImage image,
+                                       Rectangle region,
+                                       String languages,
+                                       int index)
+    {
+        // Copy region into a separate image
+        final BufferedImage img = new BufferedImage(
+                region.width,
+                region.height,
+                BufferedImage.TYPE_BYTE_GRAY);
+        final Graphics2D g = img.createGraphics();
+        g.drawImage(image, -region.x, -region.y, null);
+        g.dispose();
+
+        final List<TextLine> lines = OcrUtil.scan(
+                img,
+                OCR.LayoutMode.MULTI_BLOCK,
+                languages,
+                sheet,
+                sheet.getId() + "-region" + index);
+
+        for (TextLine line : lines) {
+            line.translate(region.x, region.y);
+        }
+
+        return lines;
+    }
+
+    //-------------//
+    // scanRegions //
+    //-------------//
+    /**
+     * Run OCR on the sheet image, region per region.
+     *
+     * @param image     the clean sheet image
+     * @param languages the OCR language specification
+     * @return the OCR'ed lines, in sheet coordinates and sorted by ordinate
+     */
+    private List<TextLine> scanRegions (BufferedImage image,
+                                        String languages)
+    {
+        final List<Rectangle> regions = getRegions(image);
+        logger.debug("scanRegions {} regions on {}", regions.size(), sheet);
+
+        final List<List<TextLine>> results = new ArrayList<>(regions.size());
+
+        if (OmrExecutors.defaultParallelism.getValue() && (regions.size() > 1)) {
+            final List<Callable<List<TextLine>>> tasks = new ArrayList<>(regions.size());
+
+            for (int i = 0; i < regions.size(); i++) {
+                final Rectangle region = regions.get(i);
+                final int index = i;
+                tasks.add( () -> scanRegion(image, region, languages, index));
+            }
+
+            try {
+                // Launch the tasks and collect their results in region order
+                for (Future<List<TextLine>> future : OmrExecutors.getHighExecutor().invokeAll(
+                        tasks)) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("OCR got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (Exception ex) {
+                logger.warn("Exception raised in OCR", ex);
+                throw new RuntimeException(ex);
+            }
+        } else {
+            for (int i = 0; i < regions.size(); i++) {
+                results.add(scanRegion(image, regions.get(i), languages, i));
+            }
+        }
+
+        // Merge, keeping region order for lines with the same ordinate
+        final List<TextLine> lines = new ArrayList<>();
+
+        for (List<TextLine> result : results) {
+            lines.addAll(result);
+        }
+
+        Collections.sort(lines, TextLine.byOrdinate(sheet.getSkew()));
+
+        return lines;
+    }
+
     //-----------//
     // scanSheet //
     //-----------//
@@ -174,6 +367,10 @@ public class SheetScanner
             logger.debug("scanSheet lan:{} on {}", languages, sheet);
             watch.start("OCR recognize");
 
+            if (constants.scanByRegions.isSet()) {
+                return scanRegions(image, languages);
+            }
+
             return OcrUtil.scan(image, OCR.LayoutMode.MULTI_BLOCK, languages, sheet, sheet.getId());
         } finally {
             if (constants.printWatch.isSet()) {
@@ -203,6 +400,10 @@ public class SheetScanner
                 false,
                 "Should we save texts buffer on disk?");
 
+        private final Constant.Boolean scanByRegions = new Constant.Boolean(
+                true,
+                "Should we OCR the sheet by independent regions, processed in parallel?");
+
         private final Scale.Fraction staffHorizontalMargin = new Scale.Fraction(
                 0.25,
                 "Horizontal margin around staff core area");
@@ -225,6 +426,9 @@ public class SheetScanner
         /** Scale-dependent parameters. */
         private final Parameters params;
 
+        /** Staves core areas, filled by eraseInters. */
+        final List<Area> cores = new ArrayList<>();
+
         /**
          * Creates a new <code>TextsCleaner</code> object.
          *
@@ -277,8 +481,6 @@ public class SheetScanner
          */
         public void eraseInters ()
         {
-            List<Area> cores = new ArrayList<>();
-
             for (SystemInfo system : sheet.getSystems()) {
                 final SIGraph sig = system.getSig();
                 final List<Inter> erased = new ArrayList<>();
@@ -0,0 +1,389 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   T e s s E n g i n e P o o l                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.text.tesseract;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.bytedeco.tesseract.TessBaseAPI;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Class <code>TessEnginePool</code> keeps a bounded pool of initialized Tesseract engines,
+ * to be reused by successive OCR orders.
+ * <p>
+ * Initializing a {@link TessBaseAPI} instance means loading the language data, which is much more
+ * expensive than recognizing a typical text line.
+ * Engines are thus kept per language specification and engine mode, and handed out one at a time:
+ * an engine is used by a single thread between {@link #acquire} and {@link #release}.
+ * <p>
+ * The total number of engines, busy or idle, is bounded.
+ * When the bound is reached, an idle engine of another language is ended to make room, otherwise
+ * the caller waits for an engine to be released.
+ * Engines left idle for too long are ended.
+ *
+ * @author Hervé Bitteur
+ */
+public class TessEnginePool
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(TessEnginePool.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Folder of Tesseract language data. */
+    private final Path ocrFolder;
+
+    /** Maximum number of engines, busy or idle. */
+    private final int maxEngines;
+
+    /** Idle engines per key, most recently used first. */
+    private final Map<String, Deque<Engine>> idles = new HashMap<>();
+
+    /** Current number of engines, busy or idle. */
+    private int engineCount;
+
+    /** Timer for eviction of idle engines, allocated on first release. */
+    private Timer evictionTimer;
+
+    /** True once pool is closed, engines are then ended when released. */
+    private boolean closed;
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    /**
+     * Creates a new <code>TessEnginePool</code> object.
+     *
+     * @param ocrFolder folder of Tesseract language data
+     */
+    public TessEnginePool (Path ocrFolder)
+    {
+        this.ocrFolder = ocrFolder;
+
+        final int max = constants.maxEngines.getValue();
+        maxEngines = (max > 0) ? max : OmrExecutors.getNumberOfCpus();
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //---------//
+    // acquire //
+    //---------//
+    /**
+     * Get an initialized engine for the provided language specification and engine mode.
+     * <p>
+     * The engine must be handed back via {@link #release} once used.
+     *
+     * @param lang language specification
+     * @param oem  OCR engine mode
+     * @return the engine, or null if engine could not be initialized
+     * @throws UnsatisfiedLinkError when bridge to C++ could not be loaded
+     */
+    public TessBaseAPI acquire (String lang,
+                                int oem)
+    {
+        final String key = keyOf(lang, oem);
+
+        synchronized (this) {
+            while (true) {
+                final Deque<Engine> deque = idles.get(key);
+
+                if ((deque != null) && !deque.isEmpty()) {
+                    return deque.pollFirst().api;
+                }
+
+                if (engineCount < maxEngines) {
+                    engineCount++;
+
+                    break;
+                }
+
+                // Make room by ending the oldest idle engine of another key, if any
+                if (!endOldestIdle()) {
+                    try {
+                        wait();
+                    } catch (InterruptedException ex) {
+                        throw new ProcessingCancellationException(ex);
+                    }
+                }
+            }
+        }
+
+        // Engine initialization is performed outside of pool lock
+        TessBaseAPI api = null;
+
+        try {
+            api = create(lang, oem);
+
+            return api;
+        } finally {
+            if (api == null) {
+                synchronized (this) {
+                    engineCount--;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    //-------//
+    // close //
+    //-------//
+    /**
+     * End all idle engines, and stop eviction.
+     * Busy engines will be ended when released.
+     */
+    public synchronized void close ()
+    {
+        closed = true;
+
+        for (Deque<Engine> deque : idles.values()) {
+            for (Engine engine : deque) {
+                engine.api.End();
+                engineCount--;
+            }
+        }
+
+        idles.clear();
+
+        if (evictionTimer != null) {
+            evictionTimer.cancel();
+            evictionTimer = null;
+        }
+
+        notifyAll();
+    }
+
+    //--------//
+    // create //
+    //--------//
+    /**
+     * Allocate and initialize a new engine.
+     *
+     * @param lang language specification
+     * @param oem  OCR engine mode
+     * @return the engine, or null if initialization failed
+     */
+    private TessBaseAPI create (String lang,
+                                int oem)
+    {
+        final TessBaseAPI api = new TessBaseAPI();
+
+        if (logger.isDebugEnabled()) {
+            logger.info("ocrFolder: {}", ocrFolder);
+
+            final File langsDir = ocrFolder.toFile();
+
+            for (File file : langsDir.listFiles()) {
+                if (file.toString().endsWith(".traineddata")) {
+                    logger.info("Lang file: {}", file);
+                }
+            }
+        }
+
+        final int initResult = api.Init(ocrFolder.toString(), lang, oem);
+
+        if (initResult != 0) {
+            logger.warn("Could not initialize Tesseract lang: {} result: {}", lang, initResult);
+            api.End();
+
+            return null;
+        }
+
+        logger.debug("Created Tesseract engine for {}", lang);
+
+        return api;
+    }
+
+    //---------------//
+    // endOldestIdle //
+    //---------------//
+    /**
+     * End the idle engine which has been idle for the longest time.
+     *
+     * @return true if an engine was ended, false if there was no idle engine
+     */
+    private boolean endOldestIdle ()
+    {
+        Deque<Engine> oldestDeque = null;
+
+        for (Deque<Engine> deque : idles.values()) {
+            if (!deque.isEmpty() && ((oldestDeque == null)
+                    || (deque.peekLast().idleSince < oldestDeque.peekLast().idleSince))) {
+                oldestDeque = deque;
+            }
+        }
+
+        if (oldestDeque == null) {
+            return false;
+        }
+
+        oldestDeque.pollLast().api.End();
+        engineCount--;
+
+        return true;
+    }
+
+    //-----------//
+    // evictIdle //
+    //-----------//
+    /**
+     * End all engines idle for too long.
+     */
+    private synchronized void evictIdle ()
+    {
+        final long limit = System.currentTimeMillis() - (1000L
+                * constants.maxIdleSeconds.getValue());
+
+        for (Deque<Engine> deque : idles.values()) {
+            for (Iterator<Engine> it = deque.descendingIterator(); it.hasNext();) {
+                final Engine engine = it.next();
+
+                if (engine.idleSince > limit) {
+                    break;
+                }
+
+                it.remove();
+                engine.api.End();
+                engineCount--;
+                logger.debug("Evicted idle Tesseract engine for {}", engine.key);
+            }
+        }
+
+        idles.values().removeIf(Deque::isEmpty);
+    }
+
+    //---------//
+    // release //
+    //---------//
+    /**
+     * Hand back an engine previously acquired.
+     *
+     * @param lang     language specification used at acquisition
+     * @param oem      OCR engine mode used at acquisition
+     * @param api      the engine to hand back
+     * @param reusable false if engine is not to be reused (e.g. after an exception)
+     *                 The engine is never reused once the pool is closed.
+     */
+    public synchronized void release (String lang,
+                                      int oem,
+                                      TessBaseAPI api,
+                                      boolean reusable)
+    {
+        if (reusable && !closed) {
+            // Discard image and recognition results of last order
+            api.Clear();
+
+            final String key = keyOf(lang, oem);
+            idles.computeIfAbsent(key, k -> new ArrayDeque<>()).addFirst(new Engine(key, api));
+
+            if (evictionTimer == null) {
+                final long period = 500L * constants.maxIdleSeconds.getValue();
+                evictionTimer = new Timer("TessEngineEviction", true);
+                evictionTimer.schedule(new TimerTask()
+                {
+                    @Override
+                    public void run ()
+                    {
+                        evictIdle();
+                    }
+                }, period, period);
+            }
+        } else {
+            api.End();
+            engineCount--;
+        }
+
+        notifyAll();
+    }
+
+    //~ Static Methods -----------------------------------------------------------------------------
+
+    //-------//
+    // keyOf //
+    //-------//
+    private static String keyOf (String lang,
+                                 int oem)
+    {
+        return lang + "/" + oem;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Integer maxEngines = new Constant.Integer(
+                "engines",
+                0,
+                "Maximum number of Tesseract engines (0 for the number of processors)");
+
+        private final Constant.Integer maxIdleSeconds = new Constant.Integer(
+                "seconds",
+                60,
+                "Idle time before a Tesseract engine is ended");
+    }
+
+    //--------//
+    // Engine //
+    //--------//
+    /**
+     * An idle engine.
+     */
+    private static class Engine
+    {
+
+        final String key;
+
+        final TessBaseAPI api;
+
+        final long idleSince = System.currentTimeMillis();
+
+        Engine (String key,
+                TessBaseAPI api)
+        {
+            this.key = key;
+            this.api = api;
+        }
+    }
+}
@@ -90,6 +90,9 @@ public class TesseractOCR
     /** To assign a serial number to each image processing order. */
     private final AtomicInteger serial = new AtomicInteger(0);
 
+    /** Pool of initialized Tesseract engines, allocated on first use. */
+    private TessEnginePool enginePool;
+
     //~ Constructors -------------------------------------------------------------------------------
 
     /**
@@ -151,6 +154,23 @@ public class TesseractOCR
         return null;
     }
 
+    //---------------//
+    // getEnginePool //
+    //---------------//
+    /**
+     * Report the pool of Tesseract engines.
+     *
+     * @return the engine pool
+     */
+    synchronized TessEnginePool getEnginePool ()
+    {
+        if (enginePool == null) {
+            enginePool = new TessEnginePool(getOcrFolder());
+        }
+
+        return enginePool;
+    }
+
     //--------------//
     // getLanguages //
     //--------------//
@@ -347,6 +367,19 @@ public class TesseractOCR
         return null;
     }
 
+    //----------//
+    // shutdown //
+    //----------//
+    /**
+     * Release the Tesseract engines, typically at application end.
+     */
+    public synchronized void shutdown ()
+    {
+        if (enginePool != null) {
+            enginePool.close();
+        }
+    }
+
     //~ Static Methods -----------------------------------------------------------------------------
 
     //-------------//
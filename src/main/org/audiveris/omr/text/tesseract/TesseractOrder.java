@@ -35,8 +35,10 @@ import org.bytedeco.javacpp.BoolPointer;
 import org.bytedeco.javacpp.BytePointer;
 import org.bytedeco.javacpp.IntPointer;
 import org.bytedeco.leptonica.PIX;
+import static org.bytedeco.leptonica.global.leptonica.pixCreate;
 import static org.bytedeco.leptonica.global.leptonica.pixDestroy;
-import static org.bytedeco.leptonica.global.leptonica.pixReadMemTiff;
+import static org.bytedeco.leptonica.global.leptonica.pixGetData;
+import static org.bytedeco.leptonica.global.leptonica.pixGetWpl;
 import org.bytedeco.tesseract.ResultIterator;
 import org.bytedeco.tesseract.TessBaseAPI;
 import static org.bytedeco.tesseract.global.tesseract.OEM_TESSERACT_ONLY;
@@ -47,16 +49,14 @@ import static org.bytedeco.tesseract.global.tesseract.RIL_WORD;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
+import java.awt.image.Raster;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -64,9 +64,7 @@ import java.util.Collections;
 import java.util.List;
 
 import javax.imageio.ImageIO;
-import javax.imageio.ImageWriter;
 import javax.imageio.spi.IIORegistry;
-import javax.imageio.stream.ImageOutputStream;
 
 /**
  * Class <code>TesseractOrder</code> carries a processing order submitted to Tesseract OCR
@@ -122,9 +120,12 @@ public class TesseractOrder
     /** Desired handling of layout. */
     private final int segMode;
 
-    /** The dedicated API. */
+    /** The engine lent by the pool. */
     private TessBaseAPI api;
 
+    /** Has this order been finished?. */
+    private boolean finished;
+
     /** The image being processed. */
     private final PIX image;
 
@@ -141,7 +142,7 @@ public class TesseractOrder
      * @param segMode       The desired page segmentation mode
      * @param bufferedImage The image to process
      * @throws UnsatisfiedLinkError When bridge to C++ could not be loaded
-     * @throws IOException          When temporary Tiff buffer failed
+     * @throws IOException          When disk copy of the image failed
      * @throws RuntimeException     When PIX image failed
      */
     public TesseractOrder (Sheet sheet,
@@ -160,10 +161,13 @@ public class TesseractOrder
         this.lang = lang;
         this.segMode = segMode;
 
+        // Should we keep a local copy of the image on disk?
+        if (saveImage) {
+            saveOnDisk(bufferedImage);
+        }
+
         // Build a PIX from the image provided
-        final ByteBuffer buf = toTiffBuffer(bufferedImage);
-        buf.position(0);
-        image = pixReadMemTiff(buf, buf.capacity(), 0);
+        image = toPix(bufferedImage);
 
         if (image == null) {
             logger.warn("Invalid image {}", label);
@@ -177,19 +181,24 @@ public class TesseractOrder
     // finish //
     //--------//
     /**
-     * Convenient way to cleanup Tesseract resources while ending the current processing
+     * Convenient way to cleanup Tesseract resources while ending the current processing.
+     * <p>
+     * The engine is handed back to the pool for reuse.
      *
      * @param lines the lines found, if any
      * @return the lines found, if nay
      */
     private List<TextLine> finish (List<TextLine> lines)
     {
+        finished = true;
+
         if (image != null) {
             pixDestroy(image);
         }
 
         if (api != null) {
-            api.End();
+            TesseractOCR.getInstance().getEnginePool().release(lang, OEM_TESSERACT_ONLY, api, true);
+            api = null;
         }
 
         return lines;
@@ -389,7 +398,7 @@ public class TesseractOrder
     // process //
     //---------//
     /**
-     * Actually allocate a Tesseract API and recognize the image.
+     * Actually get a Tesseract engine from the pool and recognize the image.
      *
      * @return the sequence of lines found
      */
@@ -399,26 +408,13 @@ public class TesseractOrder
             return Collections.emptyList();
         }
 
-        try {
-            api = new TessBaseAPI();
-
-            // Init API with proper language
-            final Path ocrFolder = TesseractOCR.getInstance().getOcrFolder();
-
-            if (logger.isDebugEnabled()) {
-                logger.info("ocrFolder: {}", ocrFolder);
-                final File langsDir = ocrFolder.toFile();
-                for (File file : langsDir.listFiles()) {
-                    if (file.toString().endsWith(".traineddata")) {
-                        logger.info("Lang file: {}", file);
-                    }
-                }
-            }
+        final TessEnginePool pool = TesseractOCR.getInstance().getEnginePool();
 
-            final int initResult = api.Init(ocrFolder.toString(), lang, OEM_TESSERACT_ONLY);
-            if (initResult != 0) {
-                logger.warn("Could not initialize Tesseract lang: {} result: {}", lang, initResult);
+        try {
+            // Get an engine already initialized with proper language
+            api = pool.acquire(lang, OEM_TESSERACT_ONLY);
 
+            if (api == null) {
                 return finish(null);
             }
 
@@ -467,57 +463,104 @@ public class TesseractOrder
             }
 
             throw new RuntimeException(ex);
+        } finally {
+            if (!finished) {
+                // Processing was interrupted by some exception, don't reuse this engine
+                if (api != null) {
+                    pool.release(lang, OEM_TESSERACT_ONLY, api, false);
+                    api = null;
+                }
+
+                pixDestroy(image);
+            }
         }
     }
 
-    //--------------//
-    // toTiffBuffer //
-    //--------------//
+    //------------//
+    // saveOnDisk //
+    //------------//
     /**
-     * Convert the given image into a TIFF-formatted ByteBuffer for passing it directly
-     * to Tesseract.
-     * <p>
-     * A copy of the tiff buffer can be saved on disk, if so desired.
+     * Save a TIFF copy of the image sent to Tesseract.
      *
      * @param image the input image
-     * @return a buffer in TIFF format
      */
-    private ByteBuffer toTiffBuffer (BufferedImage image)
+    private void saveOnDisk (BufferedImage image)
         throws IOException
     {
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final Path dirPath = WellKnowns.TEMP_FOLDER.resolve(label);
+
+        // Make sure the target directory exists
+        if (!Files.exists(dirPath)) {
+            Files.createDirectories(dirPath);
+        }
 
-        try (ImageOutputStream ios = ImageIO.createImageOutputStream(baos)) {
-            final ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
-            writer.setOutput(ios);
-            writer.write(image);
+        final String name = String.format("text-%03d.tif", serial);
+        final Path path = dirPath.resolve(name);
+
+        try {
+            ImageIO.write(image, "tiff", path.toFile());
         } catch (IOException ex) {
-            logger.warn("Could not write image", ex);
+            logger.warn("Could not write to {}", path, ex);
         }
+    }
 
-        final ByteBuffer buf = ByteBuffer.allocate(baos.size());
-        final byte[] bytes = baos.toByteArray();
-        buf.put(bytes);
+    //-------//
+    // toPix //
+    //-------//
+    /**
+     * Copy the gray pixels of the given image straight into a new 8-bit Leptonica PIX.
+     * <p>
+     * Images provided by OCR scans are TYPE_BYTE_GRAY, whose raster rows are directly packed
+     * into PIX words, without any intermediate image format.
+     * Any other image type is first drawn onto a gray image.
+     *
+     * @param image the input image
+     * @return the PIX, or null if allocation failed
+     */
+    private static PIX toPix (BufferedImage image)
+    {
+        final BufferedImage gray;
 
-        // Should we keep a local copy of this buffer on disk?
-        if (saveImage) {
-            final Path dirPath = WellKnowns.TEMP_FOLDER.resolve(label);
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            gray = image;
+        } else {
+            gray = new BufferedImage(
+                    image.getWidth(),
+                    image.getHeight(),
+                    BufferedImage.TYPE_BYTE_GRAY);
+
+            final Graphics2D g = gray.createGraphics();
+            g.drawImage(image, 0, 0, null);
+            g.dispose();
+        }
 
-            // Make sure the target directory exists
-            if (!Files.exists(dirPath)) {
-                Files.createDirectories(dirPath);
-            }
+        final int width = gray.getWidth();
+        final int height = gray.getHeight();
+        final PIX pix = pixCreate(width, height, 8);
+
+        if (pix == null) {
+            return null;
+        }
+
+        // Leptonica packs 4 gray pixels per 32-bit word, leftmost pixel in most significant byte
+        final int wpl = pixGetWpl(pix);
+        final int[] words = new int[wpl * height];
+        final Raster raster = gray.getRaster();
+        final byte[] row = new byte[width];
+
+        for (int y = 0; y < height; y++) {
+            raster.getDataElements(0, y, width, 1, row);
 
-            final String name = String.format("text-%03d.tif", serial);
-            final Path path = dirPath.resolve(name);
-            try (FileOutputStream fos = new FileOutputStream(path.toFile())) {
-                fos.write(bytes);
-            } catch (IOException ex) {
-                logger.warn("Could not write to {}", path, ex);
+            final int base = y * wpl;
+
+            for (int x = 0; x < width; x++) {
+                words[base + (x >> 2)] |= (row[x] & 0xFF) << ((3 - (x & 3)) << 3);
             }
         }
 
-        return buf;
+        pixGetData(pix).put(words);
+
+        return pix;
     }
 
     /**
@@ -0,0 +1,367 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                        T i l e C a c h e                                       //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.ui.view;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Class <code>TileCache</code> caches the rendering of a static layer of a view, as
+ * a set of device-space image tiles.
+ * <p>
+ * Tiles are keyed by zoom ratio and tile index.
+ * On each repaint, only the tiles that intersect the clip are considered: the missing ones are
+ * rendered once through the provided {@link Painter}, then all of them are simply drawn.
+ * <p>
+ * The tiles of all caches are kept in one shared pool, under a global heap budget, and evicted
+ * in least-recently-used order whatever their cache.
+ * <p>
+ * The tiles of a cache are invalidated when the provided content stamp changes, or explicitly by
+ * {@link #invalidate()}.
+ * The tiles of all caches related to an owner (typically a sheet) are invalidated by
+ * {@link #invalidate(Object)}, for example when the sheet is swapped out.
+ * Dynamic overlays (selection, editors, ...) are not meant to be cached.
+ *
+ * @author Hervé Bitteur
+ */
+public class TileCache
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(TileCache.class);
+
+    /** Tiles of all caches, in access order. */
+    private static final Map<Key, BufferedImage> tiles = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Total bytes of all cached tiles. */
+    private static long tilesBytes;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Owner of cached content, perhaps null. */
+    private final Object owner;
+
+    /** Stamp of cached content. */
+    private Object stamp;
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    /**
+     * Creates a new <code>TileCache</code> object.
+     *
+     * @param owner the owner of rendered content (such as the sheet), perhaps null
+     */
+    public TileCache (Object owner)
+    {
+        this.owner = owner;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //---------//
+    // getTile //
+    //---------//
+    private BufferedImage getTile (Graphics2D g,
+                                   double ratio,
+                                   int tx,
+                                   int ty,
+                                   Painter painter)
+    {
+        final Key key = new Key(this, ratio, tx, ty);
+        BufferedImage tile;
+
+        synchronized (tiles) {
+            tile = tiles.get(key);
+        }
+
+        if (tile == null) {
+            final int size = constants.tileSize.getValue();
+            tile = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+
+            final Graphics2D gt = tile.createGraphics();
+            gt.setRenderingHints(g.getRenderingHints());
+            gt.setColor(g.getColor());
+            gt.setFont(g.getFont());
+            gt.setStroke(g.getStroke());
+            gt.translate(-tx * size, -ty * size);
+            gt.scale(ratio, ratio);
+
+            // Clip to tile area, in model coordinates
+            final int x1 = (int) Math.floor((tx * size) / ratio);
+            final int y1 = (int) Math.floor((ty * size) / ratio);
+            final int x2 = (int) Math.ceil(((tx + 1) * size) / ratio);
+            final int y2 = (int) Math.ceil(((ty + 1) * size) / ratio);
+            gt.clipRect(x1, y1, x2 - x1, y2 - y1);
+
+            painter.paint(gt);
+            gt.dispose();
+            store(key, tile);
+        }
+
+        return tile;
+    }
+
+    //------------//
+    // invalidate //
+    //------------//
+    /**
+     * Discard all tiles of this cache.
+     */
+    public void invalidate ()
+    {
+        synchronized (tiles) {
+            for (Iterator<Map.Entry<Key, BufferedImage>> it = tiles.entrySet().iterator(); it
+                    .hasNext();) {
+                final Map.Entry<Key, BufferedImage> entry = it.next();
+
+                if (entry.getKey().cache == this) {
+                    tilesBytes -= bytesOf(entry.getValue());
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    //--------//
+    // render //
+    //--------//
+    /**
+     * Render the static layer, using cached tiles as much as possible.
+     * <p>
+     * Rendering falls back to direct painting when cache is disabled, when there is no clip or
+     * when the graphics transform is not a mere scaling and translation.
+     *
+     * @param g       graphics context, in model coordinates
+     * @param stamp   content stamp, any change of which invalidates the cache
+     * @param painter painting of the static layer, in model coordinates
+     */
+    public void render (Graphics2D g,
+                        Object stamp,
+                        Painter painter)
+    {
+        final AffineTransform at = g.getTransform();
+        final double ratio = at.getScaleX();
+        final Rectangle clip = g.getClipBounds();
+
+        if (!constants.useTileCache.isSet() || (clip == null) || (at.getShearX() != 0)
+                || (at.getShearY() != 0) || (ratio <= 0) || (ratio != at.getScaleY())) {
+            painter.paint(g);
+
+            return;
+        }
+
+        if (!Objects.equals(stamp, this.stamp)) {
+            logger.debug("TileCache invalidated");
+            invalidate();
+            this.stamp = stamp;
+        }
+
+        // Range of tiles intersected by clip
+        final int size = constants.tileSize.getValue();
+        final int txMin = Math.max(0, (int) Math.floor((clip.x * ratio) / size));
+        final int tyMin = Math.max(0, (int) Math.floor((clip.y * ratio) / size));
+        final int txMax = (int) Math.floor((((clip.x + clip.width) * ratio) - 1) / size);
+        final int tyMax = (int) Math.floor((((clip.y + clip.height) * ratio) - 1) / size);
+
+        // Draw tiles in device space, keeping only translation
+        final Graphics2D gd = (Graphics2D) g.create();
+        gd.setTransform(
+                AffineTransform.getTranslateInstance(at.getTranslateX(), at.getTranslateY()));
+
+        for (int ty = tyMin; ty <= tyMax; ty++) {
+            for (int tx = txMin; tx <= txMax; tx++) {
+                gd.drawImage(getTile(g, ratio, tx, ty, painter), tx * size, ty * size, null);
+            }
+        }
+
+        gd.dispose();
+    }
+
+    //~ Static Methods -----------------------------------------------------------------------------
+
+    //---------//
+    // bytesOf //
+    //---------//
+    private static long bytesOf (BufferedImage tile)
+    {
+        return 4L * tile.getWidth() * tile.getHeight(); // ARGB
+    }
+
+    //------------//
+    // invalidate //
+    //------------//
+    /**
+     * Discard the tiles of all caches related to the provided owner.
+     *
+     * @param owner the owner of rendered content (such as a sheet being swapped out)
+     */
+    public static void invalidate (Object owner)
+    {
+        synchronized (tiles) {
+            for (Iterator<Map.Entry<Key, BufferedImage>> it = tiles.entrySet().iterator(); it
+                    .hasNext();) {
+                final Map.Entry<Key, BufferedImage> entry = it.next();
+
+                if ((owner != null) && (entry.getKey().cache.owner == owner)) {
+                    tilesBytes -= bytesOf(entry.getValue());
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    //-------//
+    // store //
+    //-------//
+    /**
+     * Store a new tile, evicting the least recently used tiles beyond the global budget.
+     *
+     * @param key  tile key
+     * @param tile tile image
+     */
+    private static void store (Key key,
+                               BufferedImage tile)
+    {
+        final long budget = constants.maxMegabytes.getValue() * 1024L * 1024L;
+
+        synchronized (tiles) {
+            final BufferedImage old = tiles.put(key, tile);
+
+            if (old != null) {
+                tilesBytes -= bytesOf(old);
+            }
+
+            tilesBytes += bytesOf(tile);
+
+            for (Iterator<BufferedImage> it = tiles.values().iterator(); it.hasNext()
+                    && (tilesBytes > budget) && (tiles.size() > 1);) {
+                tilesBytes -= bytesOf(it.next());
+                it.remove();
+            }
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+
+        private final Constant.Boolean useTileCache = new Constant.Boolean(
+                true,
+                "Should we cache static view layers as image tiles?");
+
+        private final Constant.Integer tileSize = new Constant.Integer(
+                "Pixels",
+                256,
+                "Side of a cached tile, in device pixels");
+
+        private final Constant.Integer maxMegabytes = new Constant.Integer(
+                "MB",
+                64,
+                "Maximum heap used by cached tiles of all views");
+    }
+
+    //-----//
+    // Key //
+    //-----//
+    /**
+     * Tile key: cache, zoom ratio and tile index.
+     */
+    private static class Key
+    {
+
+        final TileCache cache;
+
+        final double ratio;
+
+        final int tx;
+
+        final int ty;
+
+        Key (TileCache cache,
+             double ratio,
+             int tx,
+             int ty)
+        {
+            this.cache = cache;
+            this.ratio = ratio;
+            this.tx = tx;
+            this.ty = ty;
+        }
+
+        @Override
+        public boolean equals (Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key that)) {
+                return false;
+            }
+
+            return (cache == that.cache) && (ratio == that.ratio) && (tx == that.tx)
+                    && (ty == that.ty);
+        }
+
+        @Override
+        public int hashCode ()
+        {
+            return Objects.hash(System.identityHashCode(cache), ratio, tx, ty);
+        }
+    }
+
+    //---------//
+    // Painter //
+    //---------//
+    /**
+     * Painting of a static layer.
+     */
+    public static interface Painter
+    {
+
+        /**
+         * Paint the layer, in model coordinates.
+         *
+         * @param g the graphics context, already scaled and clipped
+         */
+        void paint (Graphics2D g);
+    }
+}
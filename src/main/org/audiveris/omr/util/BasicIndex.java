@@ -89,6 +89,9 @@ public class BasicIndex<E extends Entity>
     /** List of IDs for declared VIP entities. */
     private List<Integer> vipIds;
 
+    /** Spatial index on entities, if any, built at first geometric lookup. */
+    private SpatialIndex<E> spatialIndex;
+
     //~ Constructors -------------------------------------------------------------------------------
 
     /**
@@ -111,6 +114,22 @@ public class BasicIndex<E extends Entity>
 
     //~ Methods ------------------------------------------------------------------------------------
 
+    //--------------------//
+    // createSpatialIndex //
+    //--------------------//
+    /**
+     * Create the spatial index to use for geometric lookups.
+     * <p>
+     * By default, no spatial index is used and geometric lookups browse all entities.
+     * A subclass should override this method if it deals with many entities.
+     *
+     * @return the (empty) spatial index, or null
+     */
+    protected SpatialIndex<E> createSpatialIndex ()
+    {
+        return null;
+    }
+
     //------------//
     // generateId //
     //------------//
@@ -130,6 +149,12 @@ public class BasicIndex<E extends Entity>
     @Override
     public List<E> getContainedEntities (Rectangle rectangle)
     {
+        final SpatialIndex<E> index = getSpatialIndex();
+
+        if (index != null) {
+            return index.containedEntities(rectangle);
+        }
+
         return Entities.containedEntities(iterator(), rectangle);
     }
 
@@ -139,6 +164,14 @@ public class BasicIndex<E extends Entity>
     @Override
     public List<E> getContainingEntities (Point point)
     {
+        final SpatialIndex<E> index = getSpatialIndex();
+
+        if (index != null) {
+            return Entities.containingEntities(
+                    index.containingEntities(point).iterator(),
+                    point);
+        }
+
         return Entities.containingEntities(iterator(), point);
     }
 
@@ -227,6 +260,12 @@ public class BasicIndex<E extends Entity>
     @Override
     public List<E> getIntersectedEntities (Rectangle rectangle)
     {
+        final SpatialIndex<E> index = getSpatialIndex();
+
+        if (index != null) {
+            return index.intersectedEntities(rectangle);
+        }
+
         return Entities.intersectedEntities(iterator(), rectangle);
     }
 
@@ -248,6 +287,29 @@ public class BasicIndex<E extends Entity>
         return getClass().getSimpleName();
     }
 
+    //-----------------//
+    // getSpatialIndex //
+    //-----------------//
+    /**
+     * Report the spatial index, building it from current entities if not yet done.
+     *
+     * @return the spatial index, or null if none is used
+     */
+    private synchronized SpatialIndex<E> getSpatialIndex ()
+    {
+        if (spatialIndex == null) {
+            spatialIndex = createSpatialIndex();
+
+            if (spatialIndex != null) {
+                for (E entity : entities.values()) {
+                    spatialIndex.insert(entity);
+                }
+            }
+        }
+
+        return spatialIndex;
+    }
+
     //--------//
     // insert //
     //--------//
@@ -267,7 +329,8 @@ public class BasicIndex<E extends Entity>
             throw new IllegalArgumentException("Entity has no ID");
         }
 
-        entities.put(id, entity);
+        final E old = entities.put(id, entity);
+        spatialReplace(old, entity);
 
         if (isVipId(id)) {
             entity.setVip(true);
@@ -317,7 +380,7 @@ public class BasicIndex<E extends Entity>
     @Override
     public Iterator<E> iterator ()
     {
-        return entities.values().iterator();
+        return new IndexIterator(entities.values().iterator());
     }
 
     //---------//
@@ -375,6 +438,7 @@ public class BasicIndex<E extends Entity>
         entity.setId(id);
 
         entities.put(id, entity);
+        spatialReplace(null, entity);
 
         if (isVipId(id)) {
             entity.setVip(true);
@@ -390,7 +454,8 @@ public class BasicIndex<E extends Entity>
     @Override
     public void remove (E entity)
     {
-        entities.remove(entity.getId());
+        final E old = entities.remove(entity.getId());
+        spatialReplace(old, null);
     }
 
     //-------//
@@ -401,6 +466,10 @@ public class BasicIndex<E extends Entity>
     {
         lastId.set(0);
         entities.clear();
+
+        synchronized (this) {
+            spatialIndex = null;
+        }
     }
 
     //-------------//
@@ -456,6 +525,29 @@ public class BasicIndex<E extends Entity>
         }
     }
 
+    //----------------//
+    // spatialReplace //
+    //----------------//
+    /**
+     * Keep the spatial index, if any, in line with the entities map.
+     *
+     * @param old    the entity no longer in map, perhaps null
+     * @param entity the entity now in map, perhaps null
+     */
+    private synchronized void spatialReplace (E old,
+                                              E entity)
+    {
+        if (spatialIndex != null) {
+            if ((old != null) && (old != entity)) {
+                spatialIndex.remove(old);
+            }
+
+            if (entity != null) {
+                spatialIndex.insert(entity);
+            }
+        }
+    }
+
     //----------//
     // toString //
     //----------//
@@ -470,8 +562,66 @@ public class BasicIndex<E extends Entity>
         return sb.toString();
     }
 
+    //--------------//
+    // updateBounds //
+    //--------------//
+    /**
+     * Notify that the bounds of the provided entity may have changed.
+     *
+     * @param entity the modified entity
+     */
+    public synchronized void updateBounds (E entity)
+    {
+        if (spatialIndex != null) {
+            spatialIndex.update(entity);
+        }
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
 
+    //---------------//
+    // IndexIterator //
+    //---------------//
+    /**
+     * Iterator on index entities, whose removal goes through the index itself, so that
+     * the spatial index, if any, is kept in line.
+     */
+    private class IndexIterator
+            implements Iterator<E>
+    {
+        private final Iterator<E> it; // Underlying iterator on entities map
+
+        private E last; // Entity last returned by next()
+
+        IndexIterator (Iterator<E> it)
+        {
+            this.it = it;
+        }
+
+        @Override
+        public boolean hasNext ()
+        {
+            return it.hasNext();
+        }
+
+        @Override
+        public E next ()
+        {
+            return last = it.next();
+        }
+
+        @Override
+        public void remove ()
+        {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+
+            BasicIndex.this.remove(last);
+            last = null;
+        }
+    }
+
     //--------------//
     // IndexAdapter //
     //--------------//
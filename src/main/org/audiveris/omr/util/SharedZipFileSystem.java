@@ -0,0 +1,271 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              S h a r e d Z i p F i l e S y s t e m                             //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Class <code>SharedZipFileSystem</code> keeps a zip file open as a long-lived, read-mostly,
+ * file system shared by concurrent readers.
+ * <p>
+ * Rather than opening and closing a new zip file system (and thus re-parsing its central
+ * directory) for every single entry to read, readers use this pattern:
+ *
+ * <pre>
+ * final Path root = shared.acquire();
+ * try {
+ *     // Read entries under root
+ * } finally {
+ *     shared.release();
+ * }
+ * </pre>
+ * <p>
+ * Any number of readers can work concurrently.
+ * The underlying file system is opened on first acquisition and kept open, even when no reader
+ * is active, until a writer signals its intent by {@link #beginWriting()}.
+ * This waits for all active readers to be released, and closes the shared file system, so that
+ * the writer can safely open the zip file on its own.
+ * When writing is over, {@link #endWriting()} lets readers in again, and they will re-open the
+ * updated zip file as needed.
+ * <p>
+ * Both pairs acquire/release and beginWriting/endWriting must be called from the same thread.
+ *
+ * @author Hervé Bitteur
+ */
+public class SharedZipFileSystem
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedZipFileSystem.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Path to zip file. */
+    private final Path zipPath;
+
+    /** Readers share the read lock, writer takes the write lock. */
+    private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
+
+    /** Number of readers currently using the file system. */
+    private final AtomicInteger readers = new AtomicInteger();
+
+    /** Number of actual openings of the zip file, for statistics. */
+    private final AtomicInteger openings = new AtomicInteger();
+
+    /** The shared file system, if currently open. */
+    private volatile FileSystem fileSystem;
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    /**
+     * Creates a new <code>SharedZipFileSystem</code> object.
+     *
+     * @param zipPath path to zip file
+     */
+    public SharedZipFileSystem (Path zipPath)
+    {
+        this.zipPath = Objects.requireNonNull(zipPath, "SharedZipFileSystem: path is null");
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //---------//
+    // acquire //
+    //---------//
+    /**
+     * Acquire read access to the shared zip file system.
+     * <p>
+     * Each successful call must be balanced by a call to {@link #release()} in the same thread.
+     *
+     * @return the root path of the zip file system
+     * @throws IOException if zip file could not be opened
+     */
+    public Path acquire ()
+        throws IOException
+    {
+        rwLock.readLock().lock();
+
+        try {
+            FileSystem fs = fileSystem;
+
+            if (fs == null) {
+                synchronized (this) {
+                    fs = fileSystem;
+
+                    if (fs == null) {
+                        fileSystem = fs = ZipFileSystem.open(zipPath).getFileSystem();
+                        openings.incrementAndGet();
+                        logger.debug("Opened shared {}", zipPath);
+                    }
+                }
+            }
+
+            readers.incrementAndGet();
+
+            return fs.getPath(fs.getSeparator());
+        } catch (IOException | RuntimeException ex) {
+            rwLock.readLock().unlock();
+            throw ex;
+        }
+    }
+
+    //--------------//
+    // beginWriting //
+    //--------------//
+    /**
+     * Wait for all current readers to be released, close the shared file system and
+     * prevent any reader from getting in until {@link #endWriting()} is called.
+     */
+    public void beginWriting ()
+    {
+        rwLock.writeLock().lock();
+        closeFileSystem();
+    }
+
+    //-------//
+    // close //
+    //-------//
+    /**
+     * Close the shared file system, once all current readers have been released.
+     * <p>
+     * A later {@link #acquire()} would transparently re-open the zip file.
+     */
+    public void close ()
+    {
+        beginWriting();
+        endWriting();
+    }
+
+    //------------//
+    // endWriting //
+    //------------//
+    /**
+     * Let readers in again.
+     * <p>
+     * If a reader has opened the shared file system meanwhile (from within the writing thread),
+     * this file system is closed since it may not reflect what has just been written.
+     */
+    public void endWriting ()
+    {
+        try {
+            closeFileSystem();
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    //-------------//
+    // getOpenings //
+    //-------------//
+    /**
+     * Report how many times the zip file has actually been opened.
+     *
+     * @return count of openings
+     */
+    public int getOpenings ()
+    {
+        return openings.get();
+    }
+
+    //------------//
+    // getReaders //
+    //------------//
+    /**
+     * Report how many readers are currently using the shared file system.
+     *
+     * @return count of active readers
+     */
+    public int getReaders ()
+    {
+        return readers.get();
+    }
+
+    //------------//
+    // getZipPath //
+    //------------//
+    /**
+     * Report the path to the underlying zip file.
+     *
+     * @return zip path
+     */
+    public Path getZipPath ()
+    {
+        return zipPath;
+    }
+
+    //---------//
+    // release //
+    //---------//
+    /**
+     * Release a read access previously obtained by {@link #acquire()}.
+     * <p>
+     * The shared file system is kept open for further readers.
+     */
+    public void release ()
+    {
+        readers.decrementAndGet();
+        rwLock.readLock().unlock();
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        return new StringBuilder(getClass().getSimpleName()).append('{').append(zipPath).append(
+                " readers:").append(readers).append(" openings:").append(openings).append(
+                        (fileSystem != null) ? " open" : "").append('}').toString();
+    }
+
+    //-----------------//
+    // closeFileSystem //
+    //-----------------//
+    /**
+     * Close the shared file system if open.
+     * <p>
+     * Caller must hold the write lock.
+     */
+    private void closeFileSystem ()
+    {
+        final FileSystem fs = fileSystem;
+
+        if (fs != null) {
+            fileSystem = null;
+
+            try {
+                fs.close();
+                logger.debug("Closed shared {}", zipPath);
+            } catch (IOException ex) {
+                logger.warn("Error closing shared {} {}", zipPath, ex.toString(), ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,517 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                     S p a t i a l I n d e x                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Class <code>SpatialIndex</code> is a uniform grid of square cells, which keeps track of
+ * entities according to their bounds, so that rectangle and point lookups only browse the
+ * few entities located in the cells at hand rather than the whole population.
+ * <p>
+ * The index is maintained incrementally via {@link #insert}, {@link #remove} and
+ * {@link #update}.
+ * Bounds are recorded at filing time, so any entity whose bounds change afterwards must be
+ * reported through {@link #update}, which puts the entity aside until the next lookup re-files
+ * it according to its new bounds.
+ * Lookups check candidates against their current bounds, and re-file any stale entity they
+ * happen to come across, but they cannot find an unreported entity in its new cells.
+ * <p>
+ * Entities that match the provided "loose" predicate (typically ensembles whose bounds
+ * depend on their members) are not filed in any cell, but checked by every lookup.
+ * Entities with no bounds yet are kept aside as well, until a lookup finds them with bounds.
+ * <p>
+ * Lookup results are ordered by the provided comparator if any, otherwise by insertion order.
+ *
+ * @param <E> precise entity type
+ * @author Hervé Bitteur
+ */
+public class SpatialIndex<E extends Entity>
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Side of a grid cell. */
+    private final int cellSize;
+
+    /** Entities always checked, regardless of their location. */
+    private final Predicate<? super E> loose;
+
+    /** Order of lookup results, null for insertion order. */
+    private final Comparator<? super E> order;
+
+    /** All indexed entities. */
+    private final Map<E, Slot<E>> slots = new IdentityHashMap<>();
+
+    /** Grid cells, only non-empty ones. */
+    private final Map<Long, List<Slot<E>>> cells = new HashMap<>();
+
+    /** Slots of loose entities. */
+    private final Set<Slot<E>> looseSlots = new LinkedHashSet<>();
+
+    /** Slots put aside, because of no bounds yet or of bounds reported as modified. */
+    private final Set<Slot<E>> pendingSlots = new LinkedHashSet<>();
+
+    /** Rank to assign to next inserted entity. */
+    private long nextRank;
+
+    /** Stamp of current lookup, to avoid checking a slot several times. */
+    private int stamp;
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    /**
+     * Creates a new <code>SpatialIndex</code> object, with no loose entities and results
+     * in insertion order.
+     */
+    public SpatialIndex ()
+    {
+        this(null, null);
+    }
+
+    /**
+     * Creates a new <code>SpatialIndex</code> object.
+     *
+     * @param loose predicate for loose entities, perhaps null
+     * @param order order of lookup results, null for insertion order
+     */
+    public SpatialIndex (Predicate<? super E> loose,
+                         Comparator<? super E> order)
+    {
+        this.cellSize = constants.cellSize.getValue();
+        this.loose = loose;
+        this.order = order;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //-------//
+    // clear //
+    //-------//
+    /**
+     * Remove all entities from the index.
+     */
+    public synchronized void clear ()
+    {
+        slots.clear();
+        cells.clear();
+        looseSlots.clear();
+        pendingSlots.clear();
+    }
+
+    //-------------------//
+    // containedEntities //
+    //-------------------//
+    /**
+     * Report the entities whose bounds are contained in the provided rectangle.
+     *
+     * @param rect the containing rectangle
+     * @return the contained entities, perhaps empty but not null
+     */
+    public List<E> containedEntities (Rectangle rect)
+    {
+        return lookup(rect, bounds -> rect.contains(bounds));
+    }
+
+    //--------------------//
+    // containingEntities //
+    //--------------------//
+    /**
+     * Report the entities whose bounds contain the provided point.
+     * <p>
+     * It is up to the caller to check the precise entity shape if so needed.
+     *
+     * @param point the provided point
+     * @return the containing entities, perhaps empty but not null
+     */
+    public List<E> containingEntities (Point point)
+    {
+        return lookup(new Rectangle(point.x, point.y, 1, 1), bounds -> bounds.contains(point));
+    }
+
+    //--------//
+    // insert //
+    //--------//
+    /**
+     * Insert an entity into the index, or update it if already indexed.
+     *
+     * @param entity the entity to insert
+     */
+    public synchronized void insert (E entity)
+    {
+        final Slot<E> slot = slots.get(entity);
+
+        if (slot != null) {
+            refile(slot);
+        } else {
+            final Slot<E> newSlot = new Slot<>(entity, nextRank++);
+            slots.put(entity, newSlot);
+            file(newSlot);
+        }
+    }
+
+    //---------------------//
+    // intersectedEntities //
+    //---------------------//
+    /**
+     * Report the entities whose bounds intersect the provided rectangle.
+     *
+     * @param rect the intersecting rectangle
+     * @return the intersected entities, perhaps empty but not null
+     */
+    public List<E> intersectedEntities (Rectangle rect)
+    {
+        return lookup(rect, bounds -> rect.intersects(bounds));
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    /**
+     * Remove an entity from the index.
+     *
+     * @param entity the entity to remove
+     */
+    public synchronized void remove (E entity)
+    {
+        final Slot<E> slot = slots.remove(entity);
+
+        if (slot != null) {
+            unfile(slot);
+        }
+    }
+
+    //------//
+    // size //
+    //------//
+    /**
+     * Report the number of indexed entities.
+     *
+     * @return the number of entities
+     */
+    public synchronized int size ()
+    {
+        return slots.size();
+    }
+
+    //--------//
+    // update //
+    //--------//
+    /**
+     * Notify that the bounds of an indexed entity may have changed.
+     * <p>
+     * The entity bounds are not read here, since the entity may still be under modification.
+     * The entity will be re-filed by the next lookup.
+     *
+     * @param entity the modified entity, ignored if not indexed
+     */
+    public synchronized void update (E entity)
+    {
+        final Slot<E> slot = slots.get(entity);
+
+        if ((slot != null) && !slot.loose) {
+            unfile(slot);
+            pendingSlots.add(slot);
+        }
+    }
+
+    //------//
+    // file //
+    //------//
+    private void file (Slot<E> slot)
+    {
+        slot.loose = (loose != null) && loose.test(slot.entity);
+
+        if (slot.loose) {
+            slot.bounds = null;
+            looseSlots.add(slot);
+
+            return;
+        }
+
+        slot.bounds = slot.entity.getBounds();
+
+        if (slot.bounds == null) {
+            pendingSlots.add(slot);
+
+            return;
+        }
+
+        final Rectangle range = cellRange(slot.bounds);
+
+        for (int cy = range.y; cy < range.y + range.height; cy++) {
+            for (int cx = range.x; cx < range.x + range.width; cx++) {
+                cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>()).add(slot);
+            }
+        }
+    }
+
+    //-----------//
+    // cellRange //
+    //-----------//
+    /**
+     * Report the range of cells covered by the provided rectangle.
+     *
+     * @param rect the rectangle
+     * @return the range of cell indices
+     */
+    private Rectangle cellRange (Rectangle rect)
+    {
+        final int cxMin = Math.floorDiv(rect.x, cellSize);
+        final int cyMin = Math.floorDiv(rect.y, cellSize);
+        final int cxMax = Math.floorDiv(rect.x + Math.max(rect.width, 1) - 1, cellSize);
+        final int cyMax = Math.floorDiv(rect.y + Math.max(rect.height, 1) - 1, cellSize);
+
+        return new Rectangle(cxMin, cyMin, cxMax - cxMin + 1, cyMax - cyMin + 1);
+    }
+
+    //--------//
+    // lookup //
+    //--------//
+    private synchronized List<E> lookup (Rectangle rect,
+                                         Predicate<Rectangle> test)
+    {
+        if (!pendingSlots.isEmpty()) {
+            filePending();
+        }
+
+        final List<Slot<E>> found = new ArrayList<>();
+        final List<Slot<E>> stales = new ArrayList<>();
+        final Rectangle range = cellRange(rect);
+        stamp++;
+
+        if (((long) range.width * range.height) >= slots.size()) {
+            // Area is too large for the grid to be of any help
+            for (Slot<E> slot : slots.values()) {
+                check(slot, test, found, stales);
+            }
+        } else {
+            for (int cy = range.y; cy < range.y + range.height; cy++) {
+                for (int cx = range.x; cx < range.x + range.width; cx++) {
+                    final List<Slot<E>> cell = cells.get(key(cx, cy));
+
+                    if (cell != null) {
+                        for (Slot<E> slot : cell) {
+                            check(slot, test, found, stales);
+                        }
+                    }
+                }
+            }
+
+            for (Slot<E> slot : looseSlots) {
+                check(slot, test, found, stales);
+            }
+        }
+
+        for (Slot<E> slot : stales) {
+            refile(slot);
+        }
+
+        if (order != null) {
+            found.sort((s1,
+                        s2) -> order.compare(s1.entity, s2.entity));
+        } else {
+            found.sort((s1,
+                        s2) -> Long.compare(s1.rank, s2.rank));
+        }
+
+        final List<E> entities = new ArrayList<>(found.size());
+
+        for (Slot<E> slot : found) {
+            entities.add(slot.entity);
+        }
+
+        return entities;
+    }
+
+    //-------//
+    // check //
+    //-------//
+    /**
+     * Check the provided slot, unless already done in current lookup.
+     *
+     * @param slot   the slot to check
+     * @param test   the test on entity current bounds
+     * @param found  (output) the slots of matching entities
+     * @param stales (output) the slots whose recorded bounds are no longer valid
+     */
+    private void check (Slot<E> slot,
+                        Predicate<Rectangle> test,
+                        List<Slot<E>> found,
+                        List<Slot<E>> stales)
+    {
+        if (slot.stamp == stamp) {
+            return;
+        }
+
+        slot.stamp = stamp;
+
+        final Rectangle bounds = slot.entity.getBounds();
+
+        if ((bounds != null) && test.test(bounds)) {
+            found.add(slot);
+        }
+
+        if (!slot.loose && !Objects.equals(slot.bounds, bounds)) {
+            stales.add(slot);
+        }
+    }
+
+    //-------------//
+    // filePending //
+    //-------------//
+    /**
+     * File the pending entities which now have bounds.
+     */
+    private void filePending ()
+    {
+        for (Slot<E> slot : new ArrayList<>(pendingSlots)) {
+            pendingSlots.remove(slot);
+            file(slot); // Back to pending if still no bounds
+        }
+    }
+
+    //--------//
+    // refile //
+    //--------//
+    private void refile (Slot<E> slot)
+    {
+        if (!slot.loose && Objects.equals(slot.bounds, slot.entity.getBounds())) {
+            return; // No change
+        }
+
+        unfile(slot);
+        file(slot);
+    }
+
+    //--------//
+    // unfile //
+    //--------//
+    private void unfile (Slot<E> slot)
+    {
+        if (slot.loose) {
+            looseSlots.remove(slot);
+
+            return;
+        }
+
+        if (slot.bounds == null) {
+            pendingSlots.remove(slot);
+
+            return;
+        }
+
+        final Rectangle range = cellRange(slot.bounds);
+
+        for (int cy = range.y; cy < range.y + range.height; cy++) {
+            for (int cx = range.x; cx < range.x + range.width; cx++) {
+                final Long key = key(cx, cy);
+                final List<Slot<E>> cell = cells.get(key);
+
+                if (cell != null) {
+                    cell.remove(slot);
+
+                    if (cell.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+
+        slot.bounds = null;
+    }
+
+    //~ Static Methods -----------------------------------------------------------------------------
+
+    //-----//
+    // key //
+    //-----//
+    private static Long key (int cx,
+                             int cy)
+    {
+        return (((long) cx) << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static class Constants
+            extends ConstantSet
+    {
+        private final Constant.Integer cellSize = new Constant.Integer(
+                "Pixels",
+                128,
+                "Side of a cell in the spatial index of entities");
+    }
+
+    //------//
+    // Slot //
+    //------//
+    /**
+     * Index information about one entity.
+     *
+     * @param <E> precise entity type
+     */
+    private static class Slot<E>
+    {
+        /** The indexed entity. */
+        final E entity;
+
+        /** Insertion rank. */
+        final long rank;
+
+        /** Bounds used to file the entity, null if not filed in grid. */
+        Rectangle bounds;
+
+        /** True for an entity checked by every lookup. */
+        boolean loose;
+
+        /** Stamp of last lookup that checked this slot. */
+        int stamp;
+
+        Slot (E entity,
+              long rank)
+        {
+            this.entity = entity;
+            this.rank = rank;
+        }
+    }
+}
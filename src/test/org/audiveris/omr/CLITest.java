@@ -49,6 +49,38 @@ public class CLITest
     {
     }
 
+    @Test
+    public void testJobParams ()
+            throws Exception
+    {
+        System.out.println("\n+++ testJobParams");
+
+        String[] args = new String[]{"-batch", "-export", "-output", "out", "my Input.pdf"};
+        instance.parseParameters(args);
+        instance.checkJobParams();
+    }
+
+    @Test
+    public void testJobParamsDaemon ()
+            throws Exception
+    {
+        System.out.println("\n+++ testJobParamsDaemon");
+
+        String[] args = new String[]{
+            "-daemon", "-port", "1234", "-save", "-option", "key=value", "in.pdf"
+        };
+        instance.parseParameters(args);
+
+        try {
+            instance.checkJobParams();
+
+            fail();
+        } catch (CmdLineException ex) {
+            System.out.println(ex.getMessage());
+            assertTrue(ex.getMessage().contains("[-daemon, -option, -save]"));
+        }
+    }
+
     @Test
     public void testOption ()
             throws Exception
@@ -0,0 +1,117 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    O m r D a e m o n T e s t                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Unit tests for OmrDaemon port connections.
+ *
+ * @author Hervé Bitteur
+ */
+public class OmrDaemonTest
+{
+
+    /**
+     * Creates a new <code>OmrDaemonTest</code> object.
+     */
+    public OmrDaemonTest ()
+    {
+    }
+
+    @Test
+    public void testCommandWhileBusy ()
+        throws Exception
+    {
+        System.out.println("\n+++ testCommandWhileBusy");
+
+        // One job slot and one connection slot
+        final OmrDaemon daemon = new OmrDaemon(new CLI("AudiverisTest"), 1, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        // Keep the only job slot busy, so that submitted jobs remain queued
+        daemon.jobExecutor.execute( () ->
+        {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+
+        try {
+            final int port = daemon.openPort(0);
+
+            // More pending jobs than connection slots
+            for (int i = 0; i < 3; i++) {
+                final String reply = send(port, "in" + i + ".pdf");
+                System.out.println(reply);
+                assertNotNull(reply);
+                assertTrue(reply.contains("QUEUED"));
+            }
+
+            // Control channel must still be available
+            final String status = send(port, OmrDaemon.STATUS_COMMAND);
+            System.out.println(status);
+            assertNotNull(status);
+            assertTrue(status.startsWith("Daemon jobs submitted:3"));
+        } finally {
+            daemon.stop();
+            daemon.jobExecutor.shutdownNow();
+            release.countDown();
+        }
+    }
+
+    /**
+     * Send the provided items on a new connection and report the first reply line.
+     */
+    private String send (int port,
+                         String... items)
+        throws IOException
+    {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8),
+                     true)) {
+            for (String item : items) {
+                out.println(item);
+            }
+
+            out.println();
+
+            return in.readLine();
+        }
+    }
+}
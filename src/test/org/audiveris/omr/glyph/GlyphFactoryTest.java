@@ -10,9 +10,13 @@ import static org.audiveris.omr.run.Orientation.HORIZONTAL;
 import org.audiveris.omr.run.Run;
 import org.audiveris.omr.run.RunTable;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
 import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  *
@@ -42,6 +46,38 @@ public class GlyphFactoryTest
         GlyphFactory.buildGlyphs(runTable, null);
     }
 
+    /**
+     * Geometric moments of a compound, derived from its parts, must match a pixel scan.
+     */
+    @Test
+    public void testMomentParts ()
+    {
+        System.out.println("momentParts");
+
+        final int interline = 4;
+        final List<Glyph> parts = GlyphFactory.buildGlyphs(createHorizontalInstance(), null);
+        assertTrue(parts.size() > 1);
+
+        final Glyph scanned = GlyphFactory.buildGlyph(parts);
+        final Glyph derived = GlyphFactory.buildGlyph(parts);
+        derived.setMomentParts(parts);
+        assertArrayEquals(
+                scanned.getGeometricMoments(interline).getValues(),
+                derived.getGeometricMoments(interline).getValues(),
+                1e-9);
+
+        // Overlapping parts: moments are scanned, not summed
+        final List<Glyph> overlapping = new ArrayList<>(parts);
+        overlapping.add(scanned);
+
+        final Glyph fallback = GlyphFactory.buildGlyph(overlapping);
+        fallback.setMomentParts(overlapping);
+        assertArrayEquals(
+                scanned.getGeometricMoments(interline).getValues(),
+                fallback.getGeometricMoments(interline).getValues(),
+                1e-9);
+    }
+
     //--------------------------//
     // createHorizontalInstance //
     //--------------------------//
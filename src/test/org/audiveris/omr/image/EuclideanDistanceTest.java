@@ -0,0 +1,114 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                            E u c l i d e a n D i s t a n c e T e s t                           //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import ij.process.ByteProcessor;
+
+import java.util.Random;
+
+/**
+ * Class <code>EuclideanDistanceTest</code> checks <code>EuclideanDistance</code> results
+ * against a brute-force computation.
+ *
+ * @author Hervé Bitteur
+ */
+public class EuclideanDistanceTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+
+    @Test
+    public void testComputeToBack ()
+    {
+        check(false);
+    }
+
+    @Test
+    public void testComputeToFore ()
+    {
+        check(true);
+    }
+
+    private void check (boolean toFore)
+    {
+        final Random random = new Random(3);
+        final int normalizer = ChamferDistance.DEFAULT_NORMALIZER;
+
+        for (int ratio : new int[]{0, 3, 20, 200}) {
+            for (int width : new int[]{1, 5, 33, 70}) {
+                for (int height : new int[]{1, 6, 50}) {
+                    final ByteProcessor img = createImage(width, height, ratio, random);
+                    final EuclideanDistance instance = new EuclideanDistance(normalizer);
+                    final DistanceTable table = toFore ? instance.computeToFore(img)
+                            : instance.computeToBack(img);
+
+                    for (int y = 0; y < height; y++) {
+                        for (int x = 0; x < width; x++) {
+                            long best = Long.MAX_VALUE;
+
+                            for (int yy = 0; yy < height; yy++) {
+                                for (int xx = 0; xx < width; xx++) {
+                                    if ((img.get(xx, yy) == 0) == toFore) {
+                                        final long dx = xx - x;
+                                        final long dy = yy - y;
+                                        best = Math.min(best, (dx * dx) + (dy * dy));
+                                    }
+                                }
+                            }
+
+                            final int expected = (best == Long.MAX_VALUE)
+                                    ? ChamferDistance.VALUE_UNKNOWN
+                                    : (int) Math.round(normalizer * Math.sqrt(best));
+                            assertEquals(
+                                    "ratio:" + ratio + " width:" + width + " height:" + height
+                                            + " x:" + x + " y:" + y,
+                                    expected,
+                                    table.getValue(x, y));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a white image with about one black pixel out of 'ratio' (none if ratio is 0).
+     */
+    private ByteProcessor createImage (int width,
+                                       int height,
+                                       int ratio,
+                                       Random random)
+    {
+        final ByteProcessor img = new ByteProcessor(width, height);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                img.set(x, y, ((ratio > 0) && (random.nextInt(ratio) == 0)) ? 0 : 255);
+            }
+        }
+
+        return img;
+    }
+}
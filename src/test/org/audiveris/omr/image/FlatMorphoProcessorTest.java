@@ -0,0 +1,81 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                          F l a t M o r p h o P r o c e s s o r T e s t                         //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import org.junit.Test;
+
+import ij.process.ByteProcessor;
+
+import java.util.Random;
+
+/**
+ * Class <code>FlatMorphoProcessorTest</code> checks that <code>FlatMorphoProcessor</code>
+ * results are identical to <code>MorphoProcessor</code> results.
+ *
+ * @author Hervé Bitteur
+ */
+public class FlatMorphoProcessorTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+
+    @Test
+    public void testClose ()
+    {
+        final Random random = new Random(7);
+
+        for (float radius : new float[]{0.5f, 1f, 1.5f, 2.5f, 3.7f, 5f}) {
+            final StructureElement se = new StructureElement(0, 1, radius, new int[]{0, 0});
+
+            for (int width : new int[]{1, 3, 9, 30, 77}) {
+                for (int height : new int[]{1, 4, 20, 150}) {
+                    final ByteProcessor expected = createImage(width, height, random);
+                    final ByteProcessor result = (ByteProcessor) expected.duplicate();
+
+                    new MorphoProcessor(se).close(expected);
+                    new FlatMorphoProcessor(se).close(result);
+                    assertArrayEquals(
+                            "radius:" + radius + " width:" + width + " height:" + height,
+                            (byte[]) expected.getPixels(),
+                            (byte[]) result.getPixels());
+                }
+            }
+        }
+    }
+
+    private ByteProcessor createImage (int width,
+                                       int height,
+                                       Random random)
+    {
+        final ByteProcessor img = new ByteProcessor(width, height);
+
+        // Mostly white, with some gray or black pixels
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                img.set(x, y, (random.nextInt(4) == 0) ? random.nextInt(256) : 255);
+            }
+        }
+
+        return img;
+    }
+}
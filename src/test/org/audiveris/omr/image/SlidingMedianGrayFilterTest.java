@@ -0,0 +1,89 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                      S l i d i n g M e d i a n G r a y F i l t e r T e s t                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import org.junit.Test;
+
+import ij.process.ByteProcessor;
+
+import java.util.Random;
+
+/**
+ * Class <code>SlidingMedianGrayFilterTest</code> checks that <code>SlidingMedianGrayFilter</code>
+ * output is identical to <code>MedianGrayFilter</code> output.
+ *
+ * @author Hervé Bitteur
+ */
+public class SlidingMedianGrayFilterTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+
+    @Test
+    public void testBinaryImages ()
+    {
+        checkImages(2);
+    }
+
+    @Test
+    public void testGrayImages ()
+    {
+        checkImages(256);
+    }
+
+    private void checkImages (int levels)
+    {
+        final Random random = new Random(levels);
+
+        for (int width : new int[]{1, 2, 5, 8, 17, 40}) {
+            for (int height : new int[]{1, 3, 4, 13, 33}) {
+                for (int radius = 0; radius <= 4; radius++) {
+                    final ByteProcessor input = createImage(width, height, levels, random);
+                    final ByteProcessor expected = new MedianGrayFilter(radius).filter(input);
+                    final ByteProcessor result = new SlidingMedianGrayFilter(radius).filter(input);
+                    assertArrayEquals(
+                            "width:" + width + " height:" + height + " radius:" + radius,
+                            (byte[]) expected.getPixels(),
+                            (byte[]) result.getPixels());
+                }
+            }
+        }
+    }
+
+    private ByteProcessor createImage (int width,
+                                       int height,
+                                       int levels,
+                                       Random random)
+    {
+        final ByteProcessor img = new ByteProcessor(width, height);
+        final int step = 255 / (levels - 1);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                img.set(x, y, step * random.nextInt(levels));
+            }
+        }
+
+        return img;
+    }
+}
@@ -0,0 +1,116 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             A s s i g n m e n t S o l v e r T e s t                            //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Class <code>AssignmentSolverTest</code> checks <code>AssignmentSolver</code> results
+ * against the brute-force <code>InjectionSolver</code>.
+ *
+ * @author Hervé Bitteur
+ */
+public class AssignmentSolverTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+
+    @Test
+    public void testAgainstBruteForce ()
+    {
+        final Random random = new Random(7);
+
+        for (int test = 0; test < 2000; test++) {
+            final int domainSize = 1 + random.nextInt(6);
+            final int rangeSize = domainSize + random.nextInt(4);
+
+            // Small cost values lead to many ties
+            final int maxCost = random.nextBoolean() ? 4 : 1000;
+            final int[][] costs = new int[domainSize][rangeSize];
+
+            for (int[] row : costs) {
+                for (int ir = 0; ir < rangeSize; ir++) {
+                    row[ir] = random.nextInt(maxCost);
+                }
+            }
+
+            final InjectionSolver.Distance distance = (id, ir, details) -> costs[id][ir];
+            final int[] expected = new InjectionSolver(domainSize, rangeSize, distance).solve();
+            final int[] result = new AssignmentSolver(domainSize, rangeSize, distance).solve();
+
+            assertArrayEquals("test #" + test, expected, result);
+        }
+    }
+
+    @Test
+    public void testEmptyDomain ()
+    {
+        final AssignmentSolver instance = new AssignmentSolver(
+                0,
+                3,
+                (id, ir, details) -> 1);
+
+        assertEquals(0, instance.solve().length);
+    }
+
+    @Test
+    public void testLargeSize ()
+    {
+        final Random random = new Random(11);
+        final int domainSize = 60;
+        final int rangeSize = 2 * domainSize;
+        final int[][] costs = new int[domainSize][rangeSize];
+
+        for (int[] row : costs) {
+            for (int ir = 0; ir < rangeSize; ir++) {
+                row[ir] = random.nextInt(10_000);
+            }
+        }
+
+        // Diagonal is the obvious optimum
+        for (int id = 0; id < domainSize; id++) {
+            costs[id][2 * id] = -1;
+        }
+
+        final AssignmentSolver instance = new AssignmentSolver(
+                domainSize,
+                rangeSize,
+                (id, ir, details) -> costs[id][ir]);
+        final int[] result = instance.solve();
+
+        for (int id = 0; id < domainSize; id++) {
+            assertEquals(2 * id, result[id]);
+        }
+
+        assertEquals(-domainSize, instance.getCost(result));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSmallerRange ()
+    {
+        new AssignmentSolver(3, 2, (id, ir, details) -> 0);
+    }
+}
@@ -0,0 +1,222 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                N e u r a l N e t w o r k T e s t                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.math;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Class <code>NeuralNetworkTest</code> checks that batched runs give the same outputs as
+ * individual runs, and that batched training depends neither on the number of shards nor on the
+ * batch size.
+ *
+ * @author Hervé Bitteur
+ */
+public class NeuralNetworkTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final double eps = 1e-12;
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    @Test
+    public void testRunBatch ()
+    {
+        final int inputSize = 13;
+        final int hiddenSize = 7;
+        final int outputSize = 5;
+        final NeuralNetwork nn = new NeuralNetwork(
+                inputSize,
+                hiddenSize,
+                outputSize,
+                0.5,
+                labels("in", inputSize),
+                labels("out", outputSize));
+
+        final Random random = new Random(123);
+        final int count = 20;
+        final double[] inputs = new double[count * inputSize];
+
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = (2 * random.nextDouble()) - 1;
+        }
+
+        final double[] outputs = nn.runBatch(inputs, count, null);
+        assertEquals(count * outputSize, outputs.length);
+
+        for (int r = 0; r < count; r++) {
+            final double[] ins = new double[inputSize];
+            System.arraycopy(inputs, r * inputSize, ins, 0, inputSize);
+
+            final double[] outs = nn.run(ins, null, null);
+
+            for (int o = 0; o < outputSize; o++) {
+                assertEquals(outs[o], outputs[(r * outputSize) + o], eps);
+            }
+        }
+    }
+
+    @Test
+    public void testTrainShards ()
+    {
+        final int inputSize = 6;
+        final int hiddenSize = 4;
+        final int outputSize = 3;
+        final int count = 12;
+        final Random random = new Random(456);
+        final double[][] inputs = new double[count][inputSize];
+        final double[][] desired = new double[count][outputSize];
+
+        for (int r = 0; r < count; r++) {
+            for (int i = 0; i < inputSize; i++) {
+                inputs[r][i] = (2 * random.nextDouble()) - 1;
+            }
+
+            desired[r][random.nextInt(outputSize)] = 1;
+        }
+
+        final NeuralNetwork one = new NeuralNetwork(
+                inputSize,
+                hiddenSize,
+                outputSize,
+                0.5,
+                labels("in", inputSize),
+                labels("out", outputSize),
+                0.4,
+                0.25,
+                2);
+        final NeuralNetwork many = new NeuralNetwork(
+                inputSize,
+                hiddenSize,
+                outputSize,
+                0.5,
+                labels("in", inputSize),
+                labels("out", outputSize),
+                0.4,
+                0.25,
+                2);
+        many.restore(one.backup());
+
+        // One fixed batch per epoch, the second epoch also checks momentum
+        one.setBatchSize(count);
+        many.setBatchSize(count);
+        one.trainBatches(inputs, desired, null, 1, 1);
+        many.trainBatches(inputs, desired, null, 1, 4);
+
+        for (int r = 0; r < count; r++) {
+            final double[] outs1 = one.run(inputs[r], null, null);
+            final double[] outsN = many.run(inputs[r], null, null);
+            assertArrayEquals(outs1, outsN, 1e-9);
+        }
+    }
+
+    @Test
+    public void testTrainBatchSize ()
+    {
+        final int inputSize = 6;
+        final int hiddenSize = 4;
+        final int outputSize = 3;
+        final int count = 8;
+        final Random random = new Random(789);
+        final double[] input = new double[inputSize];
+        final double[] desired = new double[outputSize];
+
+        for (int i = 0; i < inputSize; i++) {
+            input[i] = (2 * random.nextDouble()) - 1;
+        }
+
+        desired[1] = 1;
+
+        // The same pattern, repeated in a batch
+        final double[][] inputs = new double[count][];
+        final double[][] desireds = new double[count][];
+
+        for (int r = 0; r < count; r++) {
+            inputs[r] = input.clone();
+            desireds[r] = desired.clone();
+        }
+
+        final NeuralNetwork single = new NeuralNetwork(
+                inputSize,
+                hiddenSize,
+                outputSize,
+                0.5,
+                labels("in", inputSize),
+                labels("out", outputSize),
+                0.4,
+                0.25,
+                2);
+        final NeuralNetwork batch = new NeuralNetwork(
+                inputSize,
+                hiddenSize,
+                outputSize,
+                0.5,
+                labels("in", inputSize),
+                labels("out", outputSize),
+                0.4,
+                0.25,
+                2);
+        batch.restore(single.backup());
+
+        final double[] before = single.run(input, null, null).clone();
+
+        // One batch per epoch, of 1 pattern vs of count identical patterns
+        single.setBatchSize(1);
+        batch.setBatchSize(count);
+        single.trainBatches(new double[][]{input}, new double[][]{desired}, null, 1, 1);
+        batch.trainBatches(inputs, desireds, null, 1, 1);
+
+        final double[] outs1 = single.run(input, null, null);
+        final double[] outsN = batch.run(input, null, null);
+        assertFalse(Arrays.equals(before, outs1));
+        assertArrayEquals(outs1, outsN, 1e-9);
+    }
+
+    @Test
+    public void testRunBatchEmpty ()
+    {
+        final NeuralNetwork nn = new NeuralNetwork(
+                3,
+                2,
+                2,
+                0.5,
+                labels("in", 3),
+                labels("out", 2));
+        assertEquals(0, nn.runBatch(new double[0], 0, null).length);
+    }
+
+    private static String[] labels (String prefix,
+                                    int count)
+    {
+        final String[] labels = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            labels[i] = prefix + i;
+        }
+
+        return labels;
+    }
+}
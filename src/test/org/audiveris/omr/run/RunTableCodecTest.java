@@ -0,0 +1,166 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                R u n T a b l e C o d e c T e s t                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import static org.audiveris.omr.run.Orientation.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Unit tests for the binary form of RunTable.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunTableCodecTest
+{
+
+    /**
+     * Creates a new <code>RunTableCodecTest</code> object.
+     */
+    public RunTableCodecTest ()
+    {
+    }
+
+    @Test
+    public void testRoundTripHorizontal ()
+        throws IOException
+    {
+        System.out.println("\n+++ roundTripHorizontal");
+
+        RunTable table = createInstance(HORIZONTAL);
+        RunTable result = RunTableCodec.read(new ByteArrayInputStream(encode(table)));
+
+        assertEquals(table, result);
+        assertEquals(table.getWeight(), result.getWeight());
+    }
+
+    @Test
+    public void testRoundTripVertical ()
+        throws IOException
+    {
+        System.out.println("\n+++ roundTripVertical");
+
+        RunTable table = createInstance(VERTICAL);
+        RunTable result = RunTableCodec.read(ByteBuffer.wrap(encode(table)));
+
+        assertEquals(table, result);
+        assertEquals(table.getOrientation(), result.getOrientation());
+    }
+
+    @Test
+    public void testLargeLengths ()
+        throws IOException
+    {
+        System.out.println("\n+++ largeLengths");
+
+        RunTable table = new RunTable(HORIZONTAL, 100_000, 2);
+        table.addRun(0, new Run(0, 127));
+        table.addRun(0, new Run(300, 16_384));
+        table.addRun(1, new Run(99_000, 1_000));
+
+        RunTable result = RunTableCodec.read(new ByteArrayInputStream(encode(table)));
+
+        assertEquals(table, result);
+    }
+
+    @Test
+    public void testIsBinary ()
+        throws IOException
+    {
+        System.out.println("\n+++ isBinary");
+
+        byte[] bytes = encode(createInstance(HORIZONTAL));
+        assertTrue(RunTableCodec.isBinary(Arrays.copyOf(bytes, 4)));
+        assertFalse(RunTableCodec.isBinary("<?xml".getBytes()));
+        assertFalse(RunTableCodec.isBinary(null));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncated ()
+        throws IOException
+    {
+        System.out.println("\n+++ truncated");
+
+        byte[] bytes = encode(createInstance(HORIZONTAL));
+        RunTableCodec.read(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 3)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testHugeCount ()
+        throws IOException
+    {
+        System.out.println("\n+++ hugeCount");
+
+        // Magic, version, orientation, width 10, height 5, then a huge run count
+        byte[] bytes = Arrays.copyOf(encode(createInstance(HORIZONTAL)), 16);
+        bytes[8] = (byte) 0xFF;
+        bytes[9] = (byte) 0xFF;
+        bytes[10] = (byte) 0xFF;
+        bytes[11] = (byte) 0x07;
+        RunTableCodec.read(ByteBuffer.wrap(bytes));
+    }
+
+    @Test(expected = IOException.class)
+    public void testOverflowingRuns ()
+        throws IOException
+    {
+        System.out.println("\n+++ overflowingRuns");
+
+        // Magic, version, orientation, width 10, height 5, then runs longer than width
+        byte[] bytes = Arrays.copyOf(encode(createInstance(HORIZONTAL)), 16);
+        bytes[8] = 2;
+        bytes[9] = 6;
+        bytes[10] = 6;
+        RunTableCodec.read(ByteBuffer.wrap(bytes));
+    }
+
+    private RunTable createInstance (Orientation orientation)
+    {
+        RunTable instance = new RunTable(orientation, 10, 5);
+        int size = instance.getSize();
+
+        instance.addRun(0, new Run(1, 2));
+        instance.addRun(0, new Run(5, 3));
+
+        instance.addRun(1, new Run(0, 1));
+        instance.addRun(1, new Run(4, 1));
+
+        instance.addRun(size - 1, new Run(2, 2));
+
+        return instance;
+    }
+
+    private byte[] encode (RunTable table)
+        throws IOException
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        RunTableCodec.write(table, os);
+
+        return os.toByteArray();
+    }
+}
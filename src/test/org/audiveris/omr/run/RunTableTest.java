@@ -49,6 +49,41 @@ public class RunTableTest
     {
     }
 
+    /**
+     * Test of Builder class, of class RunTable.
+     */
+    @Test
+    public void testBuilder ()
+    {
+        System.out.println("\n+++ builder");
+
+        RunTable expResult = createHorizontalInstance();
+        RunTable.Builder builder = new RunTable.Builder(HORIZONTAL, dim.width, dim.height);
+
+        for (int i = 0; i < expResult.getSize(); i++) {
+            builder.setRle(i, expResult.getRle(i));
+        }
+
+        RunTable result = builder.build();
+        assertEquals(expResult, result);
+        assertEquals(expResult.getWeight(), result.getWeight());
+        assertEquals(expResult.getTotalRunCount(), result.getTotalRunCount());
+        assertEquals(expResult.getRunAt(9, 4), result.getRunAt(9, 4));
+        assertTrue(result.isSequenceEmpty(2));
+        assertEquals(expResult, result.copy());
+
+        // Modifying a packed table
+        Run run = new Run(4, 1);
+        expResult.removeRun(3, run);
+        result.removeRun(3, run);
+        assertEquals(expResult, result);
+
+        expResult.addRun(2, new Run(3, 4));
+        result.addRun(2, new Run(3, 4));
+        assertEquals(expResult, result);
+        assertEquals(expResult.getWeight(), result.getWeight());
+    }
+
     /**
      * Test of copy method, of class RunTable.
      */
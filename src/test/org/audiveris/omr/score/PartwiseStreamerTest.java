@@ -0,0 +1,192 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             P a r t w i s e S t r e a m e r T e s t                            //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.score;
+
+import org.audiveris.proxymusic.Note;
+import org.audiveris.proxymusic.ObjectFactory;
+import org.audiveris.proxymusic.PartList;
+import org.audiveris.proxymusic.PartName;
+import org.audiveris.proxymusic.ScorePart;
+import org.audiveris.proxymusic.ScorePartwise;
+import org.audiveris.proxymusic.util.Marshalling;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class <code>PartwiseStreamerTest</code> checks that the streamed export of a multi-page,
+ * multi-part score gives the same document as a plain ProxyMusic marshalling.
+ *
+ * @author Hervé Bitteur
+ */
+public class PartwiseStreamerTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int PARTS = 3;
+
+    private static final int PAGES = 4;
+
+    private static final int MEASURES_PER_PAGE = 5;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    private final ObjectFactory factory = new ObjectFactory();
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //-------------//
+    // checkStream //
+    //-------------//
+    private void checkStream (boolean signed)
+        throws Exception
+    {
+        // Plain marshalling of the whole score
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        Marshalling.marshal(createScore(null), expected, signed, 2);
+
+        // Streaming of the measures, page after page
+        final List<List<List<ScorePartwise.Part.Measure>>> measures = new ArrayList<>();
+        final ScorePartwise skeleton = createScore(measures);
+        final ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        final PartwiseStreamer streamer = new PartwiseStreamer();
+
+        try {
+            for (List<List<ScorePartwise.Part.Measure>> pageMeasures : measures) {
+                for (int ip = 0; ip < PARTS; ip++) {
+                    streamer.append(skeleton.getPart().get(ip), pageMeasures.get(ip));
+                }
+            }
+
+            streamer.write(skeleton, streamed, signed);
+        } finally {
+            streamer.close();
+        }
+
+        assertEquals(normalize(expected), normalize(streamed));
+    }
+    //-------------//
+    // createScore //
+    //-------------//
+    /**
+     * Create a score, with or without its measures.
+     *
+     * @param measures (output) if not null, the measures are put there per page and part,
+     *                 rather than in score parts
+     * @return the created score
+     */
+    private ScorePartwise createScore (List<List<List<ScorePartwise.Part.Measure>>> measures)
+    {
+        final ScorePartwise scorePartwise = factory.createScorePartwise();
+        scorePartwise.setMovementTitle("Streaming & <marshalling>");
+
+        final PartList partList = factory.createPartList();
+        scorePartwise.setPartList(partList);
+
+        for (int ip = 0; ip < PARTS; ip++) {
+            final ScorePart scorePart = factory.createScorePart();
+            scorePart.setId("P" + (ip + 1));
+
+            final PartName partName = factory.createPartName();
+            partName.setValue("Part #" + (ip + 1));
+            scorePart.setPartName(partName);
+            partList.getPartGroupOrScorePart().add(scorePart);
+
+            final ScorePartwise.Part part = factory.createScorePartwisePart();
+            part.setId(scorePart);
+            scorePartwise.getPart().add(part);
+        }
+
+        for (int page = 0; page < PAGES; page++) {
+            final List<List<ScorePartwise.Part.Measure>> pageMeasures = new ArrayList<>();
+
+            for (int ip = 0; ip < PARTS; ip++) {
+                final List<ScorePartwise.Part.Measure> partMeasures = new ArrayList<>();
+
+                for (int im = 0; im < MEASURES_PER_PAGE; im++) {
+                    final ScorePartwise.Part.Measure measure = factory
+                            .createScorePartwisePartMeasure();
+                    measure.setNumber(Integer.toString((page * MEASURES_PER_PAGE) + im + 1));
+
+                    final Note note = factory.createNote();
+                    note.setRest(factory.createRest());
+                    note.setDuration(new BigDecimal(ip + im + 1));
+                    measure.getNoteOrBackupOrForward().add(note);
+                    partMeasures.add(measure);
+                }
+
+                if (measures != null) {
+                    pageMeasures.add(partMeasures);
+                } else {
+                    scorePartwise.getPart().get(ip).getMeasure().addAll(partMeasures);
+                }
+            }
+
+            if (measures != null) {
+                measures.add(pageMeasures);
+            }
+        }
+
+        return scorePartwise;
+    }
+
+    //------------//
+    // testStream //
+    //------------//
+    @Test
+    public void testStream ()
+        throws Exception
+    {
+        checkStream(false);
+    }
+
+    //------------------//
+    // testStreamSigned //
+    //------------------//
+    @Test
+    public void testStreamSigned ()
+        throws Exception
+    {
+        checkStream(true);
+    }
+
+    //~ Static Methods -----------------------------------------------------------------------------
+
+    //-----------//
+    // normalize //
+    //-----------//
+    /**
+     * Normalize an XML document, by ignoring the white spaces between elements.
+     *
+     * @param os the XML document
+     * @return the normalized string
+     */
+    private static String normalize (ByteArrayOutputStream os)
+    {
+        return os.toString(StandardCharsets.UTF_8).replaceAll(">\\s+<", "><").trim();
+    }
+}
@@ -0,0 +1,190 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 S p a t i a l I n d e x T e s t                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2023. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class <code>SpatialIndexTest</code> checks that <code>SpatialIndex</code> lookups give
+ * the same results as a linear scan on all entities.
+ *
+ * @author Hervé Bitteur
+ */
+public class SpatialIndexTest
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    private final Random random = new Random(123);
+
+    private final List<Box> boxes = new ArrayList<>();
+
+    private final SpatialIndex<Box> index = new SpatialIndex<>();
+
+    //~ Constructors -------------------------------------------------------------------------------
+
+    /**
+     * Creates a new SpatialIndexTest object.
+     */
+    public SpatialIndexTest ()
+    {
+        for (int i = 0; i < 500; i++) {
+            final Box box = new Box(randomRectangle(2000, 60));
+            boxes.add(box);
+            index.insert(box);
+        }
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    //--------------//
+    // checkLookups //
+    //--------------//
+    private void checkLookups ()
+    {
+        for (int i = 0; i < 200; i++) {
+            final Rectangle rect = randomRectangle(2000, 600);
+            assertEquals(
+                    Entities.containedEntities(boxes.iterator(), rect),
+                    index.containedEntities(rect));
+            assertEquals(
+                    Entities.intersectedEntities(boxes.iterator(), rect),
+                    index.intersectedEntities(rect));
+
+            final Point point = new Point(random.nextInt(2000), random.nextInt(2000));
+            assertEquals(
+                    Entities.containingEntities(boxes.iterator(), point),
+                    index.containingEntities(point));
+        }
+    }
+
+    //-----------------//
+    // randomRectangle //
+    //-----------------//
+    private Rectangle randomRectangle (int range,
+                                      int maxSide)
+    {
+        return new Rectangle(
+                random.nextInt(range) - 20,
+                random.nextInt(range) - 20,
+                1 + random.nextInt(maxSide),
+                1 + random.nextInt(maxSide));
+    }
+
+    //------------//
+    // testLookup //
+    //------------//
+    @Test
+    public void testLookup ()
+    {
+        checkLookups();
+    }
+
+    //--------------//
+    // testNoBounds //
+    //--------------//
+    @Test
+    public void testNoBounds ()
+    {
+        final List<Box> late = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            final Box box = new Box(null);
+            late.add(box);
+            boxes.add(box);
+            index.insert(box);
+        }
+
+        checkLookups();
+
+        // Bounds assigned later, with no notification
+        for (Box box : late) {
+            box.bounds = randomRectangle(2000, 60);
+        }
+
+        checkLookups();
+    }
+
+    //------------//
+    // testRemove //
+    //------------//
+    @Test
+    public void testRemove ()
+    {
+        for (int i = 0; i < 100; i++) {
+            final Box box = boxes.remove(random.nextInt(boxes.size()));
+            index.remove(box);
+        }
+
+        assertEquals(boxes.size(), index.size());
+        checkLookups();
+    }
+
+    //------------//
+    // testUpdate //
+    //------------//
+    @Test
+    public void testUpdate ()
+    {
+        for (int i = 0; i < 100; i++) {
+            final Box box = boxes.get(random.nextInt(boxes.size()));
+            box.bounds = randomRectangle(2000, 60);
+            index.update(box);
+        }
+
+        checkLookups();
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+
+    //-----//
+    // Box //
+    //-----//
+    private static class Box
+            extends AbstractEntity
+    {
+        Rectangle bounds;
+
+        Box (Rectangle bounds)
+        {
+            this.bounds = bounds;
+        }
+
+        @Override
+        public boolean contains (Point point)
+        {
+            return (bounds != null) && bounds.contains(point);
+        }
+
+        @Override
+        public Rectangle getBounds ()
+        {
+            return (bounds != null) ? new Rectangle(bounds) : null;
+        }
+    }
+}